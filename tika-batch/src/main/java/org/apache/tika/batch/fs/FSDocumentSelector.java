@@ -31,6 +31,11 @@ import org.apache.tika.util.PropsUtil;
  * The {@link #excludeFileName} pattern is applied first (if it isn't null).
  * Then the {@link #includeFileName} pattern is applied (if it isn't null),
  * and finally, the size limit is applied if it is above 0.
+ * <p/>
+ * If {@link #numShards} is greater than 1, only files whose relative path
+ * ({@link FSProperties#FS_REL_PATH}) hashes to {@link #shard} are selected.
+ * This lets independent processes each work on their own partition of the
+ * same input directory.
  */
 public class FSDocumentSelector implements DocumentSelector {
 
@@ -41,12 +46,33 @@ public class FSDocumentSelector implements DocumentSelector {
     private final Pattern excludeFileName;
     private final long maxFileSizeBytes;
     private final long minFileSizeBytes;
+    private final int numShards;
+    private final int shard;
 
     public FSDocumentSelector(Pattern includeFileName, Pattern excludeFileName, long minFileSizeBytes, long maxFileSizeBytes) {
+        this(includeFileName, excludeFileName, minFileSizeBytes, maxFileSizeBytes, 1, 0);
+    }
+
+    public FSDocumentSelector(Pattern includeFileName, Pattern excludeFileName, long minFileSizeBytes, long maxFileSizeBytes, int numShards, int shard) {
+        if (numShards < 1 || shard < 0 || shard >= numShards) {
+            throw new IllegalArgumentException("shard (" + shard + ") must be >= 0 and < numShards (" + numShards + ")");
+        }
         this.includeFileName = includeFileName;
         this.excludeFileName = excludeFileName;
         this.minFileSizeBytes = minFileSizeBytes;
         this.maxFileSizeBytes = maxFileSizeBytes;
+        this.numShards = numShards;
+        this.shard = shard;
+    }
+
+    /**
+     * @param relPath   path of the file relative to the input directory
+     * @param numShards number of shards
+     * @return the shard, from 0 to numShards-1, to which the file belongs
+     */
+    public static int getShard(String relPath, int numShards) {
+        //normalize so that shards are stable across platforms
+        return Math.floorMod(relPath.replace('\\', '/').hashCode(), numShards);
     }
 
     @Override
@@ -74,7 +100,16 @@ public class FSDocumentSelector implements DocumentSelector {
 
         if (includeFileName != null && fName != null) {
             Matcher m = includeFileName.matcher(fName);
-            return m.find();
+            if (!m.find()) {
+                return false;
+            }
+        }
+
+        if (numShards > 1) {
+            String relPath = metadata.get(FSProperties.FS_REL_PATH);
+            if (relPath != null) {
+                return getShard(relPath, numShards) == shard;
+            }
         }
         return true;
     }
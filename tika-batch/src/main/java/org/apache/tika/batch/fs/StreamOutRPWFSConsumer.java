@@ -21,8 +21,6 @@ package org.apache.tika.batch.fs;
 import java.io.IOException;
 import java.io.InputStream;
 import java.io.OutputStream;
-import java.io.OutputStreamWriter;
-import java.nio.charset.StandardCharsets;
 import java.util.concurrent.ArrayBlockingQueue;
 
 import org.apache.commons.io.IOUtils;
@@ -89,7 +87,7 @@ public class StreamOutRPWFSConsumer extends AbstractFSConsumer {
         }
 
         Metadata containerMetadata = fileResource.getMetadata();
-        JsonStreamingSerializer writer = new JsonStreamingSerializer(new OutputStreamWriter(os, StandardCharsets.UTF_8));
+        JsonStreamingSerializer writer = new JsonStreamingSerializer(os);
 
         WriteoutRPWHandler handler = new WriteoutRPWHandler(contentHandlerFactory, writer, metadataFilter);
         Throwable thrown = null;
@@ -100,6 +98,7 @@ public class StreamOutRPWFSConsumer extends AbstractFSConsumer {
         } finally {
             try {
                 writer.close();
+                os.close();
             } catch (IOException e) {
                 //this is a stop the world kind of thing
                 LOG.error("{}", getXMLifiedLogMsg(IO_OS + "json", fileResource.getResourceId(), e));
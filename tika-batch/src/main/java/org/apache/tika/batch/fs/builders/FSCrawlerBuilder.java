@@ -60,6 +60,9 @@ public class FSCrawlerBuilder implements ICrawlerBuilder {
     private final static String INCLUDE_FILE_PAT_ATTR = "includeFilePat";
     private final static String EXCLUDE_FILE_PAT_ATTR = "excludeFilePat";
 
+    private final static String NUM_SHARDS_ATTR = "numShards";
+    private final static String SHARD_ATTR = "shard";
+
     @Override
     public FileResourceCrawler build(Node node, Map<String, String> runtimeAttributes, ArrayBlockingQueue<FileResource> queue) {
 
@@ -135,8 +138,10 @@ public class FSCrawlerBuilder implements ICrawlerBuilder {
         long minFileSize = PropsUtil.getLong(attributes.get(MIN_FILE_SIZE_BYTES_ATTR), -1L);
         Pattern includePat = (includeString != null && includeString.length() > 0) ? Pattern.compile(includeString) : null;
         Pattern excludePat = (excludeString != null && excludeString.length() > 0) ? Pattern.compile(excludeString) : null;
+        int numShards = PropsUtil.getInt(attributes.get(NUM_SHARDS_ATTR), 1);
+        int shard = PropsUtil.getInt(attributes.get(SHARD_ATTR), 0);
 
-        return new FSDocumentSelector(includePat, excludePat, minFileSize, maxFileSize);
+        return new FSDocumentSelector(includePat, excludePat, minFileSize, maxFileSize, numShards, shard);
     }
 
 
@@ -0,0 +1,74 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.tika.batch.fs;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.regex.Pattern;
+
+import org.junit.jupiter.api.Test;
+
+import org.apache.tika.metadata.Metadata;
+import org.apache.tika.metadata.TikaCoreProperties;
+
+public class FSDocumentSelectorTest {
+
+    @Test
+    public void testShards() throws Exception {
+        int numShards = 4;
+        FSDocumentSelector[] selectors = new FSDocumentSelector[numShards];
+        for (int i = 0; i < numShards; i++) {
+            selectors[i] = new FSDocumentSelector(null, null, -1, -1, numShards, i);
+        }
+        int[] counts = new int[numShards];
+        for (int f = 0; f < 1000; f++) {
+            Metadata metadata = getMetadata("dir" + (f % 7) + "/file" + f + ".pdf");
+            int selected = 0;
+            for (int i = 0; i < numShards; i++) {
+                if (selectors[i].select(metadata)) {
+                    selected++;
+                    counts[i]++;
+                }
+            }
+            assertEquals(1, selected);
+        }
+        for (int count : counts) {
+            assertTrue(count > 150, "uneven shards: " + count);
+        }
+        assertEquals(FSDocumentSelector.getShard("dir1/file1.pdf", numShards), FSDocumentSelector.getShard("dir1\\file1.pdf", numShards));
+    }
+
+    @Test
+    public void testShardsAndPatterns() throws Exception {
+        Metadata metadata = getMetadata("dir/file.pdf");
+        int shard = FSDocumentSelector.getShard("dir/file.pdf", 3);
+        assertTrue(new FSDocumentSelector(Pattern.compile("pdf$"), null, -1, -1, 3, shard).select(metadata));
+        assertFalse(new FSDocumentSelector(Pattern.compile("doc$"), null, -1, -1, 3, shard).select(metadata));
+        assertFalse(new FSDocumentSelector(Pattern.compile("pdf$"), null, -1, -1, 3, (shard + 1) % 3).select(metadata));
+        assertThrows(IllegalArgumentException.class, () -> new FSDocumentSelector(null, null, -1, -1, 3, 3));
+    }
+
+    private static Metadata getMetadata(String relPath) {
+        Metadata metadata = new Metadata();
+        metadata.set(TikaCoreProperties.RESOURCE_NAME_KEY, relPath.substring(relPath.lastIndexOf('/') + 1));
+        metadata.set(FSProperties.FS_REL_PATH, relPath);
+        return metadata;
+    }
+}
@@ -38,8 +38,11 @@ import org.apache.tika.metadata.TikaCoreProperties;
 import org.apache.tika.parser.DelegatingParser;
 import org.apache.tika.parser.ParseContext;
 import org.apache.tika.parser.ParseRecord;
+import org.apache.tika.parser.ParseTiming;
+import org.apache.tika.parser.ParseTimingListener;
 import org.apache.tika.parser.Parser;
 import org.apache.tika.sax.BodyContentHandler;
+import org.apache.tika.sax.CharacterCountingContentHandler;
 import org.apache.tika.sax.EmbeddedContentHandler;
 
 /**
@@ -108,8 +111,14 @@ public class ParsingEmbeddedDocumentExtractor implements EmbeddedDocumentExtract
                     newStream.setOpenContainer(container);
                 }
             }
-            DELEGATING_PARSER.parse(newStream, new EmbeddedContentHandler(new BodyContentHandler(handler)),
-                    metadata, context);
+            ParseTimingListener timingListener = context.get(ParseTimingListener.class);
+            if (timingListener == null) {
+                DELEGATING_PARSER.parse(newStream,
+                        new EmbeddedContentHandler(new BodyContentHandler(handler)), metadata,
+                        context);
+            } else {
+                parseTimed(newStream, handler, metadata, timingListener);
+            }
         } catch (EncryptedDocumentException ede) {
             recordException(ede, context);
         } catch (CorruptedFileException e) {
@@ -125,6 +134,28 @@ public class ParsingEmbeddedDocumentExtractor implements EmbeddedDocumentExtract
         }
     }
 
+    private void parseTimed(TikaInputStream stream, ContentHandler handler, Metadata metadata,
+                            ParseTimingListener timingListener)
+            throws IOException, SAXException, TikaException {
+        ParseRecord record = context.get(ParseRecord.class);
+        int depth = record != null ? record.getDepth() + 1 : 1;
+        CharacterCountingContentHandler countingHandler =
+                new CharacterCountingContentHandler(handler);
+        long startCpu = ParseTiming.currentThreadCpuNanos();
+        long startNanos = System.nanoTime();
+        try {
+            DELEGATING_PARSER.parse(stream,
+                    new EmbeddedContentHandler(new BodyContentHandler(countingHandler)), metadata,
+                    context);
+        } finally {
+            long wallNanos = System.nanoTime() - startNanos;
+            long cpuNanos = startCpu < 0 ? -1 : ParseTiming.currentThreadCpuNanos() - startCpu;
+            timingListener.embeddedDocumentFinished(
+                    new ParseTiming(null, depth, metadata, wallNanos, cpuNanos,
+                            stream.getPosition(), countingHandler.getCount()));
+        }
+    }
+
     void recordException(Exception e, ParseContext context) {
         ParseRecord record = context.get(ParseRecord.class);
         if (record == null) {
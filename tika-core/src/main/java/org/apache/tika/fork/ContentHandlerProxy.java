@@ -19,12 +19,24 @@ package org.apache.tika.fork;
 import java.io.DataInputStream;
 import java.io.DataOutputStream;
 import java.io.IOException;
+import java.util.Arrays;
 
 import org.xml.sax.Attributes;
 import org.xml.sax.ContentHandler;
 import org.xml.sax.Locator;
 import org.xml.sax.SAXException;
 
+/**
+ * Forwards SAX events from the forked server process back to the
+ * {@link ContentHandlerResource} in the client process.
+ * <p>
+ * Events are encoded into a block buffer and sent as one frame once the
+ * buffer holds at least <code>bufferSize</code> bytes, at
+ * {@link #endDocument()}, or when the server has finished the call
+ * (see {@link #flush()}).  Strings and character data are written as
+ * length-prefixed runs of UTF-16 code units, so no intermediate
+ * <code>String</code>s are created.
+ */
 class ContentHandlerProxy implements ContentHandler, ForkProxy {
 
     public static final int START_DOCUMENT = 1;
@@ -38,6 +50,13 @@ class ContentHandlerProxy implements ContentHandler, ForkProxy {
     public static final int PROCESSING_INSTRUCTION = 9;
     public static final int SKIPPED_ENTITY = 10;
 
+    /**
+     * Frame that holds a block of encoded events, preceded by its length
+     */
+    public static final int EVENTS = 11;
+
+    public static final int DEFAULT_BUFFER_SIZE = 64 * 1024;
+
     /**
      * Serial version UID
      */
@@ -45,70 +64,113 @@ class ContentHandlerProxy implements ContentHandler, ForkProxy {
 
     private final int resource;
 
+    private final int bufferSize;
+
     private transient DataOutputStream output;
 
+    private transient byte[] buffer;
+
+    private transient int count;
+
     public ContentHandlerProxy(int resource) {
+        this(resource, DEFAULT_BUFFER_SIZE);
+    }
+
+    /**
+     * @param resource   id of the resource in the client
+     * @param bufferSize number of bytes after which the buffered events are
+     *                   sent; if &lt;= 0, every event is sent immediately
+     */
+    public ContentHandlerProxy(int resource, int bufferSize) {
         this.resource = resource;
+        this.bufferSize = bufferSize;
     }
 
     public void init(DataInputStream input, DataOutputStream output) {
         this.output = output;
+        this.buffer = new byte[Math.max(bufferSize, 0) + 1024];
+        this.count = 0;
     }
 
-    private void sendRequest(int type) throws SAXException {
-        try {
-            output.writeByte(ForkServer.RESOURCE);
-            output.writeByte(resource);
-            output.writeByte(type);
-        } catch (IOException e) {
-            throw new SAXException("Unexpected fork proxy problem", e);
+    /**
+     * Sends the buffered events, if any, to the client.
+     *
+     * @throws IOException if the events could not be sent
+     */
+    @Override
+    public void flush() throws IOException {
+        if (count == 0) {
+            return;
         }
+        output.writeByte(ForkServer.RESOURCE);
+        output.writeByte(resource);
+        output.writeByte(EVENTS);
+        output.writeInt(count);
+        output.write(buffer, 0, count);
+        output.flush();
+        count = 0;
     }
 
-    private void sendString(String string) throws SAXException {
-        try {
-            if (string != null) {
-                output.writeBoolean(true);
-                writeString(string);
-            } else {
-                output.writeBoolean(false);
-            }
-        } catch (IOException e) {
-            throw new SAXException("Unexpected fork proxy problem", e);
-        }
+    private void sendRequest(int type) {
+        ensureCapacity(1);
+        buffer[count++] = (byte) type;
     }
 
-    /**
-     * Breaks the string in 21,845 size chunks to not
-     * throw UTFDataFormatException at least in Oracle JDK 8.
-     */
-    private void writeString(String string) throws IOException {
-        int max = 65535 / 3;
-        int frags = (int) Math.ceil((double) string.length() / max);
-        output.writeInt(frags);
-        int i = 0;
-        while (i < frags) {
-            int end = (i < frags - 1) ? (i + 1) * max : string.length();
-            output.writeUTF(string.substring(i * max, end));
-            i++;
+    private void sendInt(int v) {
+        ensureCapacity(4);
+        buffer[count++] = (byte) (v >>> 24);
+        buffer[count++] = (byte) (v >>> 16);
+        buffer[count++] = (byte) (v >>> 8);
+        buffer[count++] = (byte) v;
+    }
+
+    private void sendString(String string) {
+        if (string == null) {
+            sendInt(-1);
+            return;
+        }
+        int length = string.length();
+        sendInt(length);
+        ensureCapacity(2 * length);
+        for (int i = 0; i < length; i++) {
+            char c = string.charAt(i);
+            buffer[count++] = (byte) (c >>> 8);
+            buffer[count++] = (byte) c;
         }
     }
 
-    private void sendCharacters(char[] ch, int start, int length) throws SAXException {
-        try {
-            writeString(new String(ch, start, length));
+    private void sendCharacters(char[] ch, int start, int length) {
+        sendInt(length);
+        ensureCapacity(2 * length);
+        for (int i = start; i < start + length; i++) {
+            char c = ch[i];
+            buffer[count++] = (byte) (c >>> 8);
+            buffer[count++] = (byte) c;
+        }
+    }
 
-        } catch (IOException e) {
-            throw new SAXException("Unexpected fork proxy problem", e);
+    private void ensureCapacity(int extra) {
+        if (count + extra > buffer.length) {
+            buffer = Arrays.copyOf(buffer, Math.max(buffer.length * 2, count + extra));
         }
     }
 
     private void doneSending() throws SAXException {
+        if (count >= bufferSize) {
+            send();
+        }
+    }
+
+    private void send() throws SAXException {
         try {
-            output.flush();
+            flush();
         } catch (IOException e) {
             throw new SAXException("Unexpected fork proxy problem", e);
         }
+        if (buffer.length > 2 * bufferSize + 1024) {
+            //don't hold on to the buffer grown by one very large event
+            buffer = new byte[Math.max(bufferSize, 0) + 1024];
+        }
     }
 
     public void setDocumentLocator(Locator locator) {
@@ -122,7 +184,7 @@ class ContentHandlerProxy implements ContentHandler, ForkProxy {
 
     public void endDocument() throws SAXException {
         sendRequest(END_DOCUMENT);
-        doneSending();
+        send();
     }
 
     public void startPrefixMapping(String prefix, String uri) throws SAXException {
@@ -148,11 +210,7 @@ class ContentHandlerProxy implements ContentHandler, ForkProxy {
         if (atts != null) {
             n = atts.getLength();
         }
-        try {
-            output.writeInt(n);
-        } catch (IOException e) {
-            throw new SAXException("Unexpected fork proxy problem", e);
-        }
+        sendInt(n);
         for (int i = 0; i < n; i++) {
             sendString(atts.getURI(i));
             sendString(atts.getLocalName(i));
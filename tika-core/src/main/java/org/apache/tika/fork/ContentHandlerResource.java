@@ -28,6 +28,12 @@ class ContentHandlerResource implements ForkResource {
 
     private final ContentHandler handler;
 
+    private byte[] buffer = new byte[0];
+
+    private char[] chars = new char[0];
+
+    private int pos;
+
     public ContentHandlerResource(ContentHandler handler) {
         this.handler = handler;
     }
@@ -43,65 +49,99 @@ class ContentHandlerResource implements ForkResource {
 
     private void internalProcess(DataInputStream input) throws IOException, SAXException {
         int type = input.readUnsignedByte();
+        if (type != ContentHandlerProxy.EVENTS) {
+            throw new IOException("Unexpected content handler frame: " + type);
+        }
+        int length = input.readInt();
+        if (buffer.length < length) {
+            buffer = new byte[length];
+        }
+        input.readFully(buffer, 0, length);
+        pos = 0;
+        while (pos < length) {
+            processEvent(buffer[pos++]);
+        }
+    }
+
+    private void processEvent(int type) throws IOException, SAXException {
         if (type == ContentHandlerProxy.START_DOCUMENT) {
             handler.startDocument();
         } else if (type == ContentHandlerProxy.END_DOCUMENT) {
             handler.endDocument();
         } else if (type == ContentHandlerProxy.START_PREFIX_MAPPING) {
-            handler.startPrefixMapping(readString(input), readString(input));
+            handler.startPrefixMapping(readString(), readString());
         } else if (type == ContentHandlerProxy.END_PREFIX_MAPPING) {
-            handler.endPrefixMapping(readString(input));
+            handler.endPrefixMapping(readString());
         } else if (type == ContentHandlerProxy.START_ELEMENT) {
-            String uri = readString(input);
-            String localName = readString(input);
-            String qName = readString(input);
+            String uri = readString();
+            String localName = readString();
+            String qName = readString();
             AttributesImpl atts = null;
-            int n = input.readInt();
+            int n = readInt();
             if (n >= 0) {
                 atts = new AttributesImpl();
                 for (int i = 0; i < n; i++) {
-                    atts.addAttribute(readString(input), readString(input), readString(input),
-                            readString(input), readString(input));
+                    atts.addAttribute(readString(), readString(), readString(),
+                            readString(), readString());
                 }
             }
             handler.startElement(uri, localName, qName, atts);
         } else if (type == ContentHandlerProxy.END_ELEMENT) {
-            String uri = readString(input);
-            String localName = readString(input);
-            String qName = readString(input);
+            String uri = readString();
+            String localName = readString();
+            String qName = readString();
             handler.endElement(uri, localName, qName);
         } else if (type == ContentHandlerProxy.CHARACTERS) {
-            char[] ch = readCharacters(input);
-            handler.characters(ch, 0, ch.length);
+            int length = readCharacters();
+            handler.characters(chars, 0, length);
         } else if (type == ContentHandlerProxy.IGNORABLE_WHITESPACE) {
-            char[] ch = readCharacters(input);
-            handler.characters(ch, 0, ch.length);
+            int length = readCharacters();
+            handler.characters(chars, 0, length);
         } else if (type == ContentHandlerProxy.PROCESSING_INSTRUCTION) {
-            handler.processingInstruction(readString(input), readString(input));
+            handler.processingInstruction(readString(), readString());
         } else if (type == ContentHandlerProxy.SKIPPED_ENTITY) {
-            handler.skippedEntity(readString(input));
+            handler.skippedEntity(readString());
+        } else {
+            throw new IOException("Unexpected content handler event: " + type);
         }
     }
 
-    private String readString(DataInputStream input) throws IOException {
-        if (input.readBoolean()) {
-            return readStringUTF(input);
-        } else {
+    private int readInt() {
+        int v = ((buffer[pos] & 0xFF) << 24) | ((buffer[pos + 1] & 0xFF) << 16) |
+                ((buffer[pos + 2] & 0xFF) << 8) | (buffer[pos + 3] & 0xFF);
+        pos += 4;
+        return v;
+    }
+
+    private String readString() {
+        int length = readInt();
+        if (length < 0) {
             return null;
         }
+        decode(length);
+        return new String(chars, 0, length);
     }
 
-    private char[] readCharacters(DataInputStream input) throws IOException {
-        return readStringUTF(input).toCharArray();
+    /**
+     * Decodes the next run of characters into {@link #chars}, which is
+     * reused; handlers must not hold on to the array, as per the SAX contract.
+     *
+     * @return the number of characters
+     */
+    private int readCharacters() {
+        int length = readInt();
+        decode(length);
+        return length;
     }
 
-    private String readStringUTF(DataInputStream input) throws IOException {
-        int frags = input.readInt();
-        StringBuilder sb = new StringBuilder();
-        for (int i = 0; i < frags; i++) {
-            sb.append(input.readUTF());
+    private void decode(int length) {
+        if (chars.length < length) {
+            chars = new char[Math.max(length, 2 * chars.length)];
+        }
+        for (int i = 0; i < length; i++) {
+            chars[i] = (char) (((buffer[pos] & 0xFF) << 8) | (buffer[pos + 1] & 0xFF));
+            pos += 2;
         }
-        return sb.toString();
     }
 
 }
@@ -38,6 +38,7 @@ import org.apache.commons.io.IOUtils;
 import org.xml.sax.ContentHandler;
 
 import org.apache.tika.exception.TikaException;
+import org.apache.tika.io.TikaInputStream;
 import org.apache.tika.sax.AbstractRecursiveParserWrapperHandler;
 import org.apache.tika.sax.RecursiveParserWrapperHandler;
 import org.apache.tika.utils.ProcessUtils;
@@ -62,6 +63,8 @@ class ForkClient {
 
     private volatile int filesProcessed = 0;
 
+    private int contentHandlerBufferSize = ContentHandlerProxy.DEFAULT_BUFFER_SIZE;
+
     public ForkClient(Path tikaDir, ParserFactoryFactory parserFactoryFactory, List<String> java,
                       TimeoutLimits timeoutLimits) throws IOException, TikaException {
         this(tikaDir, parserFactoryFactory, null, java, timeoutLimits);
@@ -260,6 +263,14 @@ class ForkClient {
         return waitForResponse(r);
     }
 
+    /**
+     * @param contentHandlerBufferSize number of bytes of SAX events that the server
+     *                                 buffers before sending them back
+     */
+    void setContentHandlerBufferSize(int contentHandlerBufferSize) {
+        this.contentHandlerBufferSize = contentHandlerBufferSize;
+    }
+
     public int getFilesProcessed() {
         return filesProcessed;
     }
@@ -277,7 +288,8 @@ class ForkClient {
         int n = resources.size();
         if (object instanceof InputStream) {
             resources.add(new InputStreamResource((InputStream) object));
-            object = new InputStreamProxy(n);
+            object = new InputStreamProxy(n, InputStreamProxy.DEFAULT_READ_AHEAD,
+                    getBackingFile((InputStream) object));
         } else if (object instanceof RecursiveParserWrapperHandler) {
             resources.add(new RecursiveMetadataContentHandlerResource(
                     (RecursiveParserWrapperHandler) object));
@@ -286,7 +298,7 @@ class ForkClient {
         } else if (object instanceof ContentHandler &&
                 !(object instanceof AbstractRecursiveParserWrapperHandler)) {
             resources.add(new ContentHandlerResource((ContentHandler) object));
-            object = new ContentHandlerProxy(n);
+            object = new ContentHandlerProxy(n, contentHandlerBufferSize);
         } else if (object instanceof ClassLoader) {
             resources.add(new ClassLoaderResource((ClassLoader) object));
             object = new ClassLoaderProxy(n);
@@ -303,6 +315,23 @@ class ForkClient {
         waitForResponse(resources);
     }
 
+    /**
+     * @return the absolute path of the file that backs the stream if the
+     * forked server can read the document from it directly, otherwise <code>null</code>
+     */
+    private static String getBackingFile(InputStream stream) throws IOException {
+        if (stream instanceof TikaInputStream) {
+            TikaInputStream tis = (TikaInputStream) stream;
+            if (tis.hasFile() && tis.getPosition() == 0) {
+                return tis
+                        .getPath()
+                        .toAbsolutePath()
+                        .toString();
+            }
+        }
+        return null;
+    }
+
     public synchronized void close() {
         try {
             if (output != null) {
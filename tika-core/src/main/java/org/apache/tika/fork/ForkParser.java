@@ -80,6 +80,9 @@ public class ForkParser implements Parser, Closeable {
     @Field
     private int maxFilesProcessedPerClient = -1;
 
+    @Field
+    private int contentHandlerBufferSize = ContentHandlerProxy.DEFAULT_BUFFER_SIZE;
+
     /**
      * If you have a directory with, say, tike-app.jar and you want the
      * forked process/server to build a parser
@@ -314,18 +317,21 @@ public class ForkParser implements Parser, Closeable {
     private ForkClient newClient() throws IOException, TikaException {
         TimeoutLimits timeoutLimits = new TimeoutLimits(serverPulseMillis, serverParseTimeoutMillis,
                 serverWaitTimeoutMillis);
+        ForkClient client;
         if (loader == null && parser == null && tikaBin != null && parserFactoryFactory != null) {
-            return new ForkClient(tikaBin, parserFactoryFactory, java, timeoutLimits);
+            client = new ForkClient(tikaBin, parserFactoryFactory, java, timeoutLimits);
         } else if (loader != null && parser != null && tikaBin == null &&
                 parserFactoryFactory == null) {
-            return new ForkClient(loader, parser, java, timeoutLimits);
+            client = new ForkClient(loader, parser, java, timeoutLimits);
         } else if (loader != null && parser == null && tikaBin != null &&
                 parserFactoryFactory != null) {
-            return new ForkClient(tikaBin, parserFactoryFactory, loader, java, timeoutLimits);
+            client = new ForkClient(tikaBin, parserFactoryFactory, loader, java, timeoutLimits);
         } else {
             //TODO: make this more useful
             throw new IllegalStateException("Unexpected combination of state items");
         }
+        client.setContentHandlerBufferSize(contentHandlerBufferSize);
+        return client;
     }
 
     private synchronized void releaseClient(ForkClient client, boolean alive) {
@@ -391,4 +397,20 @@ public class ForkParser implements Parser, Closeable {
         this.maxFilesProcessedPerClient = maxFilesProcessedPerClient;
     }
 
+    /**
+     * The forked server buffers the SAX events for the content handler and
+     * sends them back in blocks of about this many bytes, and at the end of
+     * the document.  Default value is 64kB.
+     *
+     * @param contentHandlerBufferSize number of bytes to buffer. If &lt;= 0, every
+     *                                 event is sent back as soon as it is produced.
+     */
+    public void setContentHandlerBufferSize(int contentHandlerBufferSize) {
+        this.contentHandlerBufferSize = contentHandlerBufferSize;
+    }
+
+    public int getContentHandlerBufferSize() {
+        return contentHandlerBufferSize;
+    }
+
 }
@@ -18,10 +18,21 @@ package org.apache.tika.fork;
 
 import java.io.DataInputStream;
 import java.io.DataOutputStream;
+import java.io.IOException;
 import java.io.Serializable;
 
 public interface ForkProxy extends Serializable {
 
     void init(DataInputStream input, DataOutputStream output);
 
+    /**
+     * Called by the server when the call that this proxy was passed to
+     * has finished, before the result is sent.  Proxies that buffer their
+     * output must send it here.
+     *
+     * @throws IOException if the buffered output could not be sent
+     */
+    default void flush() throws IOException {
+    }
+
 }
@@ -17,6 +17,7 @@
 package org.apache.tika.fork;
 
 import java.io.ByteArrayInputStream;
+import java.io.Closeable;
 import java.io.DataInputStream;
 import java.io.DataOutputStream;
 import java.io.IOException;
@@ -242,8 +243,10 @@ class ForkServer implements Runnable {
             }
             try {
                 method.invoke(object, args);
+                flushProxies(args);
                 output.write(DONE);
             } catch (InvocationTargetException e) {
+                flushProxies(args);
                 output.write(ERROR);
                 // Try to send the underlying Exception itself
                 Throwable toSend = e.getCause();
@@ -256,6 +259,8 @@ class ForkServer implements Runnable {
                     ForkObjectInputStream.sendObject(te, output);
                 }
 
+            } finally {
+                closeProxies(args);
             }
         } finally {
             synchronized (lock) {
@@ -265,6 +270,35 @@ class ForkServer implements Runnable {
         }
     }
 
+    /**
+     * Sends anything still buffered by the proxies, which
+     * must reach the client before the call's result.
+     */
+    private void flushProxies(Object[] args) throws IOException {
+        for (Object arg : args) {
+            if (arg instanceof ForkProxy) {
+                ((ForkProxy) arg).flush();
+            }
+        }
+    }
+
+    /**
+     * Closes the proxies that hold resources in this process, such as the
+     * file that an {@link InputStreamProxy} reads, as parsers don't close
+     * the streams that they are given.
+     */
+    private void closeProxies(Object[] args) {
+        for (Object arg : args) {
+            if (arg instanceof ForkProxy && arg instanceof Closeable) {
+                try {
+                    ((Closeable) arg).close();
+                } catch (IOException e) {
+                    //swallow
+                }
+            }
+        }
+    }
+
     private Method getMethod(Object object, String name) {
         Class<?> klass = object.getClass();
         while (klass != null) {
@@ -16,13 +16,32 @@
  */
 package org.apache.tika.fork;
 
+import java.io.BufferedInputStream;
 import java.io.DataInputStream;
 import java.io.DataOutputStream;
 import java.io.IOException;
 import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.Paths;
 
+/**
+ * Stream in the forked server process that reads the document from
+ * the {@link InputStreamResource} in the client process.
+ * <p>
+ * Rather than asking the client for exactly the number of bytes that the
+ * parser wants, every request grants the client a credit of
+ * <code>readAhead</code> bytes, which it fills as far as its stream allows.
+ * Small reads are then served from the local buffer without a round trip.
+ * The client never sends more than it has been granted, so the pipe can't
+ * fill up with data that the server isn't waiting for.
+ * <p>
+ * If the client's stream is backed by a file, the server reads that file
+ * directly and the pipe is not used at all.
+ */
 class InputStreamProxy extends InputStream implements ForkProxy {
 
+    public static final int DEFAULT_READ_AHEAD = 64 * 1024;
+
     /**
      * Serial version UID
      */
@@ -30,35 +49,119 @@ class InputStreamProxy extends InputStream implements ForkProxy {
 
     private final int resource;
 
+    private final int readAhead;
+
+    /**
+     * Path of the file that backs the client's stream, or <code>null</code>
+     */
+    private final String path;
+
     private transient DataInputStream input;
 
     private transient DataOutputStream output;
 
+    private transient InputStream file;
+
+    private transient byte[] buffer;
+
+    private transient int pos;
+
+    private transient int count;
+
+    private transient boolean eof;
+
     public InputStreamProxy(int resource) {
+        this(resource, DEFAULT_READ_AHEAD, null);
+    }
+
+    /**
+     * @param resource  id of the resource in the client
+     * @param readAhead number of bytes to request from the client at a time
+     * @param path      file that backs the client's stream, may be <code>null</code>
+     */
+    public InputStreamProxy(int resource, int readAhead, String path) {
         this.resource = resource;
+        this.readAhead = Math.max(readAhead, 1);
+        this.path = path;
     }
 
     public void init(DataInputStream input, DataOutputStream output) {
         this.input = input;
         this.output = output;
+        this.buffer = new byte[readAhead];
+        if (path != null) {
+            try {
+                file = new BufferedInputStream(Files.newInputStream(Paths.get(path)), readAhead);
+            } catch (IOException | SecurityException e) {
+                //fall back to reading through the pipe
+                file = null;
+            }
+        }
     }
 
     @Override
     public int read() throws IOException {
-        output.writeByte(ForkServer.RESOURCE);
-        output.writeByte(resource);
-        output.writeInt(1);
-        output.flush();
-        int n = input.readInt();
-        if (n == 1) {
-            return input.readUnsignedByte();
-        } else {
-            return n;
+        if (file != null) {
+            return file.read();
+        }
+        if (pos >= count && !fill()) {
+            return -1;
         }
+        return buffer[pos++] & 0xFF;
     }
 
     @Override
     public int read(byte[] b, int off, int len) throws IOException {
+        if (file != null) {
+            return file.read(b, off, len);
+        }
+        if (len == 0) {
+            return 0;
+        }
+        if (pos >= count) {
+            if (eof) {
+                return -1;
+            }
+            if (len >= readAhead) {
+                //large reads go straight into the caller's array
+                int n = request(b, off, len);
+                return n > 0 ? n : -1;
+            }
+            if (!fill()) {
+                return -1;
+            }
+        }
+        int n = Math.min(len, count - pos);
+        System.arraycopy(buffer, pos, b, off, n);
+        pos += n;
+        return n;
+    }
+
+    @Override
+    public int available() throws IOException {
+        if (file != null) {
+            return file.available();
+        }
+        return count - pos;
+    }
+
+    @Override
+    public void close() throws IOException {
+        if (file != null) {
+            file.close();
+        }
+    }
+
+    private boolean fill() throws IOException {
+        if (eof) {
+            return false;
+        }
+        pos = 0;
+        count = Math.max(request(buffer, 0, buffer.length), 0);
+        return count > 0;
+    }
+
+    private int request(byte[] b, int off, int len) throws IOException {
         output.writeByte(ForkServer.RESOURCE);
         output.writeByte(resource);
         output.writeInt(len);
@@ -66,6 +169,8 @@ class InputStreamProxy extends InputStream implements ForkProxy {
         int n = input.readInt();
         if (n > 0) {
             input.readFully(b, off, n);
+        } else {
+            eof = true;
         }
         return n;
     }
@@ -25,16 +25,32 @@ class InputStreamResource implements ForkResource {
 
     private final InputStream stream;
 
+    private byte[] buffer = new byte[0];
+
     public InputStreamResource(InputStream stream) {
         this.stream = stream;
     }
 
+    /**
+     * Sends up to the number of bytes requested by the {@link InputStreamProxy}.
+     * After the first read, this keeps reading as long as the stream can
+     * deliver without blocking, so that the server gets large chunks.
+     */
     public Throwable process(DataInputStream input, DataOutputStream output) throws IOException {
         int n = input.readInt();
-        byte[] buffer = new byte[n];
+        if (buffer.length < n) {
+            buffer = new byte[n];
+        }
         int m;
         try {
-            m = stream.read(buffer);
+            m = stream.read(buffer, 0, n);
+            while (m > 0 && m < n && stream.available() > 0) {
+                int r = stream.read(buffer, m, n - m);
+                if (r <= 0) {
+                    break;
+                }
+                m += r;
+            }
         } catch (IOException e) {
             // returning exception causes deadlock
             // return e;
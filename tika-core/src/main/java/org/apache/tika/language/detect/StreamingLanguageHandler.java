@@ -0,0 +1,234 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.tika.language.detect;
+
+import java.util.List;
+
+import org.xml.sax.ContentHandler;
+import org.xml.sax.SAXException;
+
+import org.apache.tika.metadata.Metadata;
+import org.apache.tika.metadata.TikaCoreProperties;
+import org.apache.tika.sax.ContentHandlerDecorator;
+
+/**
+ * Content handler decorator that detects the language of the text while it
+ * is being parsed.
+ * <p>
+ * Character events are passed through to the decorated handler unchanged and
+ * fed to the {@link LanguageDetector} as they arrive.  Every
+ * {@link #setCheckInterval(int) checkInterval} characters the detector is
+ * asked for its current best guess; once the same language has been
+ * returned with at least {@link #setMinConfidence(LanguageConfidence)
+ * minConfidence} for {@link #setStableChecks(int) stableChecks} consecutive
+ * checks (or the detector reports {@link LanguageDetector#hasEnoughText()},
+ * or {@link #setMaxChars(int) maxChars} have been seen), the text is no
+ * longer fed to the detector and the result is written to the metadata
+ * right away.  Otherwise the result is written at {@link #endDocument()}.
+ * <p>
+ * Unlike {@link LanguageHandler}, this never buffers the text and never
+ * scans more of it than needed to settle on a language.
+ *
+ * @since Apache Tika 4.0.0
+ */
+public class StreamingLanguageHandler extends ContentHandlerDecorator {
+
+    public static final int DEFAULT_CHECK_INTERVAL = 1000;
+
+    public static final int DEFAULT_MIN_CHARS = 200;
+
+    public static final int DEFAULT_STABLE_CHECKS = 3;
+
+    public static final int DEFAULT_MAX_CHARS = 50000;
+
+    private final LanguageDetector detector;
+
+    private final Metadata metadata;
+
+    private int checkInterval = DEFAULT_CHECK_INTERVAL;
+
+    private int minChars = DEFAULT_MIN_CHARS;
+
+    private int stableChecks = DEFAULT_STABLE_CHECKS;
+
+    private int maxChars = DEFAULT_MAX_CHARS;
+
+    private LanguageConfidence minConfidence = LanguageConfidence.MEDIUM;
+
+    private long charsFed = 0;
+
+    private long nextCheck = 0;
+
+    private int stableCount = 0;
+
+    private LanguageResult current = null;
+
+    private boolean done = false;
+
+    /**
+     * @param handler  decorated content handler
+     * @param detector language detector with its models already loaded
+     * @param metadata metadata that receives the detected language
+     */
+    public StreamingLanguageHandler(ContentHandler handler, LanguageDetector detector,
+                                    Metadata metadata) {
+        super(handler);
+        this.detector = detector;
+        this.metadata = metadata;
+        detector.reset();
+    }
+
+    @Override
+    public void characters(char[] ch, int start, int length) throws SAXException {
+        if (!done && length > 0) {
+            int len = (int) Math.min(length, maxChars - charsFed);
+            detector.addText(ch, start, len);
+            charsFed += len;
+            if (charsFed >= maxChars || detector.hasEnoughText()) {
+                finish();
+            } else if (charsFed >= minChars && charsFed >= nextCheck) {
+                nextCheck = charsFed + checkInterval;
+                check();
+            }
+        }
+        super.characters(ch, start, length);
+    }
+
+    @Override
+    public void endDocument() throws SAXException {
+        if (!done) {
+            finish();
+        }
+        super.endDocument();
+    }
+
+    private void check() {
+        LanguageResult result = best(detector.detectAll());
+        if (result.getConfidence().ordinal() > minConfidence.ordinal()) {
+            stableCount = 0;
+        } else if (current != null && current.getLanguage().equals(result.getLanguage())) {
+            stableCount++;
+        } else {
+            stableCount = 1;
+        }
+        current = result;
+        if (stableCount >= stableChecks) {
+            done = true;
+            writeMetadata(result);
+        }
+    }
+
+    private void finish() {
+        done = true;
+        writeMetadata(best(detector.detectAll()));
+    }
+
+    private static LanguageResult best(List<LanguageResult> results) {
+        return results.isEmpty() ? LanguageResult.NULL : results.get(0);
+    }
+
+    private void writeMetadata(LanguageResult result) {
+        current = result;
+        if (result.isUnknown()) {
+            return;
+        }
+        metadata.set(TikaCoreProperties.TIKA_DETECTED_LANGUAGE, result.getLanguage());
+        metadata.set(TikaCoreProperties.TIKA_DETECTED_LANGUAGE_CONFIDENCE,
+                result.getConfidence().name());
+        metadata.set(TikaCoreProperties.TIKA_DETECTED_LANGUAGE_CONFIDENCE_RAW,
+                result.getRawScore());
+    }
+
+    /**
+     * @return <code>true</code> once the language has been settled and
+     * written to the metadata
+     */
+    public boolean isDone() {
+        return done;
+    }
+
+    /**
+     * @return the latest detection result, or <code>null</code> if the
+     * detector hasn't been consulted yet
+     */
+    public LanguageResult getLanguage() {
+        return current;
+    }
+
+    /**
+     * @return number of characters that were fed to the detector
+     */
+    public long getCharsFed() {
+        return charsFed;
+    }
+
+    public int getCheckInterval() {
+        return checkInterval;
+    }
+
+    /**
+     * @param checkInterval number of characters between two detection checks
+     */
+    public void setCheckInterval(int checkInterval) {
+        this.checkInterval = checkInterval;
+    }
+
+    public int getMinChars() {
+        return minChars;
+    }
+
+    /**
+     * @param minChars number of characters to feed before the first check
+     */
+    public void setMinChars(int minChars) {
+        this.minChars = minChars;
+    }
+
+    public int getStableChecks() {
+        return stableChecks;
+    }
+
+    /**
+     * @param stableChecks number of consecutive checks that must agree on the
+     *                     language before detection stops
+     */
+    public void setStableChecks(int stableChecks) {
+        this.stableChecks = stableChecks;
+    }
+
+    public int getMaxChars() {
+        return maxChars;
+    }
+
+    /**
+     * @param maxChars maximum number of characters to feed to the detector
+     */
+    public void setMaxChars(int maxChars) {
+        this.maxChars = maxChars;
+    }
+
+    public LanguageConfidence getMinConfidence() {
+        return minConfidence;
+    }
+
+    /**
+     * @param minConfidence lowest confidence that counts towards a stable result
+     */
+    public void setMinConfidence(LanguageConfidence minConfidence) {
+        this.minConfidence = minConfidence;
+    }
+}
@@ -23,4 +23,10 @@ public interface PST {
     Property PST_FOLDER_PATH = Property.internalText(PST_PREFIX + "folderPath");
     Property DESCRIPTOR_NODE_ID = Property.internalText(PST_PREFIX + "discriptorNodeId");
     Property IS_VALID = Property.internalBoolean(PST_PREFIX + "isValid");
+
+    /**
+     * Folders whose items have all been parsed, in the order they were
+     * completed, with the number of items, e.g. <code>/Inbox (42 items)</code>
+     */
+    Property FOLDER_PROGRESS = Property.internalTextBag(PST_PREFIX + "folderProgress");
 }
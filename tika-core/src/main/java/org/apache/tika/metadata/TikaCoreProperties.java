@@ -101,6 +101,35 @@ public interface TikaCoreProperties {
             Property.internalInteger(TIKA_META_PREFIX + "embedded_id");
 
     Property PARSE_TIME_MILLIS = Property.internalText(TIKA_META_PREFIX + "parse_time_millis");
+
+    /**
+     * Wall clock time of the parse in microseconds, recorded only if a
+     * {@link org.apache.tika.parser.ParseTimingListener} is set in the parse context
+     */
+    Property PARSE_WALL_MICROS = Property.internalReal(TIKA_META_PREFIX + "parse_wall_micros");
+
+    /**
+     * Cpu time of the parsing thread in microseconds, see {@link #PARSE_WALL_MICROS}
+     */
+    Property PARSE_CPU_MICROS = Property.internalReal(TIKA_META_PREFIX + "parse_cpu_micros");
+
+    /**
+     * Number of bytes the parse consumed from the input stream,
+     * see {@link #PARSE_WALL_MICROS}
+     */
+    Property PARSE_BYTES_READ = Property.internalReal(TIKA_META_PREFIX + "parse_bytes_read");
+
+    /**
+     * Number of characters the parse wrote to the content handler,
+     * see {@link #PARSE_WALL_MICROS}
+     */
+    Property PARSE_CHARS_WRITTEN =
+            Property.internalReal(TIKA_META_PREFIX + "parse_chars_written");
+
+    /**
+     * Time spent detecting the media type in microseconds, see {@link #PARSE_WALL_MICROS}
+     */
+    Property DETECT_MICROS = Property.internalReal(TIKA_META_PREFIX + "detect_micros");
     /**
      * Simple class name of the content handler
      */
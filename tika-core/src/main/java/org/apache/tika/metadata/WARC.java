@@ -27,5 +27,12 @@ public interface WARC {
 
     Property WARC_RECORD_ID = Property.externalText(PREFIX + "WARC-Record-ID");
 
+    /**
+     * Byte offset of the record from the start of the archive.  In a
+     * compressed archive this is where the record's gzip member starts, so
+     * the archive can be read from there, e.g. by fetching a byte range.
+     */
+    Property WARC_RECORD_OFFSET = Property.externalReal(PREFIX + "record-offset");
+
     //TODO: lots
 }
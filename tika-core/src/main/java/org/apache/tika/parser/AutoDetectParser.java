@@ -176,7 +176,15 @@ public class AutoDetectParser extends CompositeParser {
             maybeSpool(tis, autoDetectParserConfig, metadata);
 
             // Automatically detect the MIME type of the document
-            MediaType type = detector.detect(tis, metadata);
+            MediaType type;
+            if (context.get(ParseTimingListener.class) != null) {
+                long start = System.nanoTime();
+                type = detector.detect(tis, metadata);
+                metadata.set(TikaCoreProperties.DETECT_MICROS,
+                        (System.nanoTime() - start) / 1000);
+            } else {
+                type = detector.detect(tis, metadata);
+            }
             //update CONTENT_TYPE as long as it wasn't set by parser override
             if (metadata.get(TikaCoreProperties.CONTENT_TYPE_PARSER_OVERRIDE) == null ||
                     !metadata.get(TikaCoreProperties.CONTENT_TYPE_PARSER_OVERRIDE)
@@ -38,6 +38,7 @@ import org.apache.tika.metadata.Metadata;
 import org.apache.tika.metadata.TikaCoreProperties;
 import org.apache.tika.mime.MediaType;
 import org.apache.tika.mime.MediaTypeRegistry;
+import org.apache.tika.sax.CharacterCountingContentHandler;
 import org.apache.tika.sax.TaggedContentHandler;
 import org.apache.tika.utils.ExceptionUtils;
 import org.apache.tika.utils.ParserUtils;
@@ -286,14 +287,23 @@ public class CompositeParser implements Parser {
             parserRecord = new ParseRecord();
             context.set(ParseRecord.class, parserRecord);
         }
+        ParseTimingListener timingListener = context.get(ParseTimingListener.class);
         try {
             TikaInputStream taggedStream = TikaInputStream.get(stream, tmp, metadata);
+            CharacterCountingContentHandler countingHandler = null;
+            if (timingListener != null && handler != null) {
+                countingHandler = new CharacterCountingContentHandler(handler);
+                handler = countingHandler;
+            }
             TaggedContentHandler taggedHandler =
                     handler != null ? new TaggedContentHandler(handler) : null;
             String parserClassname = ParserUtils.getParserClassname(parser);
             parserRecord.addParserClass(parserClassname);
             ParserUtils.recordParserDetails(parserClassname, metadata);
             parserRecord.beforeParse();
+            long startPosition = taggedStream.getPosition();
+            long startCpu = timingListener != null ? ParseTiming.currentThreadCpuNanos() : -1;
+            long startNanos = timingListener != null ? System.nanoTime() : 0;
             try {
                 parser.parse(taggedStream, taggedHandler, metadata, context);
             } catch (SecurityException e) {
@@ -310,6 +320,18 @@ public class CompositeParser implements Parser {
                 throw new TikaException("TIKA-237: Illegal SAXException from " + parser, e);
             } catch (RuntimeException e) {
                 throw new TikaException("Unexpected RuntimeException from " + parser, e);
+            } finally {
+                if (timingListener != null) {
+                    long wallNanos = System.nanoTime() - startNanos;
+                    long cpuNanos = startCpu < 0 ? -1 :
+                            ParseTiming.currentThreadCpuNanos() - startCpu;
+                    ParseTiming timing = new ParseTiming(parserClassname,
+                            parserRecord.getDepth(), metadata, wallNanos, cpuNanos,
+                            taggedStream.getPosition() - startPosition,
+                            countingHandler != null ? countingHandler.getCount() : 0);
+                    recordTiming(timing, metadata);
+                    timingListener.parserFinished(timing);
+                }
             }
         } finally {
             tmp.dispose();
@@ -321,6 +343,19 @@ public class CompositeParser implements Parser {
         }
     }
 
+    /**
+     * Nested invocations on the same document finish first, so the
+     * outermost invocation's inclusive values are the ones that remain.
+     */
+    private static void recordTiming(ParseTiming timing, Metadata metadata) {
+        metadata.set(TikaCoreProperties.PARSE_WALL_MICROS, timing.getWallNanos() / 1000);
+        if (timing.getCpuNanos() >= 0) {
+            metadata.set(TikaCoreProperties.PARSE_CPU_MICROS, timing.getCpuNanos() / 1000);
+        }
+        metadata.set(TikaCoreProperties.PARSE_BYTES_READ, timing.getBytesRead());
+        metadata.set(TikaCoreProperties.PARSE_CHARS_WRITTEN, timing.getCharsWritten());
+    }
+
     private void recordEmbeddedMetadata(Metadata metadata, ParseContext context) {
         ParseRecord record = context.get(ParseRecord.class);
         if (record == null) {
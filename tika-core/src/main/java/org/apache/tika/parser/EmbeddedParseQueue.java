@@ -0,0 +1,581 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.tika.parser;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.xml.sax.Attributes;
+import org.xml.sax.ContentHandler;
+import org.xml.sax.Locator;
+import org.xml.sax.SAXException;
+import org.xml.sax.helpers.AttributesImpl;
+
+import org.apache.tika.exception.TikaException;
+import org.apache.tika.extractor.EmbeddedDocumentExtractor;
+import org.apache.tika.extractor.ParsingEmbeddedDocumentExtractor;
+
+/**
+ * Parses the embedded documents of a container concurrently, while keeping
+ * their output in the order in which they were submitted.
+ * <p>
+ * Each embedded document is submitted as a {@link Task}.  The task whose
+ * output is due writes straight to the container's handler; the tasks that
+ * run ahead of it write to a buffer that is replayed once it is their turn.
+ * A task that runs ahead waits for its turn once
+ * {@link ParallelEmbeddedConfig#getMaxBufferedChars()} characters are
+ * buffered, where element names, attributes and every other event count
+ * too, and {@link #submit(Task)} waits while
+ * {@link ParallelEmbeddedConfig#getMaxPending()} tasks are outstanding.
+ * Exceptions thrown by a task are rethrown by {@link #submit(Task)} or
+ * {@link #finish()} once the output of the earlier tasks has been written.
+ * <p>
+ * Every task gets its own copy of the {@link ParseContext}, with its own
+ * {@link ParseRecord} and {@link EmbeddedDocumentExtractor}.  The records
+ * are added to the container's record in submission order.  Other objects
+ * in the context, e.g. a {@link org.apache.tika.extractor.DocumentSelector}
+ * or a {@link PasswordProvider}, are shared by the tasks and have to be
+ * thread safe.  The embedded documents of the embedded documents are parsed
+ * sequentially.
+ * <p>
+ * Unless a {@link ParallelEmbeddedConfig} with more than one thread is set
+ * in the context, the tasks are run inline by {@link #submit(Task)}.  The
+ * same goes when the parser in the context keeps state across embedded
+ * documents, like the {@link RecursiveParserWrapper} does, or when the
+ * context has an embedded document extractor other than the
+ * {@link ParsingEmbeddedDocumentExtractor}, since their results would depend
+ * on the order in which the tasks finish.
+ * <p>
+ * The tasks run on the {@link ExecutorService} from the context if there is
+ * one, or else on threads of the queue's own.  While the queue is open, the
+ * container must write to its handler through tasks only.  Tasks that hold
+ * resources should implement {@link Closeable}; they are closed once they
+ * have run, or have been skipped because the queue was closed early.
+ * {@link #close()} returns only once the tasks that have started are done,
+ * so that none of them writes to the container's handler, or reads from
+ * resources the container releases, after that.
+ *
+ * @since Apache Tika 4.0.0
+ */
+public class EmbeddedParseQueue implements Closeable {
+
+    private static final AtomicInteger THREAD_COUNT = new AtomicInteger();
+
+    //what a buffered event counts against maxBufferedChars on top of its
+    //strings, so that a flood of empty elements is bounded too
+    private static final int EVENT_CHARS = 16;
+
+    private static final int QUEUED = 0;
+
+    private static final int RUNNING = 1;
+
+    private static final int DONE = 2;
+
+    /**
+     * Parse of one embedded document.
+     */
+    public interface Task {
+
+        /**
+         * @param handler handler for the output of the embedded document
+         * @param context context for parsing the embedded document
+         */
+        void parse(ContentHandler handler, ParseContext context)
+                throws IOException, SAXException, TikaException;
+    }
+
+    private final ContentHandler handler;
+
+    private final ParseContext context;
+
+    //null if the tasks run inline
+    private final ParallelEmbeddedConfig config;
+
+    private final ExecutorService executor;
+
+    private final boolean ownExecutor;
+
+    private final ArrayDeque<Slot> pending = new ArrayDeque<>();
+
+    private final AtomicLong bufferedChars = new AtomicLong();
+
+    private volatile boolean closed = false;
+
+    /**
+     * @param handler handler of the container that the output of the
+     *                embedded documents goes to
+     * @param context context of the container
+     */
+    public EmbeddedParseQueue(ContentHandler handler, ParseContext context) {
+        this.handler = handler;
+        this.context = context;
+        if (!isParallel(context)) {
+            this.config = null;
+            this.executor = null;
+            this.ownExecutor = false;
+            return;
+        }
+        this.config = context.get(ParallelEmbeddedConfig.class);
+        ExecutorService executor = context.get(ExecutorService.class);
+        if (executor == null) {
+            this.executor = Executors.newFixedThreadPool(config.getMaxThreads(), r -> {
+                Thread thread = new Thread(r,
+                        "Tika Embedded Parse Thread-" + THREAD_COUNT.incrementAndGet());
+                thread.setDaemon(true);
+                return thread;
+            });
+            this.ownExecutor = true;
+        } else {
+            this.executor = executor;
+            this.ownExecutor = false;
+        }
+    }
+
+    /**
+     * @return <code>true</code> if a queue for the given context would run
+     * its tasks concurrently, so that a parser can skip preparations that
+     * are only worth it in that case
+     */
+    public static boolean isParallel(ParseContext context) {
+        ParallelEmbeddedConfig config = context.get(ParallelEmbeddedConfig.class);
+        return config != null && config.isParallel() && canRunConcurrently(context);
+    }
+
+    private static boolean canRunConcurrently(ParseContext context) {
+        if (context.get(Parser.class) instanceof StatefulParser) {
+            return false;
+        }
+        EmbeddedDocumentExtractor extractor = context.get(EmbeddedDocumentExtractor.class);
+        return extractor == null || extractor.getClass() == ParsingEmbeddedDocumentExtractor.class;
+    }
+
+    /**
+     * @return <code>true</code> if the tasks run concurrently,
+     * <code>false</code> if they are run inline by {@link #submit(Task)}
+     */
+    public boolean isParallel() {
+        return config != null;
+    }
+
+    /**
+     * Submits the parse of the next embedded document.
+     *
+     * @throws IOException   exception thrown by an earlier task
+     * @throws SAXException  exception thrown by an earlier task,
+     *                       or by the container's handler
+     * @throws TikaException exception thrown by an earlier task
+     */
+    public void submit(Task task) throws IOException, SAXException, TikaException {
+        if (closed) {
+            throw new IllegalStateException("The queue has been closed");
+        }
+        if (config == null) {
+            try {
+                task.parse(handler, context);
+            } finally {
+                closeTask(task);
+            }
+            return;
+        }
+        while (!pending.isEmpty() &&
+                (pending.size() >= config.getMaxPending() || pending.peek().future.isDone())) {
+            completeHead();
+        }
+        Slot slot = new Slot(task, forkContext());
+        pending.add(slot);
+        slot.future = executor.submit(() -> {
+            slot.run();
+            return null;
+        });
+        if (pending.size() == 1) {
+            slot.goLive();
+        }
+    }
+
+    /**
+     * Waits for the submitted tasks and writes the rest of their output.
+     *
+     * @throws IOException   exception thrown by a task
+     * @throws SAXException  exception thrown by a task,
+     *                       or by the container's handler
+     * @throws TikaException exception thrown by a task
+     */
+    public void finish() throws IOException, SAXException, TikaException {
+        while (!pending.isEmpty()) {
+            completeHead();
+        }
+    }
+
+    private void completeHead() throws IOException, SAXException, TikaException {
+        Slot head = pending.peek();
+        head.goLive();
+        try {
+            head.future.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new TikaException("Interrupted while waiting for an embedded document", e);
+        } catch (ExecutionException e) {
+            pending.poll();
+            joinRecord(head);
+            rethrow(e.getCause());
+        }
+        pending.poll();
+        joinRecord(head);
+        Slot next = pending.peek();
+        if (next != null) {
+            next.goLive();
+        }
+    }
+
+    private ParseContext forkContext() {
+        ParseContext copy = context.copy();
+        ParseRecord record = context.get(ParseRecord.class);
+        if (record != null) {
+            copy.set(ParseRecord.class, record.fork());
+        }
+        EmbeddedDocumentExtractor extractor = context.get(EmbeddedDocumentExtractor.class);
+        if (extractor != null) {
+            ParsingEmbeddedDocumentExtractor forked = new ParsingEmbeddedDocumentExtractor(copy);
+            forked.setWriteFileNameToContent(
+                    ((ParsingEmbeddedDocumentExtractor) extractor).isWriteFileNameToContent());
+            copy.set(EmbeddedDocumentExtractor.class, forked);
+        }
+        copy.set(ParallelEmbeddedConfig.class, null);
+        return copy;
+    }
+
+    private void joinRecord(Slot slot) {
+        ParseRecord record = context.get(ParseRecord.class);
+        ParseRecord forked = slot.context.get(ParseRecord.class);
+        if (record != null && forked != null && record != forked) {
+            record.join(forked);
+        }
+    }
+
+    private static void closeTask(Task task) throws IOException {
+        if (task instanceof Closeable) {
+            ((Closeable) task).close();
+        }
+    }
+
+    private static void rethrow(Throwable t) throws IOException, SAXException, TikaException {
+        if (t instanceof IOException) {
+            throw (IOException) t;
+        } else if (t instanceof SAXException) {
+            throw (SAXException) t;
+        } else if (t instanceof TikaException) {
+            throw (TikaException) t;
+        } else if (t instanceof RuntimeException) {
+            throw (RuntimeException) t;
+        } else if (t instanceof Error) {
+            throw (Error) t;
+        }
+        throw new TikaException("Unexpected exception from an embedded document", t);
+    }
+
+    /**
+     * Cancels the tasks that haven't started yet, makes the running ones fail
+     * on their next write, and waits for them to finish.
+     *
+     * @throws IOException if a skipped task can't be closed, or if the
+     *                     thread is interrupted while waiting
+     */
+    @Override
+    public void close() throws IOException {
+        if (closed) {
+            return;
+        }
+        closed = true;
+        IOException exception = null;
+        try {
+            for (Slot slot : pending) {
+                if (slot.skip()) {
+                    slot.future.cancel(false);
+                    try {
+                        closeTask(slot.task);
+                    } catch (IOException e) {
+                        exception = e;
+                    }
+                }
+            }
+            for (Slot slot : pending) {
+                slot.awaitDone();
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException("Interrupted while waiting for the embedded documents");
+        } finally {
+            pending.clear();
+            if (ownExecutor) {
+                executor.shutdown();
+            }
+        }
+        if (exception != null) {
+            throw exception;
+        }
+    }
+
+    private static int length(String... strings) {
+        int length = 0;
+        for (String s : strings) {
+            if (s != null) {
+                length += s.length();
+            }
+        }
+        return length;
+    }
+
+    private static int length(Attributes atts) {
+        int length = 0;
+        for (int i = 0; i < atts.getLength(); i++) {
+            length += EVENT_CHARS + length(atts.getURI(i), atts.getLocalName(i), atts.getQName(i),
+                    atts.getType(i), atts.getValue(i));
+        }
+        return length;
+    }
+
+    private interface Event {
+        void replay(ContentHandler handler) throws SAXException;
+    }
+
+    /**
+     * Output of one task.  All writes to the container's handler and the
+     * buffer are made while holding the slot's lock.
+     */
+    private class Slot implements ContentHandler {
+
+        private final Task task;
+
+        private final ParseContext context;
+
+        private Future<?> future;
+
+        private int state = QUEUED;
+
+        private List<Event> buffer = new ArrayList<>();
+
+        private long chars = 0;
+
+        private boolean live = false;
+
+        private Slot(Task task, ParseContext context) {
+            this.task = task;
+            this.context = context;
+        }
+
+        private void run() throws IOException, SAXException, TikaException {
+            synchronized (this) {
+                if (state != QUEUED) {
+                    //skipped by close()
+                    return;
+                }
+                state = RUNNING;
+            }
+            try {
+                task.parse(this, context);
+            } finally {
+                try {
+                    closeTask(task);
+                } finally {
+                    synchronized (this) {
+                        state = DONE;
+                        notifyAll();
+                    }
+                }
+            }
+        }
+
+        /**
+         * Wakes up a task that waits for its turn, so that it fails.
+         *
+         * @return <code>true</code> if the task hadn't started yet and won't
+         * run any more
+         */
+        private synchronized boolean skip() {
+            notifyAll();
+            if (state == QUEUED) {
+                state = DONE;
+                return true;
+            }
+            return false;
+        }
+
+        private synchronized void awaitDone() throws InterruptedException {
+            while (state != DONE) {
+                wait();
+            }
+        }
+
+        private synchronized void goLive() throws SAXException {
+            if (live) {
+                return;
+            }
+            live = true;
+            notifyAll();
+            List<Event> events = buffer;
+            buffer = null;
+            bufferedChars.addAndGet(-chars);
+            for (Event event : events) {
+                event.replay(handler);
+            }
+        }
+
+        /**
+         * @return <code>true</code> if the event can go straight to the
+         * container's handler, <code>false</code> if it has to be buffered
+         */
+        private boolean isLive(int length) throws SAXException {
+            if (closed) {
+                throw new SAXException("The embedded parse queue has been closed");
+            }
+            if (live) {
+                return true;
+            }
+            if (bufferedChars.get() + length <= config.getMaxBufferedChars()) {
+                chars += length;
+                bufferedChars.addAndGet(length);
+                return false;
+            }
+            while (!live) {
+                try {
+                    wait();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    throw new SAXException("Interrupted while waiting to write", e);
+                }
+                if (closed) {
+                    throw new SAXException("The embedded parse queue has been closed");
+                }
+            }
+            return true;
+        }
+
+        @Override
+        public void setDocumentLocator(Locator locator) {
+        }
+
+        @Override
+        public synchronized void startDocument() throws SAXException {
+            if (isLive(EVENT_CHARS)) {
+                handler.startDocument();
+            } else {
+                buffer.add(ContentHandler::startDocument);
+            }
+        }
+
+        @Override
+        public synchronized void endDocument() throws SAXException {
+            if (isLive(EVENT_CHARS)) {
+                handler.endDocument();
+            } else {
+                buffer.add(ContentHandler::endDocument);
+            }
+        }
+
+        @Override
+        public synchronized void startPrefixMapping(String prefix, String uri)
+                throws SAXException {
+            if (isLive(EVENT_CHARS + prefix.length() + uri.length())) {
+                handler.startPrefixMapping(prefix, uri);
+            } else {
+                buffer.add(h -> h.startPrefixMapping(prefix, uri));
+            }
+        }
+
+        @Override
+        public synchronized void endPrefixMapping(String prefix) throws SAXException {
+            if (isLive(EVENT_CHARS + prefix.length())) {
+                handler.endPrefixMapping(prefix);
+            } else {
+                buffer.add(h -> h.endPrefixMapping(prefix));
+            }
+        }
+
+        @Override
+        public synchronized void startElement(String uri, String localName, String qName,
+                                              Attributes atts) throws SAXException {
+            if (isLive(EVENT_CHARS + length(uri, localName, qName) + length(atts))) {
+                handler.startElement(uri, localName, qName, atts);
+            } else {
+                Attributes copy = new AttributesImpl(atts);
+                buffer.add(h -> h.startElement(uri, localName, qName, copy));
+            }
+        }
+
+        @Override
+        public synchronized void endElement(String uri, String localName, String qName)
+                throws SAXException {
+            if (isLive(EVENT_CHARS + length(uri, localName, qName))) {
+                handler.endElement(uri, localName, qName);
+            } else {
+                buffer.add(h -> h.endElement(uri, localName, qName));
+            }
+        }
+
+        @Override
+        public synchronized void characters(char[] ch, int start, int length)
+                throws SAXException {
+            if (isLive(EVENT_CHARS + length)) {
+                handler.characters(ch, start, length);
+            } else {
+                char[] copy = Arrays.copyOfRange(ch, start, start + length);
+                buffer.add(h -> h.characters(copy, 0, copy.length));
+            }
+        }
+
+        @Override
+        public synchronized void ignorableWhitespace(char[] ch, int start, int length)
+                throws SAXException {
+            if (isLive(EVENT_CHARS + length)) {
+                handler.ignorableWhitespace(ch, start, length);
+            } else {
+                char[] copy = Arrays.copyOfRange(ch, start, start + length);
+                buffer.add(h -> h.ignorableWhitespace(copy, 0, copy.length));
+            }
+        }
+
+        @Override
+        public synchronized void processingInstruction(String target, String data)
+                throws SAXException {
+            if (isLive(EVENT_CHARS + length(target, data))) {
+                handler.processingInstruction(target, data);
+            } else {
+                buffer.add(h -> h.processingInstruction(target, data));
+            }
+        }
+
+        @Override
+        public synchronized void skippedEntity(String name) throws SAXException {
+            if (isLive(EVENT_CHARS + length(name))) {
+                handler.skippedEntity(name);
+            } else {
+                buffer.add(h -> h.skippedEntity(name));
+            }
+        }
+    }
+}
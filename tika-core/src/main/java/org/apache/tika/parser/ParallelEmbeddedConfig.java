@@ -0,0 +1,107 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.tika.parser;
+
+import java.io.Serializable;
+
+/**
+ * Limits for parsers that parse their embedded documents concurrently with an
+ * {@link EmbeddedParseQueue}.  Set it in the {@link ParseContext} to opt in;
+ * without it, embedded documents are parsed one after the other on the
+ * calling thread.
+ *
+ * @since Apache Tika 4.0.0
+ */
+public class ParallelEmbeddedConfig implements Serializable {
+
+    private static final long serialVersionUID = 4467349061234869281L;
+
+    /**
+     * Maximum number of embedded documents of one container that are parsed
+     * at the same time.
+     */
+    private int maxThreads;
+
+    /**
+     * Maximum number of embedded documents that may be queued or parsing
+     * ahead of the one whose output is currently written.
+     */
+    private int maxPending;
+
+    /**
+     * Maximum number of characters of output that may be buffered for the
+     * embedded documents that are parsed ahead.  Element names, attributes
+     * and a small overhead per SAX event count as characters too.
+     */
+    private long maxBufferedChars = 10_000_000;
+
+    public ParallelEmbeddedConfig() {
+        this(Math.max(1, Runtime.getRuntime().availableProcessors()));
+    }
+
+    public ParallelEmbeddedConfig(int maxThreads) {
+        setMaxThreads(maxThreads);
+    }
+
+    public int getMaxThreads() {
+        return maxThreads;
+    }
+
+    /**
+     * @param maxThreads number of threads, 1 parses sequentially
+     */
+    public void setMaxThreads(int maxThreads) {
+        if (maxThreads < 1) {
+            throw new IllegalArgumentException("maxThreads must be at least 1: " + maxThreads);
+        }
+        this.maxThreads = maxThreads;
+        this.maxPending = 2 * maxThreads;
+    }
+
+    public int getMaxPending() {
+        return maxPending;
+    }
+
+    /**
+     * @param maxPending number of embedded documents that may be queued or
+     *                   parsing ahead, defaults to twice the number of threads
+     */
+    public void setMaxPending(int maxPending) {
+        if (maxPending < 1) {
+            throw new IllegalArgumentException("maxPending must be at least 1: " + maxPending);
+        }
+        this.maxPending = maxPending;
+    }
+
+    public long getMaxBufferedChars() {
+        return maxBufferedChars;
+    }
+
+    /**
+     * Once the embedded documents that are parsed ahead have buffered this
+     * many characters, their parses block until it is their turn to write.
+     *
+     * @param maxBufferedChars maximum number of buffered characters
+     */
+    public void setMaxBufferedChars(long maxBufferedChars) {
+        this.maxBufferedChars = maxBufferedChars;
+    }
+
+    public boolean isParallel() {
+        return maxThreads > 1;
+    }
+}
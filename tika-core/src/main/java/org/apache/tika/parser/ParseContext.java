@@ -85,6 +85,16 @@ public class ParseContext implements Serializable {
         }
     }
 
+    /**
+     * @return a shallow copy of this context, for a parse that runs
+     * concurrently with the one that uses this context
+     */
+    ParseContext copy() {
+        ParseContext copy = new ParseContext();
+        copy.context.putAll(context);
+        return copy;
+    }
+
     public boolean isEmpty() {
         return context.size() == 0;
     }
@@ -59,6 +59,37 @@ public class ParseRecord {
         depth--;
     }
 
+    /**
+     * @return an empty record at the same depth, for an embedded document
+     * that is parsed concurrently with its siblings
+     */
+    ParseRecord fork() {
+        ParseRecord forked = new ParseRecord();
+        forked.depth = depth;
+        return forked;
+    }
+
+    /**
+     * Adds what was recorded in a record returned by {@link #fork()}.
+     */
+    void join(ParseRecord forked) {
+        for (String parser : forked.parsers) {
+            addParserClass(parser);
+        }
+        for (Exception e : forked.exceptions) {
+            addException(e);
+        }
+        for (String warning : forked.warnings) {
+            addWarning(warning);
+        }
+        for (Metadata metadata : forked.metadataList) {
+            addMetadata(metadata);
+        }
+        if (forked.writeLimitReached) {
+            writeLimitReached = true;
+        }
+    }
+
     public int getDepth() {
         return depth;
     }
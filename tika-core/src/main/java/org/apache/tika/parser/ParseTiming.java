@@ -0,0 +1,135 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.tika.parser;
+
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
+
+import org.apache.tika.metadata.Metadata;
+
+/**
+ * Measurements of one parser invocation or of one embedded document,
+ * handed to a {@link ParseTimingListener}.
+ * <p>
+ * Times are inclusive: the time of a container includes the time spent
+ * on its embedded documents, and an outer {@link CompositeParser} includes
+ * the time of the parser it delegated to.
+ *
+ * @since Apache Tika 4.0.0
+ */
+public class ParseTiming {
+
+    private static final ThreadMXBean THREAD_MX_BEAN = initThreadMXBean();
+
+    private final String parserClassname;
+
+    private final int depth;
+
+    private final Metadata metadata;
+
+    private final long wallNanos;
+
+    private final long cpuNanos;
+
+    private final long bytesRead;
+
+    private final long charsWritten;
+
+    public ParseTiming(String parserClassname, int depth, Metadata metadata, long wallNanos,
+                       long cpuNanos, long bytesRead, long charsWritten) {
+        this.parserClassname = parserClassname;
+        this.depth = depth;
+        this.metadata = metadata;
+        this.wallNanos = wallNanos;
+        this.cpuNanos = cpuNanos;
+        this.bytesRead = bytesRead;
+        this.charsWritten = charsWritten;
+    }
+
+    private static ThreadMXBean initThreadMXBean() {
+        try {
+            ThreadMXBean bean = ManagementFactory.getThreadMXBean();
+            if (bean.isCurrentThreadCpuTimeSupported() && bean.isThreadCpuTimeEnabled()) {
+                return bean;
+            }
+        } catch (SecurityException | LinkageError e) {
+            //no cpu times
+        }
+        return null;
+    }
+
+    /**
+     * @return the cpu time of the current thread in nanoseconds, or
+     * <code>-1</code> if the JVM doesn't measure it
+     */
+    public static long currentThreadCpuNanos() {
+        return THREAD_MX_BEAN == null ? -1 : THREAD_MX_BEAN.getCurrentThreadCpuTime();
+    }
+
+    /**
+     * @return class name of the parser that was invoked, or <code>null</code>
+     * for a whole embedded document
+     */
+    public String getParserClassname() {
+        return parserClassname;
+    }
+
+    /**
+     * @return the {@link ParseRecord#getDepth() depth} of the invocation,
+     * <code>1</code> for the outermost parser.  For an embedded document,
+     * the depth of the first parser that was invoked on it.
+     */
+    public int getDepth() {
+        return depth;
+    }
+
+    /**
+     * @return metadata of the document that was parsed; it is live and
+     * must not be modified
+     */
+    public Metadata getMetadata() {
+        return metadata;
+    }
+
+    public long getWallNanos() {
+        return wallNanos;
+    }
+
+    /**
+     * @return cpu time of the parsing thread, or <code>-1</code> if not
+     * available.  Work that a parser hands off to other threads or
+     * processes is not included.
+     */
+    public long getCpuNanos() {
+        return cpuNanos;
+    }
+
+    public long getBytesRead() {
+        return bytesRead;
+    }
+
+    public long getCharsWritten() {
+        return charsWritten;
+    }
+
+    @Override
+    public String toString() {
+        return "ParseTiming{" + "parserClassname='" + parserClassname + '\'' + ", depth=" + depth +
+                ", wallNanos=" + wallNanos + ", cpuNanos=" + cpuNanos + ", bytesRead=" + bytesRead +
+                ", charsWritten=" + charsWritten + '}';
+    }
+}
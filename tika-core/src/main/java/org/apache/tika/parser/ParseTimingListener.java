@@ -0,0 +1,52 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.tika.parser;
+
+/**
+ * Opt-in instrumentation of the parse.  Set an implementation in the
+ * {@link ParseContext} to have {@link CompositeParser} (and so
+ * {@link AutoDetectParser}) measure every parser invocation and
+ * {@link org.apache.tika.extractor.ParsingEmbeddedDocumentExtractor}
+ * every embedded document:
+ * <pre>
+ *     context.set(ParseTimingListener.class, timing -&gt; ...);
+ * </pre>
+ * The measurements of the outermost invocation for a document are also
+ * written to its metadata, see
+ * {@link org.apache.tika.metadata.TikaCoreProperties#PARSE_WALL_MICROS}.
+ * Without a listener, none of this is measured.
+ * <p>
+ * Listeners are called on the parsing thread and should be quick; if a
+ * listener is shared between parses, it has to be thread safe.
+ *
+ * @since Apache Tika 4.0.0
+ */
+public interface ParseTimingListener {
+
+    /**
+     * Called after a {@link CompositeParser} has delegated to a parser,
+     * whether or not the parser succeeded.
+     */
+    void parserFinished(ParseTiming timing);
+
+    /**
+     * Called after an embedded document has been parsed, including the
+     * detection of its type.
+     */
+    default void embeddedDocumentFinished(ParseTiming timing) {
+    }
+}
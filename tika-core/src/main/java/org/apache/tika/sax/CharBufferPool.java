@@ -0,0 +1,65 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.tika.sax;
+
+/**
+ * Per-thread recycler for the output buffers of the serializing content
+ * handlers.
+ * <p>
+ * Each thread keeps at most one idle buffer of {@link #BUFFER_SIZE} chars,
+ * so the memory held stays bounded no matter how many handlers are created.
+ * A handler that is nested in another one on the same thread (e.g. for an
+ * embedded document) finds the slot empty and gets a fresh buffer, which it
+ * hands back later if the slot is free by then.
+ */
+final class CharBufferPool {
+
+    static final int BUFFER_SIZE = 8192;
+
+    private static final ThreadLocal<char[]> IDLE = new ThreadLocal<>();
+
+    private CharBufferPool() {
+    }
+
+    /**
+     * Takes the idle buffer of the current thread, or allocates a new one
+     * if there is none.  The caller owns the buffer until it is
+     * {@link #release(char[]) released}.
+     *
+     * @return a buffer of {@link #BUFFER_SIZE} chars
+     */
+    static char[] acquire() {
+        char[] buffer = IDLE.get();
+        if (buffer == null) {
+            return new char[BUFFER_SIZE];
+        }
+        IDLE.set(null);
+        return buffer;
+    }
+
+    /**
+     * Hands a buffer back for reuse on the current thread.  The caller must
+     * not touch the buffer afterwards.
+     *
+     * @param buffer buffer obtained from {@link #acquire()}
+     */
+    static void release(char[] buffer) {
+        if (buffer != null && buffer.length == BUFFER_SIZE && IDLE.get() == null) {
+            IDLE.set(buffer);
+        }
+    }
+}
@@ -0,0 +1,54 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.tika.sax;
+
+import org.xml.sax.ContentHandler;
+import org.xml.sax.SAXException;
+
+/**
+ * Content handler decorator that counts the characters, including
+ * ignorable whitespace, that pass through it.
+ *
+ * @since Apache Tika 4.0.0
+ */
+public class CharacterCountingContentHandler extends ContentHandlerDecorator {
+
+    private long count = 0;
+
+    public CharacterCountingContentHandler(ContentHandler handler) {
+        super(handler);
+    }
+
+    @Override
+    public void characters(char[] ch, int start, int length) throws SAXException {
+        count += length;
+        super.characters(ch, start, length);
+    }
+
+    @Override
+    public void ignorableWhitespace(char[] ch, int start, int length) throws SAXException {
+        count += length;
+        super.ignorableWhitespace(ch, start, length);
+    }
+
+    /**
+     * @return number of characters seen so far
+     */
+    public long getCount() {
+        return count;
+    }
+}
@@ -24,6 +24,7 @@ import java.io.UnsupportedEncodingException;
 import java.io.Writer;
 import java.util.Locale;
 
+import org.apache.commons.io.output.StringBuilderWriter;
 import org.xml.sax.Attributes;
 import org.xml.sax.SAXException;
 import org.xml.sax.helpers.DefaultHandler;
@@ -77,9 +78,11 @@ public class ToTextContentHandler extends DefaultHandler {
      * Creates a content handler that writes character events
      * to an internal string buffer. Use the {@link #toString()}
      * method to access the collected character content.
+     * <p>
+     * The buffer is not synchronized, like the rest of this handler.
      */
     public ToTextContentHandler() {
-        this(new StringWriter());
+        this(new StringBuilderWriter());
     }
 
     /**
@@ -18,6 +18,7 @@ package org.apache.tika.sax;
 
 import java.io.OutputStream;
 import java.io.UnsupportedEncodingException;
+import java.io.Writer;
 import java.util.Collections;
 import java.util.HashMap;
 import java.util.Map;
@@ -30,6 +31,14 @@ import org.xml.sax.SAXException;
  * The incoming SAX events are expected to be well-formed (properly nested,
  * etc.) and to explicitly include namespace declaration attributes and
  * corresponding namespace prefixes in element and attribute names.
+ * <p>
+ * Markup and escaped text are collected in a buffer borrowed from a small
+ * per-thread pool, instead of one tiny write per tag, attribute or entity.
+ * If the output goes to a caller's writer or stream, the buffer is passed
+ * on at the end of every event, so that everything up to the last event
+ * has been written even if the parse fails.  Otherwise it is passed on in
+ * large chunks: when it fills up, at {@link #endDocument()} and by
+ * {@link #toString()}.
  *
  * @since Apache Tika 0.10
  */
@@ -38,9 +47,22 @@ public class ToXMLContentHandler extends ToTextContentHandler {
     protected final Map<String, String> namespaces = new HashMap<>();
     private final String encoding;
 
+    /**
+     * Whether the output goes to a writer or stream of the caller,
+     * rather than to the internal string buffer
+     */
+    private final boolean external;
+
     protected boolean inStartElement = false;
     private ElementInfo currentElement;
 
+    /**
+     * Pending output, taken from the pool on first use and handed back
+     * once it has been passed on.
+     */
+    private char[] buffer;
+    private int bufferLength = 0;
+
     /**
      * Creates an XML serializer that writes to the given byte stream
      * using the given character encoding.
@@ -53,16 +75,30 @@ public class ToXMLContentHandler extends ToTextContentHandler {
             throws UnsupportedEncodingException {
         super(stream, encoding);
         this.encoding = encoding;
+        this.external = true;
+    }
+
+    /**
+     * Creates an XML serializer that writes to the given character stream.
+     *
+     * @param writer writer
+     */
+    public ToXMLContentHandler(Writer writer) {
+        super(writer);
+        this.encoding = null;
+        this.external = true;
     }
 
     public ToXMLContentHandler(String encoding) {
         super();
         this.encoding = encoding;
+        this.external = false;
     }
 
     public ToXMLContentHandler() {
         super();
         this.encoding = null;
+        this.external = false;
     }
 
     /**
@@ -78,6 +114,7 @@ public class ToXMLContentHandler extends ToTextContentHandler {
 
         currentElement = null;
         namespaces.clear();
+        endOfEvent();
     }
 
     @Override
@@ -99,15 +136,14 @@ public class ToXMLContentHandler extends ToTextContentHandler {
         currentElement = new ElementInfo(currentElement, namespaces);
 
         write('<');
-        write(currentElement.getQName(uri, localName));
+        writeQName(uri, localName);
 
         for (int i = 0; i < atts.getLength(); i++) {
             write(' ');
-            write(currentElement.getQName(atts.getURI(i), atts.getLocalName(i)));
+            writeQName(atts.getURI(i), atts.getLocalName(i));
             write('=');
             write('"');
-            char[] ch = atts.getValue(i).toCharArray();
-            writeEscaped(ch, 0, ch.length, true);
+            writeEscaped(atts.getValue(i));
             write('"');
         }
 
@@ -121,13 +157,13 @@ public class ToXMLContentHandler extends ToTextContentHandler {
             }
             write('=');
             write('"');
-            char[] ch = entry.getKey().toCharArray();
-            writeEscaped(ch, 0, ch.length, true);
+            writeEscaped(entry.getKey());
             write('"');
         }
         namespaces.clear();
 
         inStartElement = true;
+        endOfEvent();
     }
 
     @Override
@@ -146,12 +182,39 @@ public class ToXMLContentHandler extends ToTextContentHandler {
         // Reset the position in the tree, to avoid endless stack overflow
         // chains (see TIKA-1070)
         currentElement = currentElement.parent;
+        endOfEvent();
     }
 
     @Override
     public void characters(char[] ch, int start, int length) throws SAXException {
         lazyCloseStartElement();
         writeEscaped(ch, start, start + length, false);
+        endOfEvent();
+    }
+
+    /**
+     * Passes on the pending output and hands the buffer back to the pool.
+     */
+    @Override
+    public void endDocument() throws SAXException {
+        releaseBuffer();
+        super.endDocument();
+    }
+
+    /**
+     * Returns the serialized document so far, see
+     * {@link ToTextContentHandler#toString()}.  This also hands the buffer
+     * back to the pool, e.g. after a parse that failed before the end of
+     * the document.
+     */
+    @Override
+    public String toString() {
+        try {
+            releaseBuffer();
+        } catch (SAXException e) {
+            throw new IllegalStateException("Error writing pending output", e);
+        }
+        return super.toString();
     }
 
     private void lazyCloseStartElement() throws SAXException {
@@ -168,7 +231,12 @@ public class ToXMLContentHandler extends ToTextContentHandler {
      * @throws SAXException if the character could not be written
      */
     protected void write(char ch) throws SAXException {
-        super.characters(new char[]{ch}, 0, 1);
+        if (buffer == null) {
+            buffer = CharBufferPool.acquire();
+        } else if (bufferLength == buffer.length) {
+            flushBuffer();
+        }
+        buffer[bufferLength++] = ch;
     }
 
     /**
@@ -178,7 +246,75 @@ public class ToXMLContentHandler extends ToTextContentHandler {
      * @throws SAXException if the character string could not be written
      */
     protected void write(String string) throws SAXException {
-        super.characters(string.toCharArray(), 0, string.length());
+        if (buffer == null) {
+            buffer = CharBufferPool.acquire();
+        }
+        int off = 0;
+        while (off < string.length()) {
+            if (bufferLength == buffer.length) {
+                flushBuffer();
+            }
+            int n = Math.min(buffer.length - bufferLength, string.length() - off);
+            string.getChars(off, off + n, buffer, bufferLength);
+            bufferLength += n;
+            off += n;
+        }
+    }
+
+    /**
+     * Writes the given characters as-is.  Runs that are longer than the
+     * buffer are passed on without copying.
+     *
+     * @param ch     character array
+     * @param from   start position in the array
+     * @param length number of characters
+     * @throws SAXException if the characters could not be written
+     */
+    private void write(char[] ch, int from, int length) throws SAXException {
+        if (buffer == null) {
+            buffer = CharBufferPool.acquire();
+        }
+        if (length > buffer.length - bufferLength) {
+            flushBuffer();
+            if (length >= buffer.length) {
+                super.characters(ch, from, length);
+                return;
+            }
+        }
+        System.arraycopy(ch, from, buffer, bufferLength, length);
+        bufferLength += length;
+    }
+
+    private void writeQName(String uri, String localName) throws SAXException {
+        String prefix = currentElement.getPrefix(uri);
+        if (prefix.length() > 0) {
+            write(prefix);
+            write(':');
+        }
+        write(localName);
+    }
+
+    /**
+     * Called at the end of every event that may have written something.
+     */
+    void endOfEvent() throws SAXException {
+        if (external) {
+            releaseBuffer();
+        }
+    }
+
+    private void releaseBuffer() throws SAXException {
+        flushBuffer();
+        CharBufferPool.release(buffer);
+        buffer = null;
+    }
+
+    private void flushBuffer() throws SAXException {
+        if (bufferLength > 0) {
+            int length = bufferLength;
+            bufferLength = 0;
+            super.characters(buffer, 0, length);
+        }
     }
 
     /**
@@ -194,7 +330,7 @@ public class ToXMLContentHandler extends ToTextContentHandler {
      */
     private int writeCharsAndEntity(char[] ch, int from, int to, String entity)
             throws SAXException {
-        super.characters(ch, from, to - from);
+        write(ch, from, to - from);
         write('&');
         write(entity);
         write(';');
@@ -226,7 +362,30 @@ public class ToXMLContentHandler extends ToTextContentHandler {
                 pos++;
             }
         }
-        super.characters(ch, from, to - from);
+        write(ch, from, to - from);
+    }
+
+    /**
+     * Writes the given attribute value with XML meta characters escaped.
+     *
+     * @param value attribute value
+     * @throws SAXException if the characters could not be written
+     */
+    private void writeEscaped(String value) throws SAXException {
+        for (int i = 0; i < value.length(); i++) {
+            char c = value.charAt(i);
+            if (c == '<') {
+                write("&lt;");
+            } else if (c == '>') {
+                write("&gt;");
+            } else if (c == '&') {
+                write("&amp;");
+            } else if (c == '"') {
+                write("&quot;");
+            } else {
+                write(c);
+            }
+        }
     }
 
     private static class ElementInfo {
@@ -257,15 +416,6 @@ public class ToXMLContentHandler extends ToTextContentHandler {
             }
         }
 
-        public String getQName(String uri, String localName) throws SAXException {
-            String prefix = getPrefix(uri);
-            if (prefix.length() > 0) {
-                return prefix + ":" + localName;
-            } else {
-                return localName;
-            }
-        }
-
     }
 
 }
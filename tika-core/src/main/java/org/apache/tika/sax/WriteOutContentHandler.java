@@ -16,9 +16,9 @@
  */
 package org.apache.tika.sax;
 
-import java.io.StringWriter;
 import java.io.Writer;
 
+import org.apache.commons.io.output.StringBuilderWriter;
 import org.xml.sax.ContentHandler;
 import org.xml.sax.SAXException;
 
@@ -100,7 +100,7 @@ public class WriteOutContentHandler extends ContentHandlerDecorator {
      * @since Apache Tika 0.7
      */
     public WriteOutContentHandler(int writeLimit) {
-        this(new StringWriter(), writeLimit);
+        this(new StringBuilderWriter(), writeLimit);
     }
 
     /**
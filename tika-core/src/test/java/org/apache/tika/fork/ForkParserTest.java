@@ -19,6 +19,7 @@ package org.apache.tika.fork;
 import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.junit.jupiter.api.Assertions.assertTrue;
 import static org.junit.jupiter.api.Assertions.fail;
+import static org.junit.jupiter.api.Assumptions.assumeTrue;
 
 import java.io.ByteArrayInputStream;
 import java.io.ByteArrayOutputStream;
@@ -36,15 +37,18 @@ import java.nio.charset.Charset;
 import java.nio.charset.StandardCharsets;
 import java.nio.file.Files;
 import java.nio.file.Path;
+import java.nio.file.Paths;
 import java.time.Instant;
 import java.time.temporal.ChronoUnit;
 import java.util.ArrayList;
 import java.util.List;
+import java.util.Random;
 import java.util.concurrent.CountDownLatch;
 import java.util.concurrent.ExecutorService;
 import java.util.concurrent.Executors;
 import java.util.concurrent.Semaphore;
 import java.util.concurrent.TimeUnit;
+import java.util.zip.CRC32;
 
 import org.apache.commons.io.IOUtils;
 import org.junit.jupiter.api.Test;
@@ -55,6 +59,7 @@ import org.xml.sax.helpers.DefaultHandler;
 
 import org.apache.tika.TikaTest;
 import org.apache.tika.exception.TikaException;
+import org.apache.tika.io.TikaInputStream;
 import org.apache.tika.metadata.Metadata;
 import org.apache.tika.metadata.TikaCoreProperties;
 import org.apache.tika.parser.AutoDetectParser;
@@ -67,6 +72,7 @@ import org.apache.tika.sax.BasicContentHandlerFactory;
 import org.apache.tika.sax.BodyContentHandler;
 import org.apache.tika.sax.ContentHandlerFactory;
 import org.apache.tika.sax.RecursiveParserWrapperHandler;
+import org.apache.tika.sax.ToXMLContentHandler;
 
 public class ForkParserTest extends TikaTest {
 
@@ -87,6 +93,105 @@ public class ForkParserTest extends TikaTest {
         }
     }
 
+    @Test
+    public void testBufferedEvents() throws Exception {
+        String expected = null;
+        for (int bufferSize : new int[]{0, 7, ContentHandlerProxy.DEFAULT_BUFFER_SIZE}) {
+            try (ForkParser parser = new ForkParser(ForkParserTest.class.getClassLoader(),
+                    new ForkTestParser.ForkTestParserManyEvents(false))) {
+                parser.setContentHandlerBufferSize(bufferSize);
+                ContentHandler output = new ToXMLContentHandler();
+                parser.parse(new ByteArrayInputStream(new byte[0]), output, new Metadata(),
+                        new ParseContext());
+                String xml = output.toString();
+                assertContains("<p class=\"p9999\">caf\u00e9 \u4e2d\u6587 \ud83d\ude00 </p>", xml);
+                if (expected == null) {
+                    expected = xml;
+                } else {
+                    assertEquals(expected, xml, "buffer size: " + bufferSize);
+                }
+            }
+        }
+    }
+
+    @Test
+    public void testBufferedEventsBeforeException() throws Exception {
+        try (ForkParser parser = new ForkParser(ForkParserTest.class.getClassLoader(),
+                new ForkTestParser.ForkTestParserManyEvents(true))) {
+            ContentHandler output = new BodyContentHandler(-1);
+            try {
+                parser.parse(new ByteArrayInputStream(new byte[0]), output, new Metadata(),
+                        new ParseContext());
+                fail("should have thrown an exception");
+            } catch (TikaException e) {
+                assertContains("failed after 10000 paragraphs", e.getMessage());
+            }
+            //events buffered when the parser failed must still arrive
+            assertEquals(10000, output.toString().split("\uD83D\uDE00").length - 1);
+        }
+    }
+
+    @Test
+    public void testReadAhead() throws Exception {
+        byte[] bytes = new byte[3 * InputStreamProxy.DEFAULT_READ_AHEAD + 17];
+        new Random(42).nextBytes(bytes);
+        CRC32 crc = new CRC32();
+        crc.update(bytes);
+        String expected = bytes.length + " " + crc.getValue();
+
+        Path file = tempDir.resolve("random.bin");
+        Files.write(file, bytes);
+        try (ForkParser parser = new ForkParser(ForkParserTest.class.getClassLoader(),
+                new ForkTestParser.ForkTestParserChecksum())) {
+            //through the pipe
+            ContentHandler output = new BodyContentHandler();
+            parser.parse(new ByteArrayInputStream(bytes), output, new Metadata(),
+                    new ParseContext());
+            assertEquals(expected, output.toString().trim());
+
+            //directly from the file
+            output = new BodyContentHandler();
+            try (TikaInputStream tis = TikaInputStream.get(file)) {
+                parser.parse(tis, output, new Metadata(), new ParseContext());
+            }
+            assertEquals(expected, output.toString().trim());
+
+            //a file-backed stream that has already been read from goes through the pipe
+            output = new BodyContentHandler();
+            try (TikaInputStream tis = TikaInputStream.get(file)) {
+                tis.skip(17);
+                parser.parse(tis, output, new Metadata(), new ParseContext());
+            }
+            crc.reset();
+            crc.update(bytes, 17, bytes.length - 17);
+            assertEquals((bytes.length - 17) + " " + crc.getValue(), output.toString().trim());
+        }
+    }
+
+    @Test
+    public void testFilesAreClosed() throws Exception {
+        assumeTrue(Files.isDirectory(Paths.get("/proc/self/fd")));
+        Path file = tempDir.resolve("file.txt");
+        Files.write(file, "Hello, World!".getBytes(StandardCharsets.UTF_8));
+        try (ForkParser parser = new ForkParser(ForkParserTest.class.getClassLoader(),
+                new ForkTestParser.ForkTestParserOpenFiles())) {
+            int first = 0;
+            int last = 0;
+            for (int i = 0; i < 200; i++) {
+                ContentHandler output = new BodyContentHandler();
+                try (TikaInputStream tis = TikaInputStream.get(file)) {
+                    parser.parse(tis, output, new Metadata(), new ParseContext());
+                }
+                last = Integer.parseInt(output.toString().trim());
+                if (i == 0) {
+                    first = last;
+                }
+            }
+            //the parser doesn't close the stream, the server has to
+            assertTrue(last < first + 10, "open files went from " + first + " to " + last);
+        }
+    }
+
     @Test
     public void testSerialParsing() throws Exception {
         try (ForkParser parser = new ForkParser(ForkParserTest.class.getClassLoader(),
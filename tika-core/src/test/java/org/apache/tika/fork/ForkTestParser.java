@@ -20,8 +20,14 @@ import static org.junit.jupiter.api.Assertions.assertNotNull;
 
 import java.io.IOException;
 import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.Arrays;
 import java.util.Collections;
 import java.util.Set;
+import java.util.stream.Stream;
+import java.util.zip.CRC32;
 
 import org.xml.sax.ContentHandler;
 import org.xml.sax.SAXException;
@@ -67,6 +73,92 @@ class ForkTestParser implements Parser {
         }
     }
 
+    static class ForkTestParserManyEvents extends ForkTestParser {
+
+        private final boolean fail;
+
+        ForkTestParserManyEvents(boolean fail) {
+            this.fail = fail;
+        }
+
+        @Override
+        public void parse(InputStream stream, ContentHandler handler, Metadata metadata,
+                          ParseContext context) throws IOException, SAXException, TikaException {
+            XHTMLContentHandler xhtml = new XHTMLContentHandler(handler, metadata);
+            xhtml.startDocument();
+            char[] ch = "caf\u00e9 \u4e2d\u6587 \ud83d\ude00 ".toCharArray();
+            for (int i = 0; i < 10000; i++) {
+                xhtml.startElement("p", "class", "p" + i);
+                xhtml.characters(ch, 0, ch.length);
+                xhtml.endElement("p");
+            }
+            if (fail) {
+                throw new TikaException("failed after 10000 paragraphs");
+            }
+            char[] big = new char[100000];
+            Arrays.fill(big, 'x');
+            xhtml.characters(big, 0, big.length);
+            xhtml.endDocument();
+        }
+    }
+
+    /**
+     * Reads the whole stream with a mix of single byte, small and large
+     * reads and outputs the length and CRC-32 of what it read.
+     */
+    static class ForkTestParserChecksum extends ForkTestParser {
+        @Override
+        public void parse(InputStream stream, ContentHandler handler, Metadata metadata,
+                          ParseContext context) throws IOException, SAXException, TikaException {
+            CRC32 crc = new CRC32();
+            long length = 0;
+            byte[] buffer = new byte[200000];
+            int[] sizes = {1, 3, 100, 5000, buffer.length};
+            for (int i = 0; ; i++) {
+                int size = sizes[i % sizes.length];
+                if (size == 1) {
+                    int b = stream.read();
+                    if (b == -1) {
+                        break;
+                    }
+                    crc.update(b);
+                    length++;
+                } else {
+                    int n = stream.read(buffer, 0, size);
+                    if (n == -1) {
+                        break;
+                    }
+                    crc.update(buffer, 0, n);
+                    length += n;
+                }
+            }
+            XHTMLContentHandler xhtml = new XHTMLContentHandler(handler, metadata);
+            xhtml.startDocument();
+            xhtml.element("p", length + " " + crc.getValue());
+            xhtml.endDocument();
+        }
+    }
+
+    /**
+     * Reads one byte, without closing the stream, and outputs the number
+     * of file descriptors that the forked process has open.
+     */
+    static class ForkTestParserOpenFiles extends ForkTestParser {
+        @Override
+        public void parse(InputStream stream, ContentHandler handler, Metadata metadata,
+                          ParseContext context) throws IOException, SAXException, TikaException {
+            stream.read();
+            long openFiles;
+            try (Stream<Path> fds = Files.list(Paths.get("/proc/self/fd"))) {
+                openFiles = fds.count();
+            }
+            XHTMLContentHandler xhtml = new XHTMLContentHandler(handler, metadata);
+            xhtml.startDocument();
+            xhtml.element("p", Long.toString(openFiles));
+            xhtml.endDocument();
+        }
+    }
+
     static class ForkTestParserWaiting extends ForkTestParser {
         @Override
         public void parse(InputStream stream, ContentHandler handler, Metadata metadata,
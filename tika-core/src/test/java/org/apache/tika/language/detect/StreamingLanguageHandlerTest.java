@@ -0,0 +1,151 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.tika.language.detect;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import org.junit.jupiter.api.Test;
+
+import org.apache.tika.metadata.Metadata;
+import org.apache.tika.metadata.TikaCoreProperties;
+import org.apache.tika.sax.ToTextContentHandler;
+
+public class StreamingLanguageHandlerTest {
+
+    @Test
+    public void testStopsOnceStable() throws Exception {
+        CountingDetector detector = new CountingDetector();
+        Metadata metadata = new Metadata();
+        ToTextContentHandler text = new ToTextContentHandler();
+        StreamingLanguageHandler handler = new StreamingLanguageHandler(text, detector, metadata);
+        handler.setMinChars(100);
+        handler.setCheckInterval(100);
+        handler.setStableChecks(2);
+
+        char[] chunk = "hello world ".toCharArray();
+        handler.startDocument();
+        for (int i = 0; i < 1000; i++) {
+            handler.characters(chunk, 0, chunk.length);
+            if (i == 100) {
+                // the result is available before the parse finishes
+                assertTrue(handler.isDone());
+                assertEquals("en", metadata.get(TikaCoreProperties.TIKA_DETECTED_LANGUAGE));
+            }
+        }
+        handler.endDocument();
+
+        assertTrue(detector.chars < 1000, "detector was fed " + detector.chars);
+        assertEquals(detector.chars, handler.getCharsFed());
+        assertEquals(1000 * chunk.length, text.toString().length());
+        assertEquals("MEDIUM",
+                metadata.get(TikaCoreProperties.TIKA_DETECTED_LANGUAGE_CONFIDENCE));
+    }
+
+    @Test
+    public void testDetectsAtEndDocument() throws Exception {
+        CountingDetector detector = new CountingDetector();
+        Metadata metadata = new Metadata();
+        StreamingLanguageHandler handler =
+                new StreamingLanguageHandler(new ToTextContentHandler(), detector, metadata);
+
+        char[] chunk = "short".toCharArray();
+        handler.startDocument();
+        handler.characters(chunk, 0, chunk.length);
+        assertFalse(handler.isDone());
+        assertNull(metadata.get(TikaCoreProperties.TIKA_DETECTED_LANGUAGE));
+        handler.endDocument();
+
+        assertTrue(handler.isDone());
+        // below the detector's own threshold
+        assertNull(metadata.get(TikaCoreProperties.TIKA_DETECTED_LANGUAGE));
+        assertEquals(5, handler.getCharsFed());
+    }
+
+    @Test
+    public void testMaxChars() throws Exception {
+        CountingDetector detector = new CountingDetector();
+        detector.confidence = LanguageConfidence.LOW;
+        Metadata metadata = new Metadata();
+        StreamingLanguageHandler handler =
+                new StreamingLanguageHandler(new ToTextContentHandler(), detector, metadata);
+        handler.setMaxChars(500);
+
+        char[] chunk = new char[64];
+        for (int i = 0; i < 100; i++) {
+            handler.characters(chunk, 0, chunk.length);
+        }
+        assertTrue(handler.isDone());
+        assertEquals(500, detector.chars);
+        assertEquals("LOW", metadata.get(TikaCoreProperties.TIKA_DETECTED_LANGUAGE_CONFIDENCE));
+    }
+
+    /**
+     * Reports "en" once it has seen 50 characters.
+     */
+    private static class CountingDetector extends LanguageDetector {
+
+        private long chars = 0;
+
+        private LanguageConfidence confidence = LanguageConfidence.MEDIUM;
+
+        @Override
+        public LanguageDetector loadModels() {
+            return this;
+        }
+
+        @Override
+        public LanguageDetector loadModels(Set<String> languages) {
+            return this;
+        }
+
+        @Override
+        public boolean hasModel(String language) {
+            return "en".equals(language);
+        }
+
+        @Override
+        public LanguageDetector setPriors(Map<String, Float> languageProbabilities) {
+            return this;
+        }
+
+        @Override
+        public void reset() {
+            chars = 0;
+        }
+
+        @Override
+        public void addText(char[] cbuf, int off, int len) {
+            chars += len;
+        }
+
+        @Override
+        public List<LanguageResult> detectAll() {
+            if (chars < 50) {
+                return Collections.emptyList();
+            }
+            return Collections.singletonList(new LanguageResult("en", confidence, 0.9f));
+        }
+    }
+}
@@ -18,8 +18,14 @@ package org.apache.tika.parser;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
 
 import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
 import java.util.Collections;
 import java.util.HashMap;
 import java.util.HashSet;
@@ -27,14 +33,19 @@ import java.util.List;
 import java.util.Map;
 import java.util.Set;
 
+import org.apache.commons.io.IOUtils;
 import org.junit.jupiter.api.Test;
 import org.xml.sax.ContentHandler;
+import org.xml.sax.SAXException;
 
 import org.apache.tika.config.TikaConfig;
+import org.apache.tika.extractor.ParsingEmbeddedDocumentExtractor;
 import org.apache.tika.metadata.Metadata;
+import org.apache.tika.metadata.TikaCoreProperties;
 import org.apache.tika.mime.MediaType;
 import org.apache.tika.mime.MediaTypeRegistry;
 import org.apache.tika.sax.BodyContentHandler;
+import org.apache.tika.sax.XHTMLContentHandler;
 
 public class CompositeParserTest {
 
@@ -150,4 +161,108 @@ public class CompositeParserTest {
         assertEquals("True", metadata.get("BMP"));
         assertEquals("True", metadata.get("Alias"));
     }
+
+    @Test
+    @SuppressWarnings("serial")
+    public void testParseTimingListener() throws Exception {
+        MediaType container = MediaType.application("x-container");
+        Parser text = new Parser() {
+            public Set<MediaType> getSupportedTypes(ParseContext context) {
+                return Collections.singleton(MediaType.TEXT_PLAIN);
+            }
+
+            public void parse(InputStream stream, ContentHandler handler, Metadata metadata,
+                              ParseContext context) throws IOException, SAXException {
+                String s = IOUtils.toString(stream, StandardCharsets.UTF_8);
+                XHTMLContentHandler xhtml = new XHTMLContentHandler(handler, metadata);
+                xhtml.startDocument();
+                xhtml.characters(s);
+                xhtml.endDocument();
+            }
+        };
+        Parser containerParser = new Parser() {
+            public Set<MediaType> getSupportedTypes(ParseContext context) {
+                return Collections.singleton(container);
+            }
+
+            public void parse(InputStream stream, ContentHandler handler, Metadata metadata,
+                              ParseContext context) throws IOException, SAXException {
+                IOUtils.skip(stream, 4);
+                XHTMLContentHandler xhtml = new XHTMLContentHandler(handler, metadata);
+                xhtml.startDocument();
+                Metadata embedded = new Metadata();
+                embedded.set(Metadata.CONTENT_TYPE, MediaType.TEXT_PLAIN.toString());
+                new ParsingEmbeddedDocumentExtractor(context).parseEmbedded(stream, xhtml,
+                        embedded, false);
+                xhtml.endDocument();
+            }
+        };
+        CompositeParser inner =
+                new CompositeParser(MediaTypeRegistry.getDefaultRegistry(), text, containerParser);
+        CompositeParser outer = new CompositeParser(MediaTypeRegistry.getDefaultRegistry(), inner);
+
+        List<ParseTiming> parsers = new ArrayList<>();
+        List<ParseTiming> embedded = new ArrayList<>();
+        ParseContext context = new ParseContext();
+        context.set(Parser.class, outer);
+        context.set(ParseTimingListener.class, new ParseTimingListener() {
+            public void parserFinished(ParseTiming timing) {
+                parsers.add(timing);
+            }
+
+            public void embeddedDocumentFinished(ParseTiming timing) {
+                embedded.add(timing);
+            }
+        });
+
+        Metadata metadata = new Metadata();
+        metadata.set(Metadata.CONTENT_TYPE, container.toString());
+        outer.parse(new ByteArrayInputStream("skipHello".getBytes(StandardCharsets.UTF_8)),
+                new BodyContentHandler(), metadata, context);
+
+        //the embedded document goes through outer and inner too
+        assertEquals(4, parsers.size());
+        assertEquals(text.getClass().getName(), parsers.get(0).getParserClassname());
+        assertEquals(4, parsers.get(0).getDepth());
+        assertEquals(5, parsers.get(0).getBytesRead());
+        //text plus the whitespace XHTMLContentHandler adds
+        long chars = parsers.get(0).getCharsWritten();
+        assertTrue(chars >= 5);
+        ParseTiming outermost = parsers.get(3);
+        assertEquals(CompositeParser.class.getName(), outermost.getParserClassname());
+        assertEquals(1, outermost.getDepth());
+        assertEquals(9, outermost.getBytesRead());
+        assertTrue(outermost.getWallNanos() >= parsers.get(2).getWallNanos());
+
+        assertEquals(1, embedded.size());
+        assertNull(embedded.get(0).getParserClassname());
+        assertEquals(3, embedded.get(0).getDepth());
+        assertEquals(5, embedded.get(0).getBytesRead());
+        assertTrue(embedded.get(0).getCharsWritten() >= 5);
+        assertEquals("5", embedded.get(0).getMetadata().get(TikaCoreProperties.PARSE_BYTES_READ));
+
+        assertEquals("9", metadata.get(TikaCoreProperties.PARSE_BYTES_READ));
+        assertEquals(Long.toString(outermost.getCharsWritten()),
+                metadata.get(TikaCoreProperties.PARSE_CHARS_WRITTEN));
+        assertNotNull(metadata.get(TikaCoreProperties.PARSE_WALL_MICROS));
+
+        //nothing is measured without a listener
+        metadata = new Metadata();
+        metadata.set(Metadata.CONTENT_TYPE, MediaType.TEXT_PLAIN.toString());
+        outer.parse(new ByteArrayInputStream("Hello".getBytes(StandardCharsets.UTF_8)),
+                new BodyContentHandler(), metadata, new ParseContext());
+        assertNull(metadata.get(TikaCoreProperties.PARSE_WALL_MICROS));
+    }
+
+    @Test
+    public void testTimingPropertiesHoldLongs() {
+        //a stream of a few GB overflows an int
+        Metadata metadata = new Metadata();
+        metadata.set(TikaCoreProperties.PARSE_BYTES_READ, 5_000_000_000L);
+        metadata.set(TikaCoreProperties.PARSE_CHARS_WRITTEN, 3_000_000_000L);
+        metadata.set(TikaCoreProperties.PARSE_WALL_MICROS, 4_000_000_000L);
+        assertEquals("5000000000", metadata.get(TikaCoreProperties.PARSE_BYTES_READ));
+        assertEquals("3000000000", metadata.get(TikaCoreProperties.PARSE_CHARS_WRITTEN));
+        assertEquals("4000000000", metadata.get(TikaCoreProperties.PARSE_WALL_MICROS));
+    }
 }
@@ -0,0 +1,215 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.tika.parser;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.util.Random;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.jupiter.api.Test;
+import org.xml.sax.ContentHandler;
+import org.xml.sax.SAXException;
+import org.xml.sax.helpers.AttributesImpl;
+
+import org.apache.tika.exception.TikaException;
+import org.apache.tika.sax.ToXMLContentHandler;
+
+public class EmbeddedParseQueueTest {
+
+    private static final int TASKS = 50;
+
+    @Test
+    public void testOrder() throws Exception {
+        String expected = run(new ParseContext());
+        for (long maxBufferedChars : new long[]{0, 100, Long.MAX_VALUE}) {
+            ParallelEmbeddedConfig config = new ParallelEmbeddedConfig(4);
+            config.setMaxBufferedChars(maxBufferedChars);
+            ParseContext context = new ParseContext();
+            context.set(ParallelEmbeddedConfig.class, config);
+            assertEquals(expected, run(context), "maxBufferedChars " + maxBufferedChars);
+        }
+    }
+
+    @Test
+    public void testSequentialFallback() throws Exception {
+        ParseContext context = new ParseContext();
+        context.set(ParallelEmbeddedConfig.class, new ParallelEmbeddedConfig(4));
+        try (EmbeddedParseQueue queue = new EmbeddedParseQueue(new ToXMLContentHandler(), context)) {
+            assertTrue(queue.isParallel());
+        }
+        //what the RecursiveParserWrapper sets during the parse
+        context.set(Parser.class, new StatefulParser(new AutoDetectParser()));
+        try (EmbeddedParseQueue queue = new EmbeddedParseQueue(new ToXMLContentHandler(), context)) {
+            assertFalse(queue.isParallel());
+        }
+        context = new ParseContext();
+        context.set(ParallelEmbeddedConfig.class, new ParallelEmbeddedConfig(1));
+        try (EmbeddedParseQueue queue = new EmbeddedParseQueue(new ToXMLContentHandler(), context)) {
+            assertFalse(queue.isParallel());
+        }
+    }
+
+    @Test
+    public void testExceptionInOrder() throws Exception {
+        ParseContext context = new ParseContext();
+        context.set(ParallelEmbeddedConfig.class, new ParallelEmbeddedConfig(4));
+        ParseRecord record = new ParseRecord();
+        context.set(ParseRecord.class, record);
+        ToXMLContentHandler handler = new ToXMLContentHandler();
+        AtomicInteger submitted = new AtomicInteger();
+        AtomicInteger closed = new AtomicInteger();
+        IOException e = assertThrows(IOException.class, () -> {
+            try (EmbeddedParseQueue queue = new EmbeddedParseQueue(handler, context)) {
+                for (int i = 0; i < TASKS; i++) {
+                    queue.submit(new ClosingTask(i, i == 3 ? 10 : -1, closed));
+                    submitted.incrementAndGet();
+                }
+                queue.finish();
+            }
+        });
+        assertEquals("task 3", e.getMessage());
+        assertEquals("<p>0-0</p><p>1-0</p><p>1-1</p><p>2-0</p><p>2-1</p><p>2-2</p>",
+                handler.toString());
+        assertEquals(3, record.getWarnings().size());
+        assertEquals("2", record.getWarnings().get(2));
+        assertTrue(submitted.get() < TASKS);
+        //the skipped tasks are closed too, and the running ones are done
+        assertEquals(submitted.get(), closed.get());
+    }
+
+    @Test
+    public void testCloseWaitsForRunningTasks() throws Exception {
+        ParseContext context = new ParseContext();
+        context.set(ParallelEmbeddedConfig.class, new ParallelEmbeddedConfig(4));
+        context.set(ParseRecord.class, new ParseRecord());
+        ToXMLContentHandler handler = new ToXMLContentHandler();
+        AtomicInteger closed = new AtomicInteger();
+        try (EmbeddedParseQueue queue = new EmbeddedParseQueue(handler, context)) {
+            for (int i = 0; i < 8; i++) {
+                queue.submit(new ClosingTask(i, -1, closed));
+            }
+        }
+        assertEquals(8, closed.get());
+        String output = handler.toString();
+        Thread.sleep(100);
+        assertEquals(output, handler.toString());
+    }
+
+    @Test
+    public void testElementsCountAsBuffered() throws Exception {
+        ParallelEmbeddedConfig config = new ParallelEmbeddedConfig(2);
+        config.setMaxBufferedChars(1000);
+        ParseContext context = new ParseContext();
+        context.set(ParallelEmbeddedConfig.class, config);
+        ToXMLContentHandler handler = new ToXMLContentHandler();
+        CountDownLatch release = new CountDownLatch(1);
+        AtomicInteger elements = new AtomicInteger();
+        try (EmbeddedParseQueue queue = new EmbeddedParseQueue(handler, context)) {
+            queue.submit((h, c) -> {
+                try {
+                    release.await();
+                } catch (InterruptedException e) {
+                    throw new TikaException("interrupted", e);
+                }
+            });
+            //runs ahead and has nothing but empty elements to buffer
+            queue.submit((h, c) -> {
+                for (int i = 0; i < 10000; i++) {
+                    h.startElement("", "br", "br", new AttributesImpl());
+                    h.endElement("", "br", "br");
+                    elements.incrementAndGet();
+                }
+            });
+            Thread.sleep(200);
+            assertTrue(elements.get() < 100, "buffered " + elements.get() + " elements");
+            release.countDown();
+            queue.finish();
+        }
+        assertEquals(10000, elements.get());
+    }
+
+    private String run(ParseContext context) throws Exception {
+        ToXMLContentHandler handler = new ToXMLContentHandler();
+        ParseRecord record = new ParseRecord();
+        context.set(ParseRecord.class, record);
+        AtomicInteger closed = new AtomicInteger();
+        try (EmbeddedParseQueue queue = new EmbeddedParseQueue(handler, context)) {
+            for (int i = 0; i < TASKS; i++) {
+                queue.submit(new ClosingTask(i, -1, closed));
+            }
+            queue.finish();
+        }
+        assertEquals(TASKS, closed.get());
+        assertEquals(TASKS, record.getWarnings().size());
+        for (int i = 0; i < TASKS; i++) {
+            assertEquals(Integer.toString(i), record.getWarnings().get(i));
+        }
+        return handler.toString();
+    }
+
+    /**
+     * Writes a varying number of paragraphs after a random delay, or throws
+     * an IOException after the given number of milliseconds.
+     */
+    private static class ClosingTask implements EmbeddedParseQueue.Task, Closeable {
+
+        private final int id;
+
+        private final int failAfterMillis;
+
+        private final AtomicInteger closed;
+
+        ClosingTask(int id, int failAfterMillis, AtomicInteger closed) {
+            this.id = id;
+            this.failAfterMillis = failAfterMillis;
+            this.closed = closed;
+        }
+
+        @Override
+        public void parse(ContentHandler handler, ParseContext context)
+                throws IOException, SAXException, TikaException {
+            Random random = new Random(id);
+            try {
+                Thread.sleep(failAfterMillis >= 0 ? failAfterMillis : random.nextInt(20));
+            } catch (InterruptedException e) {
+                throw new TikaException("interrupted", e);
+            }
+            if (failAfterMillis >= 0) {
+                throw new IOException("task " + id);
+            }
+            context.get(ParseRecord.class).addWarning(Integer.toString(id));
+            for (int i = 0; i <= id % 5; i++) {
+                handler.startElement("", "p", "p", new AttributesImpl());
+                char[] chars = (id + "-" + i).toCharArray();
+                handler.characters(chars, 0, chars.length);
+                handler.endElement("", "p", "p");
+            }
+        }
+
+        @Override
+        public void close() {
+            closed.incrementAndGet();
+        }
+    }
+}
@@ -0,0 +1,95 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.tika.sax;
+
+import java.io.OutputStream;
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
+import java.nio.charset.StandardCharsets;
+import java.util.Locale;
+
+import org.xml.sax.ContentHandler;
+import org.xml.sax.helpers.AttributesImpl;
+
+import org.apache.tika.metadata.Metadata;
+
+/**
+ * Reports the wall and CPU time taken per serialized document for the XML,
+ * HTML and text serializers.  Run it before and after a change to the
+ * serializers to compare.  For allocation figures, run it under a profiler,
+ * e.g. with <code>-XX:StartFlightRecording</code>.
+ */
+public class SerializerBenchmark {
+
+    private static final int WARMUP = 2000;
+
+    private static final int ITERATIONS = 20000;
+
+    private static final char[] TEXT = ("Lorem ipsum dolor sit amet, consectetur <adipiscing> " +
+            "elit & sed do eiusmod tempor incididunt ut labore et dolore magna aliqua. ")
+            .toCharArray();
+
+    public static void main(String[] args) throws Exception {
+        benchmark("ToXMLContentHandler(stream)", () -> new ToXMLContentHandler(
+                OutputStream.nullOutputStream(), StandardCharsets.UTF_8.name()));
+        benchmark("ToXMLContentHandler()", ToXMLContentHandler::new);
+        benchmark("ToHTMLContentHandler()", ToHTMLContentHandler::new);
+        benchmark("ToTextContentHandler()", ToTextContentHandler::new);
+        benchmark("BodyContentHandler(-1)", () -> new BodyContentHandler(-1));
+    }
+
+    private static void benchmark(String name, HandlerFactory factory) throws Exception {
+        for (int i = 0; i < WARMUP; i++) {
+            serialize(factory.newHandler());
+        }
+        ThreadMXBean threads = ManagementFactory.getThreadMXBean();
+        long cpu = threads.getCurrentThreadCpuTime();
+        long start = System.nanoTime();
+        for (int i = 0; i < ITERATIONS; i++) {
+            serialize(factory.newHandler());
+        }
+        long nanos = System.nanoTime() - start;
+        cpu = threads.getCurrentThreadCpuTime() - cpu;
+        System.out.printf(Locale.ROOT, "%-30s %8dns wall %8dns cpu per document%n", name,
+                nanos / ITERATIONS, cpu / ITERATIONS);
+    }
+
+    /**
+     * A small XHTML document with the usual mix of short elements,
+     * attributes and text that needs escaping.
+     */
+    private static void serialize(ContentHandler handler) throws Exception {
+        XHTMLContentHandler xhtml = new XHTMLContentHandler(handler, new Metadata());
+        xhtml.startDocument();
+        for (int i = 0; i < 50; i++) {
+            AttributesImpl atts = new AttributesImpl();
+            atts.addAttribute("", "class", "class", "CDATA", "para-" + (i % 5));
+            xhtml.startElement("p", atts);
+            xhtml.characters(TEXT, 0, TEXT.length);
+            xhtml.startElement("b");
+            xhtml.characters(TEXT, 0, 20);
+            xhtml.endElement("b");
+            xhtml.endElement("p");
+        }
+        xhtml.endDocument();
+        handler.toString();
+    }
+
+    private interface HandlerFactory {
+        ContentHandler newHandler() throws Exception;
+    }
+}
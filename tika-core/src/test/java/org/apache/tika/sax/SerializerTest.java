@@ -18,6 +18,10 @@ package org.apache.tika.sax;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
 
+import java.io.ByteArrayOutputStream;
+import java.io.StringWriter;
+import java.nio.charset.StandardCharsets;
+
 import org.junit.jupiter.api.Test;
 import org.xml.sax.ContentHandler;
 import org.xml.sax.helpers.AttributesImpl;
@@ -69,6 +73,65 @@ public class SerializerTest {
         assertElementWithAttributes("<p class=\"test\">content</p>", new ToHTMLContentHandler());
     }
 
+    @Test
+    public void testToXMLContentHandlerLongContent() throws Exception {
+        StringBuilder text = new StringBuilder();
+        StringBuilder escaped = new StringBuilder();
+        for (int i = 0; i < 3000; i++) {
+            text.append("a<b&c").append(i);
+            escaped.append("a&lt;b&amp;c").append(i);
+        }
+        char[] ch = text.toString().toCharArray();
+        ByteArrayOutputStream stream = new ByteArrayOutputStream();
+        ToXMLContentHandler handler = new ToXMLContentHandler(stream, "UTF-8");
+        AttributesImpl attributes = new AttributesImpl();
+        attributes.addAttribute("", "title", "title", "CDATA", text.toString());
+        handler.startDocument();
+        handler.startElement("", "p", "p", attributes);
+        handler.characters(ch, 0, ch.length);
+        handler.characters(ch, 0, 1);
+        handler.endElement("", "p", "p");
+        handler.endDocument();
+        assertEquals("<?xml version=\"1.0\" encoding=\"UTF-8\"?>\n" +
+                "<p title=\"" + escaped + "\">" + escaped + "a</p>",
+                new String(stream.toByteArray(), StandardCharsets.UTF_8));
+    }
+
+    @Test
+    public void testNestedToXMLContentHandlers() throws Exception {
+        //both handlers are active on the same thread, as they are for embedded documents
+        ToXMLContentHandler outer = new ToXMLContentHandler();
+        outer.startDocument();
+        outer.startElement("", "p", "p", new AttributesImpl());
+        for (int i = 0; i < 3; i++) {
+            ToXMLContentHandler inner = new ToXMLContentHandler();
+            inner.startDocument();
+            assertElement("<p>content</p>", inner);
+            outer.characters("outer".toCharArray(), 0, 5);
+            inner.endDocument();
+            assertEquals("<p>content</p>", inner.toString());
+        }
+        outer.endElement("", "p", "p");
+        outer.endDocument();
+        assertEquals("<p>outerouterouter</p>", outer.toString());
+    }
+
+    @Test
+    public void testToXMLContentHandlerWriterBeforeFailure() throws Exception {
+        StringWriter writer = new StringWriter();
+        ToXMLContentHandler handler = new ToXMLContentHandler(writer);
+        AttributesImpl attributes = new AttributesImpl();
+        attributes.addAttribute("", "class", "class", "CDATA", "a&b");
+        handler.startDocument();
+        handler.startElement("", "p", "p", attributes);
+        assertEquals("<p class=\"a&amp;b\"", writer.toString());
+        handler.characters("before <the> failure".toCharArray(), 0, 20);
+        assertEquals("<p class=\"a&amp;b\">before &lt;the&gt; failure", writer.toString());
+        handler.endElement("", "p", "p");
+        //the parse fails here, endDocument() is never called
+        assertEquals("<p class=\"a&amp;b\">before &lt;the&gt; failure</p>", writer.toString());
+    }
+
     private void assertStartDocument(String expected, ContentHandler handler) throws Exception {
         handler.startDocument();
         assertEquals(expected, handler.toString());
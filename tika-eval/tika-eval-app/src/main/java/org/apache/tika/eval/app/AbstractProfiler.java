@@ -151,7 +151,20 @@ public abstract class AbstractProfiler extends FileResourceConsumer {
      * @throws IOException
      */
     public static void loadCommonTokens(Path p, String defaultLangCode) throws IOException {
-        COMMON_TOKEN_COUNT_MANAGER = new CommonTokenCountManager(p, defaultLangCode);
+        loadCommonTokens(p, defaultLangCode, null);
+    }
+
+    /**
+     * @param p               path to the common_tokens directory.  If this is null, try to load from classPath
+     * @param defaultLangCode this is the language code to use if a common_words list doesn't exist for the
+     *                        detected langauge; can be <code>null</code>
+     * @param compiledDir     directory for compiled, memory-mapped common tokens models;
+     *                        if <code>null</code>, the models are kept on heap
+     * @throws IOException
+     */
+    public static void loadCommonTokens(Path p, String defaultLangCode, Path compiledDir)
+            throws IOException {
+        COMMON_TOKEN_COUNT_MANAGER = new CommonTokenCountManager(p, defaultLangCode, compiledDir);
     }
 
     private static String getFileName(String path) {
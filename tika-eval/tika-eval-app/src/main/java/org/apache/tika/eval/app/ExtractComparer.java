@@ -108,7 +108,14 @@ public class ExtractComparer extends AbstractProfiler {
                 .addOption("maxTokens", true, "maximum tokens to process, default=200000")
                 .addOption("maxContentLength", true, "truncate content beyond this length for calculating 'contents' stats, default=1000000")
                 .addOption("maxContentLengthForLangId", true, "truncate content beyond this length for language id, default=50000")
-                .addOption("defaultLangCode", true, "which language to use for common words if no 'common words' " + "file exists for the langid result");
+                .addOption("defaultLangCode", true, "which language to use for common words if no 'common words' " + "file exists for the langid result")
+                .addOption("compiledCommonTokens", true, "directory in which to compile and memory-map the common words lists")
+                .addOption("dbWriterQueueSize", true, "if > 0, all consumers share one db writer thread with a queue of this many rows")
+                .addOption("batchSize", true, "with dbWriterQueueSize, the number of rows per table to send to the db in one batch, default=1000")
+                .addOption("commitEveryXRows", true, "commit after this many rows, default=10000")
+                .addOption("commitEveryXMillis", true, "also commit if this many milliseconds have passed since the last commit")
+                .addOption("numShards", true, "split the input into this many shards by a hash of the file path, default=1")
+                .addOption("shard", true, "with numShards, process only this shard (0 to numShards-1)");
     }
 
     //need to parameterize?
@@ -0,0 +1,368 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.tika.eval.app;
+
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.ResultSetMetaData;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.sql.Types;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeSet;
+
+import org.apache.commons.cli.CommandLine;
+import org.apache.commons.cli.DefaultParser;
+import org.apache.commons.cli.HelpFormatter;
+import org.apache.commons.cli.Options;
+import org.apache.commons.cli.ParseException;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import org.apache.tika.eval.app.db.Cols;
+import org.apache.tika.eval.app.db.H2Util;
+
+/**
+ * Merges the databases written by independent Profile or Compare runs,
+ * each of which processed one shard of the input (<code>-numShards</code>
+ * and <code>-shard</code>), into one database for the {@link
+ * org.apache.tika.eval.app.reports.ResultsReporter}.
+ * <p>
+ * Each run numbers its containers and files from 0 and builds its own
+ * mime table, so while copying, the {@link Cols#ID} and
+ * {@link Cols#CONTAINER_ID} values of each shard are shifted past the
+ * largest id of the shards before it, and the mime ids are remapped by
+ * mime string.  The reference tables are copied from the first shard only.
+ */
+public class ShardMerger {
+
+    private static final Logger LOG = LoggerFactory.getLogger(ShardMerger.class);
+
+    private static final int BATCH_SIZE = 1000;
+
+    private static final Set<String> ID_COLS = Set.of(Cols.ID.name(), Cols.CONTAINER_ID.name());
+
+    private static final Set<String> MIME_ID_COLS = Set.of(Cols.MIME_ID.name(), Cols.TIKA_MIME_ID.name(), Cols.FILE_MIME_ID.name());
+
+    private static final Set<String> REF_TABLES =
+            Set.of(AbstractProfiler.REF_PARSE_ERROR_TYPES.getName(), AbstractProfiler.REF_PARSE_EXCEPTION_TYPES.getName(),
+                    AbstractProfiler.REF_EXTRACT_EXCEPTION_TYPES.getName(), ExtractComparer.REF_PAIR_NAMES.getName());
+
+    static Options OPTIONS;
+
+    static {
+        OPTIONS = new Options()
+                .addOption("db", true, "h2 db to which to write the merged results")
+                .addOption("drop", false, "drop tables in the merged db if they exist");
+    }
+
+    private final Connection merged;
+    private final boolean drop;
+    private final Set<String> createdTables = new HashSet<>();
+
+    //<mime string, id in the merged db>
+    private final Map<String, Integer> mimeIds = new HashMap<>();
+    private long idOffset = 0;
+    private int shards = 0;
+
+    /**
+     * @param merged connection to the db that receives the merged results
+     * @param drop   whether to drop tables that already exist in the merged db
+     */
+    public ShardMerger(Connection merged, boolean drop) {
+        this.merged = merged;
+        this.drop = drop;
+    }
+
+    public static void USAGE() {
+        HelpFormatter helpFormatter = new HelpFormatter();
+        helpFormatter.printHelp(80, "java -jar tika-eval-x.y.jar MergeShards -db merged shard0 shard1 ...", "Tool: MergeShards", ShardMerger.OPTIONS,
+                "Note: for h2 db, do not include the .mv.db at the end of the db names.");
+    }
+
+    public static void main(String[] args) throws Exception {
+        DefaultParser defaultCLIParser = new DefaultParser();
+        CommandLine commandLine = null;
+        try {
+            commandLine = defaultCLIParser.parse(OPTIONS, args);
+        } catch (ParseException e) {
+            System.out.println(e.getMessage());
+            USAGE();
+            return;
+        }
+        if (!commandLine.hasOption("db") || commandLine.getArgList().isEmpty()) {
+            System.err.println("Must specify -db for the merged database and at least one shard database");
+            USAGE();
+            return;
+        }
+        List<Path> shardDbs = new ArrayList<>();
+        for (String shard : commandLine.getArgList()) {
+            Path db = Paths.get(trimH2Suffix(shard));
+            if (!H2Util.databaseExists(db)) {
+                throw new RuntimeException("I'm sorry, but I couldn't find this h2 database: " + db);
+            }
+            shardDbs.add(db);
+        }
+        Path mergedDb = Paths.get(trimH2Suffix(commandLine.getOptionValue("db")));
+        try (Connection merged = new H2Util(mergedDb).getConnection()) {
+            ShardMerger merger = new ShardMerger(merged, commandLine.hasOption("drop"));
+            for (Path shardDb : shardDbs) {
+                LOG.info("merging {}", shardDb);
+                try (Connection shard = new H2Util(shardDb).getConnection()) {
+                    merger.merge(shard);
+                }
+            }
+        }
+    }
+
+    private static String trimH2Suffix(String db) {
+        return db.endsWith(".mv.db") ? db.substring(0, db.length() - 6) : db;
+    }
+
+    /**
+     * Copies all tables of one shard into the merged db and commits.
+     *
+     * @param shard connection to the shard's db
+     * @throws SQLException
+     */
+    public void merge(Connection shard) throws SQLException {
+        long started = System.currentTimeMillis();
+        List<String> tables = getTables(shard);
+
+        //the mime tables are merged by mime string, the reference tables
+        //are only copied from the first shard
+        List<String> mimeTables = new ArrayList<>();
+        List<String> dataTables = new ArrayList<>();
+        long maxId = -1;
+        for (String table : tables) {
+            if (hasColumn(shard, table, Cols.MIME_STRING.name())) {
+                mimeTables.add(table);
+            } else if (shards == 0 || !REF_TABLES.contains(table.toLowerCase(Locale.US))) {
+                dataTables.add(table);
+                maxId = Math.max(maxId, getMaxId(shard, table));
+            }
+        }
+        //the id columns are INTEGER, fail before anything of this shard is copied
+        if (maxId + idOffset > Integer.MAX_VALUE) {
+            throw new SQLException("Can't merge shard " + shards + ": its largest id " + maxId +
+                    " offset by " + idOffset + " doesn't fit in an INTEGER column");
+        }
+
+        for (String table : tables) {
+            createTable(shard, table);
+        }
+
+        //the mime tables have to go first to build the id mapping
+        Map<Integer, Integer> mimeMapping = new HashMap<>();
+        for (String table : mimeTables) {
+            mergeMimes(shard, table, mimeMapping);
+        }
+
+        long rows = 0;
+        for (String table : dataTables) {
+            rows += copy(shard, table, mimeMapping);
+        }
+        merged.commit();
+
+        long elapsed = System.currentTimeMillis() - started;
+        LOG.info("merged shard {} ({} rows, ids offset by {}) in {} ms ({} rows/sec)", shards, rows, idOffset, elapsed, (rows * 1000L) / Math.max(elapsed, 1L));
+        idOffset += maxId + 1;
+        shards++;
+    }
+
+    private List<String> getTables(Connection connection) throws SQLException {
+        Set<String> tables = new TreeSet<>();
+        try (ResultSet rs = connection
+                .getMetaData()
+                .getTables(null, null, "%", new String[]{"TABLE"})) {
+            while (rs.next()) {
+                String schema = rs.getString(2);
+                if (schema != null && schema.equalsIgnoreCase("INFORMATION_SCHEMA")) {
+                    continue;
+                }
+                tables.add(rs.getString(3));
+            }
+        }
+        return new ArrayList<>(tables);
+    }
+
+    private void createTable(Connection shard, String table) throws SQLException {
+        if (createdTables.contains(table)) {
+            return;
+        }
+        Set<String> primaryKeys = new HashSet<>();
+        try (ResultSet rs = shard
+                .getMetaData()
+                .getPrimaryKeys(null, null, table)) {
+            while (rs.next()) {
+                primaryKeys.add(rs.getString(4));
+            }
+        }
+
+        StringBuilder sql = new StringBuilder();
+        sql
+                .append("CREATE TABLE ")
+                .append(table)
+                .append("(");
+        try (Statement st = shard.createStatement();
+                ResultSet rs = st.executeQuery("SELECT * FROM " + table + " WHERE 1=0")) {
+            ResultSetMetaData meta = rs.getMetaData();
+            for (int i = 1; i <= meta.getColumnCount(); i++) {
+                if (i > 1) {
+                    sql.append(", ");
+                }
+                sql
+                        .append(meta.getColumnName(i))
+                        .append(" ")
+                        .append(getSqlDef(meta, i));
+                if (primaryKeys.contains(meta.getColumnName(i))) {
+                    sql.append(" PRIMARY KEY");
+                }
+            }
+        }
+        sql.append(")");
+
+        try (Statement st = merged.createStatement()) {
+            if (drop) {
+                st.execute("DROP TABLE IF EXISTS " + table);
+            }
+            st.execute(sql.toString());
+        }
+        createdTables.add(table);
+    }
+
+    private static String getSqlDef(ResultSetMetaData meta, int col) throws SQLException {
+        switch (meta.getColumnType(col)) {
+            case Types.VARCHAR:
+                return "VARCHAR(" + meta.getPrecision(col) + ")";
+            case Types.CHAR:
+                return "CHAR(" + meta.getPrecision(col) + ")";
+            default:
+                return meta.getColumnTypeName(col);
+        }
+    }
+
+    private static boolean hasColumn(Connection connection, String table, String col) throws SQLException {
+        try (ResultSet rs = connection
+                .getMetaData()
+                .getColumns(null, null, table, col)) {
+            return rs.next();
+        }
+    }
+
+    private static long getMaxId(Connection shard, String table) throws SQLException {
+        long max = -1;
+        for (String col : ID_COLS) {
+            if (!hasColumn(shard, table, col)) {
+                continue;
+            }
+            try (Statement st = shard.createStatement();
+                    ResultSet rs = st.executeQuery("SELECT MAX(" + col + ") FROM " + table)) {
+                if (rs.next()) {
+                    long v = rs.getLong(1);
+                    if (!rs.wasNull()) {
+                        max = Math.max(max, v);
+                    }
+                }
+            }
+        }
+        return max;
+    }
+
+    private void mergeMimes(Connection shard, String table, Map<Integer, Integer> mimeMapping) throws SQLException {
+        try (Statement st = shard.createStatement();
+                ResultSet rs = st.executeQuery("SELECT * FROM " + table);
+                PreparedStatement insert = merged.prepareStatement(getInsertSql(table, rs.getMetaData()))) {
+            ResultSetMetaData meta = rs.getMetaData();
+            int mimeIdCol = rs.findColumn(Cols.MIME_ID.name());
+            int mimeStringCol = rs.findColumn(Cols.MIME_STRING.name());
+            while (rs.next()) {
+                String mime = rs.getString(mimeStringCol);
+                Integer id = mimeIds.get(mime);
+                if (id == null) {
+                    id = mimeIds.size() + 1;
+                    mimeIds.put(mime, id);
+                    for (int i = 1; i <= meta.getColumnCount(); i++) {
+                        insert.setObject(i, i == mimeIdCol ? id : rs.getObject(i), meta.getColumnType(i));
+                    }
+                    insert.executeUpdate();
+                }
+                mimeMapping.put(rs.getInt(mimeIdCol), id);
+            }
+        }
+    }
+
+    private long copy(Connection shard, String table, Map<Integer, Integer> mimeMapping) throws SQLException {
+        long rows = 0;
+        try (Statement st = shard.createStatement();
+                ResultSet rs = st.executeQuery("SELECT * FROM " + table);
+                PreparedStatement insert = merged.prepareStatement(getInsertSql(table, rs.getMetaData()))) {
+            ResultSetMetaData meta = rs.getMetaData();
+            int numCols = meta.getColumnCount();
+            boolean[] isId = new boolean[numCols + 1];
+            boolean[] isMimeId = new boolean[numCols + 1];
+            for (int i = 1; i <= numCols; i++) {
+                String name = meta
+                        .getColumnName(i)
+                        .toUpperCase(Locale.US);
+                isId[i] = ID_COLS.contains(name);
+                isMimeId[i] = MIME_ID_COLS.contains(name);
+            }
+            while (rs.next()) {
+                for (int i = 1; i <= numCols; i++) {
+                    Object v = rs.getObject(i);
+                    if (v != null && isId[i]) {
+                        //checked against overflow in merge()
+                        v = (int) (((Number) v).longValue() + idOffset);
+                    } else if (v != null && isMimeId[i]) {
+                        v = mimeMapping.get(((Number) v).intValue());
+                    }
+                    insert.setObject(i, v, meta.getColumnType(i));
+                }
+                insert.addBatch();
+                if (++rows % BATCH_SIZE == 0) {
+                    insert.executeBatch();
+                }
+            }
+            insert.executeBatch();
+        }
+        return rows;
+    }
+
+    private static String getInsertSql(String table, ResultSetMetaData meta) throws SQLException {
+        StringBuilder cols = new StringBuilder();
+        StringBuilder params = new StringBuilder();
+        for (int i = 1; i <= meta.getColumnCount(); i++) {
+            if (i > 1) {
+                cols.append(", ");
+                params.append(", ");
+            }
+            cols.append(meta.getColumnName(i));
+            params.append("?");
+        }
+        return "INSERT INTO " + table + "(" + cols + ") VALUES(" + params + ")";
+    }
+}
@@ -34,7 +34,7 @@ import org.apache.tika.batch.fs.FSBatchProcessCLI;
 import org.apache.tika.eval.app.reports.ResultsReporter;
 
 public class TikaEvalCLI {
-    static final String[] tools = {"Profile", "FileProfile", "Compare", "Report", "StartDB"};
+    static final String[] tools = {"Profile", "FileProfile", "Compare", "Report", "StartDB", "MergeShards"};
 
     private static String specifyTools() {
         StringBuilder sb = new StringBuilder();
@@ -77,6 +77,9 @@ public class TikaEvalCLI {
             case "FileProfile":
                 handleProfileFiles(subsetArgs);
                 break;
+            case "MergeShards":
+                ShardMerger.main(subsetArgs);
+                break;
             default:
                 System.out.println(specifyTools());
                 break;
@@ -30,18 +30,30 @@ import org.apache.tika.eval.app.XMLErrorLogUpdater;
 import org.apache.tika.eval.app.db.JDBCUtil;
 import org.apache.tika.eval.app.db.MimeBuffer;
 import org.apache.tika.eval.app.db.TableInfo;
+import org.apache.tika.eval.app.io.BatchingDBWriter;
 
 
 public class DBConsumersManager extends ConsumersManager {
 
     private final Connection conn;
     private final MimeBuffer mimeBuffer;
+    private final BatchingDBWriter batchingDBWriter;
     private final List<LogTablePair> errorLogs = new ArrayList<>();
 
     public DBConsumersManager(JDBCUtil dbUtil, MimeBuffer mimeBuffer, List<FileResourceConsumer> consumers) throws SQLException {
+        this(dbUtil, mimeBuffer, null, consumers);
+    }
+
+    /**
+     * @param batchingDBWriter writer shared by the consumers, closed after the
+     *                         consumers have closed their writers; may be <code>null</code>
+     */
+    public DBConsumersManager(JDBCUtil dbUtil, MimeBuffer mimeBuffer, BatchingDBWriter batchingDBWriter, List<FileResourceConsumer> consumers)
+            throws SQLException {
         super(consumers);
         this.conn = dbUtil.getConnection();
         this.mimeBuffer = mimeBuffer;
+        this.batchingDBWriter = batchingDBWriter;
     }
 
 
@@ -58,6 +70,14 @@ public class DBConsumersManager extends ConsumersManager {
             }
         }
 
+        if (batchingDBWriter != null) {
+            try {
+                batchingDBWriter.close();
+            } catch (IOException e) {
+                throw new RuntimeException(e);
+            }
+        }
+
         try {
             mimeBuffer.close();
         } catch (SQLException e) {
@@ -38,6 +38,7 @@ import org.apache.tika.eval.app.db.Cols;
 import org.apache.tika.eval.app.db.JDBCUtil;
 import org.apache.tika.eval.app.db.MimeBuffer;
 import org.apache.tika.eval.app.db.TableInfo;
+import org.apache.tika.eval.app.io.BatchingDBWriter;
 import org.apache.tika.eval.app.io.DBWriter;
 import org.apache.tika.eval.app.io.ExtractReader;
 import org.apache.tika.eval.app.io.ExtractReaderException;
@@ -53,6 +54,7 @@ public abstract class EvalConsumerBuilder {
     JDBCUtil dbUtil;
     AtomicInteger initialized = new AtomicInteger(0);
     private MimeBuffer mimeBuffer;
+    private BatchingDBWriter batchingDBWriter;
 
     public MimeBuffer init(ArrayBlockingQueue<FileResource> queue, Map<String, String> localAttrs, JDBCUtil dbUtil, boolean forceDrop) throws IOException, SQLException {
         if (initialized.getAndIncrement() > 0) {
@@ -76,7 +78,15 @@ public abstract class EvalConsumerBuilder {
         //step 3. create mime buffer
         this.mimeBuffer = new MimeBuffer(dbUtil.getConnection(), getMimeTable(), TikaConfig.getDefaultConfig());
 
-        //step 4. populate the reference tables
+        //step 4. if requested, start the shared writer thread
+        int dbWriterQueueSize = PropsUtil.getInt(localAttrs.get("dbWriterQueueSize"), -1);
+        if (dbWriterQueueSize > 0) {
+            this.batchingDBWriter = new BatchingDBWriter(dbUtil.getConnection(), mimeBuffer, dbWriterQueueSize,
+                    PropsUtil.getInt(localAttrs.get("batchSize"), BatchingDBWriter.DEFAULT_BATCH_SIZE), getCommitEveryXRows(),
+                    PropsUtil.getLong(localAttrs.get("commitEveryXMillis"), BatchingDBWriter.DEFAULT_COMMIT_EVERY_X_MILLIS));
+        }
+
+        //step 5. populate the reference tables
         populateRefTables();
 
         return mimeBuffer;
@@ -153,8 +163,23 @@ public abstract class EvalConsumerBuilder {
     }
 
     protected IDBWriter getDBWriter(List<TableInfo> tableInfos) throws IOException, SQLException {
+        if (batchingDBWriter != null) {
+            return batchingDBWriter.getWriter();
+        }
         Connection conn = dbUtil.getConnection();
-        return new DBWriter(conn, tableInfos, dbUtil, mimeBuffer);
+        return new DBWriter(conn, tableInfos, dbUtil, mimeBuffer, getCommitEveryXRows(), PropsUtil.getLong(localAttrs.get("commitEveryXMillis"), -1L));
+    }
+
+    /**
+     * @return the writer shared by all consumers, or <code>null</code> if each
+     * consumer writes to the db through its own {@link DBWriter}
+     */
+    public BatchingDBWriter getBatchingDBWriter() {
+        return batchingDBWriter;
+    }
+
+    private long getCommitEveryXRows() {
+        return PropsUtil.getLong(localAttrs.get("commitEveryXRows"), DBWriter.DEFAULT_COMMIT_EVERY_X_ROWS);
     }
 
     ExtractReader.ALTER_METADATA_LIST getAlterMetadata(Map<String, String> localAttrs) {
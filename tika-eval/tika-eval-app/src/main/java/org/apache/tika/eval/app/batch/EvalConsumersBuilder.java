@@ -61,9 +61,11 @@ public class EvalConsumersBuilder extends AbstractConsumersBuilder {
         if (defaultLangCode == null) {
             defaultLangCode = "";
         }
-        //can be null, in which case will load from memory
+        //if null, the common tokens models are kept on heap
+        Path compiledCommonTokens = getPath(localAttrs, "compiledCommonTokens");
+        //commonTokens can be null, in which case will load from memory
         try {
-            AbstractProfiler.loadCommonTokens(commonTokens, defaultLangCode);
+            AbstractProfiler.loadCommonTokens(commonTokens, defaultLangCode, compiledCommonTokens);
         } catch (IOException e) {
             throw new RuntimeException(e);
         }
@@ -99,7 +101,7 @@ public class EvalConsumersBuilder extends AbstractConsumersBuilder {
 
         DBConsumersManager manager;
         try {
-            manager = new DBConsumersManager(jdbcUtil, mimeBuffer, consumers);
+            manager = new DBConsumersManager(jdbcUtil, mimeBuffer, consumerBuilder.getBatchingDBWriter(), consumers);
         } catch (SQLException e) {
             throw new RuntimeException(e);
         }
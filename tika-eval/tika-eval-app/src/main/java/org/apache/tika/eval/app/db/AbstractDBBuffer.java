@@ -17,50 +17,41 @@
 package org.apache.tika.eval.app.db;
 
 import java.sql.SQLException;
-import java.util.HashMap;
-import java.util.Map;
-import java.util.concurrent.locks.Lock;
-import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.concurrent.ConcurrentHashMap;
 
 
 /**
  * Abstract buffer for map of values and unique ids.
  * <p>
  * Use this for fast in memory lookups of smallish sets of values.
+ * <p>
+ * Lookups of values that have already been seen don't take a lock.
+ * A new value is written to the db before its id is published, so
+ * no thread can ever get an id that isn't in the db yet.
  */
 abstract class AbstractDBBuffer {
 
-    private final Map<String, Integer> m = new HashMap<>();
-    private final ReentrantReadWriteLock rwl = new ReentrantReadWriteLock();
-    private final Lock r = rwl.readLock();
-    private final Lock w = rwl.writeLock();
+    private final ConcurrentHashMap<String, Integer> m = new ConcurrentHashMap<>();
 
-    private int numWrites = 0;
+    private volatile int numWrites = 0;
 
     public int getId(String key) {
-        r.lock();
-        try {
-            Integer v = m.get(key);
-            if (v != null) {
-                return v;
-            }
-        } finally {
-            r.unlock();
+        Integer v = m.get(key);
+        if (v != null) {
+            return v;
         }
 
-        try {
-            w.lock();
-            Integer v = m.get(key);
+        //writes go through a single statement, serialize them
+        synchronized (this) {
+            v = m.get(key);
             if (v != null) {
                 return v;
             }
             v = m.size() + 1;
-            m.put(key, v);
             write(v, key);
+            m.put(key, v);
             numWrites++;
             return v;
-        } finally {
-            w.unlock();
         }
     }
 
@@ -0,0 +1,358 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.tika.eval.app.io;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import org.apache.tika.eval.app.db.Cols;
+import org.apache.tika.eval.app.db.JDBCUtil;
+import org.apache.tika.eval.app.db.MimeBuffer;
+import org.apache.tika.eval.app.db.TableInfo;
+
+/**
+ * Writer that is shared by all consumers.  Rows are put on a bounded queue
+ * and a single dedicated thread drains it, adds the rows to one JDBC batch
+ * per table and executes a batch every <code>batchSize</code> rows.
+ * <p>
+ * Changes are committed every <code>commitEveryXRows</code> rows or
+ * every <code>commitEveryXMillis</code> milliseconds, whichever comes
+ * first.  If the queue is full, consumers block until the writer thread
+ * has caught up.
+ * <p>
+ * Consumers must not write to the db through the same connection directly;
+ * use {@link #getWriter()} to get a per-consumer {@link IDBWriter}.
+ * <p>
+ * Once the writer is closed, or the writer thread has stopped because it
+ * was interrupted, writes and flushes fail with an {@link IOException}
+ * instead of blocking.
+ */
+public class BatchingDBWriter implements Closeable {
+
+    public static final int DEFAULT_QUEUE_SIZE = 10000;
+    public static final int DEFAULT_BATCH_SIZE = 1000;
+    public static final long DEFAULT_COMMIT_EVERY_X_MILLIS = 60000L;
+
+    private static final Logger LOG = LoggerFactory.getLogger(BatchingDBWriter.class);
+
+    private static final long MAX_POLL_MILLIS = 1000L;
+
+    private static final Item POISON = new Item(null, null, null);
+
+    private final Connection conn;
+    private final MimeBuffer mimeBuffer;
+    private final int batchSize;
+    private final long commitEveryXRows;
+    private final long commitEveryXMillis;
+    private final ArrayBlockingQueue<Item> queue;
+    private final Thread writerThread;
+
+    //only accessed by the writer thread
+    //<tableName, batch>
+    private final Map<String, Batch> batches = new HashMap<>();
+    private volatile long rowsWritten = 0;
+    private long rowsSinceCommit = 0;
+    private long lastCommit;
+    private long started;
+
+    private volatile Exception failure = null;
+    private volatile boolean closed = false;
+    private volatile boolean stopped = false;
+    //read lock: queuing an item, write lock: closing,
+    //so that nothing can be queued behind the poison item
+    private final ReadWriteLock closeLock = new ReentrantReadWriteLock();
+
+    public BatchingDBWriter(Connection connection, MimeBuffer mimeBuffer, int queueSize, int batchSize, long commitEveryXRows, long commitEveryXMillis) {
+        this.conn = connection;
+        this.mimeBuffer = mimeBuffer;
+        this.batchSize = batchSize;
+        this.commitEveryXRows = commitEveryXRows;
+        this.commitEveryXMillis = commitEveryXMillis;
+        this.queue = new ArrayBlockingQueue<>(queueSize);
+        this.writerThread = new Thread(this::run, "tika-eval-db-writer");
+        writerThread.setDaemon(true);
+        writerThread.start();
+    }
+
+    /**
+     * @return a writer that puts rows on this writer's queue.  Closing it
+     * waits until all rows that have been queued so far have been committed;
+     * it does not close this writer.
+     */
+    public IDBWriter getWriter() {
+        return new QueueingWriter();
+    }
+
+    /**
+     * Blocks until all rows that have been queued so far are committed.
+     *
+     * @throws IOException if a row couldn't be written
+     */
+    public void flush() throws IOException {
+        CountDownLatch latch = new CountDownLatch(1);
+        put(new Item(null, null, latch));
+        try {
+            //the writer thread counts down the latches of whatever is left
+            //on the queue when it stops, this is only a safety net
+            while (!latch.await(MAX_POLL_MILLIS, TimeUnit.MILLISECONDS)) {
+                checkStopped();
+            }
+        } catch (InterruptedException e) {
+            throw new IOException(e);
+        }
+        checkFailure();
+    }
+
+    /**
+     * Commits the remaining rows and stops the writer thread.
+     * This DOES NOT close the connection.
+     *
+     * @throws IOException if a row couldn't be written
+     */
+    @Override
+    public void close() throws IOException {
+        closeLock.writeLock().lock();
+        try {
+            if (closed) {
+                return;
+            }
+            closed = true;
+        } finally {
+            closeLock.writeLock().unlock();
+        }
+        try {
+            //if the writer thread has already stopped, there's nobody to poison
+            offer(POISON);
+            writerThread.join();
+        } catch (InterruptedException e) {
+            throw new IOException(e);
+        }
+        checkFailure();
+    }
+
+    public long getRowsWritten() {
+        return rowsWritten;
+    }
+
+    private void put(Item item) throws IOException {
+        checkFailure();
+        closeLock.readLock().lock();
+        try {
+            if (closed) {
+                throw new IOException("writer has already been closed");
+            }
+            if (!offer(item)) {
+                checkStopped();
+            }
+        } catch (InterruptedException e) {
+            throw new IOException(e);
+        } finally {
+            closeLock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Waits for room on the queue for as long as the writer thread runs.
+     *
+     * @return <code>false</code> if the writer thread stopped before the
+     * item could be queued
+     */
+    private boolean offer(Item item) throws InterruptedException {
+        while (!queue.offer(item, MAX_POLL_MILLIS, TimeUnit.MILLISECONDS)) {
+            if (stopped) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private void checkFailure() throws IOException {
+        if (failure != null) {
+            throw new IOException("db writer failed", failure);
+        }
+    }
+
+    private void checkStopped() throws IOException {
+        if (stopped) {
+            checkFailure();
+            throw new IOException("db writer has stopped");
+        }
+    }
+
+    private void run() {
+        try {
+            drain();
+        } finally {
+            stopped = true;
+            //release whoever waits on a flush that will never be processed
+            Item item;
+            while ((item = queue.poll()) != null) {
+                if (item.latch != null) {
+                    item.latch.countDown();
+                }
+            }
+        }
+    }
+
+    private void drain() {
+        started = System.currentTimeMillis();
+        lastCommit = started;
+        long pollMillis = commitEveryXMillis > 0 ? Math.min(commitEveryXMillis, MAX_POLL_MILLIS) : MAX_POLL_MILLIS;
+        while (true) {
+            Item item;
+            try {
+                item = queue.poll(pollMillis, TimeUnit.MILLISECONDS);
+            } catch (InterruptedException e) {
+                failure = e;
+                return;
+            }
+            try {
+                if (item == POISON) {
+                    commit();
+                    closeStatements();
+                    long elapsed = System.currentTimeMillis() - started;
+                    LOG.info("db writer wrote {} rows in {} ms ({} rows/sec)", rowsWritten, elapsed, DBWriter.rowsPerSecond(rowsWritten, elapsed));
+                    return;
+                } else if (item == null) {
+                    maybeCommit();
+                } else if (item.latch != null) {
+                    commit();
+                } else {
+                    write(item.table, item.data);
+                    maybeCommit();
+                }
+            } catch (SQLException | RuntimeException e) {
+                //keep draining the queue so that the consumers don't block,
+                //they'll get the failure on their next write
+                if (failure == null) {
+                    LOG.error("db writer failed", e);
+                    failure = e;
+                }
+            } finally {
+                if (item != null && item.latch != null) {
+                    item.latch.countDown();
+                }
+            }
+        }
+    }
+
+    private void write(TableInfo table, Map<Cols, String> data) throws SQLException {
+        if (failure != null) {
+            return;
+        }
+        Batch batch = batches.get(table.getName());
+        if (batch == null) {
+            batch = new Batch(DBWriter.createPreparedInsert(conn, table));
+            batches.put(table.getName(), batch);
+        }
+        JDBCUtil.batchInsert(batch.insert, table, data);
+        rowsWritten++;
+        rowsSinceCommit++;
+        if (++batch.pending >= batchSize) {
+            batch.insert.executeBatch();
+            batch.pending = 0;
+        }
+    }
+
+    private void maybeCommit() throws SQLException {
+        if (rowsSinceCommit >= commitEveryXRows ||
+                (rowsSinceCommit > 0 && commitEveryXMillis > 0 && System.currentTimeMillis() - lastCommit >= commitEveryXMillis)) {
+            commit();
+        }
+    }
+
+    private void commit() throws SQLException {
+        if (failure != null) {
+            return;
+        }
+        for (Batch batch : batches.values()) {
+            if (batch.pending > 0) {
+                batch.insert.executeBatch();
+                batch.pending = 0;
+            }
+        }
+        conn.commit();
+        long now = System.currentTimeMillis();
+        if (rowsSinceCommit > 0) {
+            long elapsed = now - lastCommit;
+            LOG.info("db writer is committing after {} rows and {} ms ({} rows/sec); {} rows written, {} rows queued", rowsSinceCommit, elapsed,
+                    DBWriter.rowsPerSecond(rowsSinceCommit, elapsed), rowsWritten, queue.size());
+        }
+        rowsSinceCommit = 0;
+        lastCommit = now;
+    }
+
+    private void closeStatements() throws SQLException {
+        for (Batch batch : batches.values()) {
+            batch.insert.close();
+        }
+        batches.clear();
+    }
+
+    private static class Item {
+        private final TableInfo table;
+        private final Map<Cols, String> data;
+        private final CountDownLatch latch;
+
+        private Item(TableInfo table, Map<Cols, String> data, CountDownLatch latch) {
+            this.table = table;
+            this.data = data;
+            this.latch = latch;
+        }
+    }
+
+    private static class Batch {
+        private final PreparedStatement insert;
+        private int pending = 0;
+
+        private Batch(PreparedStatement insert) {
+            this.insert = insert;
+        }
+    }
+
+    private class QueueingWriter implements IDBWriter {
+
+        @Override
+        public void writeRow(TableInfo table, Map<Cols, String> data) throws IOException {
+            //callers reuse their maps, copy the row before queuing it
+            put(new Item(table, new HashMap<>(data), null));
+        }
+
+        @Override
+        public void close() throws IOException {
+            flush();
+        }
+
+        @Override
+        public int getMimeId(String mimeString) {
+            return mimeBuffer.getId(mimeString);
+        }
+    }
+}
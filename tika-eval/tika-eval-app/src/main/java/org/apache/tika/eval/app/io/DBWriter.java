@@ -48,9 +48,11 @@ public class DBWriter implements IDBWriter {
 
     private static final Logger LOG = LoggerFactory.getLogger(DBWriter.class);
 
+    public static final long DEFAULT_COMMIT_EVERY_X_ROWS = 10000L;
+
     private static final AtomicInteger WRITER_ID = new AtomicInteger();
-    private final Long commitEveryXRows = 10000L;
-    //private final Long commitEveryXMS = 60000L;
+    private final long commitEveryXRows;
+    private final long commitEveryXMillis;
 
     private final Connection conn;
     private final JDBCUtil dbUtil;
@@ -62,13 +64,25 @@ public class DBWriter implements IDBWriter {
     private final Map<String, LastInsert> lastInsertMap = new HashMap<>();
 
     public DBWriter(Connection connection, List<TableInfo> tableInfos, JDBCUtil dbUtil, MimeBuffer mimeBuffer) throws IOException, SQLException {
+        this(connection, tableInfos, dbUtil, mimeBuffer, DEFAULT_COMMIT_EVERY_X_ROWS, -1L);
+    }
+
+    /**
+     * @param commitEveryXRows   commit after this many rows have been written to a table
+     * @param commitEveryXMillis also commit if this many milliseconds have passed since
+     *                           the last commit on a table; a value &lt;= 0 disables this
+     */
+    public DBWriter(Connection connection, List<TableInfo> tableInfos, JDBCUtil dbUtil, MimeBuffer mimeBuffer, long commitEveryXRows, long commitEveryXMillis)
+            throws IOException, SQLException {
 
         this.conn = connection;
+        this.commitEveryXRows = commitEveryXRows;
+        this.commitEveryXMillis = commitEveryXMillis;
         this.mimeBuffer = mimeBuffer;
         this.dbUtil = dbUtil;
         for (TableInfo tableInfo : tableInfos) {
             try {
-                PreparedStatement st = createPreparedInsert(tableInfo);
+                PreparedStatement st = createPreparedInsert(conn, tableInfo);
                 inserts.put(tableInfo.getName(), st);
                 lastInsertMap.put(tableInfo.getName(), new LastInsert());
             } catch (SQLException e) {
@@ -81,7 +95,7 @@ public class DBWriter implements IDBWriter {
         return mimeBuffer.getId(mimeString);
     }
 
-    private PreparedStatement createPreparedInsert(TableInfo tableInfo) throws SQLException {
+    static PreparedStatement createPreparedInsert(Connection conn, TableInfo tableInfo) throws SQLException {
         StringBuilder sb = new StringBuilder();
         sb
                 .append("INSERT INTO ")
@@ -120,14 +134,15 @@ public class DBWriter implements IDBWriter {
             dbUtil.batchInsert(p, table, data);
             LastInsert lastInsert = lastInsertMap.get(table.getName());
             lastInsert.rowCount++;
+            lastInsert.rowsSinceCommit++;
             long elapsed = System.currentTimeMillis() - lastInsert.lastInsert;
-            if (
-                //elapsed > commitEveryXMS ||
-                    lastInsert.rowCount % commitEveryXRows == 0) {
-                LOG.info("writer ({}) on table ({}) is committing after {} rows and {} ms", myId, table.getName(), lastInsert.rowCount, elapsed);
+            if ((commitEveryXMillis > 0 && elapsed > commitEveryXMillis) || lastInsert.rowsSinceCommit >= commitEveryXRows) {
+                LOG.info("writer ({}) on table ({}) is committing after {} rows and {} ms ({} rows/sec)", myId, table.getName(), lastInsert.rowCount, elapsed,
+                        rowsPerSecond(lastInsert.rowsSinceCommit, elapsed));
                 p.executeBatch();
                 conn.commit();
                 lastInsert.lastInsert = System.currentTimeMillis();
+                lastInsert.rowsSinceCommit = 0;
             }
         } catch (SQLException e) {
             throw new IOException(e);
@@ -155,8 +170,13 @@ public class DBWriter implements IDBWriter {
         }
     }
 
+    static long rowsPerSecond(long rows, long elapsedMillis) {
+        return (rows * 1000L) / Math.max(elapsedMillis, 1L);
+    }
+
     private static class LastInsert {
         private long lastInsert = System.currentTimeMillis();
         private long rowCount = 0;
+        private long rowsSinceCommit = 0;
     }
 }
@@ -0,0 +1,126 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.tika.eval.app;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import java.nio.file.Path;
+import java.sql.Connection;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.List;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import org.apache.tika.eval.app.db.H2Util;
+import org.apache.tika.eval.app.db.JDBCUtil;
+
+public class ShardMergerTest {
+
+    @TempDir
+    private Path dbDir;
+
+    @Test
+    public void testMerge() throws Exception {
+        try (Connection shard0 = createShard("shard0");
+                Connection shard1 = createShard("shard1");
+                Connection merged = new H2Util(dbDir.resolve("merged")).getConnection()) {
+            insert(shard0, "INSERT INTO mimes (mime_id, mime_string) VALUES (1, 'text/plain')",
+                    "INSERT INTO mimes (mime_id, mime_string) VALUES (2, 'application/pdf')",
+                    "INSERT INTO containers (container_id, file_path) VALUES (0, 'a.txt')",
+                    "INSERT INTO containers (container_id, file_path) VALUES (1, 'b.pdf')",
+                    "INSERT INTO profiles (id, container_id, mime_id) VALUES (0, 0, 1)",
+                    "INSERT INTO profiles (id, container_id, mime_id) VALUES (1, 1, 2)",
+                    "INSERT INTO ref_parse_error_types VALUES (0, 'ok')");
+            insert(shard1, "INSERT INTO mimes (mime_id, mime_string) VALUES (1, 'application/pdf')",
+                    "INSERT INTO mimes (mime_id, mime_string) VALUES (2, 'image/png')",
+                    "INSERT INTO containers (container_id, file_path) VALUES (0, 'c.pdf')",
+                    "INSERT INTO containers (container_id, file_path) VALUES (1, 'd.png')",
+                    "INSERT INTO containers (container_id, file_path) VALUES (2, 'e.pdf')",
+                    "INSERT INTO profiles (id, container_id, mime_id) VALUES (0, 0, 1)",
+                    "INSERT INTO profiles (id, container_id, mime_id) VALUES (1, 1, 2)",
+                    "INSERT INTO profiles (id, container_id, mime_id) VALUES (2, 2, 1)",
+                    "INSERT INTO ref_parse_error_types VALUES (0, 'ok')");
+
+            ShardMerger merger = new ShardMerger(merged, true);
+            merger.merge(shard0);
+            merger.merge(shard1);
+
+            assertEquals(5, count(merged, "SELECT COUNT(1) FROM containers"));
+            assertEquals(5, count(merged, "SELECT COUNT(1) FROM profiles"));
+            assertEquals(3, count(merged, "SELECT COUNT(1) FROM mimes"));
+            //reference tables come from the first shard only
+            assertEquals(1, count(merged, "SELECT COUNT(1) FROM ref_parse_error_types"));
+            //the ids of the second shard are shifted past those of the first
+            assertEquals(2, count(merged, "SELECT container_id FROM containers WHERE file_path='c.pdf'"));
+            assertEquals(4, count(merged, "SELECT container_id FROM containers WHERE file_path='e.pdf'"));
+            assertEquals(4, count(merged, "SELECT container_id FROM profiles WHERE id=4"));
+            //and the mime ids are mapped by mime string
+            assertEquals(3, count(merged, "SELECT COUNT(1) FROM profiles p JOIN mimes m " +
+                    "ON p.mime_id=m.mime_id WHERE m.mime_string='application/pdf'"));
+            assertEquals(1, count(merged, "SELECT COUNT(1) FROM profiles p JOIN mimes m " +
+                    "ON p.mime_id=m.mime_id WHERE m.mime_string='image/png'"));
+        }
+    }
+
+    @Test
+    public void testIdOverflow() throws Exception {
+        try (Connection shard0 = createShard("shard0");
+                Connection shard1 = createShard("shard1");
+                Connection merged = new H2Util(dbDir.resolve("merged")).getConnection()) {
+            insert(shard0, "INSERT INTO containers (container_id, file_path) VALUES (" +
+                    (Integer.MAX_VALUE - 1) + ", 'a.txt')");
+            insert(shard1, "INSERT INTO containers (container_id, file_path) VALUES (0, 'b.txt')",
+                    "INSERT INTO containers (container_id, file_path) VALUES (1, 'c.txt')");
+
+            ShardMerger merger = new ShardMerger(merged, true);
+            merger.merge(shard0);
+            assertThrows(SQLException.class, () -> merger.merge(shard1));
+            //nothing of the failed shard was copied
+            merged.rollback();
+            assertEquals(1, count(merged, "SELECT COUNT(1) FROM containers"));
+        }
+    }
+
+    private Connection createShard(String name) throws Exception {
+        JDBCUtil dbUtil = new H2Util(dbDir.resolve(name));
+        dbUtil.createTables(List.of(ExtractProfiler.CONTAINER_TABLE, ExtractProfiler.PROFILE_TABLE,
+                AbstractProfiler.MIME_TABLE, AbstractProfiler.REF_PARSE_ERROR_TYPES),
+                JDBCUtil.CREATE_TABLE.DROP_IF_EXISTS);
+        return dbUtil.getConnection();
+    }
+
+    private static void insert(Connection connection, String... sql) throws SQLException {
+        try (Statement st = connection.createStatement()) {
+            for (String s : sql) {
+                st.execute(s);
+            }
+        }
+        connection.commit();
+    }
+
+    private static int count(Connection connection, String sql) throws SQLException {
+        try (Statement st = connection.createStatement();
+                ResultSet rs = st.executeQuery(sql)) {
+            rs.next();
+            return rs.getInt(1);
+        }
+    }
+}
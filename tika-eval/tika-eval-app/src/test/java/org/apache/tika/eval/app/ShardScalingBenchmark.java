@@ -0,0 +1,194 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.tika.eval.app;
+
+import static java.nio.charset.StandardCharsets.UTF_8;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.sql.Connection;
+import java.sql.ResultSet;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.Random;
+import java.util.TreeSet;
+
+import org.apache.commons.io.FileUtils;
+
+import org.apache.tika.eval.app.db.H2Util;
+
+/**
+ * Runs Compare over the same synthetic extracts with increasing numbers of
+ * shards and reports the throughput of each run, followed by the time that
+ * {@link ShardMerger} takes to merge the shard dbs.  As in production, each
+ * shard is an independent <code>TikaEvalCLI Compare</code> process with its
+ * own db, so run this with a classpath that includes the test classes and
+ * the tika-eval-app dependencies:
+ * <pre>
+ * java -cp ... org.apache.tika.eval.app.ShardScalingBenchmark \
+ *     [numDocs [numConsumers [numShards...]]]
+ * </pre>
+ * The defaults are 2000 documents, one consumer per shard and 1, 2, 4 and
+ * the number of processors shards.  The speedup is relative to the first
+ * number of shards.
+ */
+public class ShardScalingBenchmark {
+
+    private static final String[] WORDS = ("the quick brown fox jumps over lazy dog and " +
+            "then some more words about parsing documents with many formats such as " +
+            "spreadsheets presentations archives mail messages images metadata content")
+            .split(" ");
+
+    public static void main(String[] args) throws Exception {
+        int numDocs = args.length > 0 ? Integer.parseInt(args[0]) : 2000;
+        int numConsumers = args.length > 1 ? Integer.parseInt(args[1]) : 1;
+        TreeSet<Integer> shardCounts = new TreeSet<>();
+        for (int i = 2; i < args.length; i++) {
+            shardCounts.add(Integer.parseInt(args[i]));
+        }
+        if (shardCounts.isEmpty()) {
+            shardCounts.add(1);
+            shardCounts.add(2);
+            shardCounts.add(4);
+            shardCounts.add(Runtime.getRuntime().availableProcessors());
+        }
+        Path dir = Files.createTempDirectory("tika-eval-shards-");
+        try {
+            Path extractsA = dir.resolve("extractsA");
+            Path extractsB = dir.resolve("extractsB");
+            writeExtracts(extractsA, extractsB, numDocs);
+            System.out.printf(Locale.ROOT, "%d documents, %d consumer(s) per shard, %d processors%n",
+                    numDocs, numConsumers, Runtime.getRuntime().availableProcessors());
+            double baseline = -1;
+            for (int numShards : shardCounts) {
+                Path dbDir = Files.createDirectories(dir.resolve("db-" + numShards));
+                long start = System.nanoTime();
+                List<Process> processes = new ArrayList<>();
+                for (int shard = 0; shard < numShards; shard++) {
+                    processes.add(compare(extractsA, extractsB, dbDir.resolve("shard" + shard),
+                            numConsumers, numShards, shard));
+                }
+                for (Process process : processes) {
+                    int exit = process.waitFor();
+                    if (exit != 0) {
+                        throw new IllegalStateException("Compare exited with " + exit);
+                    }
+                }
+                long compareMillis = (System.nanoTime() - start) / 1_000_000;
+
+                start = System.nanoTime();
+                long containers;
+                try (Connection merged = new H2Util(dbDir.resolve("merged")).getConnection()) {
+                    ShardMerger merger = new ShardMerger(merged, true);
+                    for (int shard = 0; shard < numShards; shard++) {
+                        try (Connection c = new H2Util(dbDir.resolve("shard" + shard))
+                                .getConnection()) {
+                            merger.merge(c);
+                        }
+                    }
+                    containers = count(merged, "SELECT COUNT(1) FROM containers");
+                }
+                long mergeMillis = (System.nanoTime() - start) / 1_000_000;
+                if (containers != numDocs) {
+                    throw new IllegalStateException("Expected " + numDocs +
+                            " containers in the merged db, but found " + containers);
+                }
+
+                double docsPerSecond = numDocs * 1000.0 / Math.max(compareMillis, 1);
+                if (baseline < 0) {
+                    baseline = docsPerSecond;
+                }
+                System.out.printf(Locale.ROOT,
+                        "%3d shard(s): compare %8dms %8.1f docs/s %5.2fx, merge %6dms%n",
+                        numShards, compareMillis, docsPerSecond, docsPerSecond / baseline,
+                        mergeMillis);
+            }
+        } finally {
+            FileUtils.deleteDirectory(dir.toFile());
+        }
+    }
+
+    private static Process compare(Path extractsA, Path extractsB, Path db, int numConsumers,
+                                   int numShards, int shard) throws IOException {
+        List<String> args = new ArrayList<>();
+        args.add(Paths.get(System.getProperty("java.home"), "bin", "java").toString());
+        args.add("-Djava.awt.headless=true");
+        args.add("-cp");
+        args.add(System.getProperty("java.class.path"));
+        args.add("org.apache.tika.eval.app.TikaEvalCLI");
+        args.add("Compare");
+        args.add("-extractsA");
+        args.add(extractsA.toAbsolutePath().toString());
+        args.add("-extractsB");
+        args.add(extractsB.toAbsolutePath().toString());
+        args.add("-db");
+        args.add(db.toAbsolutePath().toString());
+        args.add("-numConsumers");
+        args.add(Integer.toString(numConsumers));
+        args.add("-numShards");
+        args.add(Integer.toString(numShards));
+        args.add("-shard");
+        args.add(Integer.toString(shard));
+        ProcessBuilder pb = new ProcessBuilder(args);
+        pb.redirectOutput(ProcessBuilder.Redirect.DISCARD);
+        pb.redirectError(db.resolveSibling(db.getFileName() + ".log").toFile());
+        return pb.start();
+    }
+
+    /**
+     * Writes pairs of single-entry extracts of a few hundred words each,
+     * where the B side drops every tenth word so that there is something
+     * to compare.
+     */
+    private static void writeExtracts(Path extractsA, Path extractsB, int numDocs)
+            throws IOException {
+        Random random = new Random(42);
+        for (int i = 0; i < numDocs; i++) {
+            //spread the files over subdirectories, as in a real extract dir
+            Path relative = Paths.get(Integer.toString(i % 100), "doc" + i + ".txt.json");
+            StringBuilder a = new StringBuilder();
+            StringBuilder b = new StringBuilder();
+            int numWords = 200 + random.nextInt(600);
+            for (int w = 0; w < numWords; w++) {
+                String word = WORDS[random.nextInt(WORDS.length)];
+                a.append(word).append(' ');
+                if (w % 10 != 0) {
+                    b.append(word).append(' ');
+                }
+            }
+            writeExtract(extractsA.resolve(relative), a);
+            writeExtract(extractsB.resolve(relative), b);
+        }
+    }
+
+    private static void writeExtract(Path path, CharSequence content) throws IOException {
+        Files.createDirectories(path.getParent());
+        Files.write(path, ("[{\"Content-Type\":\"text/plain\",\"X-TIKA:content\":\"" + content +
+                "\"}]").getBytes(UTF_8));
+    }
+
+    private static long count(Connection connection, String sql) throws Exception {
+        try (Statement st = connection.createStatement(); ResultSet rs = st.executeQuery(sql)) {
+            rs.next();
+            return rs.getLong(1);
+        }
+    }
+}
@@ -0,0 +1,176 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.tika.eval.app.io;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTimeoutPreemptively;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.sql.Connection;
+import java.sql.ResultSet;
+import java.sql.Statement;
+import java.sql.Types;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import org.apache.tika.eval.app.db.ColInfo;
+import org.apache.tika.eval.app.db.Cols;
+import org.apache.tika.eval.app.db.H2Util;
+import org.apache.tika.eval.app.db.JDBCUtil;
+import org.apache.tika.eval.app.db.TableInfo;
+
+public class BatchingDBWriterTest {
+
+    private static final TableInfo TABLE_A = new TableInfo("table_a",
+            new ColInfo(Cols.ID, Types.INTEGER, "PRIMARY KEY"),
+            new ColInfo(Cols.FILE_PATH, Types.VARCHAR, 1024));
+
+    private static final TableInfo TABLE_B = new TableInfo("table_b",
+            new ColInfo(Cols.ID, Types.INTEGER, "PRIMARY KEY"),
+            new ColInfo(Cols.LENGTH, Types.BIGINT));
+
+    @TempDir
+    private Path dbDir;
+
+    @Test
+    public void testConcurrentWriters() throws Exception {
+        JDBCUtil dbUtil = new H2Util(dbDir.resolve("batching_test"));
+        dbUtil.createTables(List.of(TABLE_A, TABLE_B), JDBCUtil.CREATE_TABLE.DROP_IF_EXISTS);
+        Connection conn = dbUtil.getConnection();
+
+        int numWriters = 4;
+        int rowsPerWriter = 2500;
+        //small queue, batch and commit sizes to exercise blocking and commits
+        BatchingDBWriter batchingWriter = new BatchingDBWriter(conn, null, 10, 7, 100, 50);
+        ExecutorService ex = Executors.newFixedThreadPool(numWriters);
+        List<Future<Void>> futures = new ArrayList<>();
+        for (int w = 0; w < numWriters; w++) {
+            final int offset = w * rowsPerWriter;
+            futures.add(ex.submit(() -> {
+                IDBWriter writer = batchingWriter.getWriter();
+                //the map is reused, just like the profilers do
+                Map<Cols, String> data = new HashMap<>();
+                for (int i = offset; i < offset + rowsPerWriter; i++) {
+                    data.clear();
+                    data.put(Cols.ID, Integer.toString(i));
+                    if (i % 2 == 0) {
+                        data.put(Cols.FILE_PATH, "file-" + i);
+                        writer.writeRow(TABLE_A, data);
+                    } else {
+                        data.put(Cols.LENGTH, Integer.toString(i));
+                        writer.writeRow(TABLE_B, data);
+                    }
+                }
+                writer.close();
+                return null;
+            }));
+        }
+        for (Future<Void> f : futures) {
+            f.get();
+        }
+        ex.shutdown();
+        ex.awaitTermination(10, TimeUnit.SECONDS);
+
+        //everything is committed once the per-consumer writers are closed
+        int total = numWriters * rowsPerWriter;
+        assertEquals(total / 2, count(conn, "select count(1) from table_a"));
+        assertEquals(total / 2, count(conn, "select count(1) from table_b"));
+        assertEquals(1, count(conn, "select count(1) from table_a where file_path='file-" + (total - 2) + "'"));
+
+        batchingWriter.close();
+        assertEquals(total, batchingWriter.getRowsWritten());
+        conn.close();
+    }
+
+    @Test
+    public void testWriteAfterClose() throws Exception {
+        JDBCUtil dbUtil = new H2Util(dbDir.resolve("closed_test"));
+        dbUtil.createTables(List.of(TABLE_A), JDBCUtil.CREATE_TABLE.DROP_IF_EXISTS);
+        try (Connection conn = dbUtil.getConnection()) {
+            BatchingDBWriter batchingWriter = new BatchingDBWriter(conn, null, 10, 7, 100, 50);
+            IDBWriter writer = batchingWriter.getWriter();
+            batchingWriter.close();
+            assertThrows(IOException.class, () -> writer.writeRow(TABLE_A, row(1)));
+            assertThrows(IOException.class, batchingWriter::flush);
+            //closing twice is fine
+            batchingWriter.close();
+        }
+    }
+
+    @Test
+    public void testWriterThreadStops() throws Exception {
+        JDBCUtil dbUtil = new H2Util(dbDir.resolve("stopped_test"));
+        dbUtil.createTables(List.of(TABLE_A), JDBCUtil.CREATE_TABLE.DROP_IF_EXISTS);
+        try (Connection conn = dbUtil.getConnection()) {
+            Set<Thread> before = writerThreads();
+            BatchingDBWriter batchingWriter = new BatchingDBWriter(conn, null, 1, 7, 100, 50);
+            Set<Thread> after = writerThreads();
+            after.removeAll(before);
+            assertEquals(1, after.size());
+            Thread writerThread = after.iterator().next();
+            writerThread.interrupt();
+            writerThread.join();
+
+            //neither blocks forever on a writer thread that is gone
+            IDBWriter writer = batchingWriter.getWriter();
+            assertTimeoutPreemptively(Duration.ofSeconds(30), () -> {
+                assertThrows(IOException.class, () -> writer.writeRow(TABLE_A, row(1)));
+                assertThrows(IOException.class, batchingWriter::flush);
+                assertThrows(IOException.class, batchingWriter::close);
+            });
+        }
+    }
+
+    private static Set<Thread> writerThreads() {
+        Set<Thread> threads = new HashSet<>();
+        for (Thread t : Thread.getAllStackTraces().keySet()) {
+            if (t.isAlive() && "tika-eval-db-writer".equals(t.getName())) {
+                threads.add(t);
+            }
+        }
+        return threads;
+    }
+
+    private static Map<Cols, String> row(int id) {
+        Map<Cols, String> data = new HashMap<>();
+        data.put(Cols.ID, Integer.toString(id));
+        data.put(Cols.FILE_PATH, "file-" + id);
+        return data;
+    }
+
+    private static int count(Connection conn, String sql) throws Exception {
+        try (Statement st = conn.createStatement();
+                ResultSet rs = st.executeQuery(sql)) {
+            rs.next();
+            return rs.getInt(1);
+        }
+    }
+}
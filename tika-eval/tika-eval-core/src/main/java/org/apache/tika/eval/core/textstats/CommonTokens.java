@@ -17,10 +17,7 @@
 package org.apache.tika.eval.core.textstats;
 
 import java.util.List;
-import java.util.Map;
-import java.util.Set;
 
-import org.apache.commons.lang3.mutable.MutableInt;
 import org.apache.commons.lang3.tuple.Pair;
 
 import org.apache.tika.eval.core.tokens.AlphaIdeographFilterFactory;
@@ -47,19 +44,19 @@ public class CommonTokens implements LanguageAwareTokenCountStats<CommonTokenRes
         Pair<String, LangModel> pair =
                 commonTokenCountManager.getLangTokens(languages.get(0).getLanguage());
         String actualLangCode = pair.getKey();
-        Set<String> commonTokens = pair.getValue().getTokens();
+        LangModel model = pair.getValue();
         int numUniqueCommonTokens = 0;
         int numCommonTokens = 0;
         int numUniqueAlphabeticTokens = 0;
         int numAlphabeticTokens = 0;
-        for (Map.Entry<String, MutableInt> e : tokenCounts.getTokens().entrySet()) {
-            String token = e.getKey();
-            int count = e.getValue().intValue();
+        for (int i = 0; i < tokenCounts.getTotalUniqueTokens(); i++) {
+            String token = tokenCounts.getToken(i);
+            int count = tokenCounts.getCount(i);
             if (AlphaIdeographFilterFactory.isAlphabetic(token.toCharArray(), token.length())) {
                 numAlphabeticTokens += count;
                 numUniqueAlphabeticTokens++;
             }
-            if (commonTokens.contains(token)) {
+            if (model.contains(token)) {
                 numCommonTokens += count;
                 numUniqueCommonTokens++;
             }
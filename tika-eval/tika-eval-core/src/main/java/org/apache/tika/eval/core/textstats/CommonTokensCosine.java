@@ -16,11 +16,8 @@
  */
 package org.apache.tika.eval.core.textstats;
 
-import java.util.Collection;
 import java.util.List;
-import java.util.Map;
 
-import org.apache.commons.lang3.mutable.MutableInt;
 import org.apache.commons.lang3.tuple.Pair;
 import org.apache.commons.math3.util.FastMath;
 
@@ -43,29 +40,22 @@ public class CommonTokensCosine implements LanguageAwareTokenCountStats<Double>
                 commonTokenCountManager.getLangTokens(languages.get(0).getLanguage());
         LangModel model = pair.getValue();
         double kl = 0.0;
-        if (tokenCounts.getTokens().entrySet().size() == 0) {
+        if (tokenCounts.getTotalUniqueTokens() == 0) {
             return 1.0;
         }
         double numerator = 0.0;
         double denominator = 0.0;
-        for (Map.Entry<String, MutableInt> e : tokenCounts.getTokens().entrySet()) {
-            long modelCount = model.getCount(e.getKey());
+        for (int i = 0; i < tokenCounts.getTotalUniqueTokens(); i++) {
+            int count = tokenCounts.getCount(i);
+            long modelCount = model.getCount(tokenCounts.getToken(i));
             if (modelCount > 0) {
-                numerator += e.getValue().intValue() * modelCount;
+                numerator += count * modelCount;
             }
-            double sq = FastMath.pow(e.getValue().intValue(), 2);
+            double sq = FastMath.pow(count, 2);
             denominator += sq;
         }
         denominator = Math.sqrt(denominator);
-        denominator *= calcNorm(model.getCounts().values());
+        denominator *= model.getCountNorm();
         return numerator / denominator;
     }
-
-    private double calcNorm(Collection<Long> counts) {
-        double d = 0.0;
-        for (long lng : counts) {
-            d += FastMath.pow(lng, 2);
-        }
-        return FastMath.sqrt(d);
-    }
 }
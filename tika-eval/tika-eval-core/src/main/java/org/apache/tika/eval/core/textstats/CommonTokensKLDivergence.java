@@ -17,9 +17,7 @@
 package org.apache.tika.eval.core.textstats;
 
 import java.util.List;
-import java.util.Map;
 
-import org.apache.commons.lang3.mutable.MutableInt;
 import org.apache.commons.lang3.tuple.Pair;
 import org.apache.commons.math3.util.FastMath;
 
@@ -42,15 +40,15 @@ public class CommonTokensKLDivergence implements LanguageAwareTokenCountStats<Do
                 commonTokenCountManager.getLangTokens(languages.get(0).getLanguage());
         LangModel model = pair.getValue();
         double kl = 0.0;
-        if (tokenCounts.getTokens().entrySet().size() == 0) {
+        if (tokenCounts.getTotalUniqueTokens() == 0) {
             return 1.0;
         }
-        for (Map.Entry<String, MutableInt> e : tokenCounts.getTokens().entrySet()) {
-            double p = (double) e.getValue().intValue() / (double) tokenCounts.getTotalTokens();
+        for (int i = 0; i < tokenCounts.getTotalUniqueTokens(); i++) {
+            double p = (double) tokenCounts.getCount(i) / (double) tokenCounts.getTotalTokens();
             if (p == 0.0) { //shouldn't happen, but be defensive
                 continue;
             }
-            double q = model.getProbability(e.getKey());
+            double q = model.getProbability(tokenCounts.getToken(i));
             kl += p * FastMath.log(q / p);
         }
         return -1.0 * kl;
@@ -124,8 +124,7 @@ public class CompositeTextStatsCalculator {
                 CharTermAttribute termAtt = ts.getAttribute(CharTermAttribute.class);
                 ts.reset();
                 while (ts.incrementToken()) {
-                    String token = termAtt.toString();
-                    counts.increment(token);
+                    counts.increment(termAtt.buffer(), 0, termAtt.length());
                 }
             } finally {
                 ts.close();
@@ -138,12 +137,12 @@ public class CompositeTextStatsCalculator {
             }
             try {
                 TermToBytesRefAttribute termAtt = ts.getAttribute(TermToBytesRefAttribute.class);
+                CharTermAttribute charTermAtt = ts.getAttribute(CharTermAttribute.class);
                 ts.reset();
                 int i = 0;
                 while (ts.incrementToken()) {
                     final BytesRef bytesRef = termAtt.getBytesRef();
-                    String token = termAtt.toString();
-                    counts.increment(token);
+                    counts.increment(charTermAtt.buffer(), 0, charTermAtt.length());
                     for (BytesRefCalculator.BytesRefCalcInstance brci : brcis) {
                         if (i > 0) {
                             brci.update(whitespace, 0, 1);
@@ -19,11 +19,9 @@ package org.apache.tika.eval.core.textstats;
 import java.util.ArrayList;
 import java.util.Comparator;
 import java.util.List;
-import java.util.Map;
 
 import org.apache.commons.codec.binary.Base32;
 import org.apache.commons.codec.digest.DigestUtils;
-import org.apache.commons.lang3.mutable.MutableInt;
 
 import org.apache.tika.eval.core.tokens.TokenCounts;
 
@@ -46,10 +44,10 @@ public class TextProfileSignature implements TokenCountStatsCalculator<String> {
     @Override
     public String calculate(TokenCounts tokenCounts) {
         int maxFreq = -1;
-        for (Map.Entry<String, MutableInt> e : tokenCounts.getTokens().entrySet()) {
-            if (e.getKey().length() >= minTokenLength) {
-                if (e.getValue().intValue() > maxFreq) {
-                    maxFreq = e.getValue().intValue();
+        for (int i = 0; i < tokenCounts.getTotalUniqueTokens(); i++) {
+            if (tokenCounts.getToken(i).length() >= minTokenLength) {
+                if (tokenCounts.getCount(i) > maxFreq) {
+                    maxFreq = tokenCounts.getCount(i);
                 }
             }
         }
@@ -64,14 +62,14 @@ public class TextProfileSignature implements TokenCountStatsCalculator<String> {
         }
 
         List<Token> profile = new ArrayList<>();
-        for (Map.Entry<String, MutableInt> e : tokenCounts.getTokens().entrySet()) {
-            String token = e.getKey();
+        for (int i = 0; i < tokenCounts.getTotalUniqueTokens(); i++) {
+            String token = tokenCounts.getToken(i);
             if (token.length() >= minTokenLength) {
-                int quantCnt = (e.getValue().intValue() / quant) * quant;
+                int quantCnt = (tokenCounts.getCount(i) / quant) * quant;
                 if (quantCnt < quant) {
                     continue;
                 }
-                profile.add(new Token((e.getValue().intValue() / quant) * quant, e.getKey()));
+                profile.add(new Token(quantCnt, token));
             }
         }
         profile.sort(new TokenComparator());
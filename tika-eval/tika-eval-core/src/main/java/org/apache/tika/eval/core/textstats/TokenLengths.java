@@ -16,9 +16,6 @@
  */
 package org.apache.tika.eval.core.textstats;
 
-import java.util.Map;
-
-import org.apache.commons.lang3.mutable.MutableInt;
 import org.apache.commons.math3.stat.descriptive.SummaryStatistics;
 
 import org.apache.tika.eval.core.tokens.TokenCounts;
@@ -28,10 +25,10 @@ public class TokenLengths implements TokenCountStatsCalculator<SummaryStatistics
     @Override
     public SummaryStatistics calculate(TokenCounts tokenCounts) {
         SummaryStatistics summaryStatistics = new SummaryStatistics();
-        for (Map.Entry<String, MutableInt> e : tokenCounts.getTokens().entrySet()) {
-            String token = e.getKey();
+        for (int i = 0; i < tokenCounts.getTotalUniqueTokens(); i++) {
+            String token = tokenCounts.getToken(i);
             int cp = token.codePointCount(0, token.length());
-            for (int i = 0; i < e.getValue().intValue(); i++) {
+            for (int j = 0; j < tokenCounts.getCount(i); j++) {
                 summaryStatistics.addValue(cp);
             }
         }
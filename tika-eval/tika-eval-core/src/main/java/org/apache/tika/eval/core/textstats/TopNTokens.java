@@ -16,9 +16,6 @@
  */
 package org.apache.tika.eval.core.textstats;
 
-import java.util.Map;
-
-import org.apache.commons.lang3.mutable.MutableInt;
 import org.apache.commons.math3.stat.descriptive.SummaryStatistics;
 
 import org.apache.tika.eval.core.tokens.TokenCounts;
@@ -37,9 +34,9 @@ public class TopNTokens implements TokenCountStatsCalculator<TokenIntPair[]> {
         TokenCountPriorityQueue queue = new TokenCountPriorityQueue(topN);
 
         SummaryStatistics summaryStatistics = new SummaryStatistics();
-        for (Map.Entry<String, MutableInt> e : tokenCounts.getTokens().entrySet()) {
-            String token = e.getKey();
-            int termFreq = e.getValue().intValue();
+        for (int i = 0; i < tokenCounts.getTotalUniqueTokens(); i++) {
+            String token = tokenCounts.getToken(i);
+            int termFreq = tokenCounts.getCount(i);
 
             if (queue.top() == null || queue.size() < topN || termFreq >= queue.top().getValue()) {
                 queue.insertWithOverflow(new TokenIntPair(token, termFreq));
@@ -21,6 +21,8 @@ import java.io.BufferedReader;
 import java.io.IOException;
 import java.io.InputStream;
 import java.io.InputStreamReader;
+import java.net.URL;
+import java.net.URLConnection;
 import java.nio.charset.Charset;
 import java.nio.charset.StandardCharsets;
 import java.nio.file.Files;
@@ -32,6 +34,8 @@ import java.util.Set;
 import java.util.concurrent.ConcurrentHashMap;
 import java.util.regex.Matcher;
 import java.util.regex.Pattern;
+import java.util.zip.CRC32;
+import java.util.zip.CheckedInputStream;
 
 import org.apache.commons.io.IOUtils;
 import org.apache.commons.lang3.tuple.Pair;
@@ -47,6 +51,8 @@ public class CommonTokenCountManager {
     //if we have no model or if no langid is passed in
     //make this configurable
     private final String defaultLangCode;
+    //if not null, models are compiled to and memory-mapped from here
+    private final Path compiledTokensDir;
     Map<String, LangModel> commonTokenMap = new ConcurrentHashMap<>();
     Set<String> alreadyTriedToLoad = new HashSet<>();
     private Matcher digitsMatcher = Pattern.compile("(\\d+)").matcher("");
@@ -56,6 +62,21 @@ public class CommonTokenCountManager {
     }
 
     public CommonTokenCountManager(Path commonTokensDir, String defaultLangCode) {
+        this(commonTokensDir, defaultLangCode, null);
+    }
+
+    /**
+     * @param commonTokensDir   directory with the common tokens files, if <code>null</code>
+     *                          they are loaded from the class path
+     * @param defaultLangCode   language to use if there is no model for the detected language
+     * @param compiledTokensDir if not <code>null</code>, each language's model is compiled
+     *                          into this directory the first time it is needed and then
+     *                          memory-mapped from there (see {@link MappedLangModel})
+     *                          instead of being held on the heap
+     */
+    public CommonTokenCountManager(Path commonTokensDir, String defaultLangCode,
+                                   Path compiledTokensDir) {
+        this.compiledTokensDir = compiledTokensDir;
         if (defaultLangCode == null) {
             defaultLangCode = "";
         }
@@ -77,8 +98,7 @@ public class CommonTokenCountManager {
     }
 
     public Set<String> getTokens(String lang) {
-        return Collections.unmodifiableSet(
-                new HashSet(commonTokenMap.get(getActualLangCode(lang)).getTokens()));
+        return Collections.unmodifiableSet(commonTokenMap.get(getActualLangCode(lang)).getTokens());
     }
 
     public Set<String> getLangs() {
@@ -117,6 +137,24 @@ public class CommonTokenCountManager {
         commonTokenMap.clear();
     }
 
+    private LangModel compile(String langCode, LangModel model, long sourceSize,
+                              long sourceModified, long sourceChecksum) {
+        if (compiledTokensDir == null || model == null) {
+            return model;
+        }
+        Path compiled = compiledTokensDir.resolve(langCode + MappedLangModel.COMPILED_SUFFIX);
+        try {
+            Files.createDirectories(compiledTokensDir);
+            MappedLangModel.write(model, compiled, sourceSize, sourceModified,
+                    sourceChecksum);
+            return MappedLangModel.open(compiled);
+        } catch (IOException e) {
+            LOG.warn("Couldn't compile common tokens for '" + langCode + "' to " + compiled +
+                    "; keeping them on heap", e);
+            return model;
+        }
+    }
+
     private synchronized void tryToLoad(String langCode) {
         if (alreadyTriedToLoad.contains(langCode)) {
             return;
@@ -126,17 +164,60 @@ public class CommonTokenCountManager {
         if (commonTokenMap.get(langCode) != null) {
             return;
         }
-        InputStream is = null;
         Path p = null;
         if (commonTokensDir != null) {
             p = commonTokensDir.resolve(langCode);
         }
+        boolean fromFile = p != null && Files.isRegularFile(p);
+        URL resource = fromFile ? null :
+                this.getClass().getResource("/common_tokens/" + langCode);
+        //identifies the version of the source that a compiled model was made from
+        long sourceSize = -1;
+        long sourceModified = -1;
+        try {
+            if (fromFile) {
+                sourceSize = Files.size(p);
+                sourceModified = Files.getLastModifiedTime(p).toMillis();
+            } else if (resource != null) {
+                URLConnection connection = resource.openConnection();
+                sourceSize = connection.getContentLengthLong();
+                sourceModified = connection.getLastModified();
+            }
+        } catch (IOException e) {
+            LOG.warn("Couldn't check the common tokens file for '" + langCode + "'", e);
+        }
+        if (compiledTokensDir != null) {
+            Path compiled = compiledTokensDir.resolve(langCode + MappedLangModel.COMPILED_SUFFIX);
+            if (Files.isRegularFile(compiled)) {
+                try {
+                    MappedLangModel model = MappedLangModel.open(compiled);
+                    //without a source, the compiled model is all there is.
+                    //the checksum catches changes that keep the size and the time,
+                    //e.g. in jars built with a fixed timestamp
+                    if ((!fromFile && resource == null) ||
+                            model.isCompiledFrom(sourceSize, sourceModified,
+                                    checksum(fromFile ? Files.newInputStream(p) :
+                                            resource.openStream()))) {
+                        commonTokenMap.put(langCode, model);
+                        alreadyTriedToLoad.add(langCode);
+                        return;
+                    }
+                    LOG.info("Common tokens for '" + langCode + "' have changed since " +
+                            compiled + " was compiled; recompiling");
+                } catch (IOException e) {
+                    LOG.warn("Couldn't open compiled common tokens: '" + compiled +
+                            "'; recompiling", e);
+                }
+            }
+        }
+        InputStream is = null;
+        CRC32 crc = new CRC32();
 
         try {
-            if (p == null || !Files.isRegularFile(p)) {
-                is = this.getClass().getResourceAsStream("/common_tokens/" + langCode);
-            } else {
-                is = Files.newInputStream(p);
+            if (fromFile) {
+                is = new CheckedInputStream(Files.newInputStream(p), crc);
+            } else if (resource != null) {
+                is = new CheckedInputStream(resource.openStream(), crc);
             }
 
 
@@ -185,7 +266,8 @@ public class CommonTokenCountManager {
                     line = reader.readLine();
                 }
             }
-            commonTokenMap.put(langCode, model);
+            commonTokenMap.put(langCode,
+                    compile(langCode, model, sourceSize, sourceModified, crc.getValue()));
         } catch (IOException e) {
             LOG.warn("IOException trying to read: '" + langCode + "'");
         } finally {
@@ -193,4 +275,12 @@ public class CommonTokenCountManager {
         }
     }
 
+    private static long checksum(InputStream is) throws IOException {
+        CRC32 crc = new CRC32();
+        try (InputStream checked = new CheckedInputStream(is, crc)) {
+            IOUtils.consume(checked);
+        }
+        return crc.getValue();
+    }
+
 }
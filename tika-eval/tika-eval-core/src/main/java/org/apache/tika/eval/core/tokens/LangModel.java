@@ -29,6 +29,7 @@ public class LangModel {
 
     private Map<String, Double> percentages = new HashMap<>();
     private Map<String, Long> counts = new HashMap<>();
+    private double countNorm = -1.0;
 
     public LangModel(long totalTokens) {
         this.totalTokens = totalTokens;
@@ -57,6 +58,7 @@ public class LangModel {
         double p = (double) tf / (double) totalTokens;
         percentages.put(t, p);
         counts.put(t, tf);
+        countNorm = -1.0;
     }
 
     public double getUnseenProbability() {
@@ -75,4 +77,25 @@ public class LangModel {
     public Map<String, Long> getCounts() {
         return counts;
     }
+
+    /**
+     * @return the total number of tokens this model was built from
+     */
+    public long getTotalTokens() {
+        return totalTokens;
+    }
+
+    /**
+     * @return euclidean norm of the token counts
+     */
+    public double getCountNorm() {
+        if (countNorm < 0.0) {
+            double d = 0.0;
+            for (long cnt : counts.values()) {
+                d += (double) cnt * cnt;
+            }
+            countNorm = Math.sqrt(d);
+        }
+        return countNorm;
+    }
 }
@@ -0,0 +1,393 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.tika.eval.core.tokens;
+
+import static java.nio.charset.StandardCharsets.UTF_8;
+
+import java.io.BufferedOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.AbstractMap;
+import java.util.AbstractSet;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.Set;
+
+/**
+ * {@link LangModel} backed by a compiled, memory-mapped dictionary file.
+ * <p>
+ * The tokens live off-heap in the OS page cache and are shared by every
+ * thread (and every process) that maps the same file, so adding languages
+ * or consumer threads does not grow the heap.  Lookups hash the token's
+ * chars and only touch the mapped bytes of the candidates in its probe
+ * sequence.
+ * <p>
+ * File layout (big endian):
+ * <pre>
+ * header:  int magic, int version, long totalTokens, int numTokens,
+ *          int tableSize, double countNorm, long sourceSize, long sourceModified,
+ *          long sourceChecksum
+ * table:   int[tableSize] offset of the entry in the data section, -1 if empty
+ * data:    per token: int hash, long count, int utf8Length, byte[utf8Length]
+ * </pre>
+ * where <code>hash</code> is {@link String#hashCode()} of the token, and
+ * <code>sourceSize</code>, <code>sourceModified</code> and the CRC-32
+ * <code>sourceChecksum</code> identify the common tokens file that the
+ * model was compiled from, -1 if unknown.
+ * Files must be smaller than 2GB.
+ */
+public class MappedLangModel extends LangModel {
+
+    /**
+     * File extension for compiled common token models.
+     */
+    public static final String COMPILED_SUFFIX = ".ctm";
+
+    private static final int MAGIC = 0x54435431; //TCT1
+    private static final int VERSION = 2;
+    private static final int HEADER_LENGTH = 56;
+
+    private final ByteBuffer buffer;
+    private final int numTokens;
+    private final int tableSize;
+    private final int dataStart;
+    private final double countNorm;
+    private final long sourceSize;
+    private final long sourceModified;
+    private final long sourceChecksum;
+
+    private MappedLangModel(ByteBuffer buffer) throws IOException {
+        super(buffer.getLong(8));
+        if (buffer.getInt(0) != MAGIC || buffer.getInt(4) != VERSION) {
+            throw new IOException("Not a compiled common tokens file (version " + VERSION + ")");
+        }
+        this.buffer = buffer;
+        this.numTokens = buffer.getInt(16);
+        this.tableSize = buffer.getInt(20);
+        this.countNorm = buffer.getDouble(24);
+        this.sourceSize = buffer.getLong(32);
+        this.sourceModified = buffer.getLong(40);
+        this.sourceChecksum = buffer.getLong(48);
+        this.dataStart = HEADER_LENGTH + 4 * tableSize;
+    }
+
+    /**
+     * Maps a file written by {@link #write(LangModel, Path)}.
+     *
+     * @param path compiled model
+     * @return the model
+     * @throws IOException if the file can't be read or isn't a compiled model
+     */
+    public static MappedLangModel open(Path path) throws IOException {
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+            return new MappedLangModel(buffer);
+        }
+    }
+
+    /**
+     * Compiles the given model into the mapped format, without recording
+     * its source, see {@link #write(LangModel, Path, long, long, long)}.
+     *
+     * @param model model to compile
+     * @param path  target file
+     * @throws IOException on write failure
+     */
+    public static void write(LangModel model, Path path) throws IOException {
+        write(model, path, -1, -1, -1);
+    }
+
+    /**
+     * Compiles the given model into the mapped format.  The file is written
+     * to a temp file next to <code>path</code> and then moved into place, so
+     * concurrent readers never see a partial file.
+     *
+     * @param model          model to compile
+     * @param path           target file
+     * @param sourceSize     size of the common tokens file, -1 if unknown
+     * @param sourceModified last modified time of the common tokens file in
+     *                       milliseconds, -1 if unknown
+     * @param sourceChecksum CRC-32 of the common tokens file, -1 if unknown
+     * @throws IOException on write failure
+     */
+    public static void write(LangModel model, Path path, long sourceSize, long sourceModified,
+                             long sourceChecksum) throws IOException {
+        Map<String, Long> modelCounts = model.getCounts();
+        int numTokens = modelCounts.size();
+        int tableSize = Integer.highestOneBit(Math.max(numTokens, 1) * 2 - 1) << 1;
+        int[] table = new int[tableSize];
+        Arrays.fill(table, -1);
+
+        //first pass: lay out the data section and fill the hash table
+        String[] tokens = new String[numTokens];
+        byte[][] encoded = new byte[numTokens][];
+        int i = 0;
+        int offset = 0;
+        int mask = tableSize - 1;
+        for (String token : modelCounts.keySet()) {
+            tokens[i] = token;
+            encoded[i] = token.getBytes(UTF_8);
+            int slot = mix(token.hashCode()) & mask;
+            while (table[slot] != -1) {
+                slot = (slot + 1) & mask;
+            }
+            table[slot] = offset;
+            offset += 16 + encoded[i].length;
+            i++;
+        }
+
+        Path tmp = Files.createTempFile(path.toAbsolutePath().getParent(),
+                path.getFileName().toString(), ".tmp");
+        try {
+            try (DataOutputStream out = new DataOutputStream(
+                    new BufferedOutputStream(Files.newOutputStream(tmp)))) {
+                out.writeInt(MAGIC);
+                out.writeInt(VERSION);
+                out.writeLong(model.getTotalTokens());
+                out.writeInt(numTokens);
+                out.writeInt(tableSize);
+                out.writeDouble(model.getCountNorm());
+                out.writeLong(sourceSize);
+                out.writeLong(sourceModified);
+                out.writeLong(sourceChecksum);
+                for (int entry : table) {
+                    out.writeInt(entry);
+                }
+                for (i = 0; i < numTokens; i++) {
+                    out.writeInt(tokens[i].hashCode());
+                    out.writeLong(modelCounts.get(tokens[i]));
+                    out.writeInt(encoded[i].length);
+                    out.write(encoded[i]);
+                }
+            }
+            Files.move(tmp, path, StandardCopyOption.REPLACE_EXISTING,
+                    StandardCopyOption.ATOMIC_MOVE);
+        } finally {
+            Files.deleteIfExists(tmp);
+        }
+    }
+
+    /**
+     * @return <code>true</code> if this model was compiled from a common
+     * tokens file with the given size, last modified time and CRC-32
+     */
+    public boolean isCompiledFrom(long sourceSize, long sourceModified, long sourceChecksum) {
+        return this.sourceSize == sourceSize && this.sourceModified == sourceModified &&
+                this.sourceChecksum == sourceChecksum;
+    }
+
+    private static int mix(int hash) {
+        hash *= 0x9E3779B9;
+        return hash ^ (hash >>> 16);
+    }
+
+    /**
+     * @return absolute position of the token's entry, or -1
+     */
+    private int find(String token) {
+        int hash = token.hashCode();
+        int mask = tableSize - 1;
+        int slot = mix(hash) & mask;
+        byte[] bytes = null;
+        int offset;
+        while ((offset = buffer.getInt(HEADER_LENGTH + 4 * slot)) != -1) {
+            int pos = dataStart + offset;
+            if (buffer.getInt(pos) == hash) {
+                if (bytes == null) {
+                    bytes = token.getBytes(UTF_8);
+                }
+                if (matches(pos, bytes)) {
+                    return pos;
+                }
+            }
+            slot = (slot + 1) & mask;
+        }
+        return -1;
+    }
+
+    private boolean matches(int pos, byte[] bytes) {
+        int len = buffer.getInt(pos + 12);
+        if (len != bytes.length) {
+            return false;
+        }
+        int start = pos + 16;
+        for (int i = 0; i < len; i++) {
+            if (buffer.get(start + i) != bytes[i]) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    @Override
+    public boolean contains(String token) {
+        return find(token) > -1;
+    }
+
+    @Override
+    public long getCount(String token) {
+        int pos = find(token);
+        return pos < 0 ? 0 : buffer.getLong(pos + 4);
+    }
+
+    @Override
+    public double getProbability(String token) {
+        int pos = find(token);
+        if (pos < 0) {
+            return getUnseenProbability();
+        }
+        return (double) buffer.getLong(pos + 4) / (double) getTotalTokens();
+    }
+
+    @Override
+    public double getCountNorm() {
+        return countNorm;
+    }
+
+    /**
+     * @throws UnsupportedOperationException compiled models are read-only
+     */
+    @Override
+    public void add(String t, long tf) {
+        throw new UnsupportedOperationException("Compiled models are read-only");
+    }
+
+    /**
+     * @return read-only view of the tokens; membership tests are served
+     * from the mapped file and iteration decodes one token at a time
+     */
+    @Override
+    public Set<String> getTokens() {
+        return new AbstractSet<String>() {
+            @Override
+            public boolean contains(Object o) {
+                return o instanceof String && find((String) o) > -1;
+            }
+
+            @Override
+            public int size() {
+                return numTokens;
+            }
+
+            @Override
+            public Iterator<String> iterator() {
+                return new EntryIterator<String>() {
+                    @Override
+                    String get(int pos) {
+                        return token(pos);
+                    }
+                };
+            }
+        };
+    }
+
+    /**
+     * @return read-only view of the token counts, backed by the mapped file
+     * like {@link #getTokens()}
+     */
+    @Override
+    public Map<String, Long> getCounts() {
+        return new AbstractMap<String, Long>() {
+            @Override
+            public Long get(Object key) {
+                if (!(key instanceof String)) {
+                    return null;
+                }
+                int pos = find((String) key);
+                return pos < 0 ? null : buffer.getLong(pos + 4);
+            }
+
+            @Override
+            public boolean containsKey(Object key) {
+                return key instanceof String && find((String) key) > -1;
+            }
+
+            @Override
+            public int size() {
+                return numTokens;
+            }
+
+            @Override
+            public Set<Entry<String, Long>> entrySet() {
+                return new AbstractSet<Entry<String, Long>>() {
+                    @Override
+                    public int size() {
+                        return numTokens;
+                    }
+
+                    @Override
+                    public Iterator<Entry<String, Long>> iterator() {
+                        return new EntryIterator<Entry<String, Long>>() {
+                            @Override
+                            Entry<String, Long> get(int pos) {
+                                return new SimpleImmutableEntry<>(token(pos),
+                                        buffer.getLong(pos + 4));
+                            }
+                        };
+                    }
+                };
+            }
+        };
+    }
+
+    private String token(int pos) {
+        byte[] bytes = new byte[buffer.getInt(pos + 12)];
+        buffer.get(pos + 16, bytes);
+        return new String(bytes, UTF_8);
+    }
+
+    /**
+     * Walks the entries of the data section in file order.
+     */
+    private abstract class EntryIterator<T> implements Iterator<T> {
+
+        private int pos = dataStart;
+
+        private int remaining = numTokens;
+
+        abstract T get(int pos);
+
+        @Override
+        public boolean hasNext() {
+            return remaining > 0;
+        }
+
+        @Override
+        public T next() {
+            if (remaining == 0) {
+                throw new NoSuchElementException();
+            }
+            T next = get(pos);
+            pos += 16 + buffer.getInt(pos + 12);
+            remaining--;
+            return next;
+        }
+    }
+
+    public int getNumTokens() {
+        return numTokens;
+    }
+}
@@ -17,9 +17,6 @@
 
 package org.apache.tika.eval.core.tokens;
 
-import java.util.Map;
-
-import org.apache.commons.lang3.mutable.MutableInt;
 import org.apache.lucene.util.PriorityQueue;
 
 /**
@@ -53,19 +50,17 @@ public class TokenContraster {
         reset();
         this.tokensA = tokensA;
         this.tokensB = tokensB;
-        Map<String, MutableInt> mapA = tokensA.getTokens();
-        Map<String, MutableInt> mapB = tokensB.getTokens();
-        for (Map.Entry<String, MutableInt> e : mapA.entrySet()) {
-            MutableInt bVal = mapB.get(e.getKey());
-            int b = (bVal == null) ? 0 : bVal.intValue();
-            add(e.getKey(), e.getValue().intValue(), b);
+        for (int i = 0; i < tokensA.getTotalUniqueTokens(); i++) {
+            String token = tokensA.getToken(i);
+            add(token, tokensA.getCount(i), tokensB.getCount(token));
         }
 
-        for (Map.Entry<String, MutableInt> e : mapB.entrySet()) {
-            if (mapA.containsKey(e.getKey())) {
+        for (int i = 0; i < tokensB.getTotalUniqueTokens(); i++) {
+            String token = tokensB.getToken(i);
+            if (tokensA.getCount(token) > 0) {
                 continue;
             }
-            add(e.getKey(), 0, e.getValue().intValue());
+            add(token, 0, tokensB.getCount(i));
         }
         finishComputing();
         ContrastStatistics contrastStatistics = new ContrastStatistics();
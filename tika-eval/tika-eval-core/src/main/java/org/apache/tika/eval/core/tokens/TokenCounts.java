@@ -16,29 +16,169 @@
  */
 package org.apache.tika.eval.core.tokens;
 
-import java.util.HashMap;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
 import java.util.Map;
 
 import org.apache.commons.lang3.mutable.MutableInt;
 
+/**
+ * Per-document token counts.
+ * <p>
+ * Tokens are kept in insertion order in parallel arrays and indexed by an
+ * open-addressing hash table of ints, so counting a token that was already
+ * seen neither allocates a <code>String</code> (see
+ * {@link #increment(char[], int, int)}) nor boxes its count.  Iterate with
+ * {@link #getToken(int)} and {@link #getCount(int)} for
+ * <code>0 &lt;= i &lt; </code>{@link #getTotalUniqueTokens()}.
+ * <p>
+ * Not thread safe.
+ */
 public class TokenCounts {
 
+    private static final int INITIAL_CAPACITY = 64;
+
     private int totalTokens = 0;
-    private Map<String, MutableInt> tokens = new HashMap<>();
+    private int size = 0;
+    private String[] tokens = new String[INITIAL_CAPACITY];
+    private int[] hashes = new int[INITIAL_CAPACITY];
+    private int[] counts = new int[INITIAL_CAPACITY];
+    //slot -> token index + 1; 0 marks an empty slot
+    private int[] table = new int[INITIAL_CAPACITY * 2];
 
     public void increment(String token) {
-        MutableInt i = tokens.get(token);
-        if (i == null) {
-            i = new MutableInt(1);
-            tokens.put(token, i);
-        } else {
-            i.increment();
+        int hash = token.hashCode();
+        int mask = table.length - 1;
+        int slot = mix(hash) & mask;
+        int id;
+        while ((id = table[slot]) != 0) {
+            if (hashes[id - 1] == hash && tokens[id - 1].equals(token)) {
+                counts[id - 1]++;
+                totalTokens++;
+                return;
+            }
+            slot = (slot + 1) & mask;
+        }
+        add(slot, token, hash);
+    }
+
+    /**
+     * Counts the token held in <code>buffer[offset, offset+length)</code>,
+     * e.g. a Lucene <code>CharTermAttribute</code>.  A <code>String</code>
+     * is only created the first time a token is seen.
+     */
+    public void increment(char[] buffer, int offset, int length) {
+        int hash = 0;
+        for (int i = offset; i < offset + length; i++) {
+            hash = 31 * hash + buffer[i];
+        }
+        int mask = table.length - 1;
+        int slot = mix(hash) & mask;
+        int id;
+        while ((id = table[slot]) != 0) {
+            if (hashes[id - 1] == hash && matches(tokens[id - 1], buffer, offset, length)) {
+                counts[id - 1]++;
+                totalTokens++;
+                return;
+            }
+            slot = (slot + 1) & mask;
+        }
+        add(slot, new String(buffer, offset, length), hash);
+    }
+
+    private void add(int slot, String token, int hash) {
+        if (size == tokens.length) {
+            int newLength = tokens.length * 2;
+            tokens = Arrays.copyOf(tokens, newLength);
+            hashes = Arrays.copyOf(hashes, newLength);
+            counts = Arrays.copyOf(counts, newLength);
         }
+        tokens[size] = token;
+        hashes[size] = hash;
+        counts[size] = 1;
+        size++;
+        table[slot] = size;
         totalTokens++;
+        if (size * 2 > table.length) {
+            rehash();
+        }
     }
 
+    private void rehash() {
+        table = new int[table.length * 2];
+        int mask = table.length - 1;
+        for (int i = 0; i < size; i++) {
+            int slot = mix(hashes[i]) & mask;
+            while (table[slot] != 0) {
+                slot = (slot + 1) & mask;
+            }
+            table[slot] = i + 1;
+        }
+    }
+
+    private static int mix(int hash) {
+        hash *= 0x9E3779B9;
+        return hash ^ (hash >>> 16);
+    }
+
+    private static boolean matches(String token, char[] buffer, int offset, int length) {
+        if (token.length() != length) {
+            return false;
+        }
+        for (int i = 0; i < length; i++) {
+            if (token.charAt(i) != buffer[offset + i]) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * @param token token
+     * @return number of times the token was counted, 0 if never
+     */
+    public int getCount(String token) {
+        int hash = token.hashCode();
+        int mask = table.length - 1;
+        int slot = mix(hash) & mask;
+        int id;
+        while ((id = table[slot]) != 0) {
+            if (hashes[id - 1] == hash && tokens[id - 1].equals(token)) {
+                return counts[id - 1];
+            }
+            slot = (slot + 1) & mask;
+        }
+        return 0;
+    }
+
+    /**
+     * @param i index from 0 to {@link #getTotalUniqueTokens()} (exclusive)
+     * @return the i-th distinct token, in order of first occurrence
+     */
+    public String getToken(int i) {
+        return tokens[i];
+    }
+
+    /**
+     * @param i index from 0 to {@link #getTotalUniqueTokens()} (exclusive)
+     * @return the count of the i-th distinct token
+     */
+    public int getCount(int i) {
+        return counts[i];
+    }
+
+    /**
+     * Builds a map view of the counts.  This copies every entry; prefer
+     * {@link #getToken(int)} and {@link #getCount(int)} on hot paths.
+     *
+     * @return new map of token to count in order of first occurrence
+     */
     public Map<String, MutableInt> getTokens() {
-        return tokens;
+        Map<String, MutableInt> map = new LinkedHashMap<>(size * 2);
+        for (int i = 0; i < size; i++) {
+            map.put(tokens[i], new MutableInt(counts[i]));
+        }
+        return map;
     }
 
     public int getTotalTokens() {
@@ -46,6 +186,6 @@ public class TokenCounts {
     }
 
     public int getTotalUniqueTokens() {
-        return tokens.size();
+        return size;
     }
 }
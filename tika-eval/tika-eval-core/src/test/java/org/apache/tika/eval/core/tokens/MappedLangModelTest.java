@@ -0,0 +1,110 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.tika.eval.core.tokens;
+
+import static java.nio.charset.StandardCharsets.UTF_8;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.FileTime;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+public class MappedLangModelTest {
+
+    @TempDir
+    Path tmp;
+
+    @Test
+    public void testSameAsHeapModel() throws Exception {
+        LangModel heap = new CommonTokenCountManager(null, "eng").getLangTokens("eng").getValue();
+        CommonTokenCountManager mgr = new CommonTokenCountManager(null, "eng", tmp);
+        LangModel mapped = mgr.getLangTokens("eng").getValue();
+
+        assertTrue(mapped instanceof MappedLangModel);
+        assertTrue(Files.isRegularFile(tmp.resolve("eng" + MappedLangModel.COMPILED_SUFFIX)));
+        assertEquals(heap.getTokens().size(), ((MappedLangModel) mapped).getNumTokens());
+        assertEquals(heap.getCountNorm(), mapped.getCountNorm(), 0.00001);
+        assertEquals(heap.getUnseenProbability(), mapped.getUnseenProbability(), 0.0);
+        for (String token : heap.getTokens()) {
+            assertTrue(mapped.contains(token), token);
+            assertEquals(heap.getCount(token), mapped.getCount(token));
+            assertEquals(heap.getProbability(token), mapped.getProbability(token), 0.0);
+        }
+        assertFalse(mapped.contains("qwertyuiopasdf"));
+        assertEquals(0, mapped.getCount("qwertyuiopasdf"));
+        assertEquals(heap.getCounts(), mapped.getCounts());
+        assertEquals(mapped.getCounts(), heap.getCounts());
+        assertEquals(heap.getTokens(), mapped.getTokens());
+        assertEquals(heap.getTokens(), mgr.getTokens("eng"));
+        assertEquals(heap.getCount("the"), mapped.getCounts().get("the"));
+        assertFalse(mapped.getTokens().contains("qwertyuiopasdf"));
+
+        //a second manager reuses the compiled file
+        LangModel reopened = new CommonTokenCountManager(null, "", tmp)
+                .getLangTokens("eng").getValue();
+        assertTrue(reopened instanceof MappedLangModel);
+        assertEquals(heap.getCount("the"), reopened.getCount("the"));
+    }
+
+    @Test
+    public void testRecompilesChangedSource() throws Exception {
+        Path commonTokensDir = Files.createDirectory(tmp.resolve("common_tokens"));
+        Path compiledDir = tmp.resolve("compiled");
+        Path source = commonTokensDir.resolve("xxx");
+        Path compiled = compiledDir.resolve("xxx" + MappedLangModel.COMPILED_SUFFIX);
+        writeCommonTokens(source, "alpha\t1\t10", 1000);
+
+        LangModel model = new CommonTokenCountManager(commonTokensDir, "xxx", compiledDir)
+                .getLangTokens("xxx").getValue();
+        assertTrue(model instanceof MappedLangModel);
+        assertEquals(10, model.getCount("alpha"));
+
+        //an unchanged source reuses the compiled model
+        FileTime compiledTime = FileTime.fromMillis(5000);
+        Files.setLastModifiedTime(compiled, compiledTime);
+        model = new CommonTokenCountManager(commonTokensDir, "xxx", compiledDir)
+                .getLangTokens("xxx").getValue();
+        assertEquals(10, model.getCount("alpha"));
+        assertEquals(compiledTime, Files.getLastModifiedTime(compiled));
+
+        //same size, other contents and time
+        writeCommonTokens(source, "gamma\t1\t20", 2000);
+        model = new CommonTokenCountManager(commonTokensDir, "xxx", compiledDir)
+                .getLangTokens("xxx").getValue();
+        assertEquals(0, model.getCount("alpha"));
+        assertEquals(20, model.getCount("gamma"));
+
+        //same size and time, as in jars built with a fixed timestamp
+        writeCommonTokens(source, "delta\t1\t30", 2000);
+        model = new CommonTokenCountManager(commonTokensDir, "xxx", compiledDir)
+                .getLangTokens("xxx").getValue();
+        assertEquals(0, model.getCount("gamma"));
+        assertEquals(30, model.getCount("delta"));
+    }
+
+    private static void writeCommonTokens(Path path, String line, long modified)
+            throws IOException {
+        Files.write(path, ("#SUM_TERM_FREQS\t100\n" + line + "\n").getBytes(UTF_8));
+        Files.setLastModifiedTime(path, FileTime.fromMillis(modified));
+    }
+}
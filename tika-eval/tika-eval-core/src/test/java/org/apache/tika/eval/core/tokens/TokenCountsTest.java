@@ -0,0 +1,47 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.tika.eval.core.tokens;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import org.junit.jupiter.api.Test;
+
+public class TokenCountsTest {
+
+    @Test
+    public void testCounts() {
+        TokenCounts counts = new TokenCounts();
+        char[] buffer = "xthex".toCharArray();
+        counts.increment("the");
+        counts.increment(buffer, 1, 3);
+        counts.increment("a");
+        for (int i = 0; i < 1000; i++) {
+            counts.increment("t" + i);
+        }
+        counts.increment(buffer, 1, 3);
+
+        assertEquals(1004, counts.getTotalTokens());
+        assertEquals(1002, counts.getTotalUniqueTokens());
+        assertEquals(3, counts.getCount("the"));
+        assertEquals(1, counts.getCount("t999"));
+        assertEquals(0, counts.getCount("missing"));
+        assertEquals("the", counts.getToken(0));
+        assertEquals(3, counts.getCount(0));
+        assertEquals("a", counts.getToken(1));
+        assertEquals(3, counts.getTokens().get("the").intValue());
+    }
+}
@@ -0,0 +1,207 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.tika.langdetect.tika;
+
+import java.util.Map;
+
+/**
+ * Immutable, packed form of a set of trigram {@link LanguageProfile}s.
+ * <p>
+ * Every trigram that occurs in any profile gets a dense id, and the relative
+ * frequencies are stored in a single <code>float</code> matrix laid out as
+ * <code>[id * languages + language]</code>.  Because
+ * <pre>
+ *   |p - q|^2 = |p|^2 + |q|^2 - 2 p.q
+ * </pre>
+ * and <code>|q|^2</code> is precomputed per language, the distance of an
+ * input against all languages is computed in one pass over the input's
+ * distinct trigrams, which yields the same result as
+ * {@link LanguageProfile#distance(LanguageProfile)}.
+ */
+class CompiledLanguageProfiles {
+
+    private final String[] languages;
+
+    private final LanguageProfile[] profiles;
+
+    /**
+     * {@link LanguageProfile#getCount()} of each profile at compile time,
+     * used to detect profiles that were modified after being registered.
+     */
+    private final long[] compiledCounts;
+
+    private final long[] idKeys;
+
+    private final int[] ids;
+
+    private final float[] frequencies;
+
+    private final double[] sumOfSquares;
+
+    private CompiledLanguageProfiles(Map<String, LanguageProfile> profileMap) {
+        int numLanguages = profileMap.size();
+        languages = new String[numLanguages];
+        profiles = new LanguageProfile[numLanguages];
+        compiledCounts = new long[numLanguages];
+
+        int lang = 0;
+        int maxNgrams = 0;
+        for (Map.Entry<String, LanguageProfile> e : profileMap.entrySet()) {
+            languages[lang] = e.getKey();
+            profiles[lang] = e.getValue();
+            compiledCounts[lang] = e.getValue().getCount();
+            maxNgrams += e.getValue().getNgramCount();
+            lang++;
+        }
+
+        int capacity = Integer.highestOneBit(Math.max(maxNgrams, 1) * 2 - 1) << 1;
+        idKeys = new long[capacity];
+        ids = new int[capacity];
+        int[] nextId = new int[1];
+        for (LanguageProfile profile : profiles) {
+            profile.forEachNgram((ngram, count) -> {
+                long key = NGramCounter.pack(ngram);
+                int slot = slot(key);
+                if (idKeys[slot] == 0 && key != 0) {
+                    idKeys[slot] = key;
+                    ids[slot] = nextId[0]++;
+                }
+            });
+        }
+
+        frequencies = new float[nextId[0] * numLanguages];
+        sumOfSquares = new double[numLanguages];
+        for (lang = 0; lang < numLanguages; lang++) {
+            final int l = lang;
+            final double total = Math.max(profiles[lang].getCount(), 1.0);
+            profiles[lang].forEachNgram((ngram, count) -> {
+                int id = lookup(NGramCounter.pack(ngram));
+                if (id >= 0) {
+                    float frequency = (float) (count / total);
+                    frequencies[id * numLanguages + l] = frequency;
+                    sumOfSquares[l] += (double) frequency * frequency;
+                }
+            });
+        }
+    }
+
+    /**
+     * Compiles the given profiles, or returns <code>null</code> if any of
+     * them is not a trigram profile and the packed form does not apply.
+     *
+     * @param profileMap language profiles keyed by ISO 639 code
+     * @return the compiled profiles or <code>null</code>
+     */
+    static CompiledLanguageProfiles compile(Map<String, LanguageProfile> profileMap) {
+        for (LanguageProfile profile : profileMap.values()) {
+            if (profile.getLength() != NGramCounter.LENGTH) {
+                return null;
+            }
+        }
+        return new CompiledLanguageProfiles(profileMap);
+    }
+
+    /**
+     * @return <code>true</code> if one of the source profiles has been
+     * modified since it was compiled
+     */
+    boolean isStale() {
+        for (int i = 0; i < profiles.length; i++) {
+            if (profiles[i].getCount() != compiledCounts[i]) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Finds the language with the smallest distance to the given input.
+     *
+     * @param input    trigram counts of the content
+     * @param language receives the best language at index 0, left as is
+     *                 if no language is closer than <code>maxDistance</code>
+     * @param maxDistance upper bound for the distance
+     * @return distance of the best match, or <code>maxDistance</code>
+     */
+    double identify(NGramCounter input, String[] language, double maxDistance) {
+        int numLanguages = languages.length;
+        double[] dot = new double[numLanguages];
+        double inputSumOfSquares = 0.0;
+        //the pending n-gram is counted here rather than added to the input
+        long pending = input.pendingKey();
+        double inputCount = Math.max(input.getTotal() + (pending == 0 ? 0 : 1), 1.0);
+
+        long[] keys = input.keys();
+        long[] counts = input.counts();
+        for (int slot = 0; slot < keys.length; slot++) {
+            if (keys[slot] == 0) {
+                continue;
+            }
+            long count = counts[slot];
+            if (keys[slot] == pending) {
+                count++;
+                pending = 0;
+            }
+            inputSumOfSquares += score(keys[slot], count / inputCount, dot);
+        }
+        if (pending != 0) {
+            inputSumOfSquares += score(pending, 1 / inputCount, dot);
+        }
+
+        double minDistance = maxDistance;
+        for (int l = 0; l < numLanguages; l++) {
+            double squared = inputSumOfSquares + sumOfSquares[l] - 2 * dot[l];
+            double distance = Math.sqrt(Math.max(squared, 0.0));
+            if (distance < minDistance) {
+                minDistance = distance;
+                language[0] = languages[l];
+            }
+        }
+        return minDistance;
+    }
+
+    /**
+     * Adds the contribution of one input n-gram to the dot products.
+     *
+     * @return the square of the n-gram's relative frequency
+     */
+    private double score(long key, double p, double[] dot) {
+        int id = lookup(key);
+        if (id >= 0) {
+            int numLanguages = languages.length;
+            int row = id * numLanguages;
+            for (int l = 0; l < numLanguages; l++) {
+                dot[l] += p * frequencies[row + l];
+            }
+        }
+        return p * p;
+    }
+
+    private int slot(long key) {
+        int mask = idKeys.length - 1;
+        int slot = NGramCounter.hash(key) & mask;
+        while (idKeys[slot] != 0 && idKeys[slot] != key) {
+            slot = (slot + 1) & mask;
+        }
+        return slot;
+    }
+
+    private int lookup(long key) {
+        int slot = slot(key);
+        return idKeys[slot] == 0 ? -1 : ids[slot];
+    }
+}
@@ -51,6 +51,11 @@ public class LanguageIdentifier {
     private static final String LANGUAGES_KEY = "languages";
     private static final double CERTAINTY_LIMIT = 0.022;
     private static Properties props = new Properties();
+    /**
+     * Packed form of {@link #PROFILES}, compiled lazily and dropped
+     * whenever the profiles change.
+     */
+    private static volatile CompiledLanguageProfiles compiledProfiles;
     private static String errors = "";
 
     /*
@@ -69,18 +74,36 @@ public class LanguageIdentifier {
      * @param profile the language profile
      */
     public LanguageIdentifier(LanguageProfile profile) {
-        String minLanguage = "unknown";
-        double minDistance = 1.0;
-        for (Map.Entry<String, LanguageProfile> entry : PROFILES.entrySet()) {
-            double distance = profile.distance(entry.getValue());
-            if (distance < minDistance) {
-                minDistance = distance;
-                minLanguage = entry.getKey();
-            }
+        CompiledLanguageProfiles compiled = null;
+        if (profile.getLength() == NGramCounter.LENGTH) {
+            compiled = getCompiledProfiles();
+        }
+        String[] minLanguage = {"unknown"};
+        if (compiled != null) {
+            NGramCounter counter = new NGramCounter();
+            profile.forEachNgram((ngram, count) -> counter.add(NGramCounter.pack(ngram), count));
+            this.distance = compiled.identify(counter, minLanguage, 1.0);
+        } else {
+            this.distance = identify(profile, minLanguage);
         }
+        this.language = minLanguage[0];
+    }
 
-        this.language = minLanguage;
-        this.distance = minDistance;
+    /**
+     * Constructs a language identifier based on packed trigram counts,
+     * without materializing a {@link LanguageProfile}.
+     *
+     * @param counter trigram counts of the content
+     */
+    LanguageIdentifier(NGramCounter counter) {
+        CompiledLanguageProfiles compiled = getCompiledProfiles();
+        String[] minLanguage = {"unknown"};
+        if (compiled != null) {
+            this.distance = compiled.identify(counter, minLanguage, 1.0);
+        } else {
+            this.distance = identify(counter.toProfile(), minLanguage);
+        }
+        this.language = minLanguage[0];
     }
 
     /**
@@ -92,6 +115,22 @@ public class LanguageIdentifier {
         this(new LanguageProfile(content));
     }
 
+    /**
+     * Compares the profile against each registered profile, for when the
+     * profiles can't be compiled.
+     */
+    private static double identify(LanguageProfile profile, String[] minLanguage) {
+        double minDistance = 1.0;
+        for (Map.Entry<String, LanguageProfile> entry : PROFILES.entrySet()) {
+            double distance = profile.distance(entry.getValue());
+            if (distance < minDistance) {
+                minDistance = distance;
+                minLanguage[0] = entry.getKey();
+            }
+        }
+        return minDistance;
+    }
+
     /*
      * Add one language profile based on config in property file
      */
@@ -129,6 +168,7 @@ public class LanguageIdentifier {
      */
     public static void addProfile(String language, LanguageProfile profile) {
         PROFILES.put(language, profile);
+        compiledProfiles = null;
     }
 
     /**
@@ -172,6 +212,7 @@ public class LanguageIdentifier {
             }
         }
         errors = stringBuilder.toString();
+        getCompiledProfiles();
     }
 
     /**
@@ -186,6 +227,7 @@ public class LanguageIdentifier {
         for (Map.Entry<String, LanguageProfile> entry : profilesMap.entrySet()) {
             addProfile(entry.getKey(), entry.getValue());
         }
+        getCompiledProfiles();
     }
 
     /**
@@ -193,6 +235,30 @@ public class LanguageIdentifier {
      */
     public static void clearProfiles() {
         PROFILES.clear();
+        compiledProfiles = null;
+    }
+
+    /**
+     * Returns the compiled form of the current profiles, recompiling them
+     * if they were changed since the last call.
+     *
+     * @return compiled profiles, or <code>null</code> if the profiles cannot be compiled
+     */
+    private static CompiledLanguageProfiles getCompiledProfiles() {
+        CompiledLanguageProfiles compiled = compiledProfiles;
+        if (compiled == null || compiled.isStale()) {
+            compiled = recompile();
+        }
+        return compiled;
+    }
+
+    private static synchronized CompiledLanguageProfiles recompile() {
+        CompiledLanguageProfiles compiled = compiledProfiles;
+        if (compiled == null || compiled.isStale()) {
+            compiled = CompiledLanguageProfiles.compile(PROFILES);
+            compiledProfiles = compiled;
+        }
+        return compiled;
     }
 
     /**
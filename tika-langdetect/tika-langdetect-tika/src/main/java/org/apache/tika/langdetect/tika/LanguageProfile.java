@@ -25,6 +25,7 @@ import java.util.HashSet;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
+import java.util.function.ObjLongConsumer;
 
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -82,6 +83,25 @@ public class LanguageProfile {
         return count;
     }
 
+    int getLength() {
+        return length;
+    }
+
+    int getNgramCount() {
+        return ngrams.size();
+    }
+
+    /**
+     * Passes every ngram of this profile with its count to the given consumer.
+     *
+     * @param consumer receives ngram and count
+     */
+    void forEachNgram(ObjLongConsumer<String> consumer) {
+        for (Map.Entry<String, Counter> entry : ngrams.entrySet()) {
+            consumer.accept(entry.getKey(), entry.getValue().count);
+        }
+    }
+
     public long getCount(String ngram) {
         Counter counter = ngrams.get(ngram);
         if (counter != null) {
@@ -0,0 +1,212 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.tika.langdetect.tika;
+
+import java.util.Arrays;
+
+/**
+ * Allocation-free trigram counter used on the detection hot path.
+ * <p>
+ * Trigrams are tokenized exactly like {@link ProfilingWriter} does, but
+ * instead of building a <code>String</code> per n-gram, the three chars are
+ * packed into the low 48 bits of a <code>long</code> and counted in an
+ * open-addressing table.  The packed key <code>0</code> is used as the
+ * empty-slot marker; it can never be produced because neither
+ * <code>'\0'</code> nor any other non-letter except <code>'_'</code> ends up
+ * in an n-gram.
+ */
+class NGramCounter {
+
+    static final int LENGTH = LanguageProfile.DEFAULT_NGRAM_LENGTH;
+
+    private static final long KEY_MASK = (1L << (16 * LENGTH)) - 1;
+
+    private static final int INITIAL_CAPACITY = 1024;
+
+    private long[] keys = new long[INITIAL_CAPACITY];
+
+    private long[] counts = new long[INITIAL_CAPACITY];
+
+    private int size = 0;
+
+    private long total = 0;
+
+    /**
+     * Rolling window over the last {@link #LENGTH} chars, mirrors the
+     * <code>buffer</code>/<code>n</code> pair in {@link ProfilingWriter}.
+     */
+    private long window = '_';
+
+    private int n = 1;
+
+    /**
+     * Packs an n-gram of {@link #LENGTH} chars into a key.
+     *
+     * @param ngram the n-gram
+     * @return the packed key
+     */
+    static long pack(CharSequence ngram) {
+        long key = 0;
+        for (int i = 0; i < ngram.length(); i++) {
+            key = (key << 16) | ngram.charAt(i);
+        }
+        return key;
+    }
+
+    /**
+     * Unpacks a key produced by {@link #pack(CharSequence)}.
+     *
+     * @param key the packed key
+     * @return the n-gram
+     */
+    static String unpack(long key) {
+        char[] ngram = new char[LENGTH];
+        for (int i = LENGTH - 1; i >= 0; i--) {
+            ngram[i] = (char) (key & 0xFFFF);
+            key >>>= 16;
+        }
+        return new String(ngram);
+    }
+
+    static int hash(long key) {
+        key *= 0x9E3779B97F4A7C15L;
+        return (int) (key ^ (key >>> 32));
+    }
+
+    void addText(char[] cbuf, int off, int len) {
+        for (int i = 0; i < len; i++) {
+            char c = Character.toLowerCase(cbuf[off + i]);
+            if (Character.isLetter(c)) {
+                addLetter(c);
+            } else {
+                addSeparator();
+            }
+        }
+    }
+
+    /**
+     * Returns the n-gram that flushing the pending word boundary would add,
+     * like {@link ProfilingWriter#close()} does, without adding it.  Scoring
+     * counts it on the fly, so that the counts stay untouched and more text
+     * can be added after a detection.
+     *
+     * @return the packed key, or <code>0</code> if nothing is pending
+     */
+    long pendingKey() {
+        return n + 1 >= LENGTH ? ((window << 16) | '_') & KEY_MASK : 0;
+    }
+
+    /**
+     * Copies the counts, including the pending n-gram, into a profile.
+     *
+     * @return the profile
+     */
+    LanguageProfile toProfile() {
+        LanguageProfile profile = new LanguageProfile(LENGTH);
+        for (int i = 0; i < keys.length; i++) {
+            if (keys[i] != 0) {
+                profile.add(unpack(keys[i]), counts[i]);
+            }
+        }
+        long pending = pendingKey();
+        if (pending != 0) {
+            profile.add(unpack(pending), 1);
+        }
+        return profile;
+    }
+
+    private void addLetter(char c) {
+        window = ((window << 16) | c) & KEY_MASK;
+        n++;
+        if (n >= LENGTH) {
+            add(window, 1);
+        }
+    }
+
+    private void addSeparator() {
+        addLetter('_');
+        n = 1;
+    }
+
+    void add(long key, long count) {
+        if (key == 0) {
+            return;
+        }
+        int mask = keys.length - 1;
+        int slot = hash(key) & mask;
+        while (keys[slot] != 0) {
+            if (keys[slot] == key) {
+                counts[slot] += count;
+                total += count;
+                return;
+            }
+            slot = (slot + 1) & mask;
+        }
+        keys[slot] = key;
+        counts[slot] = count;
+        total += count;
+        if (++size * 2 > keys.length) {
+            rehash();
+        }
+    }
+
+    private void rehash() {
+        long[] oldKeys = keys;
+        long[] oldCounts = counts;
+        keys = new long[oldKeys.length * 2];
+        counts = new long[oldKeys.length * 2];
+        int mask = keys.length - 1;
+        for (int i = 0; i < oldKeys.length; i++) {
+            if (oldKeys[i] != 0) {
+                int slot = hash(oldKeys[i]) & mask;
+                while (keys[slot] != 0) {
+                    slot = (slot + 1) & mask;
+                }
+                keys[slot] = oldKeys[i];
+                counts[slot] = oldCounts[i];
+            }
+        }
+    }
+
+    void reset() {
+        Arrays.fill(keys, 0);
+        size = 0;
+        total = 0;
+        window = '_';
+        n = 1;
+    }
+
+    long getTotal() {
+        return total;
+    }
+
+    int size() {
+        return size;
+    }
+
+    /**
+     * Raw slot access for single-pass scoring; slots whose key is
+     * <code>0</code> are empty.
+     */
+    long[] keys() {
+        return keys;
+    }
+
+    long[] counts() {
+        return counts;
+    }
+}
@@ -40,7 +40,7 @@ import org.apache.tika.language.detect.LanguageResult;
  */
 public class TikaLanguageDetector extends LanguageDetector {
 
-    StringBuilder sb = new StringBuilder();
+    private final NGramCounter ngrams = new NGramCounter();
 
     @Override
     public LanguageDetector loadModels() throws IOException {
@@ -71,17 +71,17 @@ public class TikaLanguageDetector extends LanguageDetector {
 
     @Override
     public void reset() {
-        sb.setLength(0);
+        ngrams.reset();
     }
 
     @Override
     public void addText(char[] cbuf, int off, int len) {
-        sb.append(cbuf, off, len);
+        ngrams.addText(cbuf, off, len);
     }
 
     @Override
     public List<LanguageResult> detectAll() {
-        LanguageIdentifier langIder = new LanguageIdentifier(sb.toString());
+        LanguageIdentifier langIder = new LanguageIdentifier(ngrams);
         String lang = langIder.getLanguage();
         if (langIder.isReasonablyCertain()) {
             return Collections.singletonList(
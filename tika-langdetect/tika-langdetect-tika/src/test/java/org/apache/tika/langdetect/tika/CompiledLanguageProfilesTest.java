@@ -0,0 +1,105 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.tika.langdetect.tika;
+
+import static java.nio.charset.StandardCharsets.UTF_8;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.HashMap;
+import java.util.Map;
+
+import org.apache.commons.io.IOUtils;
+import org.junit.jupiter.api.Test;
+
+public class CompiledLanguageProfilesTest {
+
+    private static final String[] LANGUAGES = {"da", "de", "en", "es", "fi", "fr", "nl"};
+
+    @Test
+    public void testSameDistanceAsProfiles() throws IOException {
+        Map<String, LanguageProfile> profiles = new HashMap<>();
+        for (String language : LANGUAGES) {
+            profiles.put(language, new LanguageProfile(read(language)));
+        }
+        CompiledLanguageProfiles compiled = CompiledLanguageProfiles.compile(profiles);
+
+        for (String language : LANGUAGES) {
+            String text = read(language).substring(0, 2000);
+            LanguageProfile input = new LanguageProfile(text);
+
+            String expectedLanguage = null;
+            double expectedDistance = 1.0;
+            for (Map.Entry<String, LanguageProfile> e : profiles.entrySet()) {
+                double distance = input.distance(e.getValue());
+                if (distance < expectedDistance) {
+                    expectedDistance = distance;
+                    expectedLanguage = e.getKey();
+                }
+            }
+
+            NGramCounter counter = new NGramCounter();
+            char[] chars = text.toCharArray();
+            counter.addText(chars, 0, chars.length);
+            assertEquals(input.getCount(), counter.toProfile().getCount());
+
+            String[] actualLanguage = new String[1];
+            double actualDistance = compiled.identify(counter, actualLanguage, 1.0);
+            assertEquals(expectedLanguage, actualLanguage[0]);
+            assertEquals(expectedDistance, actualDistance, 1e-6);
+        }
+    }
+
+    @Test
+    public void testDetectionDoesNotChangeCounts() throws IOException {
+        char[] chars = read("de").substring(0, 2000).toCharArray();
+        NGramCounter once = new NGramCounter();
+        once.addText(chars, 0, chars.length);
+
+        NGramCounter repeated = new NGramCounter();
+        for (int i = 0; i < chars.length; i += 100) {
+            repeated.addText(chars, i, Math.min(100, chars.length - i));
+            new LanguageIdentifier(repeated);
+        }
+        assertEquals(once.getTotal(), repeated.getTotal());
+        assertEquals(new LanguageIdentifier(once).toString(),
+                new LanguageIdentifier(repeated).toString());
+        assertEquals("de", new LanguageIdentifier(repeated).getLanguage());
+    }
+
+    @Test
+    public void testRecompileOnChange() {
+        LanguageProfile foo = new LanguageProfile();
+        foo.add("foo");
+        Map<String, LanguageProfile> profiles = new HashMap<>();
+        profiles.put("foo", foo);
+        CompiledLanguageProfiles compiled = CompiledLanguageProfiles.compile(profiles);
+        assertFalse(compiled.isStale());
+        foo.add("bar");
+        assertTrue(compiled.isStale());
+    }
+
+    private static String read(String language) throws IOException {
+        try (InputStream stream = CompiledLanguageProfilesTest.class
+                .getResourceAsStream(language + ".test")) {
+            return IOUtils.toString(stream, UTF_8);
+        }
+    }
+}
@@ -19,11 +19,13 @@ package org.apache.tika.langdetect.tika;
 import static java.nio.charset.StandardCharsets.UTF_8;
 import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
 import static org.junit.jupiter.api.Assertions.assertTrue;
 
 import java.io.IOException;
 import java.io.InputStream;
 import java.io.InputStreamReader;
+import java.io.StringWriter;
 import java.io.Writer;
 import java.util.HashMap;
 import java.util.Locale;
@@ -105,6 +107,26 @@ public class LanguageIdentifierTest {
         assertTrue(identifier.isReasonablyCertain());
     }
 
+    @Test
+    public void testProfilesThatCannotBeCompiled() throws IOException {
+        // a bigram profile keeps the profiles from being compiled
+        LanguageProfile bigrams = new LanguageProfile(2);
+        bigrams.add("ab");
+        HashMap<String, LanguageProfile> profilesMap = new HashMap<>();
+        profilesMap.put("xx", bigrams);
+        LanguageIdentifier.initProfiles(profilesMap);
+
+        StringWriter text = new StringWriter();
+        writeTo("en", text);
+        char[] chars = text.toString().toCharArray();
+        NGramCounter counter = new NGramCounter();
+        counter.addText(chars, 0, chars.length);
+        // same as comparing the profiles, rather than silently reporting "unknown"
+        assertThrows(IllegalArgumentException.class,
+                () -> new LanguageIdentifier(text.toString()));
+        assertThrows(IllegalArgumentException.class, () -> new LanguageIdentifier(counter));
+    }
+
     // Enable this to compare performance
     public void testPerformance() throws IOException {
         final int MRUNS = 8;
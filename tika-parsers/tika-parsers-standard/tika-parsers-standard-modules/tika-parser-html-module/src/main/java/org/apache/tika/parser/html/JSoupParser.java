@@ -16,24 +16,33 @@
  */
 package org.apache.tika.parser.html;
 
+import java.io.BufferedReader;
 import java.io.IOException;
 import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.UncheckedIOException;
 import java.nio.charset.Charset;
 import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collections;
 import java.util.HashSet;
 import java.util.Iterator;
+import java.util.List;
 import java.util.Set;
 import javax.xml.XMLConstants;
 
+import org.apache.commons.io.ByteOrderMark;
+import org.apache.commons.io.input.BOMInputStream;
 import org.apache.commons.io.input.CloseShieldInputStream;
 import org.jsoup.Jsoup;
 import org.jsoup.nodes.Attribute;
 import org.jsoup.nodes.DataNode;
 import org.jsoup.nodes.Document;
+import org.jsoup.nodes.Element;
 import org.jsoup.nodes.Node;
 import org.jsoup.nodes.TextNode;
+import org.jsoup.parser.StreamParser;
 import org.jsoup.select.NodeFilter;
 import org.jsoup.select.NodeTraversor;
 import org.xml.sax.ContentHandler;
@@ -73,6 +82,9 @@ public class JSoupParser extends AbstractEncodingDetectorParser {
     @Field
     private boolean extractScripts = false;
 
+    @Field
+    private boolean streaming = false;
+
     public JSoupParser() {
         super();
     }
@@ -100,6 +112,31 @@ public class JSoupParser extends AbstractEncodingDetectorParser {
         this.extractScripts = extractScripts;
     }
 
+    public boolean isStreaming() {
+        return streaming;
+    }
+
+    /**
+     * Whether to write out the document while it is being parsed, instead
+     * of building the whole DOM first.  Elements are written out and dropped
+     * from the tree as soon as they are complete, so memory use no longer
+     * grows with the size of the page, and the first SAX events are sent
+     * much sooner for large pages.
+     * <p>
+     * The output is the same as that of the DOM based parse, except in rare
+     * cases where the HTML tree builder moves content into a part of the
+     * document that has already been written out, e.g. text directly inside
+     * a <code>&lt;table&gt;</code>.  Such content is written out late instead.
+     * Default is <code>false</code>
+     *
+     * @param streaming whether to write out elements as they are parsed
+     * @since 4.0.0
+     */
+    @Field
+    public void setStreaming(boolean streaming) {
+        this.streaming = streaming;
+    }
+
 
     public void parse(InputStream stream, ContentHandler handler, Metadata metadata,
                       ParseContext context) throws IOException, SAXException, TikaException {
@@ -127,6 +164,12 @@ public class JSoupParser extends AbstractEncodingDetectorParser {
         // Get the HTML mapper from the parse context
         HtmlMapper mapper = context.get(HtmlMapper.class, new DefaultHtmlMapper());
 
+        if (streaming) {
+            parseStreaming(stream, charset, new XHTMLDowngradeHandler(
+                    new HtmlHandler(mapper, handler, metadata, context, extractScripts)));
+            return;
+        }
+
         //do better with baseUri?
         Document document = Jsoup.parse(CloseShieldInputStream.wrap(stream), charset.name(), "");
         document.quirksMode(Document.QuirksMode.quirks);
@@ -142,6 +185,39 @@ public class JSoupParser extends AbstractEncodingDetectorParser {
         }
     }
 
+    private void parseStreaming(InputStream stream, Charset charset, ContentHandler xhtml)
+            throws IOException, SAXException {
+        //as with Jsoup.parse(), a byte order mark overrides the detected charset
+        BOMInputStream bomStream = BOMInputStream.builder()
+                .setInputStream(CloseShieldInputStream.wrap(stream))
+                .setByteOrderMarks(ByteOrderMark.UTF_8, ByteOrderMark.UTF_16LE,
+                        ByteOrderMark.UTF_16BE, ByteOrderMark.UTF_32LE, ByteOrderMark.UTF_32BE)
+                .get();
+        String bomCharset = bomStream.getBOMCharsetName();
+        if (bomCharset != null) {
+            charset = Charset.forName(bomCharset);
+        }
+
+        xhtml.startDocument();
+        try (StreamParser streamParser = new StreamParser(org.jsoup.parser.Parser.htmlParser())) {
+            //do better with baseUri?
+            streamParser.parse(new BufferedReader(new InputStreamReader(bomStream, charset)), "");
+            StreamingEmitter emitter = new StreamingEmitter(new TikaNodeFilter(xhtml));
+            Iterator<Element> elements = streamParser.iterator();
+            while (elements.hasNext()) {
+                emitter.complete(elements.next());
+            }
+            //write out whatever is left, if the document itself wasn't handed back
+            emitter.complete(streamParser.document());
+        } catch (UncheckedIOException e) {
+            throw e.getCause();
+        } catch (RuntimeSAXException e) {
+            throw e.getWrapped();
+        } finally {
+            xhtml.endDocument();
+        }
+    }
+
     public void parseString(String html, ContentHandler handler, Metadata metadata, ParseContext context) throws SAXException {
         // Get the HTML mapper from the parse context
         HtmlMapper mapper = context.get(HtmlMapper.class, new DefaultHtmlMapper());
@@ -230,6 +306,93 @@ public class JSoupParser extends AbstractEncodingDetectorParser {
         }
     }
 
+    /**
+     * Writes out the elements handed back by jsoup's {@link StreamParser} as
+     * they are completed, and then removes them from the tree, so that only
+     * the open elements and their pending children are kept in memory.
+     * <p>
+     * An element's start tag is written when the first element inside it is
+     * completed, and its end tag when it is completed itself.
+     */
+    private static class StreamingEmitter {
+
+        private final TikaNodeFilter filter;
+
+        //elements whose start tag has been written, outermost first
+        private final List<Node> open = new ArrayList<>();
+
+        private boolean finished = false;
+
+        private StreamingEmitter(TikaNodeFilter filter) {
+            this.filter = filter;
+        }
+
+        void complete(Element element) {
+            if (finished) {
+                return;
+            }
+            if (element.parentNode() == null && !(element instanceof Document)) {
+                //already written out with an enclosing element
+                return;
+            }
+            List<Node> path = new ArrayList<>();
+            for (Node node = element; node != null; node = node.parentNode()) {
+                path.add(node);
+            }
+            Collections.reverse(path);
+
+            int common = 0;
+            while (common < open.size() && common < path.size() &&
+                    open.get(common) == path.get(common)) {
+                common++;
+            }
+            //end elements the tree builder has moved this element out of
+            while (open.size() > common) {
+                Node node = open.remove(open.size() - 1);
+                filter.tail(node, open.size());
+            }
+
+            int depth = path.size() - 1;
+            for (int i = 0; i < depth; i++) {
+                Node parent = path.get(i);
+                if (i >= common) {
+                    filter.head(parent, i);
+                    open.add(parent);
+                }
+                writeChildrenBefore(parent, path.get(i + 1));
+            }
+            if (common == path.size()) {
+                //something inside it was completed earlier
+                writeChildrenBefore(element, null);
+                open.remove(depth);
+                filter.tail(element, depth);
+            } else {
+                NodeTraversor.filter(filter, element);
+            }
+
+            if (element.parentNode() == null) {
+                finished = true;
+            } else {
+                element.remove();
+            }
+        }
+
+        /**
+         * Writes out and removes the children of the parent up to, but not
+         * including, the given child, or all of them if it is <code>null</code>
+         */
+        private void writeChildrenBefore(Node parent, Node stop) {
+            while (parent.childNodeSize() > 0) {
+                Node child = parent.childNode(0);
+                if (child == stop) {
+                    return;
+                }
+                NodeTraversor.filter(filter, child);
+                child.remove();
+            }
+        }
+    }
+
     private static class RuntimeSAXException extends RuntimeException {
         private SAXException wrapped;
 
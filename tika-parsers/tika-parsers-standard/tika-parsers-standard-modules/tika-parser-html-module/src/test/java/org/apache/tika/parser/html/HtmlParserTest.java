@@ -1256,6 +1256,72 @@ public class HtmlParserTest extends TikaTest {
         }
     }
 
+    @Test
+    public void testStreaming() throws Exception {
+        for (boolean extractScripts : new boolean[]{false, true}) {
+            JSoupParser dom = new JSoupParser();
+            dom.setExtractScripts(extractScripts);
+            JSoupParser streaming = new JSoupParser();
+            streaming.setExtractScripts(extractScripts);
+            streaming.setStreaming(true);
+            for (String file : new String[]{"testHTML.html", "testHTML_utf8.html",
+                    "testHTML_charset_utf16le.html", "testHTML_head.html",
+                    "testHTML_metadata.html", "testHTML_script_in_body.html",
+                    "testHTMLGoodScript.html", "testHTMLBadScript.html",
+                    "testHTML_embedded_img.html", "testXHTML.html", "boilerplate.html",
+                    "big-preamble.html", "tika434.html"}) {
+                Metadata domMetadata = new Metadata();
+                String expected = getXML(file, dom, domMetadata).xml;
+                Metadata streamingMetadata = new Metadata();
+                assertEquals(expected, getXML(file, streaming, streamingMetadata).xml, file);
+                assertEquals(domMetadata, streamingMetadata, file);
+            }
+        }
+    }
+
+    @Test
+    public void testStreamingMalformed() throws Exception {
+        JSoupParser dom = new JSoupParser();
+        JSoupParser streaming = new JSoupParser();
+        streaming.setStreaming(true);
+        for (String html : new String[]{"",
+                "no markup at all",
+                "<p>unclosed <b>bold <i>italic</p> after",
+                "<ul><li>one<li>two<ul><li>nested</ul><li>three</ul>",
+                "<b>misnested <p>paragraph</b> text</p>",
+                "<table><tr><td>a<td>b<tr><td>c</table><p>after",
+                "<html><head><title>t</title><body><!-- comment --><div>x</div></body>" +
+                        "</html><p>after html</p>",
+                "<div><script>var a = '<p>';</script><style>p {}</style>text</div>",
+                "<select><option>a<option>b</select><textarea><b>raw</b></textarea>"}) {
+            byte[] bytes = html.getBytes(UTF_8);
+            String expected = getXML(new ByteArrayInputStream(bytes), dom, new Metadata()).xml;
+            assertEquals(expected,
+                    getXML(new ByteArrayInputStream(bytes), streaming, new Metadata()).xml, html);
+        }
+    }
+
+    @Test
+    public void testStreamingLargeDocument() throws Exception {
+        StringBuilder html = new StringBuilder("<html><head><title>big</title></head><body>");
+        for (int i = 0; i < 5000; i++) {
+            html.append("<div class=\"row\"><h2>heading ").append(i).append("</h2>")
+                    .append("<p>some <b>bold</b> and <a href=\"http://example.com/").append(i)
+                    .append("\">linked</a> text<br>next line</p>")
+                    .append("<ul><li>one<li>two</ul><table><tr><td>").append(i)
+                    .append("<td>cell</table></div>\n");
+        }
+        html.append("</body></html>");
+        byte[] bytes = html.toString().getBytes(UTF_8);
+        JSoupParser streaming = new JSoupParser();
+        streaming.setStreaming(true);
+        String expected =
+                getXML(new ByteArrayInputStream(bytes), new JSoupParser(), new Metadata()).xml;
+        assertContains("heading 4999", expected);
+        assertEquals(expected,
+                getXML(new ByteArrayInputStream(bytes), streaming, new Metadata()).xml);
+    }
+
     private class EncodingDetectorRunner implements Callable<String> {
 
         final static String DONE = "done";
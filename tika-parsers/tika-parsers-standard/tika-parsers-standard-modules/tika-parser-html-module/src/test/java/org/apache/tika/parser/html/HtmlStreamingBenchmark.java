@@ -0,0 +1,98 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.tika.parser.html;
+
+import static java.nio.charset.StandardCharsets.UTF_8;
+
+import java.io.ByteArrayInputStream;
+import java.lang.management.ManagementFactory;
+import java.lang.management.MemoryPoolMXBean;
+import java.lang.management.MemoryType;
+import java.util.Locale;
+
+import org.xml.sax.helpers.DefaultHandler;
+
+import org.apache.tika.metadata.Metadata;
+import org.apache.tika.parser.ParseContext;
+
+/**
+ * Compares the DOM based and the streaming mode of {@link JSoupParser} on a
+ * large generated page: the time until the first text is handed to the
+ * content handler, the total time, and the peak heap usage.  Run it with a
+ * fixed heap, e.g. <code>-Xmx1g</code>, so the peaks are comparable.
+ */
+public class HtmlStreamingBenchmark {
+
+    private static final int ROWS = 200_000;
+
+    private static final int ITERATIONS = 5;
+
+    public static void main(String[] args) throws Exception {
+        byte[] html = createPage(ROWS);
+        System.out.printf(Locale.ROOT, "page size: %d bytes%n", html.length);
+        for (int i = 0; i < ITERATIONS; i++) {
+            benchmark("dom", false, html);
+            benchmark("streaming", true, html);
+        }
+    }
+
+    private static void benchmark(String name, boolean streaming, byte[] html) throws Exception {
+        JSoupParser parser = new JSoupParser();
+        parser.setStreaming(streaming);
+        System.gc();
+        for (MemoryPoolMXBean pool : ManagementFactory.getMemoryPoolMXBeans()) {
+            pool.resetPeakUsage();
+        }
+        FirstTextHandler handler = new FirstTextHandler();
+        long start = System.nanoTime();
+        parser.parse(new ByteArrayInputStream(html), handler, new Metadata(), new ParseContext());
+        long nanos = System.nanoTime() - start;
+        long peak = 0;
+        for (MemoryPoolMXBean pool : ManagementFactory.getMemoryPoolMXBeans()) {
+            if (pool.getType() == MemoryType.HEAP) {
+                peak += pool.getPeakUsage().getUsed();
+            }
+        }
+        System.out.printf(Locale.ROOT,
+                "%-10s first text after %6dms, done after %6dms, peak heap %5dMB%n", name,
+                (handler.firstText - start) / 1_000_000, nanos / 1_000_000, peak >> 20);
+    }
+
+    private static byte[] createPage(int rows) {
+        StringBuilder html = new StringBuilder("<html><head><title>benchmark</title></head><body>");
+        for (int i = 0; i < rows; i++) {
+            html.append("<div class=\"row\"><h2>heading ").append(i).append("</h2>")
+                    .append("<p>Lorem ipsum <b>dolor</b> sit amet, <a href=\"http://example.com/")
+                    .append(i).append("\">consectetur</a> adipiscing elit.</p>")
+                    .append("<table><tr><td>").append(i).append("<td>cell</table></div>\n");
+        }
+        html.append("</body></html>");
+        return html.toString().getBytes(UTF_8);
+    }
+
+    private static class FirstTextHandler extends DefaultHandler {
+
+        private long firstText = -1;
+
+        @Override
+        public void characters(char[] ch, int start, int length) {
+            if (firstText < 0) {
+                firstText = System.nanoTime();
+            }
+        }
+    }
+}
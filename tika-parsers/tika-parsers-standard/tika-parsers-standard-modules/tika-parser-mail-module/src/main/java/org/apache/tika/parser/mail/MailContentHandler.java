@@ -26,8 +26,6 @@ import java.util.Map.Entry;
 import java.util.Stack;
 
 import org.apache.commons.io.IOUtils;
-import org.apache.commons.io.input.UnsynchronizedByteArrayInputStream;
-import org.apache.commons.io.output.UnsynchronizedByteArrayOutputStream;
 import org.apache.james.mime4j.MimeException;
 import org.apache.james.mime4j.codec.DecodeMonitor;
 import org.apache.james.mime4j.codec.DecoderUtil;
@@ -78,6 +76,10 @@ class MailContentHandler implements ContentHandler {
     //TODO -- specific handling for other multipart subtypes?  mixed, parallel, digest
     private static final String MULTIPART_ALTERNATIVE = "multipart/alternative";
 
+    //decoded body parts that have to be buffered are kept in memory up to
+    //this size, and in a temporary file beyond it
+    private static final int MAX_IN_MEMORY_PART = 1024 * 1024;
+
     private final XHTMLContentHandler handler;
     private final Metadata metadata;
     private final ParseContext parseContext;
@@ -127,27 +129,27 @@ class MailContentHandler implements ContentHandler {
         //if we're in a multipart/alternative or any one of its children
         //add the bodypart to the latest that was added
         if (!extractAllAlternatives && alternativePartBuffer.size() > 0) {
-            UnsynchronizedByteArrayOutputStream bos = UnsynchronizedByteArrayOutputStream.builder().get();
-            IOUtils.copy(is, bos);
-            alternativePartBuffer.peek().children.add(new BodyContents(submd, bos.toByteArray()));
-        } else if (!extractAllAlternatives && parts.size() < 2) {
+            alternativePartBuffer.peek().children.add(
+                    new BodyContents(submd, new SpooledBody(is, MAX_IN_MEMORY_PART)));
+        } else if (!extractAllAlternatives && parts.size() < 2 && mayBeInline(submd)) {
             //if you're at the first level of embedding
             //and you're not in an alternative part block
             //and you're text/html, put that in the body of the email
             //otherwise treat as a regular attachment
-            UnsynchronizedByteArrayOutputStream bos = UnsynchronizedByteArrayOutputStream.builder().get();
-            IOUtils.copy(is, bos);
-            final byte[] bytes = bos.toByteArray();
-            if (detectInlineTextOrHtml(submd, bytes)) {
-                handleInlineBodyPart(new BodyContents(submd, bytes));
-            } else {
-                //else handle as you would any other embedded content
-                try (TikaInputStream tis = TikaInputStream.get(bytes)) {
-                    handleEmbedded(tis, submd);
+            try (SpooledBody spooled = new SpooledBody(is, MAX_IN_MEMORY_PART)) {
+                if (detectInlineTextOrHtml(submd, spooled)) {
+                    handleInlineBodyPart(new BodyContents(submd, spooled));
+                } else {
+                    //else handle as you would any other embedded content
+                    try (TikaInputStream tis = spooled.getTikaInputStream()) {
+                        handleEmbedded(tis, submd);
+                    }
                 }
             }
         } else {
-            //else handle as you would any other embedded content
+            //else handle as you would any other embedded content.
+            //mime4j decodes the body as it is read, so a part that
+            //the extractor doesn't select is skipped without decoding
             try (TikaInputStream tis = TikaInputStream.get(is)) {
                 handleEmbedded(tis, submd);
             }
@@ -205,22 +207,26 @@ class MailContentHandler implements ContentHandler {
         }
     }
 
-    private boolean detectInlineTextOrHtml(Metadata submd, byte[] bytes) {
+    /**
+     * @return <code>false</code> if the metadata alone shows that the part
+     * is not text to be inlined, so that its body doesn't have to be read
+     */
+    private boolean mayBeInline(Metadata submd) {
         String attachmentType = submd.get(TikaCoreProperties.EMBEDDED_RESOURCE_TYPE);
         if (TikaCoreProperties.EmbeddedResourceType.ATTACHMENT.toString().equals(attachmentType)) {
             return false;
         }
+        String mediaTypeString = submd.get(Metadata.CONTENT_TYPE);
+        return mediaTypeString == null || mediaTypeString.startsWith("text");
+    }
 
+    private boolean detectInlineTextOrHtml(Metadata submd, SpooledBody body) {
         String mediaTypeString = submd.get(Metadata.CONTENT_TYPE);
         if (mediaTypeString != null) {
-            if (mediaTypeString.startsWith("text")) {
-                return true;
-            } else {
-                return false;
-            }
+            return mayBeInline(submd);
         }
 
-        try (TikaInputStream tis = TikaInputStream.get(bytes)) {
+        try (TikaInputStream tis = body.getTikaInputStream()) {
             MediaType mediaType = detector.detect(tis, submd);
             if (mediaType != null) {
                 //detect only once
@@ -291,6 +297,8 @@ class MailContentHandler implements ContentHandler {
                 handleBestParts(alternativeRoot);
             } catch (IOException e) {
                 throw new MimeException(e);
+            } finally {
+                closeQuietly(alternativeRoot);
             }
         } else if (alternativePartBuffer.size() > 1) {
             alternativePartBuffer.pop();
@@ -534,19 +542,19 @@ class MailContentHandler implements ContentHandler {
 
         if (parser == null) {
             //back off and treat it as an embedded chunk
-            try (TikaInputStream tis = TikaInputStream.get(part.bytes)) {
+            try (TikaInputStream tis = part.body.getTikaInputStream()) {
                 handleEmbedded(tis, part.metadata);
             }
         } else {
 
             //parse inline
-            try {
+            try (TikaInputStream tis = part.body.getTikaInputStream()) {
                 Metadata inlineMetadata = new Metadata();
                 if (inlineText) {
                     inlineMetadata.set(TikaCoreProperties.CONTENT_TYPE_PARSER_OVERRIDE,
                             MediaType.TEXT_PLAIN.toString());
                 }
-                parser.parse(UnsynchronizedByteArrayInputStream.builder().setByteArray(part.bytes).get(),
+                parser.parse(tis,
                         new EmbeddedContentHandler(new BodyContentHandler(handler)), inlineMetadata,
                         parseContext);
             } catch (SAXException | TikaException e) {
@@ -591,12 +599,32 @@ class MailContentHandler implements ContentHandler {
 
     private static class BodyContents extends Part {
         private final Metadata metadata;
-        private final byte[] bytes;
+        private final SpooledBody body;
 
-        private BodyContents(Metadata metadata, byte[] bytes) {
+        private BodyContents(Metadata metadata, SpooledBody body) {
             super(null);
             this.metadata = metadata;
-            this.bytes = bytes;
+            this.body = body;
+        }
+    }
+
+    /**
+     * Deletes the temporary files of the parts that are still buffered,
+     * e.g. if the parse stopped in the middle of a multipart/alternative.
+     */
+    void close() {
+        if (alternativePartBuffer.size() > 0) {
+            closeQuietly(alternativePartBuffer.get(0));
+            alternativePartBuffer.clear();
+        }
+    }
+
+    private static void closeQuietly(Part part) {
+        if (part instanceof BodyContents) {
+            IOUtils.closeQuietly(((BodyContents) part).body);
+        }
+        for (Part child : part.children) {
+            closeQuietly(child);
         }
     }
 }
@@ -110,6 +110,8 @@ public class RFC822Parser implements Parser {
             } else {
                 throw new TikaException("Failed to parse an email message", e);
             }
+        } finally {
+            mch.close();
         }
         xhtml.endDocument();
     }
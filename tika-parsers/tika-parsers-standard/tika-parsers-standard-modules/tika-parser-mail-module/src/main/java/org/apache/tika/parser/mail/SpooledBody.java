@@ -0,0 +1,72 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.tika.parser.mail;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Files;
+
+import org.apache.commons.io.IOUtils;
+import org.apache.commons.io.output.DeferredFileOutputStream;
+
+import org.apache.tika.io.TikaInputStream;
+
+/**
+ * Decoded body of a mime part, kept in memory up to a threshold and in a
+ * temporary file beyond that, so that large attachments don't end up on
+ * the heap.  The temporary file is deleted by {@link #close()}.
+ */
+class SpooledBody implements Closeable {
+
+    private final DeferredFileOutputStream out;
+
+    SpooledBody(InputStream is, int threshold) throws IOException {
+        out = DeferredFileOutputStream
+                .builder()
+                .setThreshold(threshold)
+                .setPrefix("tika-mail-")
+                .setSuffix(".tmp")
+                .get();
+        try {
+            IOUtils.copy(is, out);
+            out.close();
+        } catch (IOException e) {
+            out.close();
+            close();
+            throw e;
+        }
+    }
+
+    /**
+     * @return a new stream over the body, backed by the temporary file if
+     * the body didn't fit in memory
+     */
+    TikaInputStream getTikaInputStream() throws IOException {
+        if (out.isInMemory()) {
+            return TikaInputStream.get(out.getData());
+        }
+        return TikaInputStream.get(out.getPath());
+    }
+
+    @Override
+    public void close() throws IOException {
+        if (!out.isInMemory()) {
+            Files.deleteIfExists(out.getPath());
+        }
+    }
+}
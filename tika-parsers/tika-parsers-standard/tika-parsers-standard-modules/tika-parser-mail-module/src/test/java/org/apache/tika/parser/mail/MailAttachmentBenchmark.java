@@ -0,0 +1,115 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.tika.parser.mail;
+
+import static java.nio.charset.StandardCharsets.US_ASCII;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.lang.management.ManagementFactory;
+import java.lang.management.MemoryPoolMXBean;
+import java.lang.management.MemoryType;
+import java.lang.management.ThreadMXBean;
+import java.util.Base64;
+import java.util.Locale;
+import java.util.Random;
+
+import org.xml.sax.helpers.DefaultHandler;
+
+import org.apache.tika.extractor.DocumentSelector;
+import org.apache.tika.metadata.Metadata;
+import org.apache.tika.parser.AutoDetectParser;
+import org.apache.tika.parser.ParseContext;
+import org.apache.tika.parser.Parser;
+
+/**
+ * Parses a large generated message with big base64 attachments, once with
+ * all attachments selected and once with a {@link DocumentSelector} that
+ * rejects them, and reports the CPU time of the parsing thread and the
+ * peak heap usage.  Run it with a fixed heap, e.g. <code>-Xmx1g</code>,
+ * so the peaks are comparable.  For allocation figures, run it under a
+ * profiler, e.g. with <code>-XX:StartFlightRecording</code>.
+ */
+public class MailAttachmentBenchmark {
+
+    private static final int ATTACHMENTS = 8;
+
+    private static final int ATTACHMENT_SIZE = 16 * 1024 * 1024;
+
+    private static final int ITERATIONS = 5;
+
+    public static void main(String[] args) throws Exception {
+        byte[] message = createMessage(ATTACHMENTS, ATTACHMENT_SIZE);
+        System.out.printf(Locale.ROOT, "message size: %d bytes%n", message.length);
+        for (int i = 0; i < ITERATIONS; i++) {
+            benchmark("all", metadata -> true, message);
+            benchmark("rejected",
+                    metadata -> !"application/octet-stream".equals(
+                            metadata.get(Metadata.CONTENT_TYPE)), message);
+        }
+    }
+
+    private static void benchmark(String name, DocumentSelector selector, byte[] message)
+            throws Exception {
+        ParseContext context = new ParseContext();
+        context.set(Parser.class, new AutoDetectParser());
+        context.set(DocumentSelector.class, selector);
+        ThreadMXBean threads = ManagementFactory.getThreadMXBean();
+        System.gc();
+        for (MemoryPoolMXBean pool : ManagementFactory.getMemoryPoolMXBeans()) {
+            pool.resetPeakUsage();
+        }
+        long cpu = threads.getCurrentThreadCpuTime();
+        long start = System.nanoTime();
+        new RFC822Parser().parse(new ByteArrayInputStream(message), new DefaultHandler(),
+                new Metadata(), context);
+        long nanos = System.nanoTime() - start;
+        cpu = threads.getCurrentThreadCpuTime() - cpu;
+        long peak = 0;
+        for (MemoryPoolMXBean pool : ManagementFactory.getMemoryPoolMXBeans()) {
+            if (pool.getType() == MemoryType.HEAP) {
+                peak += pool.getPeakUsage().getUsed();
+            }
+        }
+        System.out.printf(Locale.ROOT,
+                "%-10s done after %6dms, cpu %6dms, peak heap %5dMB%n", name,
+                nanos / 1_000_000, cpu / 1_000_000, peak >> 20);
+    }
+
+    private static byte[] createMessage(int attachments, int size) throws IOException {
+        ByteArrayOutputStream message = new ByteArrayOutputStream();
+        message.write(("From: someone@example.com\r\n" + "To: someone.else@example.com\r\n" +
+                "Subject: benchmark\r\n" + "MIME-Version: 1.0\r\n" +
+                "Content-Type: multipart/mixed; boundary=\"boundary\"\r\n\r\n" +
+                "--boundary\r\n" + "Content-Type: text/plain; charset=US-ASCII\r\n\r\n" +
+                "The body of the message.\r\n").getBytes(US_ASCII));
+        Random random = new Random(42);
+        byte[] data = new byte[size];
+        for (int i = 0; i < attachments; i++) {
+            random.nextBytes(data);
+            message.write(("--boundary\r\n" + "Content-Type: application/octet-stream\r\n" +
+                    "Content-Transfer-Encoding: base64\r\n" +
+                    "Content-Disposition: attachment; filename=\"attachment" + i +
+                    ".bin\"\r\n\r\n").getBytes(US_ASCII));
+            message.write(Base64.getMimeEncoder().encode(data));
+            message.write("\r\n".getBytes(US_ASCII));
+        }
+        message.write("--boundary--\r\n".getBytes(US_ASCII));
+        return message.toByteArray();
+    }
+}
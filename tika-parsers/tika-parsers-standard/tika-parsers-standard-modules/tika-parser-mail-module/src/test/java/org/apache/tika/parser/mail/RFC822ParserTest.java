@@ -30,9 +30,15 @@ import static org.mockito.Mockito.times;
 import static org.mockito.Mockito.verify;
 
 import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.FilterInputStream;
+import java.io.IOException;
 import java.io.InputStream;
 import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Base64;
 import java.util.List;
+import java.util.Random;
 
 import org.apache.james.mime4j.stream.MimeConfig;
 import org.junit.jupiter.api.BeforeAll;
@@ -45,6 +51,7 @@ import org.apache.tika.TikaTest;
 import org.apache.tika.config.TikaConfig;
 import org.apache.tika.exception.TikaException;
 import org.apache.tika.extractor.ContainerExtractor;
+import org.apache.tika.extractor.DocumentSelector;
 import org.apache.tika.extractor.ParserContainerExtractor;
 import org.apache.tika.io.TikaInputStream;
 import org.apache.tika.metadata.Message;
@@ -610,4 +617,104 @@ public class RFC822ParserTest extends TikaTest {
         assertTrue(metadataList.get(2).get(TikaCoreProperties.MODIFIED).startsWith("2022-11-"));
     }
 
+    @Test
+    public void testRejectedAttachment() throws Exception {
+        //larger than what mime4j and the detectors read ahead
+        byte[] data = new byte[1024 * 1024];
+        new Random(42).nextBytes(data);
+        byte[] head = ("From: someone@example.com\r\n" + "Subject: rejected\r\n" +
+                "MIME-Version: 1.0\r\n" +
+                "Content-Type: multipart/mixed; boundary=\"b\"\r\n\r\n" +
+                "--b\r\nContent-Type: text/plain; charset=US-ASCII\r\n\r\n" +
+                "The body of the message.\r\n" +
+                "--b\r\nContent-Type: application/octet-stream\r\n" +
+                "Content-Transfer-Encoding: base64\r\n" +
+                "Content-Disposition: attachment; filename=\"rejected.bin\"\r\n\r\n")
+                .getBytes(US_ASCII);
+        byte[] body = Base64.getMimeEncoder().encode(data);
+        ByteArrayOutputStream message = new ByteArrayOutputStream();
+        message.write(head);
+        message.write(body);
+        message.write("\r\n--b--\r\n".getBytes(US_ASCII));
+
+        CountingInputStream stream =
+                new CountingInputStream(new ByteArrayInputStream(message.toByteArray()));
+        List<Long> readWhenRejected = new ArrayList<>();
+        ParseContext context = new ParseContext();
+        context.set(DocumentSelector.class, metadata -> {
+            if ("rejected.bin".equals(metadata.get(TikaCoreProperties.RESOURCE_NAME_KEY))) {
+                readWhenRejected.add(stream.count);
+                return false;
+            }
+            return true;
+        });
+        //the default parser, which inlines top-level text parts
+        List<Metadata> metadataList = getRecursiveMetadata(stream, new Metadata(), context,
+                false);
+        assertEquals(1, metadataList.size());
+        assertContains("The body of the message.",
+                metadataList.get(0).get(TikaCoreProperties.TIKA_CONTENT));
+
+        //the selector saw the attachment before its body was read
+        assertEquals(1, readWhenRejected.size());
+        assertTrue(readWhenRejected.get(0) < head.length + body.length / 2,
+                "read " + readWhenRejected.get(0) + " bytes before the attachment was rejected");
+    }
+
+    @Test
+    public void testLargeBodyParts() throws Exception {
+        //larger than what the handler keeps in memory
+        StringBuilder text = new StringBuilder();
+        for (int i = 0; text.length() < 3 * 1024 * 1024; i++) {
+            text.append("line ").append(i).append(" of the large body\r\n");
+        }
+        String message = "From: someone@example.com\r\n" + "Subject: large\r\n" +
+                "MIME-Version: 1.0\r\n" +
+                "Content-Type: multipart/alternative; boundary=\"b\"\r\n\r\n" +
+                "--b\r\nContent-Type: text/plain; charset=US-ASCII\r\n\r\n" + text +
+                "--b\r\nContent-Type: text/html; charset=US-ASCII\r\n\r\n" +
+                "<html><body><p>the html alternative</p><pre>" + text +
+                "</pre></body></html>\r\n--b--\r\n";
+        List<Metadata> metadataList = getRecursiveMetadata(
+                new ByteArrayInputStream(message.getBytes(US_ASCII)), false);
+        assertEquals(1, metadataList.size());
+        String content = metadataList.get(0).get(TikaCoreProperties.TIKA_CONTENT);
+        assertContains("the html alternative", content);
+        assertContains("line 0 of the large body", content);
+        assertContains("line 10000 of the large body", content);
+    }
+
+    private static class CountingInputStream extends FilterInputStream {
+
+        private volatile long count = 0;
+
+        private CountingInputStream(InputStream in) {
+            super(in);
+        }
+
+        @Override
+        public int read() throws IOException {
+            int b = super.read();
+            if (b != -1) {
+                count++;
+            }
+            return b;
+        }
+
+        @Override
+        public int read(byte[] b, int off, int len) throws IOException {
+            int n = super.read(b, off, len);
+            if (n > 0) {
+                count += n;
+            }
+            return n;
+        }
+
+        @Override
+        public long skip(long n) throws IOException {
+            long skipped = super.skip(n);
+            count += skipped;
+            return skipped;
+        }
+    }
 }
@@ -172,6 +172,30 @@ public abstract class AbstractOfficeParser implements Parser {
         return defaultOfficeParserConfig.getDateFormatOverride();
     }
 
+    /**
+     * @see OfficeParserConfig#setStreamXlsRows(boolean)
+     */
+    @Field
+    public void setStreamXlsRows(boolean streamXlsRows) {
+        defaultOfficeParserConfig.setStreamXlsRows(streamXlsRows);
+    }
+
+    public boolean isStreamXlsRows() {
+        return defaultOfficeParserConfig.isStreamXlsRows();
+    }
+
+    /**
+     * @see OfficeParserConfig#setSharedStringsSpillThreshold(long)
+     */
+    @Field
+    public void setSharedStringsSpillThreshold(long sharedStringsSpillThreshold) {
+        defaultOfficeParserConfig.setSharedStringsSpillThreshold(sharedStringsSpillThreshold);
+    }
+
+    public long getSharedStringsSpillThreshold() {
+        return defaultOfficeParserConfig.getSharedStringsSpillThreshold();
+    }
+
     @Field
     public void setIncludeHeadersAndFooters(boolean includeHeadersAndFooters) {
         defaultOfficeParserConfig.setIncludeHeadersAndFooters(includeHeadersAndFooters);
@@ -16,16 +16,11 @@
  */
 package org.apache.tika.parser.microsoft;
 
-import java.awt.Point;
 import java.io.IOException;
 import java.text.NumberFormat;
 import java.util.ArrayList;
-import java.util.Comparator;
 import java.util.List;
 import java.util.Locale;
-import java.util.Map;
-import java.util.SortedMap;
-import java.util.TreeMap;
 
 import org.apache.poi.ddf.EscherBSERecord;
 import org.apache.poi.ddf.EscherBlipRecord;
@@ -207,6 +202,12 @@ public class ExcelExtractor extends AbstractPOIFSExtractor {
      */
     private static class TikaHSSFListener implements HSSFListener {
 
+        /**
+         * When streaming rows, number of buffered cells after which the
+         * buffer is written out as soon as a record for a later row arrives.
+         */
+        private static final int STREAM_ROWS_BUFFER_SIZE = 1024;
+
         /**
          * XHTML content handler to which the document content is rendered.
          */
@@ -227,6 +228,11 @@ public class ExcelExtractor extends AbstractPOIFSExtractor {
         private final OfficeParserConfig officeParserConfig;
         private final TikaExcelDataFormatter tikaExcelDataFormatter;
         private final String workbookEntryName;
+        /**
+         * Whether rows are written out while the sheet is being read,
+         * see {@link OfficeParserConfig#setStreamXlsRows(boolean)}.
+         */
+        private final boolean streamRows;
         /**
          * Potential exception thrown by the content handler. When set to
          * non-<code>null</code>, causes all subsequent HSSF records to be
@@ -255,7 +261,21 @@ public class ExcelExtractor extends AbstractPOIFSExtractor {
          * Content of the current worksheet, or <code>null</code> if no
          * worksheet is currently active.
          */
-        private SortedMap<Point, Cell> currentSheet = null;
+        private SheetCells currentSheet = null;
+        /**
+         * Whether the table of the current worksheet has been started.
+         */
+        private boolean sheetStarted = false;
+        /**
+         * Row and column of the table cell that is currently open.
+         */
+        private int currentRow = 0;
+        private int currentColumn = 0;
+        /**
+         * Position of the last cell written out for the current worksheet,
+         * see {@link SheetCells#key(int, int)}, or <code>-1</code>.
+         */
+        private long lastWrittenKey = -1;
         /**
          * Extra text or cells that crops up, typically as part of a
          * worksheet but not always.
@@ -284,6 +304,7 @@ public class ExcelExtractor extends AbstractPOIFSExtractor {
             this.formatListener = new TikaFormatTrackingHSSFListener(this, locale);
             this.tikaExcelDataFormatter = new TikaExcelDataFormatter(locale);
             this.officeParserConfig = officeParserConfig;
+            this.streamRows = officeParserConfig.isStreamXlsRows();
 
             this.tikaExcelDataFormatter
                     .setDateFormatOverride(officeParserConfig.getDateFormatOverride());
@@ -480,8 +501,8 @@ public class ExcelExtractor extends AbstractPOIFSExtractor {
                 case HyperlinkRecord.sid: // holds a URL associated with a cell
                     if (currentSheet != null) {
                         HyperlinkRecord link = (HyperlinkRecord) record;
-                        Point point = new Point(link.getFirstColumn(), link.getFirstRow());
-                        Cell cell = currentSheet.get(point);
+                        Cell cell = currentSheet.get(link.getFirstRow(), link.getFirstColumn(),
+                                extraTextCells);
                         if (cell != null) {
                             String address = link.getAddress();
                             if (address != null) {
@@ -489,6 +510,12 @@ public class ExcelExtractor extends AbstractPOIFSExtractor {
                             } else {
                                 addCell(record, cell);
                             }
+                        } else if (isWritten(link.getFirstRow(), link.getFirstColumn())) {
+                            // The cell is gone, keep at least the link
+                            String address = link.getAddress();
+                            if (address != null) {
+                                addCell(record, new LinkedCell(new TextCell(address), address));
+                            }
                         }
                     }
                     break;
@@ -559,15 +586,24 @@ public class ExcelExtractor extends AbstractPOIFSExtractor {
             } else if (currentSheet != null && record instanceof CellValueRecordInterface) {
                 // Normal cell inside a worksheet
                 CellValueRecordInterface value = (CellValueRecordInterface) record;
-                Point point = new Point(value.getColumn(), value.getRow());
-                if (currentSheet.containsKey(point)) {
+                int row = value.getRow();
+                int column = value.getColumn();
+                if (isWritten(row, column)) {
+                    // Too late to put it in place when streaming rows
+                    extraTextCells.add(cell);
+                    return;
+                }
+                if (streamRows && currentSheet.size() >= STREAM_ROWS_BUFFER_SIZE &&
+                        row > SheetCells.row(currentSheet.maxKey())) {
+                    // Records come in row order, so the buffered rows are complete
+                    writeCells();
+                }
+                if (!currentSheet.add(row, column, cell)) {
                     //avoid overwriting content
                     //for now, add to extraTextCells
                     //TODO: consider allowing multiple text pieces
                     //per x,y to keep the text together
                     extraTextCells.add(cell);
-                } else {
-                    currentSheet.put(point, cell);
                 }
 
             } else {
@@ -595,30 +631,48 @@ public class ExcelExtractor extends AbstractPOIFSExtractor {
 
         private void newSheet() {
             currentSheetIndex++;
-            currentSheet = new TreeMap<>(new PointComparator());
+            currentSheet = new SheetCells();
+            sheetStarted = false;
+            currentRow = 0;
+            currentColumn = 0;
+            lastWrittenKey = -1;
         }
 
         /**
-         * Process an excel sheet.
+         * @return <code>true</code> if the rows have already been written
+         * out up to and including the given position
+         */
+        private boolean isWritten(int row, int column) {
+            return SheetCells.key(row, column) <= lastWrittenKey;
+        }
+
+        /**
+         * Writes out the buffered cells of the current worksheet, starting
+         * the table first if needed.
          *
          * @throws SAXException if an error occurs
          */
-        private void processSheet() throws SAXException {
-            // Sheet Start
-            handler.startElement("div", "class", "page");
-            if (currentSheetIndex < sheetNames.size()) {
-                handler.element("h1", sheetNames.get(currentSheetIndex));
+        private void writeCells() throws SAXException {
+            currentSheet.sort(extraTextCells);
+            if (!sheetStarted) {
+                // Sheet Start
+                handler.startElement("div", "class", "page");
+                if (currentSheetIndex < sheetNames.size()) {
+                    handler.element("h1", sheetNames.get(currentSheetIndex));
+                }
+                handler.startElement("table");
+                handler.startElement("tbody");
+                handler.startElement("tr");
+                handler.startElement("td");
+                sheetStarted = true;
             }
-            handler.startElement("table");
-            handler.startElement("tbody");
 
             // Process Rows
-            int currentRow = 0;
-            int currentColumn = 0;
-            handler.startElement("tr");
-            handler.startElement("td");
-            for (Map.Entry<Point, Cell> entry : currentSheet.entrySet()) {
-                if (currentRow != entry.getKey().y) {
+            for (int i = 0; i < currentSheet.size(); i++) {
+                long key = currentSheet.getKey(i);
+                int row = SheetCells.row(key);
+                int column = SheetCells.column(key);
+                if (currentRow != row) {
                     // We've moved onto a new row, possibly skipping some
                     do {
                         handler.endElement("td");
@@ -626,20 +680,32 @@ public class ExcelExtractor extends AbstractPOIFSExtractor {
                         handler.startElement("tr");
                         handler.startElement("td");
                         currentRow++;
-                    } while (officeParserConfig.isIncludeMissingRows() &&
-                            currentRow < entry.getKey().y);
-                    currentRow = entry.getKey().y;
+                    } while (officeParserConfig.isIncludeMissingRows() && currentRow < row);
+                    currentRow = row;
                     currentColumn = 0;
                 }
 
-                while (currentColumn < entry.getKey().x) {
+                while (currentColumn < column) {
                     handler.endElement("td");
                     handler.startElement("td");
                     currentColumn++;
                 }
 
-                entry.getValue().render(handler);
+                currentSheet.getCell(i).render(handler);
+            }
+            if (!currentSheet.isEmpty()) {
+                lastWrittenKey = Math.max(lastWrittenKey, currentSheet.maxKey());
             }
+            currentSheet.clear();
+        }
+
+        /**
+         * Process an excel sheet.
+         *
+         * @throws SAXException if an error occurs
+         */
+        private void processSheet() throws SAXException {
+            writeCells();
             handler.endElement("td");
             handler.endElement("tr");
 
@@ -711,19 +777,4 @@ public class ExcelExtractor extends AbstractPOIFSExtractor {
             }
         }
     }
-
-    /**
-     * Utility comparator for points.
-     */
-    private static class PointComparator implements Comparator<Point> {
-
-        public int compare(Point a, Point b) {
-            int diff = a.y - b.y;
-            if (diff == 0) {
-                diff = a.x - b.x;
-            }
-            return diff;
-        }
-
-    }
 }
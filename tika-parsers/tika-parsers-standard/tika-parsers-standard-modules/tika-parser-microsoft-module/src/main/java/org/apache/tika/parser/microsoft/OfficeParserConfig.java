@@ -28,9 +28,11 @@ public class OfficeParserConfig implements Serializable {
     private boolean includeShapeBasedContent = true;
     private boolean includeHeadersAndFooters = true;
     private boolean includeMissingRows = false;
+    private boolean streamXlsRows = false;
     private boolean includeSlideNotes = true;
     private boolean includeSlideMasterContent = true;
     private boolean concatenatePhoneticRuns = true;
+    private long sharedStringsSpillThreshold = -1;
 
     private boolean useSAXDocxExtractor = false;
     private boolean useSAXPptxExtractor = false;
@@ -215,6 +217,49 @@ public class OfficeParserConfig implements Serializable {
         this.includeMissingRows = includeMissingRows;
     }
 
+    public boolean isStreamXlsRows() {
+        return streamXlsRows;
+    }
+
+    /**
+     * Whether rows of a legacy .xls worksheet should be written out while the
+     * sheet is still being read, instead of buffering all its cells until the
+     * end of the sheet.  This bounds the memory needed for very large sheets.
+     * <p>
+     * It relies on the cell records coming in row order, as Excel writes
+     * them.  A cell that turns up for a row that has already been written
+     * out is added as extra text after the table, and so is the address of a
+     * hyperlink on such a cell.  The default is <code>false</code>.
+     *
+     * @param streamXlsRows whether to write out rows as they are read
+     * @since 4.0.0
+     */
+    public void setStreamXlsRows(boolean streamXlsRows) {
+        this.streamXlsRows = streamXlsRows;
+    }
+
+    public long getSharedStringsSpillThreshold() {
+        return sharedStringsSpillThreshold;
+    }
+
+    /**
+     * Number of characters of an .xlsx file's shared strings table to keep on
+     * the heap.  Beyond this, the strings are moved to a temporary file and
+     * read back from there as cells refer to them, which bounds the memory
+     * needed for workbooks with very large shared strings tables.
+     * <p>
+     * The default is <code>-1</code>, which keeps all strings on the heap.
+     * <code>0</code> always uses a temporary file.  This does not apply to
+     * .xlsb files.
+     *
+     * @param sharedStringsSpillThreshold number of characters to keep on the heap,
+     *                                    or <code>-1</code> for no limit
+     * @since 4.0.0
+     */
+    public void setSharedStringsSpillThreshold(long sharedStringsSpillThreshold) {
+        this.sharedStringsSpillThreshold = sharedStringsSpillThreshold;
+    }
+
     public boolean isIncludeSlideNotes() {
         return includeSlideNotes;
     }
@@ -0,0 +1,185 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.tika.parser.microsoft;
+
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Compact buffer of worksheet cells, ordered by row and then column.
+ * <p>
+ * Positions are packed into a single <code>long</code> key and kept in a
+ * primitive array next to the cells, instead of one boxed key and one map
+ * entry per cell.  BIFF writes cell records (mostly) in row order, so cells
+ * are simply appended, and the arrays are only sorted, with a merge sort that
+ * skips already ordered halves, when a record came out of order.
+ * <p>
+ * Like the map this replaces, the first cell added at a position wins.
+ * Later cells at the same position are handed back as duplicates, either
+ * right away from {@link #add(int, int, Cell)} or from {@link #sort(List)}
+ * if they came out of order.
+ */
+class SheetCells {
+
+    private static final int INITIAL_CAPACITY = 64;
+
+    private long[] keys = new long[INITIAL_CAPACITY];
+
+    private Cell[] cells = new Cell[INITIAL_CAPACITY];
+
+    private int size = 0;
+
+    private boolean sorted = true;
+
+    private long maxKey = -1;
+
+    static long key(int row, int column) {
+        return ((long) row << 32) | (column & 0xFFFFFFFFL);
+    }
+
+    static int row(long key) {
+        return (int) (key >>> 32);
+    }
+
+    static int column(long key) {
+        return (int) key;
+    }
+
+    /**
+     * Adds a cell.
+     *
+     * @return <code>false</code> if the cell was not added because the
+     * last cell added is at the same position
+     */
+    boolean add(int row, int column, Cell cell) {
+        long key = key(row, column);
+        if (size > 0) {
+            long last = keys[size - 1];
+            if (key == last) {
+                return false;
+            } else if (key < last) {
+                sorted = false;
+            }
+        }
+        maxKey = Math.max(maxKey, key);
+        if (size == keys.length) {
+            keys = Arrays.copyOf(keys, size * 2);
+            cells = Arrays.copyOf(cells, size * 2);
+        }
+        keys[size] = key;
+        cells[size] = cell;
+        size++;
+        return true;
+    }
+
+    /**
+     * @param duplicates see {@link #sort(List)}
+     * @return the cell at the given position, or <code>null</code>
+     */
+    Cell get(int row, int column, List<Cell> duplicates) {
+        sort(duplicates);
+        int i = Arrays.binarySearch(keys, 0, size, key(row, column));
+        return i < 0 ? null : cells[i];
+    }
+
+    /**
+     * Puts the cells in order, if they aren't already.
+     *
+     * @param duplicates receives the cells that were added out of order at
+     *                   a position that was already taken
+     */
+    void sort(List<Cell> duplicates) {
+        if (sorted) {
+            return;
+        }
+        mergeSort(keys, cells, Arrays.copyOf(keys, size), Arrays.copyOf(cells, size), 0, size);
+        int n = 0;
+        for (int i = 0; i < size; i++) {
+            if (n > 0 && keys[i] == keys[n - 1]) {
+                duplicates.add(cells[i]);
+            } else {
+                keys[n] = keys[i];
+                cells[n] = cells[i];
+                n++;
+            }
+        }
+        Arrays.fill(cells, n, size, null);
+        size = n;
+        sorted = true;
+    }
+
+    int size() {
+        return size;
+    }
+
+    boolean isEmpty() {
+        return size == 0;
+    }
+
+    /**
+     * @return the highest key added since the last {@link #clear()}, or
+     * <code>-1</code> if none
+     */
+    long maxKey() {
+        return maxKey;
+    }
+
+    long getKey(int i) {
+        return keys[i];
+    }
+
+    Cell getCell(int i) {
+        return cells[i];
+    }
+
+    void clear() {
+        Arrays.fill(cells, 0, size, null);
+        size = 0;
+        sorted = true;
+        maxKey = -1;
+    }
+
+    /**
+     * Stable top down merge sort of <code>keys[from, to)</code> and the
+     * matching cells, using <code>srcKeys</code>/<code>srcCells</code> (a
+     * copy of the same range) as scratch space.
+     */
+    private static void mergeSort(long[] keys, Cell[] cells, long[] srcKeys, Cell[] srcCells,
+                                  int from, int to) {
+        if (to - from < 2) {
+            return;
+        }
+        int mid = (from + to) >>> 1;
+        //sort the halves of the source, using the destination as scratch
+        mergeSort(srcKeys, srcCells, keys, cells, from, mid);
+        mergeSort(srcKeys, srcCells, keys, cells, mid, to);
+        if (srcKeys[mid - 1] <= srcKeys[mid]) {
+            System.arraycopy(srcKeys, from, keys, from, to - from);
+            System.arraycopy(srcCells, from, cells, from, to - from);
+            return;
+        }
+        for (int i = from, p = from, q = mid; i < to; i++) {
+            if (q >= to || (p < mid && srcKeys[p] <= srcKeys[q])) {
+                keys[i] = srcKeys[p];
+                cells[i] = srcCells[p++];
+            } else {
+                keys[i] = srcKeys[q];
+                cells[i] = srcCells[q++];
+            }
+        }
+    }
+}
@@ -56,23 +56,20 @@ public class EmailVisitor implements FileVisitor<Path> {
 
     @Override
     public FileVisitResult visitFile(Path file, BasicFileAttributes attrs) throws IOException {
-        if (processEmailAsMsg) {
-            if (file
-                    .getFileName()
-                    .toString()
-                    .endsWith(".msg")) {
-                process(file);
-            }
-        } else if (file
-                .getFileName()
-                .toString()
-                .endsWith(".eml")) {
+        if (isEmail(file)) {
             process(file);
         }
         return FileVisitResult.CONTINUE;
     }
 
-    private void process(Path file) throws IOException {
+    boolean isEmail(Path file) {
+        String name = file
+                .getFileName()
+                .toString();
+        return name.endsWith(processEmailAsMsg ? ".msg" : ".eml");
+    }
+
+    void process(Path file) throws IOException {
         Metadata emailMetadata = new Metadata();
         String pstPath = root
                 .relativize(file.getParent())
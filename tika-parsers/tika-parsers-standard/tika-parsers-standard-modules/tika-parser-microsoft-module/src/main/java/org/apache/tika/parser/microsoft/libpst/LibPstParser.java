@@ -21,10 +21,16 @@ import java.io.InputStream;
 import java.nio.file.Files;
 import java.nio.file.Path;
 import java.nio.file.Paths;
+import java.nio.file.attribute.FileTime;
 import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.FutureTask;
+import java.util.stream.Stream;
 
 import org.apache.commons.io.FileUtils;
 import org.apache.commons.io.IOUtils;
@@ -66,6 +72,7 @@ public class LibPstParser implements Parser, Initializable {
     private static final int MAX_STDOUT = 100000;
     private static final int MAX_STDERR = 10000;
     private static final String READ_PST_COMMAND = "readpst";
+    private static final long POLL_MILLIS = 100;
 
     private final LibPstParserConfig defaultConfig = new LibPstParserConfig();
     //for security purposes, this cannot be set via the parseContext. This must
@@ -98,9 +105,15 @@ public class LibPstParser implements Parser, Initializable {
         try {
             ProcessBuilder pb = getProcessBuilder(pst, activeConfig, outDir, debugFile);
             XHTMLContentHandler xhtml = new XHTMLContentHandler(contentHandler, metadata);
-            FileProcessResult fileProcessResult = ProcessUtils.execute(pb, activeConfig.getTimeoutSeconds() * 1000l, MAX_STDOUT, MAX_STDERR);
-            xhtml.startDocument();
-            processContents(outDir, activeConfig, xhtml, metadata, parseContext);
+            FileProcessResult fileProcessResult;
+            if (activeConfig.isStreaming()) {
+                xhtml.startDocument();
+                fileProcessResult = streamContents(pb, outDir, activeConfig, xhtml, metadata, parseContext);
+            } else {
+                fileProcessResult = ProcessUtils.execute(pb, activeConfig.getTimeoutSeconds() * 1000l, MAX_STDOUT, MAX_STDERR);
+                xhtml.startDocument();
+                processContents(outDir, activeConfig, xhtml, metadata, parseContext);
+            }
             if (fileProcessResult.isTimeout()) {
                 throw new TikaException("Timeout exception: " + fileProcessResult.getProcessTimeMillis());
             }
@@ -129,6 +142,95 @@ public class LibPstParser implements Parser, Initializable {
         Files.walkFileTree(outDir, new EmailVisitor(outDir, config.isProcessEmailAsMsg(), xhtml, metadata, parseContext));
     }
 
+    /**
+     * Runs readpst in the background and parses each message once readpst
+     * has moved on to the next file, or has exited.  readpst is run as a
+     * single job, so it writes one file at a time and the file that was
+     * modified last is the only one that may still be incomplete.
+     */
+    private FileProcessResult streamContents(ProcessBuilder pb, Path outDir, LibPstParserConfig config, XHTMLContentHandler xhtml, Metadata metadata,
+                                             ParseContext parseContext) throws IOException, TikaException {
+        EmailVisitor visitor = new EmailVisitor(outDir, config.isProcessEmailAsMsg(), xhtml, metadata, parseContext);
+        FutureTask<FileProcessResult> readpst = new FutureTask<>(() -> ProcessUtils.execute(pb, config.getTimeoutSeconds() * 1000l, MAX_STDOUT, MAX_STDERR));
+        Thread thread = new Thread(readpst, "Tika LibPst Thread");
+        thread.setDaemon(true);
+        thread.start();
+        try {
+            boolean done = false;
+            while (!done) {
+                //check before listing, so that the last listing sees everything
+                done = readpst.isDone();
+                for (Path file : completedFiles(outDir, done)) {
+                    if (visitor.isEmail(file)) {
+                        visitor.process(file);
+                    }
+                    Files.delete(file);
+                }
+                if (!done) {
+                    Thread.sleep(POLL_MILLIS);
+                }
+            }
+            return readpst.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new TikaException("LibPstParser interrupted", e);
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof IOException) {
+                throw (IOException) e.getCause();
+            }
+            throw new TikaException("Couldn't run readpst", e.getCause());
+        } finally {
+            if (!readpst.isDone()) {
+                //this makes ProcessUtils kill readpst
+                thread.interrupt();
+                try {
+                    thread.join(1000);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+            }
+        }
+    }
+
+    /**
+     * @param done <code>true</code> if readpst has exited
+     * @return the files that readpst has finished writing, oldest first: all
+     * of them once it has exited, or else those modified before the newest one
+     */
+    static List<Path> completedFiles(Path outDir, boolean done) throws IOException {
+        List<Path> files = listFiles(outDir);
+        if (done || files.isEmpty()) {
+            return files;
+        }
+        FileTime newest = Files.getLastModifiedTime(files.get(files.size() - 1));
+        List<Path> completed = new ArrayList<>();
+        for (Path file : files) {
+            if (Files.getLastModifiedTime(file).compareTo(newest) >= 0) {
+                break;
+            }
+            completed.add(file);
+        }
+        return completed;
+    }
+
+    /**
+     * @return the files that readpst has written, oldest first
+     */
+    private static List<Path> listFiles(Path outDir) throws IOException {
+        List<Path> files = new ArrayList<>();
+        Map<Path, FileTime> modified = new HashMap<>();
+        try (Stream<Path> paths = Files.walk(outDir)) {
+            for (Path path : (Iterable<Path>) paths::iterator) {
+                if (Files.isRegularFile(path)) {
+                    files.add(path);
+                    modified.put(path, Files.getLastModifiedTime(path));
+                }
+            }
+        }
+        files.sort(Comparator.comparing((Path path) -> modified.get(path)).thenComparing(Comparator.naturalOrder()));
+        return files;
+    }
+
     private ProcessBuilder getProcessBuilder(Path pst, LibPstParserConfig config, Path outDir, Path debugFile)
             throws TikaConfigException {
         List commands = new ArrayList<String>();
@@ -142,6 +244,11 @@ public class LibPstParser implements Parser, Initializable {
         if (config.isIncludeDeleted()) {
             commands.add("-D");
         }
+        if (config.isStreaming()) {
+            //don't fork, so that only one file is written at a time
+            commands.add("-j");
+            commands.add("0");
+        }
         if (config.isProcessEmailAsMsg()) {
             commands.add("-m");
         } else {
@@ -231,6 +338,14 @@ public class LibPstParser implements Parser, Initializable {
         defaultConfig.setIncludeDeleted(includeDeleted);
     }
 
+    /**
+     * See {@link LibPstParserConfig#setStreaming(boolean)}
+     */
+    @Field
+    public void setStreaming(boolean streaming) {
+        defaultConfig.setStreaming(streaming);
+    }
+
     @Field
     public void setMaxEmails(int maxEmails) {
         defaultConfig.setMaxEmails(maxEmails);
@@ -41,6 +41,15 @@ public class LibPstParserConfig implements Serializable {
      */
     private int maxEmails = -1;
 
+    /**
+     * Parse each message as soon as readpst has finished writing it, and
+     * delete it right away, instead of waiting for readpst to extract the
+     * whole pst file.  This starts emitting content immediately and keeps
+     * only a few messages on disk at a time, but the messages are reported
+     * in the order readpst writes them rather than folder by folder.
+     */
+    private boolean streaming = false;
+
     public long getTimeoutSeconds() {
         return timeoutSeconds;
     }
@@ -80,4 +89,12 @@ public class LibPstParserConfig implements Serializable {
     public void setMaxEmails(int maxEmails) {
         this.maxEmails = maxEmails;
     }
+
+    public boolean isStreaming() {
+        return streaming;
+    }
+
+    public void setStreaming(boolean streaming) {
+        this.streaming = streaming;
+    }
 }
@@ -0,0 +1,316 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.tika.parser.microsoft.ooxml;
+
+import java.io.BufferedOutputStream;
+import java.io.Closeable;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.apache.poi.openxml4j.opc.OPCPackage;
+import org.apache.poi.openxml4j.opc.PackagePart;
+import org.apache.poi.ss.usermodel.RichTextString;
+import org.apache.poi.xssf.model.SharedStrings;
+import org.apache.poi.xssf.usermodel.XSSFRelation;
+import org.apache.poi.xssf.usermodel.XSSFRichTextString;
+import org.xml.sax.Attributes;
+import org.xml.sax.SAXException;
+import org.xml.sax.helpers.DefaultHandler;
+
+import org.apache.tika.exception.TikaException;
+import org.apache.tika.io.TemporaryResources;
+import org.apache.tika.parser.ParseContext;
+import org.apache.tika.utils.XMLReaderUtils;
+
+/**
+ * Read-only shared strings table that moves the strings to a temporary file
+ * once they pass a threshold, instead of keeping all of them on the heap
+ * like POI's <code>ReadOnlySharedStringsTable</code> does.
+ * <p>
+ * The strings are parsed the same way, including the handling of phonetic
+ * runs.  Until the threshold is passed they are kept in a list.  Beyond it
+ * they are appended as UTF-16 code units to a data file, with the start
+ * offset of each string in an index file, so looking up a string costs two
+ * positional reads that are usually served by the OS page cache.  The most
+ * recently looked up strings are kept in a small LRU cache, since
+ * spreadsheets tend to repeat the same few strings.
+ * <p>
+ * The temporary files are deleted by {@link #close()}.
+ */
+class SpillingSharedStringsTable extends DefaultHandler implements SharedStrings, Closeable {
+
+    static final int CACHE_SIZE = 1024;
+
+    private final boolean includePhoneticRuns;
+
+    /**
+     * Number of characters to keep on the heap before spilling to disk.
+     */
+    private final long spillThreshold;
+
+    private int count;
+
+    private int uniqueCount;
+
+    private List<String> strings = new ArrayList<>();
+
+    private long charsInMemory = 0;
+
+    private int numStrings = 0;
+
+    private StringBuilder characters = new StringBuilder(64);
+
+    private boolean tIsOpen = false;
+
+    private boolean inRPh = false;
+
+    private TemporaryResources tmp;
+
+    private Path dataPath;
+
+    private Path indexPath;
+
+    private DataOutputStream dataOut;
+
+    private DataOutputStream indexOut;
+
+    private long dataLength = 0;
+
+    private FileChannel data;
+
+    private FileChannel index;
+
+    private final Map<Integer, String> cache = new LinkedHashMap<Integer, String>(16, 0.75f, true) {
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<Integer, String> eldest) {
+            return size() > CACHE_SIZE;
+        }
+    };
+
+    /**
+     * Reads the shared strings part of the package, if any.
+     *
+     * @param pkg                 the package
+     * @param includePhoneticRuns whether to append the phonetic runs to the text
+     * @param spillThreshold      number of characters to keep on the heap
+     *                            before moving the strings to a temporary file
+     * @param context             parse context for the XML parser
+     */
+    SpillingSharedStringsTable(OPCPackage pkg, boolean includePhoneticRuns, long spillThreshold,
+                               ParseContext context)
+            throws IOException, SAXException, TikaException {
+        this.includePhoneticRuns = includePhoneticRuns;
+        this.spillThreshold = spillThreshold;
+        List<PackagePart> parts =
+                pkg.getPartsByContentType(XSSFRelation.SHARED_STRINGS.getContentType());
+        if (parts.isEmpty()) {
+            return;
+        }
+        try (InputStream is = parts.get(0).getInputStream()) {
+            XMLReaderUtils.parseSAX(is, this, context);
+            finishSpill();
+        } catch (IOException | SAXException | TikaException | RuntimeException e) {
+            close();
+            throw e;
+        }
+    }
+
+    /**
+     * @return <code>true</code> if the strings have been moved to disk
+     */
+    boolean isSpilled() {
+        return tmp != null;
+    }
+
+    @Override
+    public void startElement(String uri, String localName, String qName, Attributes attributes) {
+        if (uri != null && !uri.equals(XSSFRelation.NS_SPREADSHEETML)) {
+            return;
+        }
+        if ("sst".equals(localName)) {
+            String countAttr = attributes.getValue("count");
+            if (countAttr != null) {
+                count = (int) Long.parseLong(countAttr);
+            }
+            String uniqueCountAttr = attributes.getValue("uniqueCount");
+            if (uniqueCountAttr != null) {
+                uniqueCount = (int) Long.parseLong(uniqueCountAttr);
+            }
+        } else if ("si".equals(localName)) {
+            characters.setLength(0);
+        } else if ("t".equals(localName)) {
+            tIsOpen = true;
+        } else if ("rPh".equals(localName)) {
+            inRPh = true;
+            //append space...this assumes that rPh always comes after regular <t>
+            if (includePhoneticRuns && characters.length() > 0) {
+                characters.append(" ");
+            }
+        }
+    }
+
+    @Override
+    public void endElement(String uri, String localName, String qName) throws SAXException {
+        if (uri != null && !uri.equals(XSSFRelation.NS_SPREADSHEETML)) {
+            return;
+        }
+        if ("si".equals(localName)) {
+            try {
+                add(characters.toString());
+            } catch (IOException e) {
+                throw new SAXException("Couldn't spill shared strings", e);
+            }
+        } else if ("t".equals(localName)) {
+            tIsOpen = false;
+        } else if ("rPh".equals(localName)) {
+            inRPh = false;
+        }
+    }
+
+    @Override
+    public void characters(char[] ch, int start, int length) {
+        if (tIsOpen && (!inRPh || includePhoneticRuns)) {
+            characters.append(ch, start, length);
+        }
+    }
+
+    private void add(String string) throws IOException {
+        numStrings++;
+        if (dataOut != null) {
+            write(string);
+            return;
+        }
+        strings.add(string);
+        charsInMemory += string.length();
+        if (charsInMemory > spillThreshold) {
+            tmp = new TemporaryResources();
+            dataPath = tmp.createTempFile();
+            indexPath = tmp.createTempFile();
+            dataOut = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(dataPath)));
+            indexOut = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(indexPath)));
+            tmp.addResource(dataOut);
+            tmp.addResource(indexOut);
+            for (String s : strings) {
+                write(s);
+            }
+            strings = null;
+            charsInMemory = 0;
+        }
+    }
+
+    private void write(String string) throws IOException {
+        indexOut.writeLong(dataLength);
+        dataOut.writeChars(string);
+        dataLength += 2L * string.length();
+    }
+
+    /**
+     * Closes the spill files for writing and opens them for reading.
+     */
+    private void finishSpill() throws IOException {
+        if (dataOut == null) {
+            return;
+        }
+        indexOut.writeLong(dataLength);
+        dataOut.close();
+        indexOut.close();
+        dataOut = null;
+        indexOut = null;
+        data = FileChannel.open(dataPath, StandardOpenOption.READ);
+        tmp.addResource(data);
+        index = FileChannel.open(indexPath, StandardOpenOption.READ);
+        tmp.addResource(index);
+    }
+
+    @Override
+    public RichTextString getItemAt(int idx) {
+        if (strings != null) {
+            return new XSSFRichTextString(strings.get(idx));
+        }
+        if (idx < 0 || idx >= numStrings) {
+            throw new IndexOutOfBoundsException("Index: " + idx + ", Size: " + numStrings);
+        }
+        String string = cache.get(idx);
+        if (string == null) {
+            try {
+                string = read(idx);
+            } catch (IOException e) {
+                throw new IllegalStateException("Couldn't read spilled shared string " + idx, e);
+            }
+            cache.put(idx, string);
+        }
+        return new XSSFRichTextString(string);
+    }
+
+    private String read(int idx) throws IOException {
+        ByteBuffer offsets = ByteBuffer.allocate(16);
+        readFully(index, offsets, 8L * idx);
+        long start = offsets.getLong(0);
+        long end = offsets.getLong(8);
+        ByteBuffer chars = ByteBuffer.allocate((int) (end - start));
+        readFully(data, chars, start);
+        chars.flip();
+        return chars.asCharBuffer().toString();
+    }
+
+    private static void readFully(FileChannel channel, ByteBuffer buffer, long position)
+            throws IOException {
+        while (buffer.hasRemaining()) {
+            int n = channel.read(buffer, position);
+            if (n < 0) {
+                throw new EOFException();
+            }
+            position += n;
+        }
+    }
+
+    @Override
+    public int getCount() {
+        return count;
+    }
+
+    @Override
+    public int getUniqueCount() {
+        return uniqueCount;
+    }
+
+    @Override
+    public void close() throws IOException {
+        if (tmp != null) {
+            try {
+                tmp.close();
+            } finally {
+                tmp = null;
+                data = null;
+                index = null;
+                dataOut = null;
+                indexOut = null;
+            }
+        }
+    }
+}
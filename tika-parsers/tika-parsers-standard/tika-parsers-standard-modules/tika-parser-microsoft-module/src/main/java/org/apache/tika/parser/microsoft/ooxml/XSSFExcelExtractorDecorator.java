@@ -17,6 +17,7 @@
 package org.apache.tika.parser.microsoft.ooxml;
 
 
+import java.io.Closeable;
 import java.io.IOException;
 import java.io.InputStream;
 import java.util.ArrayList;
@@ -47,6 +48,7 @@ import org.apache.poi.xssf.eventusermodel.XSSFSheetXMLHandler;
 import org.apache.poi.xssf.eventusermodel.XSSFSheetXMLHandler.SheetContentsHandler;
 import org.apache.poi.xssf.extractor.XSSFEventBasedExcelExtractor;
 import org.apache.poi.xssf.model.Comments;
+import org.apache.poi.xssf.model.SharedStrings;
 import org.apache.poi.xssf.model.StylesTable;
 import org.apache.poi.xssf.usermodel.XSSFComment;
 import org.apache.poi.xssf.usermodel.XSSFDrawing;
@@ -135,7 +137,7 @@ public class XSSFExcelExtractorDecorator extends AbstractOOXMLExtractor {
             throws SAXException, XmlException, IOException {
         OPCPackage container = extractor.getPackage();
 
-        ReadOnlySharedStringsTable strings;
+        SharedStrings strings;
         XSSFReader.SheetIterator iter;
         XSSFReader xssfReader;
         StylesTable styles;
@@ -144,58 +146,64 @@ public class XSSFExcelExtractorDecorator extends AbstractOOXMLExtractor {
             styles = xssfReader.getStylesTable();
 
             iter = (XSSFReader.SheetIterator) xssfReader.getSheetsData();
-            strings = new ReadOnlySharedStringsTable(container, config.isConcatenatePhoneticRuns());
+            strings = loadSharedStrings(container);
         } catch (OpenXML4JException e) {
             throw new XmlException(e);
         }
 
-        while (iter.hasNext()) {
-            SheetTextAsHTML sheetExtractor = new SheetTextAsHTML(config, xhtml);
-            PackagePart sheetPart = null;
-            try (InputStream stream = iter.next()) {
-                sheetPart = iter.getSheetPart();
+        try {
+            while (iter.hasNext()) {
+                SheetTextAsHTML sheetExtractor = new SheetTextAsHTML(config, xhtml);
+                PackagePart sheetPart = null;
+                try (InputStream stream = iter.next()) {
+                    sheetPart = iter.getSheetPart();
 
-                addDrawingHyperLinks(sheetPart);
-                sheetParts.add(sheetPart);
+                    addDrawingHyperLinks(sheetPart);
+                    sheetParts.add(sheetPart);
 
-                Comments comments = iter.getSheetComments();
+                    Comments comments = iter.getSheetComments();
 
-                // Start, and output the sheet name
-                xhtml.startElement("div");
-                xhtml.element("h1", iter.getSheetName());
+                    // Start, and output the sheet name
+                    xhtml.startElement("div");
+                    xhtml.element("h1", iter.getSheetName());
 
-                // Extract the main sheet contents
-                xhtml.startElement("table");
-                xhtml.startElement("tbody");
+                    // Extract the main sheet contents
+                    xhtml.startElement("table");
+                    xhtml.startElement("tbody");
 
-                processSheet(sheetExtractor, comments, styles, strings, stream);
-            }
-            xhtml.endElement("tbody");
-            xhtml.endElement("table");
-
-            // Output any headers and footers
-            // (Need to process the sheet to get them, so we can't
-            //  do the headers before the contents)
-            for (String header : sheetExtractor.headers) {
-                extractHeaderFooter(header, xhtml);
-            }
-            for (String footer : sheetExtractor.footers) {
-                extractHeaderFooter(footer, xhtml);
-            }
+                    processSheet(sheetExtractor, comments, styles, strings, stream);
+                }
+                xhtml.endElement("tbody");
+                xhtml.endElement("table");
+
+                // Output any headers and footers
+                // (Need to process the sheet to get them, so we can't
+                //  do the headers before the contents)
+                for (String header : sheetExtractor.headers) {
+                    extractHeaderFooter(header, xhtml);
+                }
+                for (String footer : sheetExtractor.footers) {
+                    extractHeaderFooter(footer, xhtml);
+                }
 
-            // Do text held in shapes, if required
-            if (config.isIncludeShapeBasedContent()) {
-                List<XSSFShape> shapes = iter.getShapes();
-                processShapes(shapes, xhtml);
-            }
+                // Do text held in shapes, if required
+                if (config.isIncludeShapeBasedContent()) {
+                    List<XSSFShape> shapes = iter.getShapes();
+                    processShapes(shapes, xhtml);
+                }
 
-            //for now dump sheet hyperlinks at bottom of page
-            //consider a double-pass of the inputstream to reunite hyperlinks with cells/textboxes
-            //step 1: extract hyperlink info from bottom of page
-            //step 2: process as we do now, but with cached hyperlink relationship info
-            extractHyperLinks(sheetPart, xhtml);
-            // All done with this sheet
-            xhtml.endElement("div");
+                //for now dump sheet hyperlinks at bottom of page
+                //consider a double-pass of the inputstream to reunite hyperlinks with cells/textboxes
+                //step 1: extract hyperlink info from bottom of page
+                //step 2: process as we do now, but with cached hyperlink relationship info
+                extractHyperLinks(sheetPart, xhtml);
+                // All done with this sheet
+                xhtml.endElement("div");
+            }
+        } finally {
+            if (strings instanceof Closeable) {
+                ((Closeable) strings).close();
+            }
         }
 
         //consider adding this back to POI
@@ -343,8 +351,26 @@ public class XSSFExcelExtractorDecorator extends AbstractOOXMLExtractor {
 
     }
 
+    /**
+     * Loads the shared strings table, which spills to disk if
+     * {@link OfficeParserConfig#setSharedStringsSpillThreshold(long)} is set.
+     */
+    private SharedStrings loadSharedStrings(OPCPackage container)
+            throws IOException, SAXException {
+        long spillThreshold = config.getSharedStringsSpillThreshold();
+        if (spillThreshold < 0) {
+            return new ReadOnlySharedStringsTable(container, config.isConcatenatePhoneticRuns());
+        }
+        try {
+            return new SpillingSharedStringsTable(container, config.isConcatenatePhoneticRuns(),
+                    spillThreshold, parseContext);
+        } catch (TikaException e) {
+            throw new RuntimeException("SAX parser appears to be broken - " + e.getMessage());
+        }
+    }
+
     public void processSheet(SheetContentsHandler sheetContentsHandler, Comments comments,
-                             StylesTable styles, ReadOnlySharedStringsTable strings,
+                             StylesTable styles, SharedStrings strings,
                              InputStream sheetInputStream) throws IOException, SAXException {
         try {
 
@@ -18,27 +18,36 @@ package org.apache.tika.parser.microsoft.pst;
 
 import static java.lang.String.valueOf;
 import static java.util.Collections.singleton;
+import static org.apache.tika.sax.XHTMLContentHandler.XHTML;
 
+import java.io.Closeable;
 import java.io.IOException;
 import java.io.InputStream;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
 import java.util.Set;
+import java.util.concurrent.atomic.AtomicInteger;
 
+import com.pff.PSTException;
 import com.pff.PSTFile;
 import com.pff.PSTFolder;
 import com.pff.PSTMessage;
+import com.pff.PSTObject;
 import org.xml.sax.ContentHandler;
 import org.xml.sax.SAXException;
 import org.xml.sax.helpers.AttributesImpl;
 
 import org.apache.tika.exception.TikaException;
-import org.apache.tika.extractor.EmbeddedDocumentExtractor;
 import org.apache.tika.extractor.EmbeddedDocumentUtil;
 import org.apache.tika.io.TikaInputStream;
 import org.apache.tika.metadata.Metadata;
 import org.apache.tika.metadata.PST;
 import org.apache.tika.metadata.TikaCoreProperties;
 import org.apache.tika.mime.MediaType;
+import org.apache.tika.parser.EmbeddedParseQueue;
 import org.apache.tika.parser.ParseContext;
+import org.apache.tika.parser.ParseRecord;
 import org.apache.tika.parser.Parser;
 import org.apache.tika.sax.XHTMLContentHandler;
 
@@ -66,10 +75,6 @@ public class OutlookPSTParser implements Parser {
     public void parse(InputStream stream, ContentHandler handler, Metadata metadata,
                       ParseContext context) throws IOException, SAXException, TikaException {
 
-        // Use the delegate parser to parse the contained document
-        EmbeddedDocumentExtractor embeddedExtractor =
-                EmbeddedDocumentUtil.getEmbeddedDocumentExtractor(context);
-
         metadata.set(Metadata.CONTENT_TYPE, MS_OUTLOOK_PST_MIMETYPE.toString());
 
         XHTMLContentHandler xhtml = new XHTMLContentHandler(handler, metadata);
@@ -87,7 +92,20 @@ public class OutlookPSTParser implements Parser {
                         "OST 2013 support not added yet. It will be when https://github.com/rjohnsondev/java-libpst/issues/60 is fixed.");
             }
             if (isValid) {
-                parseFolder(xhtml, pstFile.getRootFolder(), "/", embeddedExtractor);
+                Metadata progress = null;
+                ParseRecord parseRecord = context.get(ParseRecord.class);
+                if (parseRecord != null) {
+                    progress = new Metadata();
+                    parseRecord.addMetadata(progress);
+                }
+                //the queue is closed first, and waits for the running tasks to
+                //finish reading through the worker files before those are closed
+                try (WorkerFiles workerFiles = EmbeddedParseQueue.isParallel(context) ?
+                        new WorkerFiles(in.getFile().getPath()) : null;
+                        EmbeddedParseQueue queue = new EmbeddedParseQueue(xhtml, context)) {
+                    parseFolder(queue, workerFiles, pstFile.getRootFolder(), "/", progress);
+                    queue.finish();
+                }
             }
         } catch (TikaException e) {
             throw e;
@@ -106,31 +124,183 @@ public class OutlookPSTParser implements Parser {
         xhtml.endDocument();
     }
 
-    private void parseFolder(XHTMLContentHandler handler, PSTFolder pstFolder, String folderPath,
-                             EmbeddedDocumentExtractor embeddedExtractor) throws Exception {
+    /**
+     * Hands the messages of a folder and its subfolders to the queue.  If the
+     * queue runs concurrently, only the descriptor node ids of the messages
+     * are passed on, and each message is loaded only by the thread that
+     * parses it, through that thread's own PSTFile, along with its attachments.
+     */
+    private void parseFolder(EmbeddedParseQueue queue, WorkerFiles workerFiles,
+                             PSTFolder pstFolder, String folderPath, Metadata progress)
+            throws Exception {
+        FolderProgress folderProgress = new FolderProgress(folderPath, progress);
         if (pstFolder.getContentCount() > 0) {
-            PSTMessage pstMail = (PSTMessage) pstFolder.getNextChild();
-            while (pstMail != null) {
-                Metadata metadata = new Metadata();
-                metadata.set(TikaCoreProperties.CONTENT_TYPE_PARSER_OVERRIDE, PSTMailItemParser.PST_MAIL_ITEM_STRING);
-                metadata.set(PST.PST_FOLDER_PATH, folderPath);
-                try (TikaInputStream tis = TikaInputStream.get(new byte[0])) {
-                    tis.setOpenContainer(pstMail);
-                    metadata.set(TikaCoreProperties.RESOURCE_NAME_KEY, pstMail.getSubject() + ".msg");
-                    embeddedExtractor.parseEmbedded(tis, handler, metadata, true);
+            List<Integer> childNodes = workerFiles == null ? null :
+                    pstFolder.getChildDescriptorNodes();
+            if (childNodes != null && !childNodes.isEmpty()) {
+                for (int descriptorNodeId : childNodes) {
+                    folderProgress.submitted();
+                    queue.submit(new MessageTask(null, workerFiles, descriptorNodeId,
+                            folderPath, folderProgress));
                 }
-                pstMail = (PSTMessage) pstFolder.getNextChild();
+            } else {
+                //getChildDescriptorNodes() is empty for folders without a contents table
+                parseMessages(queue, workerFiles, pstFolder, folderPath, folderProgress);
             }
         }
+        folderProgress.parsed();
 
         if (pstFolder.hasSubfolders()) {
             for (PSTFolder pstSubFolder : pstFolder.getSubFolders()) {
-                handler.startElement("div", createAttribute("class", "email-folder"));
-                handler.element("h1", pstSubFolder.getDisplayName());
-                String subFolderPath = folderPath.endsWith("/") ? folderPath + pstSubFolder.getDisplayName() :
+                String displayName = pstSubFolder.getDisplayName();
+                queue.submit((handler, context) -> {
+                    handler.startElement(XHTML, "div", "div",
+                            createAttribute("class", "email-folder"));
+                    if (displayName != null && displayName.length() > 0) {
+                        handler.startElement(XHTML, "h1", "h1", new AttributesImpl());
+                        handler.characters(displayName.toCharArray(), 0, displayName.length());
+                        handler.endElement(XHTML, "h1", "h1");
+                    }
+                });
+                String subFolderPath = folderPath.endsWith("/") ? folderPath + displayName :
                         folderPath + "/" + pstFolder.getDisplayName();
-                parseFolder(handler, pstSubFolder, subFolderPath, embeddedExtractor);
-                handler.endElement("div");
+                parseFolder(queue, workerFiles, pstSubFolder, subFolderPath, progress);
+                queue.submit((handler, context) -> handler.endElement(XHTML, "div", "div"));
+            }
+        }
+    }
+
+    private void parseMessages(EmbeddedParseQueue queue, WorkerFiles workerFiles,
+                               PSTFolder pstFolder, String folderPath,
+                               FolderProgress folderProgress) throws Exception {
+        PSTMessage pstMail = (PSTMessage) pstFolder.getNextChild();
+        while (pstMail != null) {
+            folderProgress.submitted();
+            queue.submit(workerFiles == null ?
+                    new MessageTask(pstMail, null, -1, folderPath, folderProgress) :
+                    new MessageTask(null, workerFiles, pstMail.getDescriptorNodeId(),
+                            folderPath, folderProgress));
+            pstMail = (PSTMessage) pstFolder.getNextChild();
+        }
+    }
+
+    private static class MessageTask implements EmbeddedParseQueue.Task {
+
+        private final PSTMessage pstMail;
+
+        private final WorkerFiles workerFiles;
+
+        private final long descriptorNodeId;
+
+        private final String folderPath;
+
+        private final FolderProgress folderProgress;
+
+        private MessageTask(PSTMessage pstMail, WorkerFiles workerFiles, long descriptorNodeId,
+                            String folderPath, FolderProgress folderProgress) {
+            this.pstMail = pstMail;
+            this.workerFiles = workerFiles;
+            this.descriptorNodeId = descriptorNodeId;
+            this.folderPath = folderPath;
+            this.folderProgress = folderProgress;
+        }
+
+        @Override
+        public void parse(ContentHandler handler, ParseContext context)
+                throws IOException, SAXException, TikaException {
+            PSTMessage message = pstMail;
+            if (message == null) {
+                try {
+                    message = (PSTMessage) PSTObject.detectAndLoadPSTObject(workerFiles.get(),
+                            descriptorNodeId);
+                } catch (PSTException e) {
+                    throw new TikaException(e.getMessage(), e);
+                }
+            }
+            Metadata metadata = new Metadata();
+            metadata.set(TikaCoreProperties.CONTENT_TYPE_PARSER_OVERRIDE, PSTMailItemParser.PST_MAIL_ITEM_STRING);
+            metadata.set(PST.PST_FOLDER_PATH, folderPath);
+            try (TikaInputStream tis = TikaInputStream.get(new byte[0])) {
+                tis.setOpenContainer(message);
+                metadata.set(TikaCoreProperties.RESOURCE_NAME_KEY, message.getSubject() + ".msg");
+                EmbeddedDocumentUtil.getEmbeddedDocumentExtractor(context)
+                        .parseEmbedded(tis, handler, metadata, true);
+            }
+            folderProgress.parsed();
+        }
+    }
+
+    /**
+     * Counts the messages of a folder that are still to be parsed, and
+     * records the folder in the progress once they are all done.
+     */
+    private static class FolderProgress {
+
+        private final String folderPath;
+
+        private final Metadata progress;
+
+        //one for the traversal of the folder itself
+        private final AtomicInteger pending = new AtomicInteger(1);
+
+        private int items = 0;
+
+        private FolderProgress(String folderPath, Metadata progress) {
+            this.folderPath = folderPath;
+            this.progress = progress;
+        }
+
+        private void submitted() {
+            items++;
+            pending.incrementAndGet();
+        }
+
+        private void parsed() {
+            if (pending.decrementAndGet() == 0 && progress != null) {
+                synchronized (progress) {
+                    progress.add(PST.FOLDER_PROGRESS, folderPath + " (" + items + " items)");
+                }
+            }
+        }
+    }
+
+    /**
+     * java-libpst reads through a single RandomAccessFile, so each thread
+     * that parses messages concurrently opens the pst file for itself.
+     */
+    private static class WorkerFiles implements Closeable {
+
+        private final String path;
+
+        private final Map<Thread, PSTFile> files = new HashMap<>();
+
+        private boolean closed = false;
+
+        private WorkerFiles(String path) {
+            this.path = path;
+        }
+
+        private synchronized PSTFile get() throws IOException, PSTException {
+            if (closed) {
+                throw new IOException("The pst file has already been closed");
+            }
+            PSTFile pstFile = files.get(Thread.currentThread());
+            if (pstFile == null) {
+                pstFile = new PSTFile(path);
+                files.put(Thread.currentThread(), pstFile);
+            }
+            return pstFile;
+        }
+
+        @Override
+        public synchronized void close() {
+            closed = true;
+            for (PSTFile pstFile : files.values()) {
+                try {
+                    pstFile.getFileHandle().close();
+                } catch (IOException e) {
+                    //swallow closing exception
+                }
             }
         }
     }
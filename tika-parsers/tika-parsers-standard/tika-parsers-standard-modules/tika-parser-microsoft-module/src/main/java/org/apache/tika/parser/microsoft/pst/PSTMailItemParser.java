@@ -230,7 +230,9 @@ public class PSTMailItemParser implements Parser {
                 attachMetadata.set(TikaCoreProperties.CONTENT_TYPE_PARSER_OVERRIDE, PSTMailItemParser.PST_MAIL_ITEM_STRING);
                 attachMetadata.set(TikaCoreProperties.RESOURCE_NAME_KEY, attachedEmail.getSubject() + ".msg");
                 attachMetadata.set(TikaCoreProperties.EMBEDDED_RESOURCE_TYPE, TikaCoreProperties.EmbeddedResourceType.ATTACHMENT.name());
-                embeddedExtractor.parseEmbedded(tis, xhtml, attachMetadata, true);
+                if (embeddedExtractor.shouldParseEmbedded(attachMetadata)) {
+                    embeddedExtractor.parseEmbedded(tis, xhtml, attachMetadata, true);
+                }
             }
             return;
         }
@@ -247,6 +249,13 @@ public class PSTMailItemParser implements Parser {
         attachMeta.set(TikaCoreProperties.RESOURCE_NAME_KEY, filename);
         attachMeta.set(TikaCoreProperties.EMBEDDED_RELATIONSHIP_ID, filename);
         attachMeta.set(TikaCoreProperties.EMBEDDED_RESOURCE_TYPE, TikaCoreProperties.EmbeddedResourceType.ATTACHMENT.toString());
+        //the size comes from the index, so that selectors can skip large
+        //attachments before any of their data is read
+        try {
+            attachMeta.set(Metadata.CONTENT_LENGTH, valueOf(attachment.getFilesize()));
+        } catch (Exception e) {
+            //swallow, e.g. an NPE if there is no data (TIKA-2488)
+        }
         AttributesImpl attributes = new AttributesImpl();
         attributes.addAttribute("", "class", "class", "CDATA", "embedded");
         attributes.addAttribute("", "id", "id", "CDATA", filename);
@@ -21,10 +21,15 @@ import static org.junit.jupiter.api.Assertions.assertNull;
 import static org.junit.jupiter.api.Assertions.assertTrue;
 import static org.junit.jupiter.api.Assertions.fail;
 
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
 import java.io.InputStream;
 import java.text.DecimalFormatSymbols;
 import java.util.Locale;
 
+import org.apache.poi.hssf.usermodel.HSSFRow;
+import org.apache.poi.hssf.usermodel.HSSFSheet;
+import org.apache.poi.hssf.usermodel.HSSFWorkbook;
 import org.apache.poi.util.LocaleUtil;
 import org.junit.jupiter.api.Test;
 import org.xml.sax.ContentHandler;
@@ -513,6 +518,64 @@ public class ExcelParserTest extends TikaTest {
         }
     }
 
+    @Test
+    public void testStreamXlsRows() throws Exception {
+        //large enough for the rows to be written out in several chunks
+        byte[] xls = createWorkbook(3000, 5);
+        for (boolean includeMissingRows : new boolean[]{false, true}) {
+            OfficeParserConfig buffered = new OfficeParserConfig();
+            buffered.setIncludeMissingRows(includeMissingRows);
+            OfficeParserConfig streamed = new OfficeParserConfig();
+            streamed.setIncludeMissingRows(includeMissingRows);
+            streamed.setStreamXlsRows(true);
+            String expected = getXML(xls, buffered);
+            assertContains("<td>row 2999</td>", expected);
+            assertEquals(expected, getXML(xls, streamed));
+        }
+
+        OfficeParserConfig streamed = new OfficeParserConfig();
+        streamed.setStreamXlsRows(true);
+        ParseContext context = new ParseContext();
+        context.set(OfficeParserConfig.class, streamed);
+        for (String file : new String[]{"testEXCEL.xls", "testEXCEL_headers_footers.xls",
+                "testEXCEL_textbox.xls", "testEXCEL_hyperlinks.xls"}) {
+            assertEquals(getXML(file).xml, getXML(file, context).xml, file);
+        }
+    }
+
+    private String getXML(byte[] xls, OfficeParserConfig config) throws Exception {
+        ParseContext context = new ParseContext();
+        context.set(Locale.class, Locale.US);
+        context.set(OfficeParserConfig.class, config);
+        return getXML(new ByteArrayInputStream(xls), new OfficeParser(), new Metadata(),
+                context).xml;
+    }
+
+    /**
+     * Creates a workbook with two sheets of text and number cells, with
+     * every seventh row left out.
+     */
+    private static byte[] createWorkbook(int rows, int columns) throws Exception {
+        try (HSSFWorkbook workbook = new HSSFWorkbook()) {
+            for (int s = 0; s < 2; s++) {
+                HSSFSheet sheet = workbook.createSheet("sheet " + s);
+                for (int r = 0; r < rows; r++) {
+                    if (r % 7 == 3) {
+                        continue;
+                    }
+                    HSSFRow row = sheet.createRow(r);
+                    row.createCell(0).setCellValue("row " + r);
+                    for (int c = 1; c < columns; c++) {
+                        row.createCell(c).setCellValue(r * c);
+                    }
+                }
+            }
+            ByteArrayOutputStream bos = new ByteArrayOutputStream();
+            workbook.write(bos);
+            return bos.toByteArray();
+        }
+    }
+
     @Test
     public void testTextBox() throws Exception {
         String xml = getXML("testEXCEL_textbox.xls").xml;
@@ -0,0 +1,98 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.tika.parser.microsoft;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import org.junit.jupiter.api.Test;
+
+public class SheetCellsTest {
+
+    @Test
+    public void testInOrder() {
+        SheetCells cells = new SheetCells();
+        List<Cell> duplicates = new ArrayList<>();
+        Cell a = new TextCell("a");
+        Cell b = new TextCell("b");
+        assertTrue(cells.add(0, 3, a));
+        assertTrue(cells.add(2, 0, b));
+        assertFalse(cells.add(2, 0, new TextCell("dup")));
+        assertEquals(2, cells.size());
+        assertSame(b, cells.get(2, 0, duplicates));
+        assertNull(cells.get(1, 0, duplicates));
+        assertEquals(SheetCells.key(2, 0), cells.maxKey());
+        assertEquals(0, duplicates.size());
+
+        cells.clear();
+        assertTrue(cells.isEmpty());
+        assertEquals(-1, cells.maxKey());
+    }
+
+    @Test
+    public void testOutOfOrder() {
+        SheetCells cells = new SheetCells();
+        Random random = new Random(42);
+        List<long[]> positions = new ArrayList<>();
+        for (int row = 0; row < 300; row++) {
+            for (int column = 0; column < 10; column++) {
+                positions.add(new long[]{row, column});
+            }
+        }
+        //mostly ordered, with some records swapped
+        for (int i = 0; i < 200; i++) {
+            int p = random.nextInt(positions.size());
+            int q = random.nextInt(positions.size());
+            long[] tmp = positions.get(p);
+            positions.set(p, positions.get(q));
+            positions.set(q, tmp);
+        }
+        for (long[] position : positions) {
+            cells.add((int) position[0], (int) position[1],
+                    new TextCell(position[0] + ":" + position[1]));
+        }
+        Cell first = new TextCell("first");
+        cells.add(5, 20, first);
+        cells.add(1, 20, new TextCell("other"));
+        Cell ignored = new TextCell("ignored");
+        cells.add(5, 20, ignored);
+        Cell late = new TextCell("late");
+        cells.add(0, 0, late);
+
+        List<Cell> duplicates = new ArrayList<>();
+        cells.sort(duplicates);
+        //in position order
+        assertEquals(2, duplicates.size());
+        assertSame(late, duplicates.get(0));
+        assertSame(ignored, duplicates.get(1));
+        assertEquals(3000 + 2, cells.size());
+        for (int i = 1; i < cells.size(); i++) {
+            assertTrue(cells.getKey(i - 1) < cells.getKey(i));
+        }
+        assertSame(first, cells.get(5, 20, duplicates));
+        assertEquals("Text Cell: \"299:9\"", cells.get(299, 9, duplicates).toString());
+        assertEquals(299, SheetCells.row(cells.maxKey()));
+        assertEquals(20, SheetCells.column(SheetCells.key(7, 20)));
+    }
+}
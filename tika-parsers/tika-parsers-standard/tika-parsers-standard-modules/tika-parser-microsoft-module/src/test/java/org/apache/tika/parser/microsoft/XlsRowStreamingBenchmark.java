@@ -0,0 +1,110 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.tika.parser.microsoft;
+
+import java.io.ByteArrayOutputStream;
+import java.lang.management.ManagementFactory;
+import java.lang.management.MemoryPoolMXBean;
+import java.lang.management.MemoryType;
+import java.lang.management.ThreadMXBean;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+import java.util.Locale;
+
+import org.apache.poi.hssf.usermodel.HSSFRow;
+import org.apache.poi.hssf.usermodel.HSSFSheet;
+import org.apache.poi.hssf.usermodel.HSSFWorkbook;
+import org.xml.sax.helpers.DefaultHandler;
+
+import org.apache.tika.io.TikaInputStream;
+import org.apache.tika.metadata.Metadata;
+import org.apache.tika.parser.ParseContext;
+
+/**
+ * Compares the memory used to parse large .xls files with and without
+ * {@link OfficeParserConfig#setStreamXlsRows(boolean)}.
+ * <p>
+ * Pass the .xls files to parse as arguments, or none to parse a generated
+ * workbook with a million cells.  Run with a fixed heap, e.g.
+ * <code>-Xmx1g</code>, for the peak heap figures to be comparable.  For
+ * allocation figures, run it under a profiler, e.g. with
+ * <code>-XX:StartFlightRecording</code>.
+ */
+public class XlsRowStreamingBenchmark {
+
+    public static void main(String[] args) throws Exception {
+        if (args.length == 0) {
+            benchmark("generated 65000x16", createWorkbook(65000, 16));
+        }
+        for (String arg : args) {
+            benchmark(arg, Files.readAllBytes(Paths.get(arg)));
+        }
+    }
+
+    private static void benchmark(String name, byte[] xls) throws Exception {
+        //warm up
+        parse(xls, false);
+        parse(xls, true);
+        for (boolean stream : new boolean[]{false, true}) {
+            System.gc();
+            for (MemoryPoolMXBean pool : ManagementFactory.getMemoryPoolMXBeans()) {
+                pool.resetPeakUsage();
+            }
+            ThreadMXBean threads = ManagementFactory.getThreadMXBean();
+            long cpu = threads.getCurrentThreadCpuTime();
+            long start = System.currentTimeMillis();
+            parse(xls, stream);
+            long millis = System.currentTimeMillis() - start;
+            cpu = threads.getCurrentThreadCpuTime() - cpu;
+            long peak = 0;
+            for (MemoryPoolMXBean pool : ManagementFactory.getMemoryPoolMXBeans()) {
+                if (pool.getType() == MemoryType.HEAP) {
+                    peak += pool.getPeakUsage().getUsed();
+                }
+            }
+            System.out.printf(Locale.ROOT,
+                    "%s, streamXlsRows=%s: %,d bytes peak heap, %dms, %dms cpu%n",
+                    name, stream, peak, millis, cpu / 1_000_000);
+        }
+    }
+
+    private static void parse(byte[] xls, boolean stream) throws Exception {
+        OfficeParserConfig config = new OfficeParserConfig();
+        config.setStreamXlsRows(stream);
+        ParseContext context = new ParseContext();
+        context.set(OfficeParserConfig.class, config);
+        try (TikaInputStream tis = TikaInputStream.get(xls)) {
+            new OfficeParser().parse(tis, new DefaultHandler(), new Metadata(), context);
+        }
+    }
+
+    private static byte[] createWorkbook(int rows, int columns) throws Exception {
+        try (HSSFWorkbook workbook = new HSSFWorkbook()) {
+            HSSFSheet sheet = workbook.createSheet();
+            for (int r = 0; r < rows; r++) {
+                HSSFRow row = sheet.createRow(r);
+                row.createCell(0).setCellValue("row " + r);
+                for (int c = 1; c < columns; c++) {
+                    row.createCell(c).setCellValue(r * c);
+                }
+            }
+            ByteArrayOutputStream bos = new ByteArrayOutputStream();
+            workbook.write(bos);
+            return bos.toByteArray();
+        }
+    }
+}
@@ -17,12 +17,17 @@
 package org.apache.tika.parser.microsoft.libpst;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
 import static org.junit.jupiter.api.Assumptions.assumeTrue;
 
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.FileTime;
 import java.util.List;
 
 import org.junit.jupiter.api.BeforeAll;
 import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
 
 import org.apache.tika.TikaTest;
 import org.apache.tika.config.TikaConfig;
@@ -32,6 +37,7 @@ import org.apache.tika.metadata.Metadata;
 import org.apache.tika.metadata.PST;
 import org.apache.tika.metadata.TikaCoreProperties;
 import org.apache.tika.parser.AutoDetectParser;
+import org.apache.tika.parser.ParseContext;
 import org.apache.tika.parser.Parser;
 
 public class TestLibPstParser extends TikaTest {
@@ -115,4 +121,70 @@ public class TestLibPstParser extends TikaTest {
                 .get(Metadata.CONTENT_TYPE));
     }
 
+    @Test
+    public void testStreaming() throws Exception {
+        if (!LIBPST_EXISTS) {
+            return;
+        }
+        TikaConfig tikaConfig = new TikaConfig(TestLibPstParser.class.getResourceAsStream("tika-libpst-eml-config.xml"));
+        Parser p = new AutoDetectParser(tikaConfig);
+        LibPstParserConfig config = new LibPstParserConfig();
+        config.setProcessEmailAsMsg(false);
+        config.setStreaming(true);
+        ParseContext parseContext = new ParseContext();
+        parseContext.set(LibPstParserConfig.class, config);
+
+        List<Metadata> metadataList = getRecursiveMetadata("testPST.pst", p, new Metadata(), parseContext, false);
+        //libpst is non-deterministic -- sometimes we get 10, sometimes 8
+        assumeTrue(metadataList.size() == 10);
+        assertEquals("org.apache.tika.parser.microsoft.libpst.LibPstParser", metadataList
+                .get(0)
+                .getValues(TikaCoreProperties.TIKA_PARSED_BY)[1]);
+        //the messages are reported in the order readpst writes them
+        int validPaths = 0;
+        boolean found = false;
+        for (int i = 1; i < metadataList.size(); i++) {
+            String path = metadataList
+                    .get(i)
+                    .get(PST.PST_FOLDER_PATH);
+            if (path != null) {
+                assertEquals("hong-thai.nguyen", path);
+                validPaths++;
+            }
+            String content = metadataList
+                    .get(i)
+                    .get(TikaCoreProperties.TIKA_CONTENT);
+            if (content != null && content.contains("See you there!")) {
+                found = true;
+            }
+        }
+        assertEquals(7, validPaths);
+        assertTrue(found);
+    }
+
+    @Test
+    public void testCompletedFiles(@TempDir Path outDir) throws Exception {
+        //does not need readpst -- fakes its output directory
+        Path folder = Files.createDirectory(outDir.resolve("folder"));
+        Path first = touch(folder.resolve("1.eml"), 1000);
+        Path second = touch(outDir.resolve("2.eml"), 2000);
+        Path third = touch(folder.resolve("3.eml"), 3000);
+        Path fourth = touch(outDir.resolve("4.eml"), 3000);
+
+        //files modified at the newest time may still be being written; ties sort by path
+        assertEquals(List.of(first, second), LibPstParser.completedFiles(outDir, false));
+        assertEquals(List.of(first, second, fourth, third), LibPstParser.completedFiles(outDir, true));
+
+        Files.delete(first);
+        Files.delete(second);
+        Files.delete(third);
+        Files.delete(fourth);
+        assertTrue(LibPstParser.completedFiles(outDir, false).isEmpty());
+    }
+
+    private static Path touch(Path path, long millis) throws Exception {
+        Files.createFile(path);
+        Files.setLastModifiedTime(path, FileTime.fromMillis(millis));
+        return path;
+    }
 }
@@ -1690,6 +1690,29 @@ public class OOXMLParserTest extends MultiThreadedTikaTest {
 
     }
 
+    @Test
+    public void testXLSXSpilledSharedStrings() throws Exception {
+        for (boolean concatenatePhoneticRuns : new boolean[]{true, false}) {
+            for (String file : new String[]{"testEXCEL.xlsx", "testEXCEL_phonetic.xlsx",
+                    "testEXCEL_hyperlinks.xlsx", "testEXCEL-formats.xlsx"}) {
+                OfficeParserConfig inMemory = new OfficeParserConfig();
+                inMemory.setConcatenatePhoneticRuns(concatenatePhoneticRuns);
+                ParseContext context = new ParseContext();
+                context.set(OfficeParserConfig.class, inMemory);
+                String expected = getXML(file, context).xml;
+                //spill right away, and part way through the table
+                for (long threshold : new long[]{0, 20}) {
+                    OfficeParserConfig spilled = new OfficeParserConfig();
+                    spilled.setConcatenatePhoneticRuns(concatenatePhoneticRuns);
+                    spilled.setSharedStringsSpillThreshold(threshold);
+                    context = new ParseContext();
+                    context.set(OfficeParserConfig.class, spilled);
+                    assertEquals(expected, getXML(file, context).xml, file);
+                }
+            }
+        }
+    }
+
     @Test
     public void testDOCXPhoneticStrings() throws Exception {
 
@@ -0,0 +1,72 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.tika.parser.microsoft.ooxml;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.InputStream;
+
+import org.apache.poi.openxml4j.opc.OPCPackage;
+import org.apache.poi.xssf.eventusermodel.ReadOnlySharedStringsTable;
+import org.junit.jupiter.api.Test;
+
+import org.apache.tika.parser.ParseContext;
+
+public class SpillingSharedStringsTableTest {
+
+    @Test
+    public void testSpill() throws Exception {
+        for (String file : new String[]{"testEXCEL.xlsx", "testEXCEL_phonetic.xlsx"}) {
+            try (InputStream is = getClass().getResourceAsStream("/test-documents/" + file);
+                    OPCPackage pkg = OPCPackage.open(is)) {
+                ReadOnlySharedStringsTable expected = new ReadOnlySharedStringsTable(pkg, true);
+                assertTrue(expected.getUniqueCount() > 0, file);
+                for (long threshold : new long[]{0, 20, Long.MAX_VALUE}) {
+                    try (SpillingSharedStringsTable strings = new SpillingSharedStringsTable(pkg,
+                            true, threshold, new ParseContext())) {
+                        if (threshold != 20) {
+                            assertEquals(threshold == 0, strings.isSpilled(), file);
+                        }
+                        assertEquals(expected.getCount(), strings.getCount(), file);
+                        assertEquals(expected.getUniqueCount(), strings.getUniqueCount(), file);
+                        //twice, to go through the cache
+                        for (int pass = 0; pass < 2; pass++) {
+                            for (int i = 0; i < expected.getUniqueCount(); i++) {
+                                assertEquals(expected.getItemAt(i).getString(),
+                                        strings.getItemAt(i).getString(), file);
+                            }
+                        }
+                    }
+                }
+            }
+        }
+    }
+
+    @Test
+    public void testCloseDeletesSpill() throws Exception {
+        try (InputStream is = getClass().getResourceAsStream("/test-documents/testEXCEL.xlsx");
+                OPCPackage pkg = OPCPackage.open(is)) {
+            SpillingSharedStringsTable strings =
+                    new SpillingSharedStringsTable(pkg, true, 0, new ParseContext());
+            assertTrue(strings.isSpilled());
+            strings.close();
+            assertFalse(strings.isSpilled());
+        }
+    }
+}
@@ -21,6 +21,7 @@ import static org.junit.jupiter.api.Assertions.assertNull;
 import static org.junit.jupiter.api.Assertions.assertTrue;
 import static org.junit.jupiter.api.Assertions.fail;
 
+import java.util.Arrays;
 import java.util.List;
 
 import org.junit.jupiter.api.Test;
@@ -32,6 +33,8 @@ import org.apache.tika.metadata.Metadata;
 import org.apache.tika.metadata.PST;
 import org.apache.tika.metadata.TikaCoreProperties;
 import org.apache.tika.mime.MediaType;
+import org.apache.tika.parser.ParallelEmbeddedConfig;
+import org.apache.tika.parser.ParseContext;
 import org.apache.tika.parser.Parser;
 
 public class OutlookPSTParserTest extends TikaTest {
@@ -121,4 +124,25 @@ public class OutlookPSTParserTest extends TikaTest {
         //TODO: figure out why the bold markup isn't coming through if we do extract then parse
         // the bodyhtml
     }
+
+    @Test
+    public void testParallel() throws Exception {
+        XMLResult expected = getXML("testPST.pst");
+        ParseContext context = new ParseContext();
+        context.set(ParallelEmbeddedConfig.class, new ParallelEmbeddedConfig(4));
+        XMLResult actual = getXML("testPST.pst", context);
+        assertEquals(body(expected.xml), body(actual.xml));
+
+        //the folders may be completed in a different order
+        String[] expectedProgress = expected.metadata.getValues(PST.FOLDER_PROGRESS);
+        String[] actualProgress = actual.metadata.getValues(PST.FOLDER_PROGRESS);
+        assertTrue(expectedProgress.length > 0);
+        Arrays.sort(expectedProgress);
+        Arrays.sort(actualProgress);
+        assertEquals(Arrays.asList(expectedProgress), Arrays.asList(actualProgress));
+    }
+
+    private static String body(String xml) {
+        return xml.substring(xml.indexOf("<body>"));
+    }
 }
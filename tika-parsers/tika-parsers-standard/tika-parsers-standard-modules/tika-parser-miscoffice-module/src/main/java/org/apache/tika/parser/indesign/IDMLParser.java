@@ -24,9 +24,10 @@ import java.util.Collections;
 import java.util.Enumeration;
 import java.util.Set;
 import java.util.zip.ZipEntry;
-import java.util.zip.ZipFile;
 import java.util.zip.ZipInputStream;
 
+import org.apache.commons.compress.archivers.zip.ZipArchiveEntry;
+import org.apache.commons.compress.archivers.zip.ZipFile;
 import org.apache.commons.io.IOUtils;
 import org.xml.sax.ContentHandler;
 import org.xml.sax.SAXException;
@@ -40,6 +41,7 @@ import org.apache.tika.parser.Parser;
 import org.apache.tika.parser.xmp.XMPMetadataExtractor;
 import org.apache.tika.sax.EndDocumentShieldingContentHandler;
 import org.apache.tika.sax.XHTMLContentHandler;
+import org.apache.tika.zip.utils.SharedZipFile;
 
 
 /**
@@ -85,13 +87,9 @@ public class IDMLParser implements Parser {
         ZipFile zipFile = null;
         ZipInputStream zipStream = null;
         if (stream instanceof TikaInputStream) {
-            TikaInputStream tis = (TikaInputStream) stream;
-            Object container = ((TikaInputStream) stream).getOpenContainer();
-            if (container instanceof ZipFile) {
-                zipFile = (ZipFile) container;
-            } else if (tis.hasFile()) {
-                zipFile = new ZipFile(tis.getFile());
-            } else {
+            //share the zip file opened during detection, if any
+            zipFile = SharedZipFile.get((TikaInputStream) stream);
+            if (zipFile == null) {
                 zipStream = new ZipInputStream(stream);
             }
         } else {
@@ -103,11 +101,8 @@ public class IDMLParser implements Parser {
         EndDocumentShieldingContentHandler handler = new EndDocumentShieldingContentHandler(xhtml);
 
         if (zipFile != null) {
-            try {
-                handleZipFile(zipFile, metadata, context, handler);
-            } finally {
-                zipFile.close();
-            }
+            //the zip file belongs to the stream, which closes it
+            handleZipFile(zipFile, metadata, context, handler);
         } else {
             try {
                 handleZipStream(zipStream, metadata, context, handler);
@@ -142,12 +137,12 @@ public class IDMLParser implements Parser {
     private void handleZipFile(ZipFile zipFile, Metadata metadata, ParseContext context, ContentHandler handler)
             throws IOException, TikaException, SAXException {
 
-        ZipEntry entry = zipFile.getEntry(META_NAME);
+        ZipArchiveEntry entry = zipFile.getEntry(META_NAME);
         if (entry != null) {
             handleZipEntry(entry, zipFile.getInputStream(entry), metadata, context, handler);
         }
 
-        Enumeration<? extends ZipEntry> entries = zipFile.entries();
+        Enumeration<ZipArchiveEntry> entries = zipFile.getEntries();
         while (entries.hasMoreElements()) {
             entry = entries.nextElement();
             if (!META_NAME.equals(entry.getName())) {
@@ -28,9 +28,10 @@ import java.util.HashSet;
 import java.util.List;
 import java.util.Set;
 import java.util.zip.ZipEntry;
-import java.util.zip.ZipFile;
 import java.util.zip.ZipInputStream;
 
+import org.apache.commons.compress.archivers.zip.ZipArchiveEntry;
+import org.apache.commons.compress.archivers.zip.ZipFile;
 import org.apache.commons.io.IOUtils;
 import org.apache.commons.io.input.CloseShieldInputStream;
 import org.xml.sax.ContentHandler;
@@ -52,6 +53,7 @@ import org.apache.tika.sax.EmbeddedContentHandler;
 import org.apache.tika.sax.EndDocumentShieldingContentHandler;
 import org.apache.tika.sax.XHTMLContentHandler;
 import org.apache.tika.utils.XMLReaderUtils;
+import org.apache.tika.zip.utils.SharedZipFile;
 
 /**
  * OpenOffice parser
@@ -136,13 +138,9 @@ public class OpenDocumentParser implements Parser {
         ZipFile zipFile = null;
         ZipInputStream zipStream = null;
         if (stream instanceof TikaInputStream) {
-            TikaInputStream tis = (TikaInputStream) stream;
-            Object container = ((TikaInputStream) stream).getOpenContainer();
-            if (container instanceof ZipFile) {
-                zipFile = (ZipFile) container;
-            } else if (tis.hasFile()) {
-                zipFile = new ZipFile(tis.getFile());
-            } else {
+            //share the zip file opened during detection, if any
+            zipFile = SharedZipFile.get((TikaInputStream) stream);
+            if (zipFile == null) {
                 zipStream = new ZipInputStream(stream);
             }
         } else {
@@ -158,12 +156,8 @@ public class OpenDocumentParser implements Parser {
 
         try {
             if (zipFile != null) {
-                try {
-                    handleZipFile(zipFile, metadata, context, handler, embeddedDocumentUtil);
-                } finally {
-                    //Do we want to close silently == catch an exception here?
-                    zipFile.close();
-                }
+                //the zip file belongs to the stream, which closes it
+                handleZipFile(zipFile, metadata, context, handler, embeddedDocumentUtil);
             } else {
                 try {
                     handleZipStream(zipStream, metadata, context, handler, embeddedDocumentUtil);
@@ -231,7 +225,7 @@ public class OpenDocumentParser implements Parser {
         //  rest of the file afterwards (TIKA-1353)
         // Only possible to guarantee that when opened from a file not a stream
 
-        ZipEntry entry = zipFile.getEntry(MANIFEST_NAME);
+        ZipArchiveEntry entry = zipFile.getEntry(MANIFEST_NAME);
         if (entry != null) {
             handleZipEntry(entry, zipFile.getInputStream(entry), metadata, context,
                     handler, embeddedDocumentUtil);
@@ -243,7 +237,7 @@ public class OpenDocumentParser implements Parser {
                     handler, embeddedDocumentUtil);
         }
 
-        Enumeration<? extends ZipEntry> entries = zipFile.entries();
+        Enumeration<ZipArchiveEntry> entries = zipFile.getEntries();
         while (entries.hasMoreElements()) {
             entry = entries.nextElement();
             if (!META_NAME.equals(entry.getName())) {
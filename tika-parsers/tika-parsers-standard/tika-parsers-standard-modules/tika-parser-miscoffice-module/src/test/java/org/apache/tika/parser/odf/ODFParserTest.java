@@ -17,6 +17,7 @@
 package org.apache.tika.parser.odf;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
 import static org.junit.jupiter.api.Assertions.assertThrows;
 import static org.junit.jupiter.api.Assertions.assertTrue;
 import static org.junit.jupiter.api.Assertions.fail;
@@ -34,6 +35,7 @@ import java.util.concurrent.ExecutorService;
 import java.util.concurrent.Executors;
 import java.util.concurrent.Future;
 
+import org.apache.commons.compress.archivers.zip.ZipFile;
 import org.junit.jupiter.api.Test;
 import org.xml.sax.ContentHandler;
 import org.xml.sax.helpers.DefaultHandler;
@@ -289,6 +291,27 @@ public class ODFParserTest extends TikaTest {
         }
     }
 
+    @Test
+    public void testSharedZipFile() throws Exception {
+        try (TikaInputStream tis = TikaInputStream
+                .get(getResourceAsUrl("/test-documents/testODFwithOOo3.odt"))) {
+            Metadata metadata = new Metadata();
+            ContentHandler handler = new BodyContentHandler();
+            AUTO_DETECT_PARSER.parse(tis, handler, metadata, new ParseContext());
+            assertContains("Tika is part of the Lucene project.", handler.toString());
+
+            //the parser should have used the zip file opened by the detector
+            Object container = tis.getOpenContainer();
+            assertTrue(container instanceof ZipFile);
+
+            //and it should still be open for the next one
+            handler = new BodyContentHandler();
+            new OpenDocumentParser().parse(tis, handler, new Metadata(), new ParseContext());
+            assertContains("Tika is part of the Lucene project.", handler.toString());
+            assertSame(container, tis.getOpenContainer());
+        }
+    }
+
     @Test
     public void testNPEFromFile() throws Exception {
         OpenDocumentParser parser = new OpenDocumentParser();
@@ -128,6 +128,8 @@ public class CompressorParser implements Parser {
 
     private int memoryLimitInKb = 100000;//100MB
 
+    private int decompressionThreads = 1;
+
     /**
      * @param stream stream
      * @return MediaType
@@ -178,22 +180,26 @@ public class CompressorParser implements Parser {
             stream = new BufferedInputStream(CloseShieldInputStream.wrap(stream));
         }
 
-        CompressorInputStream cis;
+        InputStream cis;
         try {
             CompressorParserOptions options =
                     context.get(CompressorParserOptions.class, metadata1 -> decompressConcatenated);
+            boolean concatenated = options.decompressConcatenated(metadata);
             CompressorStreamFactory factory =
-                    new CompressorStreamFactory(options.decompressConcatenated(metadata),
-                            memoryLimitInKb);
+                    new CompressorStreamFactory(concatenated, memoryLimitInKb);
             //if we've already identified it via autodetect
             //trust that and go with the appropriate name
             //to avoid calling CompressorStreamFactory.detect() twice
             String name = getStreamName(metadata);
-            if (name != null) {
+            if (name != null && concatenated && decompressionThreads > 1 &&
+                    ParallelMemberInputStream.isSplittable(name)) {
+                cis = new ParallelMemberInputStream(stream, name, factory, decompressionThreads);
+            } else if (name != null) {
                 cis = factory.createCompressorInputStream(name, stream);
             } else {
-                cis = factory.createCompressorInputStream(stream);
-                MediaType type = getMediaType(cis);
+                CompressorInputStream detected = factory.createCompressorInputStream(stream);
+                MediaType type = getMediaType(detected);
+                cis = detected;
                 if (!type.equals(MediaType.OCTET_STREAM)) {
                     metadata.set(CONTENT_TYPE, type.toString());
                 }
@@ -269,4 +275,24 @@ public class CompressorParser implements Parser {
         return this.decompressConcatenated;
     }
 
+    /**
+     * Number of threads for decompressing the members of concatenated gzip
+     * and zstd streams concurrently.  This only applies when concatenated
+     * streams are decompressed, and only to members whose compressed size
+     * is known up front, like the blocks of a BGZF (bgzip) file.  The rest
+     * is decompressed sequentially.  The default, 1, decompresses everything
+     * sequentially.
+     *
+     * @param decompressionThreads number of threads
+     * @since 4.0.0
+     */
+    @Field
+    public void setDecompressionThreads(int decompressionThreads) {
+        this.decompressionThreads = decompressionThreads;
+    }
+
+    public int getDecompressionThreads() {
+        return decompressionThreads;
+    }
+
 }
@@ -25,13 +25,16 @@ import static org.apache.tika.detect.zip.PackageConstants.JAR;
 import static org.apache.tika.detect.zip.PackageConstants.SEVENZ;
 import static org.apache.tika.detect.zip.PackageConstants.TAR;
 import static org.apache.tika.detect.zip.PackageConstants.ZIP;
+import static org.apache.tika.sax.XHTMLContentHandler.XHTML;
 
 import java.io.BufferedInputStream;
+import java.io.Closeable;
 import java.io.IOException;
 import java.io.InputStream;
 import java.nio.charset.Charset;
 import java.util.Collections;
 import java.util.Date;
+import java.util.Enumeration;
 import java.util.HashSet;
 import java.util.Set;
 import java.util.concurrent.atomic.AtomicInteger;
@@ -53,6 +56,8 @@ import org.apache.commons.compress.archivers.zip.UnsupportedZipFeatureException;
 import org.apache.commons.compress.archivers.zip.UnsupportedZipFeatureException.Feature;
 import org.apache.commons.compress.archivers.zip.ZipArchiveEntry;
 import org.apache.commons.compress.archivers.zip.ZipArchiveInputStream;
+import org.apache.commons.compress.archivers.zip.ZipFile;
+import org.apache.commons.io.IOUtils;
 import org.apache.commons.io.input.CloseShieldInputStream;
 import org.apache.commons.io.input.UnsynchronizedByteArrayInputStream;
 import org.xml.sax.ContentHandler;
@@ -71,9 +76,12 @@ import org.apache.tika.metadata.Metadata;
 import org.apache.tika.metadata.TikaCoreProperties;
 import org.apache.tika.mime.MediaType;
 import org.apache.tika.parser.AbstractEncodingDetectorParser;
+import org.apache.tika.parser.EmbeddedParseQueue;
+import org.apache.tika.parser.ParallelEmbeddedConfig;
 import org.apache.tika.parser.ParseContext;
 import org.apache.tika.parser.PasswordProvider;
 import org.apache.tika.sax.XHTMLContentHandler;
+import org.apache.tika.zip.utils.SharedZipFile;
 
 /**
  * Parser for various packaging formats. Package entries will be written to
@@ -109,6 +117,8 @@ public class PackageParser extends AbstractEncodingDetectorParser {
     private static final int MARK_LIMIT = 100 * 1024 * 1024; // 100M
     // The number of bytes of entry name to detect charset properly
     private static final int MIN_BYTES_FOR_DETECTING_CHARSET = 100;
+    // entries of up to this size are copied to memory when parsed concurrently
+    private static final int MAX_IN_MEMORY_ENTRY = 1024 * 1024;
 
 
     static final Set<MediaType> loadPackageSpecializations() {
@@ -206,8 +216,15 @@ public class PackageParser extends AbstractEncodingDetectorParser {
     }
 
     protected static Metadata handleEntryMetadata(String name, Date createAt, Date modifiedAt,
-                                                  Long size, XHTMLContentHandler xhtml)
+                                                  Long size, ContentHandler handler)
             throws SAXException, IOException, TikaException {
+        Metadata entrydata = entryMetadata(name, createAt, modifiedAt, size);
+        writeEntryMarker(entrydata, handler);
+        return entrydata;
+    }
+
+    private static Metadata entryMetadata(String name, Date createAt, Date modifiedAt,
+                                          Long size) {
         Metadata entrydata = new Metadata();
         if (createAt != null) {
             entrydata.set(TikaCoreProperties.CREATED, createAt);
@@ -221,15 +238,21 @@ public class PackageParser extends AbstractEncodingDetectorParser {
         if (name != null && name.length() > 0) {
             name = name.replace("\\", "/");
             entrydata.set(TikaCoreProperties.RESOURCE_NAME_KEY, name);
+            entrydata.set(TikaCoreProperties.EMBEDDED_RELATIONSHIP_ID, name);
+        }
+        return entrydata;
+    }
+
+    private static void writeEntryMarker(Metadata entrydata, ContentHandler handler)
+            throws SAXException {
+        String name = entrydata.get(TikaCoreProperties.EMBEDDED_RELATIONSHIP_ID);
+        if (name != null) {
             AttributesImpl attributes = new AttributesImpl();
             attributes.addAttribute("", "class", "class", "CDATA", "embedded");
             attributes.addAttribute("", "id", "id", "CDATA", name);
-            xhtml.startElement("div", attributes);
-            xhtml.endElement("div");
-
-            entrydata.set(TikaCoreProperties.EMBEDDED_RELATIONSHIP_ID, name);
+            handler.startElement(XHTML, "div", "div", attributes);
+            handler.endElement(XHTML, "div", "div");
         }
-        return entrydata;
     }
 
     private boolean detectCharsetsInEntryNames = true;
@@ -256,12 +279,160 @@ public class PackageParser extends AbstractEncodingDetectorParser {
 
         TemporaryResources tmp = new TemporaryResources();
         try {
-            _parse(stream, handler, metadata, context, tmp);
+            if (!parseConcurrently(stream, handler, metadata, context, tmp)) {
+                _parse(stream, handler, metadata, context, tmp);
+            }
         } finally {
             tmp.close();
         }
     }
 
+    /**
+     * Parses the entries of a file backed zip or 7z archive concurrently, if
+     * a {@link ParallelEmbeddedConfig} in the parse context asks for it.
+     * Zip entries are read through the zip file's central directory, so each
+     * entry is decompressed by the thread that parses it.  7z archives are
+     * usually solid, so their entries are decompressed one after the other
+     * and copied before they are handed over.  The output is written in
+     * archive order by an {@link EmbeddedParseQueue}.
+     *
+     * @return <code>false</code> if the archive has to be parsed as a stream
+     */
+    private boolean parseConcurrently(InputStream stream, ContentHandler handler,
+                                      Metadata metadata, ParseContext context,
+                                      TemporaryResources tmp)
+            throws TikaException, IOException, SAXException {
+        TikaInputStream tis = TikaInputStream.cast(stream);
+        if (tis == null || !tis.hasFile() || !EmbeddedParseQueue.isParallel(context) ||
+                context.get(ArchiveStreamFactory.class) != null) {
+            return false;
+        }
+        String format;
+        try {
+            format = ArchiveStreamFactory.detect(tis);
+        } catch (ArchiveException e) {
+            return false;
+        }
+        ZipFile zipFile = null;
+        ArchiveInputStream sevenz = null;
+        if (ArchiveStreamFactory.ZIP.equals(format)) {
+            try {
+                zipFile = SharedZipFile.get(tis);
+            } catch (IOException e) {
+                //leave damaged files to the streaming parser
+                return false;
+            }
+            updateMediaType(ZIP, metadata);
+        } else if (ArchiveStreamFactory.SEVEN_Z.equals(format)) {
+            sevenz = new SevenZWrapper(openSevenZ(tis, metadata, context));
+            tmp.addResource(sevenz);
+            updateMediaType(SEVENZ, metadata);
+        } else {
+            return false;
+        }
+
+        EmbeddedDocumentExtractor extractor =
+                EmbeddedDocumentUtil.getEmbeddedDocumentExtractor(context);
+        XHTMLContentHandler xhtml = new XHTMLContentHandler(handler, metadata);
+        xhtml.startDocument();
+        //closing the queue waits for the tasks that are still running, so
+        //none of them writes after endDocument() or reads from the archive
+        //once it has been released
+        try (EmbeddedParseQueue queue = new EmbeddedParseQueue(xhtml, context)) {
+            if (zipFile != null) {
+                submitZipEntries(zipFile, extractor, metadata, queue);
+            } else {
+                submitEntries(sevenz, extractor, metadata, queue);
+            }
+            queue.finish();
+        } catch (UnsupportedZipFeatureException zfe) {
+            if (zfe.getFeature() == Feature.ENCRYPTION) {
+                throw new EncryptedDocumentException(zfe);
+            }
+            throw new TikaException("UnsupportedZipFeature", zfe);
+        } catch (PasswordRequiredException pre) {
+            throw new EncryptedDocumentException(pre);
+        } finally {
+            xhtml.endDocument();
+        }
+        return true;
+    }
+
+    private void submitZipEntries(ZipFile zipFile, EmbeddedDocumentExtractor extractor,
+                                  Metadata parentMetadata, EmbeddedParseQueue queue)
+            throws TikaException, IOException, SAXException {
+        Enumeration<ZipArchiveEntry> entries = zipFile.getEntriesInPhysicalOrder();
+        while (entries.hasMoreElements()) {
+            ZipArchiveEntry entry = entries.nextElement();
+            if (entry.isDirectory()) {
+                continue;
+            }
+            String name = getEntryName(entry, parentMetadata);
+            if (!zipFile.canReadEntryData(entry)) {
+                String unreadable = (name == null) ? "" : name;
+                if (entry.getGeneralPurposeBit().usesEncryption()) {
+                    EmbeddedDocumentUtil.recordEmbeddedStreamException(
+                            new EncryptedDocumentException(
+                                    "stream (" + unreadable + ") is encrypted"),
+                            parentMetadata);
+                }
+                if (unreadable.length() > 0) {
+                    queue.submit((handler, context) -> writeParagraph(unreadable, handler));
+                }
+                continue;
+            }
+            Metadata entrydata =
+                    entryMetadata(name, null, entry.getLastModifiedDate(), entry.getSize());
+            InputStream entryStream = null;
+            if (extractor.shouldParseEmbedded(entrydata)) {
+                //the zip file can't be read from several threads until the
+                //entry's data offset is known, so open the stream here
+                entryStream = zipFile.getInputStream(entry);
+            }
+            queue.submit(new EntryTask(entrydata, entryStream));
+        }
+    }
+
+    private void submitEntries(ArchiveInputStream ais, EmbeddedDocumentExtractor extractor,
+                               Metadata parentMetadata, EmbeddedParseQueue queue)
+            throws TikaException, IOException, SAXException {
+        ArchiveEntry entry;
+        while ((entry = ais.getNextEntry()) != null) {
+            if (entry.isDirectory()) {
+                continue;
+            }
+            Metadata entrydata = entryMetadata(getEntryName(entry, parentMetadata), null,
+                    entry.getLastModifiedDate(), entry.getSize());
+            InputStream entryStream = null;
+            if (extractor.shouldParseEmbedded(entrydata)) {
+                //the archive moves on to the next entry before this one is parsed
+                entryStream = copy(CloseShieldInputStream.wrap(ais), entry.getSize());
+            }
+            queue.submit(new EntryTask(entrydata, entryStream));
+        }
+    }
+
+    private static TikaInputStream copy(InputStream stream, long size) throws IOException {
+        if (size >= 0 && size <= MAX_IN_MEMORY_ENTRY) {
+            return TikaInputStream.get(IOUtils.toByteArray(stream));
+        }
+        TikaInputStream tis = TikaInputStream.get(stream);
+        try {
+            tis.getPath();
+        } catch (IOException e) {
+            tis.close();
+            throw e;
+        }
+        return tis;
+    }
+
+    private static void writeParagraph(String text, ContentHandler handler)
+            throws SAXException {
+        handler.startElement(XHTML, "p", "p", new AttributesImpl());
+        handler.characters(text.toCharArray(), 0, text.length());
+        handler.endElement(XHTML, "p", "p");
+    }
+
     private void _parse(InputStream stream, ContentHandler handler, Metadata metadata,
                 ParseContext context, TemporaryResources tmp)
             throws TikaException, IOException, SAXException {
@@ -289,27 +460,8 @@ public class PackageParser extends AbstractEncodingDetectorParser {
                 stream.reset();
                 TikaInputStream tstream = TikaInputStream.get(stream, tmp, metadata);
 
-                // Seven Zip suports passwords, was one given?
-                String password = null;
-                PasswordProvider provider = context.get(PasswordProvider.class);
-                if (provider != null) {
-                    password = provider.getPassword(metadata);
-                }
-
-                SevenZFile sevenz;
-                try {
-                    SevenZFile.Builder builder = new SevenZFile.Builder().setFile(tstream.getFile());
-                    if (password == null) {
-                        sevenz = builder.get();
-                    } else {
-                        sevenz = builder.setPassword(password.toCharArray()).get();
-                    }
-                } catch (PasswordRequiredException e) {
-                    throw new EncryptedDocumentException(e);
-                }
-
                 // Pending a fix for COMPRESS-269 / TIKA-1525, this bit is a little nasty
-                ais = new SevenZWrapper(sevenz);
+                ais = new SevenZWrapper(openSevenZ(tstream, metadata, context));
             } else {
                 tmp.close();
                 throw new TikaException("Unknown non-streaming format " + sne.getFormat(), sne);
@@ -352,6 +504,28 @@ public class PackageParser extends AbstractEncodingDetectorParser {
         }
     }
 
+    private static SevenZFile openSevenZ(TikaInputStream tstream, Metadata metadata,
+                                         ParseContext context)
+            throws IOException, TikaException {
+        // Seven Zip suports passwords, was one given?
+        String password = null;
+        PasswordProvider provider = context.get(PasswordProvider.class);
+        if (provider != null) {
+            password = provider.getPassword(metadata);
+        }
+
+        try {
+            SevenZFile.Builder builder = new SevenZFile.Builder().setFile(tstream.getFile());
+            if (password == null) {
+                return builder.get();
+            } else {
+                return builder.setPassword(password.toCharArray()).get();
+            }
+        } catch (PasswordRequiredException e) {
+            throw new EncryptedDocumentException(e);
+        }
+    }
+
     /**
      * Parse the entries of the zip archive
      *
@@ -413,7 +587,10 @@ public class PackageParser extends AbstractEncodingDetectorParser {
     }
 
     private void updateMediaType(ArchiveInputStream ais, Metadata metadata) {
-        MediaType type = getMediaType(ais);
+        updateMediaType(getMediaType(ais), metadata);
+    }
+
+    private void updateMediaType(MediaType type, Metadata metadata) {
         if (type.equals(MediaType.OCTET_STREAM)) {
             return;
         }
@@ -437,12 +614,9 @@ public class PackageParser extends AbstractEncodingDetectorParser {
         }
     }
 
-    private void parseEntry(ArchiveInputStream archive, ArchiveEntry entry,
-                            EmbeddedDocumentExtractor extractor, Metadata parentMetadata,
-                            XHTMLContentHandler xhtml)
-            throws SAXException, IOException, TikaException {
+    private String getEntryName(ArchiveEntry entry, Metadata parentMetadata) throws IOException {
         String name = entry.getName();
-        
+
         //Try to detect charset of archive entry in case of non-unicode filename is used
         if (detectCharsetsInEntryNames && entry instanceof ZipArchiveEntry) {
             // Extend short entry name to improve accuracy of charset detection
@@ -464,7 +638,15 @@ public class PackageParser extends AbstractEncodingDetectorParser {
                 name = new String(((ZipArchiveEntry) entry).getRawName(), candidate);
             }
         }
-        
+        return name;
+    }
+
+    private void parseEntry(ArchiveInputStream archive, ArchiveEntry entry,
+                            EmbeddedDocumentExtractor extractor, Metadata parentMetadata,
+                            XHTMLContentHandler xhtml)
+            throws SAXException, IOException, TikaException {
+        String name = getEntryName(entry, parentMetadata);
+
         if (archive.canReadEntryData(entry)) {
             // Fetch the metadata on the entry contained in the archive
             Metadata entrydata =
@@ -515,6 +697,46 @@ public class PackageParser extends AbstractEncodingDetectorParser {
         }
     }
 
+    /**
+     * Writes the marker of an archive entry and parses the entry, if it was
+     * selected, on one of the threads of an {@link EmbeddedParseQueue}.
+     */
+    private static class EntryTask implements EmbeddedParseQueue.Task, Closeable {
+
+        private final Metadata entrydata;
+
+        private final InputStream stream;
+
+        private EntryTask(Metadata entrydata, InputStream stream) {
+            this.entrydata = entrydata;
+            this.stream = stream;
+        }
+
+        @Override
+        public void parse(ContentHandler handler, ParseContext context)
+                throws IOException, SAXException, TikaException {
+            writeEntryMarker(entrydata, handler);
+            if (stream == null) {
+                return;
+            }
+            TemporaryResources tmp = new TemporaryResources();
+            try {
+                TikaInputStream tis = TikaInputStream.get(stream, tmp, entrydata);
+                EmbeddedDocumentUtil.getEmbeddedDocumentExtractor(context)
+                        .parseEmbedded(tis, handler, entrydata, true);
+            } finally {
+                tmp.dispose();
+            }
+        }
+
+        @Override
+        public void close() throws IOException {
+            if (stream != null) {
+                stream.close();
+            }
+        }
+    }
+
     // Pending a fix for COMPRESS-269, we have to wrap ourselves
     private static class SevenZWrapper extends ArchiveInputStream {
         private SevenZFile file;
@@ -0,0 +1,422 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.tika.parser.pkg;
+
+import java.io.ByteArrayInputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.ArrayDeque;
+import java.util.Arrays;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.apache.commons.compress.compressors.CompressorException;
+import org.apache.commons.compress.compressors.CompressorStreamFactory;
+import org.apache.commons.io.IOUtils;
+
+/**
+ * Decompresses the members of a concatenated gzip or zstd stream
+ * concurrently, and returns their output in order.
+ * <p>
+ * A member can only be handed to another thread if its compressed length is
+ * known without decompressing it.  That is the case for the blocks of a
+ * BGZF file (bgzip), which record their length in a <code>BC</code> extra
+ * field, and for zstd frames that declare their content size, whose blocks
+ * have headers with their lengths.  Zstd skippable frames are skipped.  At
+ * the first member that can't be split off this way, e.g. in a plain
+ * multi-member gzip file, the rest of the stream is decompressed
+ * sequentially by a regular concatenating decompressor stream.
+ * <p>
+ * At most <code>maxPending</code> members are read ahead and decompressed
+ * into memory.
+ * <p>
+ * The members are decompressed on threads of the stream's own, not on an
+ * {@link java.util.concurrent.ExecutorService} from the parse context: the
+ * reader waits for the members, and it may itself be running on such a
+ * pool, e.g. while parsing an embedded document concurrently.
+ */
+class ParallelMemberInputStream extends InputStream {
+
+    private static final AtomicInteger THREAD_COUNT = new AtomicInteger();
+
+    private static final int GZIP_HEADER_LENGTH = 10;
+
+    private static final int MAX_GZIP_EXTRA_LENGTH = 0xFFFF;
+
+    private static final int ZSTD_MAGIC = 0xFD2FB528;
+
+    private static final int ZSTD_SKIPPABLE_MAGIC = 0x184D2A50;
+
+    private static final int ZSTD_SKIPPABLE_MAGIC_MASK = 0xFFFFFFF0;
+
+    private static final int MAX_ZSTD_HEADER_LENGTH = 18;
+
+    /**
+     * Zstd frames that decompress to more than this are decompressed
+     * sequentially, so that the members held in memory stay small
+     */
+    static final long MAX_ZSTD_CONTENT_SIZE = 8 * 1024 * 1024;
+
+    private final InputStream raw;
+
+    private final String name;
+
+    private final CompressorStreamFactory factory;
+
+    private final ExecutorService executor;
+
+    private final int maxPending;
+
+    private final ArrayDeque<Future<byte[]>> pending = new ArrayDeque<>();
+
+    private byte[] current = new byte[0];
+
+    private int position = 0;
+
+    private boolean splitting = true;
+
+    private boolean started = false;
+
+    //decompressed size of the member that was read last
+    private int memberSize;
+
+    //decompresses the rest of the stream once members can't be split off
+    private InputStream tail;
+
+    /**
+     * @param raw        the compressed stream, which must support mark
+     * @param name       {@link CompressorStreamFactory#GZIP} or
+     *                   {@link CompressorStreamFactory#ZSTANDARD}
+     * @param factory    factory for decompressing the members, and the rest
+     *                   of the stream once members can't be split off
+     * @param maxThreads number of threads
+     */
+    ParallelMemberInputStream(InputStream raw, String name, CompressorStreamFactory factory,
+                              int maxThreads) {
+        if (!raw.markSupported()) {
+            throw new IllegalArgumentException("The stream must support mark");
+        }
+        this.raw = raw;
+        this.name = name;
+        this.factory = factory;
+        this.maxPending = 2 * maxThreads;
+        this.executor = Executors.newFixedThreadPool(maxThreads, r -> {
+            Thread thread = new Thread(r,
+                    "Tika Decompression Thread-" + THREAD_COUNT.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    static boolean isSplittable(String name) {
+        return CompressorStreamFactory.GZIP.equals(name) ||
+                CompressorStreamFactory.ZSTANDARD.equals(name);
+    }
+
+    @Override
+    public int read() throws IOException {
+        byte[] b = new byte[1];
+        int n;
+        while ((n = read(b, 0, 1)) == 0) {
+            //try again
+        }
+        return n < 0 ? -1 : b[0] & 0xFF;
+    }
+
+    @Override
+    public int read(byte[] b, int off, int len) throws IOException {
+        if (len == 0) {
+            return 0;
+        }
+        while (position >= current.length) {
+            if (!nextMember()) {
+                return tail == null ? -1 : tail.read(b, off, len);
+            }
+        }
+        int n = Math.min(len, current.length - position);
+        System.arraycopy(current, position, b, off, n);
+        position += n;
+        return n;
+    }
+
+    @Override
+    public int available() throws IOException {
+        return current.length - position;
+    }
+
+    /**
+     * Tops up the members in flight and moves on to the output of the
+     * oldest one.
+     *
+     * @return <code>false</code> if there are no more members in flight
+     */
+    private boolean nextMember() throws IOException {
+        while (splitting && pending.size() < maxPending) {
+            byte[] member = CompressorStreamFactory.GZIP.equals(name) ?
+                    readGzipMember() : readZstdFrame();
+            if (member == null) {
+                break;
+            }
+            if (member.length > 0) {
+                int size = memberSize;
+                pending.add(executor.submit(() -> decompress(member, size)));
+            }
+        }
+        Future<byte[]> future = pending.poll();
+        if (future == null) {
+            return false;
+        }
+        try {
+            current = future.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IOException("Interrupted while decompressing", e);
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof IOException) {
+                throw (IOException) e.getCause();
+            }
+            throw new IOException("Couldn't decompress a member", e.getCause());
+        }
+        position = 0;
+        return true;
+    }
+
+    private byte[] decompress(byte[] member, int size) throws IOException {
+        try (InputStream is = factory.createCompressorInputStream(name,
+                new ByteArrayInputStream(member))) {
+            byte[] bytes = new byte[size];
+            if (IOUtils.read(is, bytes) < size || is.read() != -1) {
+                throw new IOException("The " + name + " member doesn't have its declared size");
+            }
+            return bytes;
+        } catch (CompressorException e) {
+            throw new IOException(e);
+        }
+    }
+
+    /**
+     * Stops splitting members off, and decompresses the rest of the stream,
+     * from the mark on, sequentially.
+     */
+    private byte[] stopSplitting() throws IOException {
+        raw.reset();
+        splitting = false;
+        try {
+            tail = factory.createCompressorInputStream(name, raw);
+        } catch (CompressorException e) {
+            throw new IOException(e);
+        }
+        return null;
+    }
+
+    /**
+     * @return the next BGZF block, or <code>null</code> at the end of the
+     * stream or if the next member is not a BGZF block
+     */
+    private byte[] readGzipMember() throws IOException {
+        raw.mark(GZIP_HEADER_LENGTH + 2 + MAX_GZIP_EXTRA_LENGTH);
+        byte[] header = new byte[GZIP_HEADER_LENGTH + 2];
+        int n = IOUtils.read(raw, header);
+        if (n == 0 && started) {
+            splitting = false;
+            return null;
+        }
+        started = true;
+        //magic, deflate, FEXTRA
+        if (n < header.length || (header[0] & 0xFF) != 0x1F || (header[1] & 0xFF) != 0x8B ||
+                header[2] != 8 || (header[3] & 0x04) == 0) {
+            return stopSplitting();
+        }
+        int extraLength = (header[10] & 0xFF) | (header[11] & 0xFF) << 8;
+        byte[] extra = new byte[extraLength];
+        if (IOUtils.read(raw, extra) < extraLength) {
+            return stopSplitting();
+        }
+        int blockSize = -1;
+        for (int i = 0; i + 4 <= extraLength; ) {
+            int length = (extra[i + 2] & 0xFF) | (extra[i + 3] & 0xFF) << 8;
+            if (extra[i] == 'B' && extra[i + 1] == 'C' && length == 2 && i + 6 <= extraLength) {
+                blockSize = ((extra[i + 4] & 0xFF) | (extra[i + 5] & 0xFF) << 8) + 1;
+                break;
+            }
+            i += 4 + length;
+        }
+        int headerLength = header.length + extraLength;
+        if (blockSize < headerLength) {
+            return stopSplitting();
+        }
+        byte[] member = new byte[blockSize];
+        System.arraycopy(header, 0, member, 0, header.length);
+        System.arraycopy(extra, 0, member, header.length, extraLength);
+        readFully(member, headerLength);
+        //ISIZE, at most 64k for a BGZF block
+        memberSize = readIntLE(member, blockSize - 4);
+        if (memberSize < 0 || memberSize > 0x10000) {
+            throw new IOException("Corrupt BGZF block");
+        }
+        return member;
+    }
+
+    /**
+     * @return the next zstd frame, an empty array for a skippable frame, or
+     * <code>null</code> at the end of the stream or if the size of the next
+     * frame can't be determined up front
+     */
+    private byte[] readZstdFrame() throws IOException {
+        raw.mark(MAX_ZSTD_HEADER_LENGTH);
+        byte[] header = new byte[MAX_ZSTD_HEADER_LENGTH];
+        int n = IOUtils.read(raw, header, 0, 4);
+        if (n == 0 && started) {
+            splitting = false;
+            return null;
+        }
+        started = true;
+        if (n < 4) {
+            return stopSplitting();
+        }
+        int magic = readIntLE(header, 0);
+        if ((magic & ZSTD_SKIPPABLE_MAGIC_MASK) == ZSTD_SKIPPABLE_MAGIC) {
+            if (IOUtils.read(raw, header, 4, 4) < 4) {
+                return stopSplitting();
+            }
+            long size = readIntLE(header, 4) & 0xFFFFFFFFL;
+            if (IOUtils.skip(raw, size) < size) {
+                throw new EOFException("Truncated zstd skippable frame");
+            }
+            return new byte[0];
+        }
+        if (magic != ZSTD_MAGIC || IOUtils.read(raw, header, 4, 1) < 1) {
+            return stopSplitting();
+        }
+        int descriptor = header[4] & 0xFF;
+        boolean singleSegment = (descriptor & 0x20) != 0;
+        int dictionaryIdLength = new int[]{0, 1, 2, 4}[descriptor & 0x03];
+        int contentSizeLength = new int[]{singleSegment ? 1 : 0, 2, 4, 8}[descriptor >> 6];
+        boolean checksum = (descriptor & 0x04) != 0;
+        int headerLength = 5 + (singleSegment ? 0 : 1) + dictionaryIdLength + contentSizeLength;
+        if (contentSizeLength == 0 ||
+                IOUtils.read(raw, header, 5, headerLength - 5) < headerLength - 5) {
+            return stopSplitting();
+        }
+        long contentSize = 0;
+        for (int i = contentSizeLength - 1; i >= 0; i--) {
+            contentSize = contentSize << 8 | (header[headerLength - contentSizeLength + i] & 0xFF);
+        }
+        if (contentSizeLength == 2) {
+            contentSize += 256;
+        }
+        if (contentSize < 0 || contentSize > MAX_ZSTD_CONTENT_SIZE) {
+            return stopSplitting();
+        }
+        ByteArrayBuilder frame = new ByteArrayBuilder(headerLength + (int) contentSize / 2);
+        frame.write(header, 0, headerLength);
+        byte[] blockHeader = new byte[3];
+        boolean last = false;
+        while (!last) {
+            readFully(blockHeader);
+            frame.write(blockHeader, 0, 3);
+            int value = (blockHeader[0] & 0xFF) | (blockHeader[1] & 0xFF) << 8 |
+                    (blockHeader[2] & 0xFF) << 16;
+            last = (value & 0x01) != 0;
+            int type = (value >> 1) & 0x03;
+            int size = value >>> 3;
+            if (type == 3) {
+                throw new IOException("Reserved zstd block type");
+            }
+            //RLE blocks hold a single byte
+            frame.copy(raw, type == 1 ? 1 : size);
+        }
+        if (checksum) {
+            frame.copy(raw, 4);
+        }
+        memberSize = (int) contentSize;
+        return frame.toByteArray();
+    }
+
+    private void readFully(byte[] b) throws IOException {
+        readFully(b, 0);
+    }
+
+    private void readFully(byte[] b, int off) throws IOException {
+        if (IOUtils.read(raw, b, off, b.length - off) < b.length - off) {
+            throw new EOFException("Truncated " + name + " member");
+        }
+    }
+
+    private static int readIntLE(byte[] b, int off) {
+        return (b[off] & 0xFF) | (b[off + 1] & 0xFF) << 8 | (b[off + 2] & 0xFF) << 16 |
+                (b[off + 3] & 0xFF) << 24;
+    }
+
+    @Override
+    public void close() throws IOException {
+        for (Future<byte[]> future : pending) {
+            future.cancel(true);
+        }
+        pending.clear();
+        executor.shutdownNow();
+        try {
+            if (tail != null) {
+                tail.close();
+            }
+        } finally {
+            raw.close();
+        }
+    }
+
+    /**
+     * Growable byte array that can be filled straight from a stream.
+     */
+    private static class ByteArrayBuilder {
+
+        private byte[] bytes;
+
+        private int length = 0;
+
+        ByteArrayBuilder(int capacity) {
+            bytes = new byte[Math.max(capacity, 64)];
+        }
+
+        void write(byte[] b, int off, int len) {
+            ensureCapacity(len);
+            System.arraycopy(b, off, bytes, length, len);
+            length += len;
+        }
+
+        void copy(InputStream is, int len) throws IOException {
+            ensureCapacity(len);
+            if (IOUtils.read(is, bytes, length, len) < len) {
+                throw new EOFException("Truncated zstd frame");
+            }
+            length += len;
+        }
+
+        private void ensureCapacity(int len) {
+            if (length + len > bytes.length) {
+                bytes = Arrays.copyOf(bytes, Math.max(2 * bytes.length, length + len));
+            }
+        }
+
+        byte[] toByteArray() {
+            return length == bytes.length ? bytes : Arrays.copyOf(bytes, length);
+        }
+    }
+}
@@ -17,14 +17,28 @@
 package org.apache.tika.parser.pkg;
 
 import static java.nio.charset.StandardCharsets.US_ASCII;
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
 import static org.junit.jupiter.api.Assertions.assertEquals;
 
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
 import java.io.InputStream;
+import java.util.Set;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
 
+import org.apache.commons.io.IOUtils;
 import org.junit.jupiter.api.Test;
 import org.xml.sax.ContentHandler;
 
 import org.apache.tika.metadata.Metadata;
+import org.apache.tika.mime.MediaType;
+import org.apache.tika.parser.AbstractParser;
+import org.apache.tika.parser.ParseContext;
+import org.apache.tika.parser.Parser;
 import org.apache.tika.sax.BodyContentHandler;
 
 /**
@@ -57,4 +71,50 @@ public class GzipParserTest extends AbstractPkgTest {
         // Tar file starts with the directory name
         assertEquals("test-documents/", new String(tracker.lastSeenStart, 0, 15, US_ASCII));
     }
+
+    @Test
+    public void testParallelBgzf() throws Exception {
+        byte[] data = ParallelMemberInputStreamTest.text(50000);
+        assertArrayEquals(data, parseBgzf(data, new ParseContext()));
+    }
+
+    @Test
+    public void testParallelBgzfOnContextPool() throws Exception {
+        //the parse runs on the only thread of the context's pool, so the
+        //members must not be queued to that pool
+        byte[] data = ParallelMemberInputStreamTest.text(50000);
+        ExecutorService executor = Executors.newSingleThreadExecutor();
+        try {
+            ParseContext context = new ParseContext();
+            context.set(ExecutorService.class, executor);
+            Future<byte[]> parsed = executor.submit(() -> parseBgzf(data, context));
+            assertArrayEquals(data, parsed.get(60, TimeUnit.SECONDS));
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    private static byte[] parseBgzf(byte[] data, ParseContext context) throws Exception {
+        ByteArrayOutputStream parsed = new ByteArrayOutputStream();
+        context.set(Parser.class, new AbstractParser() {
+            @Override
+            public Set<MediaType> getSupportedTypes(ParseContext context) {
+                return AUTO_DETECT_PARSER.getSupportedTypes(context);
+            }
+
+            @Override
+            public void parse(InputStream stream, ContentHandler handler, Metadata metadata,
+                              ParseContext context) throws IOException {
+                IOUtils.copy(stream, parsed);
+            }
+        });
+        CompressorParser parser = new CompressorParser();
+        parser.setDecompressConcatenated(true);
+        parser.setDecompressionThreads(4);
+        Metadata metadata = new Metadata();
+        metadata.set(Metadata.CONTENT_TYPE, "application/gzip");
+        parser.parse(new ByteArrayInputStream(ParallelMemberInputStreamTest.bgzf(data)),
+                new BodyContentHandler(), metadata, context);
+        return parsed.toByteArray();
+    }
 }
@@ -18,21 +18,32 @@
 package org.apache.tika.parser.pkg;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
 import static org.junit.jupiter.api.Assertions.assertTrue;
 import static org.junit.jupiter.api.Assertions.fail;
 
 import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.Paths;
 import java.util.HashSet;
 import java.util.Set;
+import java.util.concurrent.atomic.AtomicInteger;
 
 import org.apache.commons.compress.archivers.ArchiveStreamFactory;
 import org.junit.jupiter.api.Test;
+import org.xml.sax.Attributes;
+import org.xml.sax.SAXException;
+import org.xml.sax.helpers.DefaultHandler;
 
 import org.apache.tika.TikaTest;
 import org.apache.tika.config.TikaConfig;
 import org.apache.tika.detect.zip.PackageConstants;
+import org.apache.tika.io.TikaInputStream;
+import org.apache.tika.metadata.Metadata;
+import org.apache.tika.metadata.TikaCoreProperties;
 import org.apache.tika.mime.MediaType;
 import org.apache.tika.mime.MediaTypeRegistry;
+import org.apache.tika.parser.ParallelEmbeddedConfig;
 import org.apache.tika.parser.ParseContext;
 
 public class PackageParserTest extends TikaTest {
@@ -81,4 +92,101 @@ public class PackageParserTest extends TikaTest {
         }
         assertEquals(currentSpecializations.size(), PackageParser.PACKAGE_SPECIALIZATIONS.size());
     }
+
+    @Test
+    public void testParallel() throws Exception {
+        for (String file : new String[]{"test-documents.zip", "test-documents.7z",
+                "testZipEncrypted.zip", "testZip_with_DataDescriptor.zip", "gbk.zip"}) {
+            Path path = Paths.get(getResourceAsUri("/test-documents/" + file));
+            XMLResult expected =
+                    getXML(TikaInputStream.get(path), AUTO_DETECT_PARSER, new Metadata(), null);
+            ParseContext context = new ParseContext();
+            context.set(ParallelEmbeddedConfig.class, new ParallelEmbeddedConfig(4));
+            XMLResult actual =
+                    getXML(TikaInputStream.get(path), AUTO_DETECT_PARSER, new Metadata(), context);
+            //unreadable entries are recorded in the metadata before the
+            //head of the document is written, so only compare the bodies
+            assertEquals(body(expected.xml), body(actual.xml), file);
+            assertEquals(expected.metadata.get(Metadata.CONTENT_TYPE),
+                    actual.metadata.get(Metadata.CONTENT_TYPE), file);
+            assertEquals(firstLine(expected.metadata), firstLine(actual.metadata), file);
+        }
+    }
+
+    @Test
+    public void testParallelNothingAfterEndDocument() throws Exception {
+        Path path = Paths.get(getResourceAsUri("/test-documents/test-documents.zip"));
+        ParseContext context = new ParseContext();
+        context.set(ParallelEmbeddedConfig.class, new ParallelEmbeddedConfig(4));
+        LimitHandler handler = new LimitHandler(100);
+        assertThrows(Exception.class, () -> {
+            try (TikaInputStream tis = TikaInputStream.get(path)) {
+                AUTO_DETECT_PARSER.parse(tis, handler, new Metadata(), context);
+            }
+        });
+        assertTrue(handler.ended);
+        Thread.sleep(200);
+        assertEquals(0, handler.lateEvents.get());
+    }
+
+    private static String body(String xml) {
+        return xml.substring(xml.indexOf("<body>"));
+    }
+
+    private static String firstLine(Metadata metadata) {
+        String trace = metadata.get(TikaCoreProperties.TIKA_META_EXCEPTION_EMBEDDED_STREAM);
+        return trace == null ? null : trace.split("\n")[0];
+    }
+
+    /**
+     * Fails once after the given number of characters, and counts the
+     * events that arrive after endDocument().
+     */
+    private static class LimitHandler extends DefaultHandler {
+
+        private final int limit;
+
+        private final AtomicInteger lateEvents = new AtomicInteger();
+
+        private int chars = 0;
+
+        private boolean thrown = false;
+
+        private volatile boolean ended = false;
+
+        LimitHandler(int limit) {
+            this.limit = limit;
+        }
+
+        @Override
+        public void startElement(String uri, String localName, String qName, Attributes atts) {
+            checkLate();
+        }
+
+        @Override
+        public void endElement(String uri, String localName, String qName) {
+            checkLate();
+        }
+
+        @Override
+        public void characters(char[] ch, int start, int length) throws SAXException {
+            checkLate();
+            chars += length;
+            if (chars > limit && !thrown) {
+                thrown = true;
+                throw new SAXException("limit reached");
+            }
+        }
+
+        @Override
+        public void endDocument() {
+            ended = true;
+        }
+
+        private void checkLate() {
+            if (ended) {
+                lateEvents.incrementAndGet();
+            }
+        }
+    }
 }
@@ -0,0 +1,155 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.tika.parser.pkg;
+
+import static java.nio.charset.StandardCharsets.UTF_8;
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import java.io.BufferedInputStream;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.Arrays;
+import java.util.zip.CRC32;
+import java.util.zip.Deflater;
+import java.util.zip.GZIPOutputStream;
+
+import com.github.luben.zstd.Zstd;
+import com.github.luben.zstd.ZstdOutputStream;
+import org.apache.commons.compress.compressors.CompressorStreamFactory;
+import org.apache.commons.io.IOUtils;
+import org.junit.jupiter.api.Test;
+
+public class ParallelMemberInputStreamTest {
+
+    static byte[] text(int lines) {
+        StringBuilder sb = new StringBuilder();
+        for (int i = 0; i < lines; i++) {
+            sb.append("line ").append(i).append(" of some text to compress\n");
+        }
+        return sb.toString().getBytes(UTF_8);
+    }
+
+    /**
+     * Compresses the data into BGZF blocks, the way bgzip does.
+     */
+    static byte[] bgzf(byte[] data) throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        for (int start = 0; start < data.length; start += 60000) {
+            bgzfBlock(Arrays.copyOfRange(data, start, Math.min(data.length, start + 60000)),
+                    out);
+        }
+        //end of file marker
+        bgzfBlock(new byte[0], out);
+        return out.toByteArray();
+    }
+
+    private static void bgzfBlock(byte[] data, ByteArrayOutputStream out) {
+        Deflater deflater = new Deflater(Deflater.DEFAULT_COMPRESSION, true);
+        deflater.setInput(data);
+        deflater.finish();
+        byte[] buffer = new byte[70000];
+        int length = deflater.deflate(buffer);
+        deflater.end();
+        int blockSize = 18 + length + 8;
+        out.write(new byte[]{0x1f, (byte) 0x8b, 8, 4, 0, 0, 0, 0, 0, (byte) 0xff, 6, 0, 'B', 'C',
+                2, 0, (byte) (blockSize - 1), (byte) ((blockSize - 1) >> 8)}, 0, 18);
+        out.write(buffer, 0, length);
+        CRC32 crc = new CRC32();
+        crc.update(data);
+        writeIntLE((int) crc.getValue(), out);
+        writeIntLE(data.length, out);
+    }
+
+    private static void writeIntLE(int value, ByteArrayOutputStream out) {
+        for (int i = 0; i < 4; i++) {
+            out.write(value >> (8 * i));
+        }
+    }
+
+    private static byte[] gzip(byte[] data) throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        try (GZIPOutputStream gz = new GZIPOutputStream(out)) {
+            gz.write(data);
+        }
+        return out.toByteArray();
+    }
+
+    private static byte[] concat(byte[]... parts) {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        for (byte[] part : parts) {
+            out.write(part, 0, part.length);
+        }
+        return out.toByteArray();
+    }
+
+    private static byte[] decompress(byte[] compressed, String name) throws IOException {
+        try (InputStream is = new ParallelMemberInputStream(
+                new BufferedInputStream(new ByteArrayInputStream(compressed)), name,
+                new CompressorStreamFactory(true, 100000), 4)) {
+            return IOUtils.toByteArray(is);
+        }
+    }
+
+    @Test
+    public void testBgzf() throws Exception {
+        byte[] data = text(50000);
+        assertArrayEquals(data, decompress(bgzf(data), CompressorStreamFactory.GZIP));
+    }
+
+    @Test
+    public void testGzipFallback() throws Exception {
+        byte[] first = text(20000);
+        byte[] second = text(100);
+        //plain members only
+        assertArrayEquals(concat(first, second),
+                decompress(concat(gzip(first), gzip(second)), CompressorStreamFactory.GZIP));
+        //plain members after BGZF blocks
+        assertArrayEquals(concat(first, second, first), decompress(
+                concat(bgzf(first), gzip(second), bgzf(first)), CompressorStreamFactory.GZIP));
+    }
+
+    @Test
+    public void testTruncated() throws Exception {
+        byte[] compressed = bgzf(text(50000));
+        assertThrows(IOException.class, () -> decompress(
+                Arrays.copyOf(compressed, compressed.length / 2), CompressorStreamFactory.GZIP));
+    }
+
+    @Test
+    public void testZstd() throws Exception {
+        byte[] first = text(20000);
+        byte[] second = text(30000);
+        //skippable frame
+        byte[] skippable = new byte[]{0x50, 0x2a, 0x4d, 0x18, 3, 0, 0, 0, 1, 2, 3};
+        //frames that record their content size
+        assertArrayEquals(concat(first, second, first), decompress(
+                concat(Zstd.compress(first), skippable, Zstd.compress(second),
+                        Zstd.compress(first)), CompressorStreamFactory.ZSTANDARD));
+        //followed by a streamed frame, which doesn't
+        ByteArrayOutputStream streamed = new ByteArrayOutputStream();
+        try (ZstdOutputStream zstd = new ZstdOutputStream(streamed)) {
+            zstd.write(second);
+        }
+        assertArrayEquals(concat(first, second), decompress(
+                concat(Zstd.compress(first), streamed.toByteArray()),
+                CompressorStreamFactory.ZSTANDARD));
+    }
+
+}
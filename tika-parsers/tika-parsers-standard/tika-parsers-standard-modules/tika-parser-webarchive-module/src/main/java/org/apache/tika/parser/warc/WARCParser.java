@@ -16,6 +16,7 @@
  */
 package org.apache.tika.parser.warc;
 
+import java.io.Closeable;
 import java.io.IOException;
 import java.io.InputStream;
 import java.util.Arrays;
@@ -25,7 +26,9 @@ import java.util.List;
 import java.util.Map;
 import java.util.Optional;
 import java.util.Set;
+import java.util.concurrent.ConcurrentSkipListMap;
 
+import org.apache.commons.io.IOUtils;
 import org.netpreserve.jwarc.HttpResponse;
 import org.netpreserve.jwarc.WarcPayload;
 import org.netpreserve.jwarc.WarcReader;
@@ -44,6 +47,8 @@ import org.apache.tika.metadata.Property;
 import org.apache.tika.metadata.TikaCoreProperties;
 import org.apache.tika.metadata.WARC;
 import org.apache.tika.mime.MediaType;
+import org.apache.tika.parser.EmbeddedParseQueue;
+import org.apache.tika.parser.ParallelEmbeddedConfig;
 import org.apache.tika.parser.ParseContext;
 import org.apache.tika.parser.Parser;
 import org.apache.tika.sax.XHTMLContentHandler;
@@ -51,6 +56,17 @@ import org.apache.tika.utils.StringUtils;
 
 /**
  * This uses jwarc to parse warc files and arc files
+ * <p>
+ * The payloads of the response records are parsed one after the other,
+ * unless a {@link ParallelEmbeddedConfig} is set in the parse context.  In
+ * that case the records are still read and decompressed one after the
+ * other, but each payload is copied (to a temporary file if it is large)
+ * and parsed concurrently with the next ones by an
+ * {@link EmbeddedParseQueue}, which keeps the output in record order.
+ * <p>
+ * The offset of each record is recorded in {@link WARC#WARC_RECORD_OFFSET}.
+ * Since the records of a .warc.gz are separate gzip members, a large
+ * archive can be split at those offsets and the parts parsed on their own.
  */
 public class WARCParser implements Parser {
 
@@ -67,6 +83,12 @@ public class WARCParser implements Parser {
 
     public static String WARC_HTTP_STATUS_REASON = WARC_HTTP_PREFIX + "status:reason";
 
+    /**
+     * Payloads up to this size are copied to memory rather than to a
+     * temporary file before they are parsed concurrently
+     */
+    private static final long MAX_IN_MEMORY_PAYLOAD = 1024 * 1024;
+
     private static String RESPONSE = "response";
     private static String WARCINFO = "warcinfo";
 
@@ -83,30 +105,40 @@ public class WARCParser implements Parser {
         xhtml.startDocument();
         EmbeddedDocumentExtractor embeddedDocumentExtractor =
                 EmbeddedDocumentUtil.getEmbeddedDocumentExtractor(context);
-        try (WarcReader warcreader = new WarcReader(stream)) {
+        //exceptions by record offset, so that they are recorded in order
+        Map<Long, Exception> exceptions = new ConcurrentSkipListMap<>();
+        try (WarcReader warcreader = new WarcReader(stream);
+                EmbeddedParseQueue queue = new EmbeddedParseQueue(xhtml, context)) {
             //TODO: record warnings in metadata: warcreader.onWarning();
             for (WarcRecord record : warcreader) {
-                processRecord(record, xhtml, metadata, context, embeddedDocumentExtractor);
+                processRecord(record, warcreader.position(), xhtml, context,
+                        embeddedDocumentExtractor, queue, exceptions);
             }
+            queue.finish();
         } finally {
+            for (Exception e : exceptions.values()) {
+                EmbeddedDocumentUtil.recordException(e, metadata);
+            }
             xhtml.endDocument();
         }
     }
 
-    private void processRecord(WarcRecord record, XHTMLContentHandler xhtml, Metadata metadata,
+    private void processRecord(WarcRecord record, long offset, XHTMLContentHandler xhtml,
                                ParseContext context,
-                               EmbeddedDocumentExtractor embeddedDocumentExtractor)
+                               EmbeddedDocumentExtractor embeddedDocumentExtractor,
+                               EmbeddedParseQueue queue, Map<Long, Exception> exceptions)
             throws SAXException {
         if (RESPONSE.equals(record.type())) {
             try {
-                processResponse((WarcResponse) record, xhtml, context, embeddedDocumentExtractor);
+                processResponse((WarcResponse) record, offset, embeddedDocumentExtractor, queue,
+                        exceptions);
             } catch (IOException | TikaException e) {
-                EmbeddedDocumentUtil.recordException(e, metadata);
+                exceptions.put(offset, e);
             } catch (SAXException e) {
                 if (WriteLimitReachedException.isWriteLimitReached(e)) {
                     throw e;
                 } else {
-                    EmbeddedDocumentUtil.recordException(e, metadata);
+                    exceptions.put(offset, e);
                 }
             }
         } else if (WARCINFO.equals(record.type())) {
@@ -121,9 +153,9 @@ public class WARCParser implements Parser {
         //NO-OP for now
     }
 
-    private void processResponse(WarcResponse warcResponse, XHTMLContentHandler xhtml,
-                                 ParseContext context,
-                                 EmbeddedDocumentExtractor embeddedDocumentExtractor)
+    private void processResponse(WarcResponse warcResponse, long offset,
+                                 EmbeddedDocumentExtractor embeddedDocumentExtractor,
+                                 EmbeddedParseQueue queue, Map<Long, Exception> exceptions)
             throws IOException, SAXException, TikaException {
         Optional<WarcPayload> optionalPayload = warcResponse.payload();
         if (!optionalPayload.isPresent()) {
@@ -142,17 +174,37 @@ public class WARCParser implements Parser {
         WarcPayload payload = optionalPayload.get();
         metadata.set(WARC.WARC_RECORD_CONTENT_TYPE, payload.type().toString());
         metadata.set(Metadata.CONTENT_LENGTH, Long.toString(payload.body().size()));
+        metadata.set(WARC.WARC_RECORD_OFFSET, offset);
 
         if (embeddedDocumentExtractor.shouldParseEmbedded(metadata)) {
             //TODO check Content-Encoding on the warcResponse.http.headers and wrap the stream.
             //May need to sniff first few bytes to confirm accuracy, e.g. gzip compression ?
-            try (InputStream tis = TikaInputStream.get(payload.body().stream())) {
-                embeddedDocumentExtractor.parseEmbedded(tis, xhtml, metadata, true);
+            TikaInputStream tis;
+            if (queue.isParallel()) {
+                //the body is gone once the reader moves on to the next record
+                tis = copy(payload.body().stream(), payload.body().size());
+            } else {
+                tis = TikaInputStream.get(payload.body().stream());
             }
+            queue.submit(new PayloadTask(tis, metadata, offset, exceptions));
         }
 
     }
 
+    private static TikaInputStream copy(InputStream body, long size) throws IOException {
+        if (size >= 0 && size <= MAX_IN_MEMORY_PAYLOAD) {
+            return TikaInputStream.get(IOUtils.toByteArray(body));
+        }
+        TikaInputStream tis = TikaInputStream.get(body);
+        try {
+            tis.getPath();
+        } catch (IOException e) {
+            tis.close();
+            throw e;
+        }
+        return tis;
+    }
+
     private void processWarcMetadata(WarcResponse warcResponse, Metadata metadata) {
         for (Map.Entry<String, List<String>> e : warcResponse.headers().map().entrySet()) {
             for (String val : e.getValue()) {
@@ -180,4 +232,49 @@ public class WARCParser implements Parser {
         }
         metadata.set(key, contentType.toString());
     }
+
+    /**
+     * Parses the payload of a response record.  Exceptions other than
+     * reaching the write limit are kept, and recorded in the container's
+     * metadata once all records have been parsed.
+     */
+    private static class PayloadTask implements EmbeddedParseQueue.Task, Closeable {
+
+        private final TikaInputStream tis;
+
+        private final Metadata metadata;
+
+        private final long offset;
+
+        private final Map<Long, Exception> exceptions;
+
+        private PayloadTask(TikaInputStream tis, Metadata metadata, long offset,
+                            Map<Long, Exception> exceptions) {
+            this.tis = tis;
+            this.metadata = metadata;
+            this.offset = offset;
+            this.exceptions = exceptions;
+        }
+
+        @Override
+        public void parse(ContentHandler handler, ParseContext context) throws SAXException {
+            try {
+                EmbeddedDocumentUtil.getEmbeddedDocumentExtractor(context)
+                        .parseEmbedded(tis, handler, metadata, true);
+            } catch (IOException e) {
+                exceptions.put(offset, e);
+            } catch (SAXException e) {
+                if (WriteLimitReachedException.isWriteLimitReached(e)) {
+                    throw e;
+                } else {
+                    exceptions.put(offset, e);
+                }
+            }
+        }
+
+        @Override
+        public void close() throws IOException {
+            tis.close();
+        }
+    }
 }
@@ -17,16 +17,24 @@
 package org.apache.tika.parser.warc;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
 
+import java.io.ByteArrayInputStream;
+import java.io.InputStream;
+import java.util.ArrayList;
 import java.util.HashSet;
 import java.util.List;
 import java.util.Set;
 
+import org.apache.commons.io.IOUtils;
 import org.junit.jupiter.api.Test;
 
 import org.apache.tika.TikaTest;
 import org.apache.tika.metadata.Metadata;
 import org.apache.tika.metadata.TikaCoreProperties;
+import org.apache.tika.metadata.WARC;
+import org.apache.tika.parser.ParallelEmbeddedConfig;
+import org.apache.tika.parser.ParseContext;
 import org.apache.tika.sax.BasicContentHandlerFactory;
 
 public class WARCParserTest extends TikaTest {
@@ -59,6 +67,7 @@ public class WARCParserTest extends TikaTest {
         Set<String> fieldsToIgnore = new HashSet<>();
         fieldsToIgnore.add("X-TIKA:parse_time_millis");
         fieldsToIgnore.add("Content-Type");
+        fieldsToIgnore.add(WARC.WARC_RECORD_OFFSET.getName());
         assertMetadataListEquals(metadataList, gzMetadataList, fieldsToIgnore);
 
         assertEquals("application/warc", metadataList.get(0).get(Metadata.CONTENT_TYPE));
@@ -93,4 +102,52 @@ public class WARCParserTest extends TikaTest {
 
         //TODO -- we should try to find an example gz with multiple arcs
     }
+
+    @Test
+    public void testParallel() throws Exception {
+        for (String file : new String[]{"testWARC_multiple.warc", "testWARC_multiple.warc.gz",
+                "testARC.arc"}) {
+            String expected = getXML(file).xml;
+            for (long maxBufferedChars : new long[]{0, Long.MAX_VALUE}) {
+                ParallelEmbeddedConfig config = new ParallelEmbeddedConfig(4);
+                config.setMaxBufferedChars(maxBufferedChars);
+                ParseContext context = new ParseContext();
+                context.set(ParallelEmbeddedConfig.class, config);
+                assertEquals(expected, getXML(file, context).xml, file);
+            }
+        }
+    }
+
+    @Test
+    public void testRecordOffsets() throws Exception {
+        byte[] bytes;
+        try (InputStream is = getResourceAsStream("/test-documents/testWARC_multiple.warc.gz")) {
+            bytes = IOUtils.toByteArray(is);
+        }
+        List<Metadata> records = getRecords(getRecursiveMetadata("testWARC_multiple.warc.gz"));
+        assertTrue(records.size() > 1);
+        //each record can be parsed on its own, starting from its offset
+        for (Metadata metadata : records) {
+            int offset = Integer.parseInt(metadata.get(WARC.WARC_RECORD_OFFSET));
+            List<Metadata> fromOffset = getRecords(getRecursiveMetadata(
+                    new ByteArrayInputStream(bytes, offset, bytes.length - offset), true));
+            assertEquals(metadata.get("warc:WARC-Target-URI"),
+                    fromOffset.get(0).get("warc:WARC-Target-URI"));
+            //offsets are relative to the start of the stream
+            assertEquals("0", fromOffset.get(0).get(WARC.WARC_RECORD_OFFSET));
+        }
+    }
+
+    /**
+     * @return the records, without the documents embedded in their payloads
+     */
+    private static List<Metadata> getRecords(List<Metadata> metadataList) {
+        List<Metadata> records = new ArrayList<>();
+        for (Metadata metadata : metadataList) {
+            if (metadata.get(WARC.WARC_RECORD_OFFSET) != null) {
+                records.add(metadata);
+            }
+        }
+        return records;
+    }
 }
@@ -199,7 +199,9 @@ public class DefaultZipContainerDetector implements Detector {
     /**
      * This will call TikaInputStream's getFile(). If there are no exceptions,
      * it will place the ZipFile in TikaInputStream's openContainer and leave it
-     * open.
+     * open, so that parsers can use it via
+     * {@link org.apache.tika.zip.utils.SharedZipFile} instead of reading the
+     * central directory again.
      *
      * @param tis
      * @return
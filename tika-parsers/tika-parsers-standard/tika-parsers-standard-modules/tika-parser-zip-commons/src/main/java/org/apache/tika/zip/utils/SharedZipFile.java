@@ -0,0 +1,68 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.tika.zip.utils;
+
+import java.io.IOException;
+
+import org.apache.commons.compress.archivers.zip.ZipFile;
+
+import org.apache.tika.io.TikaInputStream;
+
+/**
+ * Lets the detectors and parsers of a zip based document share a single
+ * {@link ZipFile}, so that the central directory is only read once.
+ * <p>
+ * The {@link org.apache.tika.detect.zip.DefaultZipContainerDetector} leaves
+ * the zip file it opened for detection as the open container of the
+ * {@link TikaInputStream}.  Parsers should pick it up from there with
+ * {@link #get(TikaInputStream)} rather than opening the file again.
+ */
+public class SharedZipFile {
+
+    private SharedZipFile() {
+    }
+
+    /**
+     * Returns the zip file that is open on the stream, or opens the stream's
+     * file and attaches it to the stream for whoever comes next.
+     * <p>
+     * The zip file belongs to the stream and is closed along with it, so
+     * callers must not close it.
+     *
+     * @param tis stream of the zip based document
+     * @return the zip file, or <code>null</code> if the stream is not backed
+     * by a file and nothing has opened it yet
+     * @throws IOException if the file can't be opened as a zip file
+     */
+    public static ZipFile get(TikaInputStream tis) throws IOException {
+        Object container = tis.getOpenContainer();
+        if (container instanceof ZipFile) {
+            return (ZipFile) container;
+        }
+        if (!tis.hasFile()) {
+            return null;
+        }
+        ZipFile zipFile = ZipFile.builder().setFile(tis.getFile()).get();
+        //don't replace another container, e.g. an OPCPackage
+        if (container == null) {
+            tis.setOpenContainer(zipFile);
+        } else {
+            tis.addCloseableResource(zipFile);
+        }
+        return zipFile;
+    }
+}
@@ -18,16 +18,19 @@ package org.apache.tika.serialization;
 
 
 import java.io.IOException;
+import java.io.OutputStream;
 import java.io.Reader;
 import java.io.Writer;
 import java.util.Arrays;
 
+import com.fasterxml.jackson.core.JsonEncoding;
 import com.fasterxml.jackson.core.JsonFactory;
 import com.fasterxml.jackson.core.JsonGenerator;
 import com.fasterxml.jackson.core.JsonParser;
 import com.fasterxml.jackson.core.JsonToken;
 import com.fasterxml.jackson.core.StreamReadConstraints;
 import org.apache.commons.io.input.CloseShieldReader;
+import org.apache.commons.io.output.CloseShieldOutputStream;
 import org.apache.commons.io.output.CloseShieldWriter;
 
 import org.apache.tika.config.TikaConfig;
@@ -37,6 +40,13 @@ public class JsonMetadata {
 
     static volatile boolean PRETTY_PRINT = false;
 
+    /**
+     * Shared by all generators: factories are thread safe and reusing one
+     * lets Jackson recycle its buffers across calls.  Read constraints
+     * don't apply to writing, so this doesn't depend on the config.
+     */
+    private static final JsonFactory GENERATOR_FACTORY = new JsonFactory();
+
     /**
      * Serializes a Metadata object to Json.  This does not flush or close the writer.
      *
@@ -49,13 +59,7 @@ public class JsonMetadata {
             writer.write("null");
             return;
         }
-        long max = TikaConfig.getMaxJsonStringFieldLength();
-        try (JsonGenerator jsonGenerator = new JsonFactory()
-                .setStreamReadConstraints(StreamReadConstraints
-                        .builder()
-                        .maxStringLength(TikaConfig.getMaxJsonStringFieldLength())
-                        .build())
-                .createGenerator(CloseShieldWriter.wrap(writer))) {
+        try (JsonGenerator jsonGenerator = createGenerator(writer)) {
             if (PRETTY_PRINT) {
                 jsonGenerator.useDefaultPrettyPrinter();
             }
@@ -63,6 +67,42 @@ public class JsonMetadata {
         }
     }
 
+    /**
+     * Serializes a Metadata object to UTF-8 encoded Json, straight to the
+     * stream without an intermediate {@link Writer}.  This flushes but does
+     * not close the stream.
+     *
+     * @param metadata     metadata to write
+     * @param outputStream stream to write to
+     * @throws java.io.IOException if there is an IOException during writing
+     */
+    public static void toJson(Metadata metadata, OutputStream outputStream) throws IOException {
+        try (JsonGenerator jsonGenerator = createGenerator(outputStream)) {
+            if (metadata == null) {
+                jsonGenerator.writeNull();
+                return;
+            }
+            if (PRETTY_PRINT) {
+                jsonGenerator.useDefaultPrettyPrinter();
+            }
+            writeMetadataObject(metadata, jsonGenerator, PRETTY_PRINT);
+        }
+    }
+
+    /**
+     * @return a UTF-8 generator that doesn't close the stream
+     */
+    static JsonGenerator createGenerator(OutputStream outputStream) throws IOException {
+        return GENERATOR_FACTORY.createGenerator(CloseShieldOutputStream.wrap(outputStream), JsonEncoding.UTF8);
+    }
+
+    /**
+     * @return a generator that doesn't close the writer
+     */
+    static JsonGenerator createGenerator(Writer writer) throws IOException {
+        return GENERATOR_FACTORY.createGenerator(CloseShieldWriter.wrap(writer));
+    }
+
     public static void writeMetadataObject(Metadata metadata, JsonGenerator jsonGenerator, boolean prettyPrint) throws IOException {
         jsonGenerator.writeStartObject();
         String[] names = metadata.names();
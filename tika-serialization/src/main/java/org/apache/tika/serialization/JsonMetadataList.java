@@ -17,6 +17,7 @@
 package org.apache.tika.serialization;
 
 import java.io.IOException;
+import java.io.OutputStream;
 import java.io.Reader;
 import java.io.Writer;
 import java.util.ArrayList;
@@ -28,7 +29,6 @@ import com.fasterxml.jackson.core.JsonParser;
 import com.fasterxml.jackson.core.JsonToken;
 import com.fasterxml.jackson.core.StreamReadConstraints;
 import org.apache.commons.io.input.CloseShieldReader;
-import org.apache.commons.io.output.CloseShieldWriter;
 
 import org.apache.tika.config.TikaConfig;
 import org.apache.tika.metadata.Metadata;
@@ -50,21 +50,40 @@ public class JsonMetadataList {
             writer.write("null");
             return;
         }
-        try (JsonGenerator jsonGenerator = new JsonFactory()
-                .setStreamReadConstraints(StreamReadConstraints
-                        .builder()
-                        .maxStringLength(TikaConfig.getMaxJsonStringFieldLength())
-                        .build())
-                .createGenerator(CloseShieldWriter.wrap(writer))) {
-            if (prettyPrint) {
-                jsonGenerator.useDefaultPrettyPrinter();
-            }
-            jsonGenerator.writeStartArray();
-            for (Metadata m : metadataList) {
-                JsonMetadata.writeMetadataObject(m, jsonGenerator, prettyPrint);
+        try (JsonGenerator jsonGenerator = JsonMetadata.createGenerator(writer)) {
+            writeList(metadataList, jsonGenerator, prettyPrint);
+        }
+    }
+
+    /**
+     * Serializes a list of Metadata objects to UTF-8 encoded Json, straight
+     * to the stream without an intermediate {@link Writer}.  Each object is
+     * written out as soon as it is serialized.  This flushes but does not
+     * close the stream.
+     *
+     * @param metadataList list of metadata to write
+     * @param outputStream stream to write to
+     * @throws IOException if there is an IOException during writing
+     */
+    public static void toJson(List<Metadata> metadataList, OutputStream outputStream) throws IOException {
+        try (JsonGenerator jsonGenerator = JsonMetadata.createGenerator(outputStream)) {
+            if (metadataList == null) {
+                jsonGenerator.writeNull();
+                return;
             }
-            jsonGenerator.writeEndArray();
+            writeList(metadataList, jsonGenerator, PRETTY_PRINT);
+        }
+    }
+
+    private static void writeList(List<Metadata> metadataList, JsonGenerator jsonGenerator, boolean prettyPrint) throws IOException {
+        if (prettyPrint) {
+            jsonGenerator.useDefaultPrettyPrinter();
+        }
+        jsonGenerator.writeStartArray();
+        for (Metadata m : metadataList) {
+            JsonMetadata.writeMetadataObject(m, jsonGenerator, prettyPrint);
         }
+        jsonGenerator.writeEndArray();
     }
 
     /**
@@ -18,35 +18,39 @@ package org.apache.tika.serialization;
 
 
 import java.io.IOException;
+import java.io.OutputStream;
 import java.io.Writer;
 import java.util.Arrays;
 
-import com.fasterxml.jackson.core.JsonFactory;
 import com.fasterxml.jackson.core.JsonGenerator;
-import com.fasterxml.jackson.core.StreamReadConstraints;
 
-import org.apache.tika.config.TikaConfig;
 import org.apache.tika.metadata.Metadata;
 
 
 public class JsonStreamingSerializer implements AutoCloseable {
 
     private final Writer writer;
+    private final OutputStream outputStream;
     boolean hasStartedArray = false;
     private JsonGenerator jsonGenerator;
 
     public JsonStreamingSerializer(Writer writer) {
         this.writer = writer;
+        this.outputStream = null;
+    }
+
+    /**
+     * Writes UTF-8 encoded Json straight to the stream.  Unlike with a
+     * {@link Writer}, the stream is not closed by {@link #close()}.
+     */
+    public JsonStreamingSerializer(OutputStream outputStream) {
+        this.writer = null;
+        this.outputStream = outputStream;
     }
 
     public void add(Metadata metadata) throws IOException {
         if (!hasStartedArray) {
-            jsonGenerator = new JsonFactory()
-                    .setStreamReadConstraints(StreamReadConstraints
-                            .builder()
-                            .maxStringLength(TikaConfig.getMaxJsonStringFieldLength())
-                            .build())
-                    .createGenerator(writer);
+            jsonGenerator = outputStream != null ? JsonMetadata.createGenerator(outputStream) : JsonMetadata.createGenerator(writer);
             jsonGenerator.writeStartArray();
             hasStartedArray = true;
         }
@@ -60,5 +64,8 @@ public class JsonStreamingSerializer implements AutoCloseable {
         jsonGenerator.writeEndArray();
         jsonGenerator.flush();
         jsonGenerator.close();
+        if (writer != null) {
+            writer.close();
+        }
     }
 }
@@ -20,9 +20,11 @@ import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.junit.jupiter.api.Assertions.assertNull;
 import static org.junit.jupiter.api.Assertions.assertTrue;
 
+import java.io.ByteArrayOutputStream;
 import java.io.Reader;
 import java.io.StringReader;
 import java.io.StringWriter;
+import java.nio.charset.StandardCharsets;
 import java.util.ArrayList;
 import java.util.LinkedList;
 import java.util.List;
@@ -72,6 +74,31 @@ public class JsonMetadataListTest {
 
     }
 
+    @Test
+    public void testListOutputStream() throws Exception {
+        Metadata m1 = new Metadata();
+        m1.add("k1", "v1");
+        m1.add("k1", "\u00e9\u4e2d\ud83d\ude00");
+        Metadata m2 = new Metadata();
+        m2.add("k2", "v2");
+        List<Metadata> metadataList = new ArrayList<>();
+        metadataList.add(m1);
+        metadataList.add(m2);
+
+        ByteArrayOutputStream bos = new ByteArrayOutputStream();
+        JsonMetadataList.toJson(metadataList, bos);
+        String json = new String(bos.toByteArray(), StandardCharsets.UTF_8);
+        assertEquals(metadataList, JsonMetadataList.fromJson(new StringReader(json)));
+
+        bos = new ByteArrayOutputStream();
+        try (JsonStreamingSerializer streamingSerializer = new JsonStreamingSerializer(bos)) {
+            streamingSerializer.add(m1);
+            streamingSerializer.add(m2);
+        }
+        json = new String(bos.toByteArray(), StandardCharsets.UTF_8);
+        assertEquals(metadataList, JsonMetadataList.fromJson(new StringReader(json)));
+    }
+
     @Test
     public void testListNull() throws Exception {
         StringWriter writer = new StringWriter();
@@ -0,0 +1,236 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.tika.server.core;
+
+import java.util.Comparator;
+import java.util.PriorityQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+
+import jakarta.ws.rs.WebApplicationException;
+import jakarta.ws.rs.core.HttpHeaders;
+import jakarta.ws.rs.core.MediaType;
+import jakarta.ws.rs.core.Response;
+
+import org.apache.tika.server.core.metrics.LatencyHistogram;
+
+/**
+ * Admission control for parses: at most <code>maxConcurrentParses</code>
+ * run at a time, up to <code>maxQueuedParses</code> more wait for a slot,
+ * and anything beyond that is turned away right away with a
+ * <code>503</code> and a <code>Retry-After</code> header instead of piling
+ * up on the request threads until tasks start timing out.
+ * <p>
+ * Waiting requests are admitted by descending priority, see
+ * {@link #X_TIKA_PRIORITY}, and in arrival order within a priority.  A
+ * request that has waited <code>maxQueueWaitMillis</code> is rejected
+ * as well.
+ */
+public class ParseQueue {
+
+    public static final String X_TIKA_PRIORITY = "X-Tika-Priority";
+
+    public static final int DEFAULT_PRIORITY = 0;
+
+    private static final Comparator<Waiter> BY_PRIORITY = Comparator
+            .comparingInt((Waiter w) -> w.priority)
+            .reversed()
+            .thenComparingLong(w -> w.seq);
+
+    private final int maxConcurrent;
+
+    private final int maxQueued;
+
+    private final long maxWaitNanos;
+
+    private final int retryAfterSeconds;
+
+    private final ReentrantLock lock = new ReentrantLock();
+
+    private final PriorityQueue<Waiter> waiters = new PriorityQueue<>(BY_PRIORITY);
+
+    private int running = 0;
+
+    private long seq = 0;
+
+    private final LongAdder rejected = new LongAdder();
+
+    private final LatencyHistogram waitTimes = new LatencyHistogram();
+
+    /**
+     * @param maxConcurrent     number of parses that may run at the same time
+     * @param maxQueued         number of parses that may wait for a slot
+     * @param maxWaitMillis     how long a parse may wait for a slot
+     * @param retryAfterSeconds value of the <code>Retry-After</code> header
+     *                          of rejected requests
+     */
+    public ParseQueue(int maxConcurrent, int maxQueued, long maxWaitMillis, int retryAfterSeconds) {
+        if (maxConcurrent < 1) {
+            throw new IllegalArgumentException("maxConcurrent must be > 0");
+        }
+        this.maxConcurrent = maxConcurrent;
+        this.maxQueued = Math.max(maxQueued, 0);
+        this.maxWaitNanos = TimeUnit.MILLISECONDS.toNanos(Math.max(maxWaitMillis, 0));
+        this.retryAfterSeconds = retryAfterSeconds;
+    }
+
+    /**
+     * Waits for a slot.  Every successful call must be paired with a call
+     * to {@link #release()}.
+     *
+     * @param priority higher values are admitted first
+     * @throws WebApplicationException with status 503 if the queue is full
+     *                                 or the wait timed out
+     */
+    public void acquire(int priority) {
+        long started = System.nanoTime();
+        lock.lock();
+        try {
+            if (running < maxConcurrent && waiters.isEmpty()) {
+                running++;
+                waitTimes.record(0);
+                return;
+            }
+            if (waiters.size() >= maxQueued) {
+                throw reject("Too many parse requests queued");
+            }
+            Waiter waiter = new Waiter(priority, seq++, lock.newCondition());
+            waiters.add(waiter);
+            long remaining = maxWaitNanos;
+            try {
+                while (!waiter.admitted) {
+                    if (remaining <= 0) {
+                        waiters.remove(waiter);
+                        throw reject("Timed out waiting for a parse slot");
+                    }
+                    remaining = waiter.condition.awaitNanos(remaining);
+                }
+            } catch (InterruptedException e) {
+                if (waiter.admitted) {
+                    //the slot was ours, hand it on
+                    releaseLocked();
+                } else {
+                    waiters.remove(waiter);
+                }
+                Thread.currentThread().interrupt();
+                throw reject("Interrupted waiting for a parse slot");
+            }
+            waitTimes.record(System.nanoTime() - started);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    public void release() {
+        lock.lock();
+        try {
+            releaseLocked();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private void releaseLocked() {
+        Waiter next = waiters.poll();
+        if (next == null) {
+            running--;
+        } else {
+            //the slot goes straight to the next waiter so that a newcomer
+            //can't take it first
+            next.admitted = true;
+            next.condition.signal();
+        }
+    }
+
+    private WebApplicationException reject(String message) {
+        rejected.increment();
+        return new WebApplicationException(Response
+                .status(Response.Status.SERVICE_UNAVAILABLE)
+                .header(HttpHeaders.RETRY_AFTER, retryAfterSeconds)
+                .type(MediaType.TEXT_PLAIN_TYPE)
+                .entity(message)
+                .build());
+    }
+
+    public int getNumRunning() {
+        lock.lock();
+        try {
+            return running;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    public int getNumQueued() {
+        lock.lock();
+        try {
+            return waiters.size();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    public long getNumRejected() {
+        return rejected.sum();
+    }
+
+    /**
+     * @return time admitted parses have waited for their slot
+     */
+    public LatencyHistogram getWaitTimes() {
+        return waitTimes;
+    }
+
+    public int getMaxConcurrent() {
+        return maxConcurrent;
+    }
+
+    public int getMaxQueued() {
+        return maxQueued;
+    }
+
+    /**
+     * Priority of a request, set in the parse context by
+     * {@link org.apache.tika.server.core.config.PriorityConfig}.
+     */
+    public static class Priority {
+        private final int value;
+
+        public Priority(int value) {
+            this.value = value;
+        }
+
+        public int getValue() {
+            return value;
+        }
+    }
+
+    private static class Waiter {
+        private final int priority;
+        private final long seq;
+        private final Condition condition;
+        private boolean admitted = false;
+
+        Waiter(int priority, long seq, Condition condition) {
+            this.priority = priority;
+            this.seq = seq;
+            this.condition = condition;
+        }
+    }
+}
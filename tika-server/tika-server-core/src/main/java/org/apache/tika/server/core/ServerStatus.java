@@ -17,23 +17,44 @@
 package org.apache.tika.server.core;
 
 import java.time.Instant;
-import java.util.HashMap;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
 import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentSkipListSet;
 import java.util.concurrent.atomic.AtomicLong;
 
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import org.apache.tika.server.core.metrics.ServerMetrics;
+
+/**
+ * Tracks the tasks that are currently running in the server.
+ * <p>
+ * This is hit twice per request and polled by the {@link ServerStatusWatcher},
+ * so none of it is synchronized: the tasks are kept in a concurrent map
+ * and, for the timeout checks, in a set ordered by their deadline.
+ */
 public class ServerStatus {
 
+    private static final Comparator<TaskStatus> BY_DEADLINE = Comparator
+            .comparingLong((TaskStatus t) -> t.deadline)
+            .thenComparingLong(t -> t.taskId);
+
     private static final Logger LOG = LoggerFactory.getLogger(ServerStatus.class);
     private final String serverId;
     private final int numRestarts;
 
     private final boolean isLegacy;
-    private AtomicLong counter = new AtomicLong(0);
-    private Map<Long, TaskStatus> tasks = new HashMap<>();
-    private STATUS status = STATUS.OPERATING;
+    private final AtomicLong counter = new AtomicLong(0);
+    private final Map<Long, TaskStatus> tasks = new ConcurrentHashMap<>();
+    private final ConcurrentSkipListSet<TaskStatus> deadlines = new ConcurrentSkipListSet<>(BY_DEADLINE);
+    private volatile STATUS status = STATUS.OPERATING;
+    private final ServerMetrics metrics = new ServerMetrics();
+    private volatile ParseQueue parseQueue = null;
     private volatile long lastStarted = Instant
             .now()
             .toEpochMilli();
@@ -48,11 +69,13 @@ public class ServerStatus {
         this.isLegacy = isLegacy;
     }
 
-    public synchronized long start(TASK task, String fileName, long timeoutMillis) {
+    public long start(TASK task, String fileName, long timeoutMillis) {
         long taskId = counter.incrementAndGet();
         Instant now = Instant.now();
         lastStarted = now.toEpochMilli();
-        tasks.put(taskId, new TaskStatus(task, now, fileName, timeoutMillis));
+        TaskStatus taskStatus = new TaskStatus(taskId, task, now, fileName, timeoutMillis);
+        tasks.put(taskId, taskStatus);
+        deadlines.add(taskStatus);
         return taskId;
     }
 
@@ -62,26 +85,52 @@ public class ServerStatus {
      * @param taskId
      * @throws IllegalArgumentException if there is no task by that taskId in the collection
      */
-    public synchronized void complete(long taskId) throws IllegalArgumentException {
+    public void complete(long taskId) throws IllegalArgumentException {
         TaskStatus status = tasks.remove(taskId);
         if (status == null) {
             throw new IllegalArgumentException("TaskId is not in map:" + taskId);
         }
+        deadlines.remove(status);
     }
 
-    public synchronized STATUS getStatus() {
+    public STATUS getStatus() {
         return status;
     }
 
-    public synchronized void setStatus(STATUS status) {
+    public void setStatus(STATUS status) {
         this.status = status;
     }
 
-    public synchronized Map<Long, TaskStatus> getTasks() {
-        return new HashMap<>(tasks);
+    /**
+     * @return an unmodifiable, weakly consistent view of the running tasks
+     */
+    public Map<Long, TaskStatus> getTasks() {
+        return Collections.unmodifiableMap(tasks);
+    }
+
+    public int getNumActiveTasks() {
+        return tasks.size();
+    }
+
+    /**
+     * Only looks at the tasks whose deadline has passed, not at all
+     * running tasks.
+     *
+     * @param nowMillis current time in epoch millis
+     * @return the tasks that have timed out, the longest overdue first
+     */
+    public List<TaskStatus> getTimedOutTasks(long nowMillis) {
+        List<TaskStatus> timedOut = new ArrayList<>();
+        for (TaskStatus taskStatus : deadlines) {
+            if (taskStatus.deadline >= nowMillis) {
+                break;
+            }
+            timedOut.add(taskStatus);
+        }
+        return timedOut;
     }
 
-    public synchronized long getFilesProcessed() {
+    public long getFilesProcessed() {
         return counter.get();
     }
 
@@ -94,13 +143,29 @@ public class ServerStatus {
     /**
      * @return true if this is legacy, otherwise whether or not status == OPERATING.
      */
-    public synchronized boolean isOperating() {
+    public boolean isOperating() {
         if (isLegacy) {
             return true;
         }
         return status == STATUS.OPERATING;
     }
 
+    public ServerMetrics getMetrics() {
+        return metrics;
+    }
+
+    /**
+     * @return the queue that limits concurrent parses, or <code>null</code>
+     * if they are not limited
+     */
+    public ParseQueue getParseQueue() {
+        return parseQueue;
+    }
+
+    public void setParseQueue(ParseQueue parseQueue) {
+        this.parseQueue = parseQueue;
+    }
+
     public String getServerId() {
         return serverId;
     }
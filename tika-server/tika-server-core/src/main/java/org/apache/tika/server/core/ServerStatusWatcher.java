@@ -37,16 +37,25 @@ import org.apache.tika.server.core.config.TimeoutConfig;
 public class ServerStatusWatcher implements Runnable {
 
 
+    /**
+     * Length of the status record: timestamp, status, number of active
+     * tasks and the port the server listens on
+     */
+    static final int STATUS_LENGTH = 20;
+
     private static final Logger LOG = LoggerFactory.getLogger(ServerStatusWatcher.class);
     private final ServerStatus serverStatus;
     private final InputStream fromParent;
     private final TikaServerConfig tikaServerConfig;
     private final Path forkedStatusPath;
-    private final ByteBuffer statusBuffer = ByteBuffer.allocate(16);
+    private final int port;
+    private final ByteBuffer statusBuffer = ByteBuffer.allocate(STATUS_LENGTH);
     private volatile boolean shuttingDown = false;
 
-    public ServerStatusWatcher(ServerStatus serverStatus, InputStream inputStream, Path forkedStatusPath, TikaServerConfig tikaServerConfig) throws InterruptedException {
+    public ServerStatusWatcher(ServerStatus serverStatus, InputStream inputStream, Path forkedStatusPath, TikaServerConfig tikaServerConfig, int port)
+            throws InterruptedException {
         this.serverStatus = serverStatus;
+        this.port = port;
         this.tikaServerConfig = tikaServerConfig;
         this.forkedStatusPath = forkedStatusPath;
         serverStatus.setStatus(ServerStatus.STATUS.OPERATING);
@@ -100,9 +109,8 @@ public class ServerStatusWatcher implements Runnable {
                         statusBuffer.putInt(8, serverStatus
                                 .getStatus()
                                 .getInt());
-                        statusBuffer.putInt(12, serverStatus
-                                .getTasks()
-                                .size());
+                        statusBuffer.putInt(12, serverStatus.getNumActiveTasks());
+                        statusBuffer.putInt(16, port);
                         channel.write(statusBuffer);
                         channel.force(true);
                         return;
@@ -133,13 +141,16 @@ public class ServerStatusWatcher implements Runnable {
 
     private void checkForTaskTimeouts() {
         Instant now = Instant.now();
-        for (TaskStatus status : serverStatus
-                .getTasks()
-                .values()) {
+        for (TaskStatus status : serverStatus.getTimedOutTasks(now.toEpochMilli())) {
             long millisElapsed = Duration
                     .between(status.started, now)
                     .toMillis();
             if (millisElapsed > status.timeoutMillis) {
+                if (serverStatus.getStatus() != ServerStatus.STATUS.TIMEOUT) {
+                    serverStatus
+                            .getMetrics()
+                            .timeout();
+                }
                 serverStatus.setStatus(ServerStatus.STATUS.TIMEOUT);
                 if (status.fileName.isPresent()) {
                     LOG.error("Timeout task {}, millis elapsed {}, timeoutMillis {}, file id {}" + "consider increasing the allowable time with the " +
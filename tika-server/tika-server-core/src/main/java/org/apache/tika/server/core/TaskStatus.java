@@ -20,21 +20,30 @@ import java.time.Instant;
 import java.util.Optional;
 
 public class TaskStatus {
+    final long taskId;
     final ServerStatus.TASK task;
     final Instant started;
     final Optional<String> fileName;
     final long timeoutMillis;
+    /**
+     * Epoch millis at which the task times out
+     */
+    final long deadline;
 
-    TaskStatus(ServerStatus.TASK task, Instant started, String fileName, long timeoutMillis) {
+    TaskStatus(long taskId, ServerStatus.TASK task, Instant started, String fileName, long timeoutMillis) {
+        this.taskId = taskId;
         this.task = task;
         this.started = started;
         this.fileName = Optional.ofNullable(fileName);
         this.timeoutMillis = timeoutMillis;
+        long startedMillis = started.toEpochMilli();
+        //saturate rather than overflow for very long timeouts
+        this.deadline = timeoutMillis > Long.MAX_VALUE - startedMillis ? Long.MAX_VALUE : startedMillis + timeoutMillis;
     }
 
 
     @Override
     public String toString() {
-        return "TaskStatus{" + "task=" + task + ", started=" + started + ", fileName=" + fileName + ", timeoutMillis=" + timeoutMillis + '}';
+        return "TaskStatus{" + "taskId=" + taskId + ", task=" + task + ", started=" + started + ", fileName=" + fileName + ", timeoutMillis=" + timeoutMillis + '}';
     }
 }
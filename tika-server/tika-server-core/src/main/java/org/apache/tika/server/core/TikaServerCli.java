@@ -19,6 +19,10 @@ package org.apache.tika.server.core;
 
 import static org.apache.tika.server.core.TikaServerConfig.DEFAULT_HOST;
 
+import java.io.IOException;
+import java.net.InetAddress;
+import java.nio.file.Files;
+import java.nio.file.Path;
 import java.util.ArrayList;
 import java.util.List;
 import java.util.concurrent.ExecutorCompletionService;
@@ -43,6 +47,7 @@ public class TikaServerCli {
      */
     public static String TIKA_SERVER_ID_ENV = "tika.server.id";
     private static List<TikaServerWatchDog> WATCHERS = new ArrayList<>();
+    private static List<WorkerBalancer> BALANCERS = new ArrayList<>();
 
     private static boolean PREVENT_STOP = false;
 
@@ -97,19 +102,24 @@ public class TikaServerCli {
     private static void mainLoop(TikaServerConfig tikaServerConfig) throws Exception {
 
         List<PortIdPair> portIdPairs = getPortIdPairs(tikaServerConfig);
+        int numWorkers = Math.max(tikaServerConfig.getNumWorkers(), 1);
 
-        ExecutorService executorService = Executors.newFixedThreadPool(portIdPairs.size());
+        ExecutorService executorService = Executors.newFixedThreadPool(portIdPairs.size() * numWorkers);
         ExecutorCompletionService<WatchDogResult> executorCompletionService = new ExecutorCompletionService<>(executorService);
 
         for (PortIdPair p : portIdPairs) {
-            TikaServerWatchDog watcher = new TikaServerWatchDog(p.port, p.id, tikaServerConfig);
-            executorCompletionService.submit(watcher);
-            WATCHERS.add(watcher);
+            if (numWorkers == 1) {
+                TikaServerWatchDog watcher = new TikaServerWatchDog(p.port, p.id, tikaServerConfig);
+                executorCompletionService.submit(watcher);
+                WATCHERS.add(watcher);
+            } else {
+                startWorkers(p, numWorkers, tikaServerConfig, executorCompletionService);
+            }
         }
 
         int finished = 0;
         try {
-            while (finished < portIdPairs.size()) {
+            while (finished < WATCHERS.size()) {
                 Future<WatchDogResult> future = executorCompletionService.poll(1, TimeUnit.MINUTES);
                 if (future != null) {
                     LOG.debug("main loop future is available");
@@ -124,11 +134,48 @@ public class TikaServerCli {
             }
             LOG.debug("thread interrupted", e);
         } finally {
+            closeBalancers();
             //this is just asking nicely...there is no guarantee!
             executorService.shutdownNow();
         }
     }
 
+    /**
+     * Starts the workers for one port on loopback ports picked by the OS, and a
+     * {@link WorkerBalancer} on the port itself.
+     */
+    private static void startWorkers(PortIdPair p, int numWorkers, TikaServerConfig tikaServerConfig,
+                                     ExecutorCompletionService<WatchDogResult> executorCompletionService) throws IOException {
+        Path workersStatusFile = Files.createTempFile(tikaServerConfig.getTempFilePrefix() + "workers-", "");
+        List<TikaServerWatchDog> workers = new ArrayList<>();
+        for (int i = 0; i < numWorkers; i++) {
+            TikaServerWatchDog watcher =
+                    new TikaServerWatchDog(InetAddress.getLoopbackAddress().getHostAddress(), 0, p.id + "-w" + i, tikaServerConfig,
+                            workersStatusFile);
+            workers.add(watcher);
+        }
+        WorkerBalancer balancer = new WorkerBalancer(tikaServerConfig.getHost(), p.port, workers, workersStatusFile);
+        balancer.bind();
+        BALANCERS.add(balancer);
+        for (TikaServerWatchDog watcher : workers) {
+            executorCompletionService.submit(watcher);
+            WATCHERS.add(watcher);
+        }
+        Thread balancerThread = new Thread(balancer, "tika-worker-balancer-" + p.port);
+        balancerThread.setDaemon(true);
+        balancerThread.start();
+    }
+
+    private static void closeBalancers() {
+        for (WorkerBalancer balancer : BALANCERS) {
+            try {
+                balancer.close();
+            } catch (IOException e) {
+                LOG.warn("Exception trying to close balancer", e);
+            }
+        }
+    }
+
     public static void stop(String[] args) {
         if (PREVENT_STOP) {
             LOG.info("preventStopMethod was set to true in the server config. I'm not stopping.");
@@ -147,6 +194,7 @@ public class TikaServerCli {
             System.exit(-1);
         }
 
+        closeBalancers();
         for (TikaServerWatchDog watcher : WATCHERS) {
             try {
                 watcher.close();
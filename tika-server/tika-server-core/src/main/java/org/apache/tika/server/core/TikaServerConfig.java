@@ -79,8 +79,8 @@ public class TikaServerConfig extends ConfigBase {
                     "drive or a webpage from your intranet and/or send malicious content to\n" + " your emitter endpoints.  See CVE-2015-3271.\n" +
                     "Please make sure you know what you are doing.";
     private static final List<String> ONLY_IN_FORK_MODE = Arrays.asList(
-            new String[]{"taskTimeoutMillis", "taskPulseMillis", "maxFiles", "javaPath", "maxRestarts", "numRestarts", "forkedStatusFile", "maxForkedStartupMillis",
-                    "tmpFilePrefix"});
+            new String[]{"taskTimeoutMillis", "taskPulseMillis", "maxFiles", "javaPath", "maxRestarts", "numRestarts", "numTimeouts", "numOOMs", "forkedStatusFile",
+                    "maxForkedStartupMillis", "tmpFilePrefix", "numWorkers", "workersStatusFile"});
     private static Pattern SYS_PROPS = Pattern.compile("\\$\\{sys:([-_0-9A-Za-z]+)\\}");
     /*
 TODO: integrate these settings:
@@ -98,6 +98,11 @@ private long forkedProcessShutdownMillis = DEFAULT_FORKED_PROCESS_SHUTDOWN_MILLI
  */
     private int maxRestarts = -1;
     private long maxFiles = 100000;
+    private int numWorkers = 1;
+    private int maxConcurrentParses = -1;
+    private int maxQueuedParses = 100;
+    private long maxQueueWaitMillis = 60000;
+    private int retryAfterSeconds = 5;
     private long taskTimeoutMillis = DEFAULT_TASK_TIMEOUT_MILLIS;
     private long minimumTimeoutMillis = DEFAULT_MINIMUM_TIMEOUT_MILLIS;
     private long taskPulseMillis = DEFAULT_TASK_PULSE_MILLIS;
@@ -126,7 +131,10 @@ private long forkedProcessShutdownMillis = DEFAULT_FORKED_PROCESS_SHUTDOWN_MILLI
     //these should only be set in the forked process
     //and they are automatically set by the forking process
     private String forkedStatusFile;
+    private String workersStatusFile;
     private int numRestarts = 0;
+    private long numTimeouts = 0;
+    private long numOOMs = 0;
 
     private boolean preventStopMethod = false;
 
@@ -176,10 +184,25 @@ private long forkedProcessShutdownMillis = DEFAULT_FORKED_PROCESS_SHUTDOWN_MILLI
             settings.add("numRestarts");
         }
 
+        if (commandLine.hasOption("numTimeouts")) {
+            config.setNumTimeouts(Long.parseLong(commandLine.getOptionValue("numTimeouts")));
+            settings.add("numTimeouts");
+        }
+
+        if (commandLine.hasOption("numOOMs")) {
+            config.setNumOOMs(Long.parseLong(commandLine.getOptionValue("numOOMs")));
+            settings.add("numOOMs");
+        }
+
         if (commandLine.hasOption("forkedStatusFile")) {
             config.setForkedStatusFile(commandLine.getOptionValue("forkedStatusFile"));
             settings.add("forkedStatusFile");
         }
+
+        if (commandLine.hasOption("workersStatusFile")) {
+            config.setWorkersStatusFile(commandLine.getOptionValue("workersStatusFile"));
+            settings.add("workersStatusFile");
+        }
         config.validateConsistency(settings);
         return config;
     }
@@ -378,10 +401,14 @@ private long forkedProcessShutdownMillis = DEFAULT_FORKED_PROCESS_SHUTDOWN_MILLI
     }
 
     public List<String> getForkedProcessArgs(int port, String id) {
+        return getForkedProcessArgs(getHost(), port, id);
+    }
+
+    public List<String> getForkedProcessArgs(String host, int port, String id) {
         //these are the arguments for the forked process
         List<String> args = new ArrayList<>();
         args.add("-h");
-        args.add(getHost());
+        args.add(host);
         args.add("-p");
         args.add(Integer.toString(port));
         args.add("-i");
@@ -403,6 +430,80 @@ private long forkedProcessShutdownMillis = DEFAULT_FORKED_PROCESS_SHUTDOWN_MILLI
         this.minimumTimeoutMillis = minimumTimeoutMillis;
     }
 
+    /**
+     * Number of forked worker processes behind each port.  If more than
+     * one, the forking process listens on the port and hands each
+     * connection to the worker with the fewest open connections, see
+     * {@link WorkerBalancer}.
+     *
+     * @return
+     */
+    public int getNumWorkers() {
+        return numWorkers;
+    }
+
+    public void setNumWorkers(int numWorkers) {
+        this.numWorkers = numWorkers;
+    }
+
+    /**
+     * Maximum number of parses to run at the same time; further requests
+     * are queued, see {@link ParseQueue}.  <code>-1</code>, the default,
+     * means no limit.
+     *
+     * @return
+     */
+    public int getMaxConcurrentParses() {
+        return maxConcurrentParses;
+    }
+
+    public void setMaxConcurrentParses(int maxConcurrentParses) {
+        this.maxConcurrentParses = maxConcurrentParses;
+    }
+
+    /**
+     * Maximum number of parses waiting for a slot if
+     * {@link #getMaxConcurrentParses()} is set.  Requests beyond that are
+     * rejected with a 503.
+     *
+     * @return
+     */
+    public int getMaxQueuedParses() {
+        return maxQueuedParses;
+    }
+
+    public void setMaxQueuedParses(int maxQueuedParses) {
+        this.maxQueuedParses = maxQueuedParses;
+    }
+
+    /**
+     * How long a queued parse may wait for a slot before it is rejected
+     * with a 503
+     *
+     * @return
+     */
+    public long getMaxQueueWaitMillis() {
+        return maxQueueWaitMillis;
+    }
+
+    public void setMaxQueueWaitMillis(long maxQueueWaitMillis) {
+        this.maxQueueWaitMillis = maxQueueWaitMillis;
+    }
+
+    /**
+     * Value of the Retry-After header of requests rejected by the
+     * parse queue
+     *
+     * @return
+     */
+    public int getRetryAfterSeconds() {
+        return retryAfterSeconds;
+    }
+
+    public void setRetryAfterSeconds(int retryAfterSeconds) {
+        this.retryAfterSeconds = retryAfterSeconds;
+    }
+
     public String getIdBase() {
         return idBase;
     }
@@ -597,6 +698,14 @@ private long forkedProcessShutdownMillis = DEFAULT_FORKED_PROCESS_SHUTDOWN_MILLI
         return numRestarts;
     }
 
+    public long getNumTimeouts() {
+        return numTimeouts;
+    }
+
+    public long getNumOOMs() {
+        return numOOMs;
+    }
+
     /******
      * these should only be used in the commandline for a forked process
      ******/
@@ -606,6 +715,14 @@ private long forkedProcessShutdownMillis = DEFAULT_FORKED_PROCESS_SHUTDOWN_MILLI
         this.numRestarts = numRestarts;
     }
 
+    private void setNumTimeouts(long numTimeouts) {
+        this.numTimeouts = numTimeouts;
+    }
+
+    private void setNumOOMs(long numOOMs) {
+        this.numOOMs = numOOMs;
+    }
+
     public String getForkedStatusFile() {
         return forkedStatusFile;
     }
@@ -614,6 +731,18 @@ private long forkedProcessShutdownMillis = DEFAULT_FORKED_PROCESS_SHUTDOWN_MILLI
         this.forkedStatusFile = forkedStatusFile;
     }
 
+    /**
+     * @return file in which the forking process publishes the status of
+     * all workers, or <code>null</code> if there is only one worker
+     */
+    public String getWorkersStatusFile() {
+        return workersStatusFile;
+    }
+
+    private void setWorkersStatusFile(String workersStatusFile) {
+        this.workersStatusFile = workersStatusFile;
+    }
+
     public void setMaxforkedStartupMillis(long maxforkedStartupMillis) {
         this.maxforkedStartupMillis = maxforkedStartupMillis;
     }
@@ -50,9 +50,14 @@ import org.apache.cxf.jaxrs.lifecycle.SingletonResourceProvider;
 import org.apache.cxf.jaxrs.utils.JAXRSServerFactoryCustomizationUtils;
 import org.apache.cxf.rs.security.cors.CrossOriginResourceSharingFilter;
 import org.apache.cxf.service.factory.ServiceConstructionException;
+import org.apache.cxf.transport.Destination;
 import org.apache.cxf.transport.common.gzip.GZIPInInterceptor;
 import org.apache.cxf.transport.common.gzip.GZIPOutInterceptor;
+import org.apache.cxf.transport.http_jetty.JettyHTTPDestination;
+import org.apache.cxf.transport.http_jetty.JettyHTTPServerEngine;
 import org.apache.cxf.transport.http_jetty.JettyHTTPServerEngineFactory;
+import org.apache.cxf.transport.http_jetty.ServerEngine;
+import org.eclipse.jetty.server.NetworkConnector;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.xml.sax.SAXException;
@@ -76,6 +81,7 @@ import org.apache.tika.server.core.resource.TikaDetectors;
 import org.apache.tika.server.core.resource.TikaMimeTypes;
 import org.apache.tika.server.core.resource.TikaParsers;
 import org.apache.tika.server.core.resource.TikaResource;
+import org.apache.tika.server.core.resource.TikaServerMetrics;
 import org.apache.tika.server.core.resource.TikaServerResource;
 import org.apache.tika.server.core.resource.TikaServerStatus;
 import org.apache.tika.server.core.resource.TikaVersion;
@@ -111,6 +117,9 @@ public class TikaServerProcess {
                 "Not allowed in -noFork: temporary file used to communicate " + "with forking process -- do not use this! " + "Should only be invoked by forking process.");
         options.addOption("tmpFilePrefix", true, "Not allowed in -noFork: prefix for temp file - for debugging only");
         options.addOption("numRestarts", true, "Not allowed in -noFork: number of times that " + "the forked server has had to be restarted.");
+        options.addOption("numTimeouts", true, "Not allowed in -noFork: number of earlier " + "forked servers that ended with a timeout.");
+        options.addOption("numOOMs", true, "Not allowed in -noFork: number of earlier " + "forked servers that ended with an OOM.");
+        options.addOption("workersStatusFile", true, "Not allowed in -noFork: file in which the forking " + "process publishes the status of its workers.");
         return options;
     }
 
@@ -144,9 +153,10 @@ public class TikaServerProcess {
 
     private static void startServer(ServerDetails serverDetails, TikaServerConfig tikaServerConfig) throws Exception {
 
+        Server server = null;
         try {
             //start the server
-            Server server = serverDetails.sf.create();
+            server = serverDetails.sf.create();
         } catch (ServiceConstructionException e) {
             LOG.warn("exception starting server", e);
             if (isBindException(e)) {
@@ -161,7 +171,8 @@ public class TikaServerProcess {
             System.setIn(new ByteArrayInputStream(new byte[0]));
 
             String forkedStatusFile = tikaServerConfig.getForkedStatusFile();
-            Thread serverThread = new Thread(new ServerStatusWatcher(serverDetails.serverStatus, in, Paths.get(forkedStatusFile), tikaServerConfig));
+            Thread serverThread = new Thread(new ServerStatusWatcher(serverDetails.serverStatus, in, Paths.get(forkedStatusFile), tikaServerConfig,
+                    getLocalPort(server)));
 
             serverThread.start();
         }
@@ -169,6 +180,21 @@ public class TikaServerProcess {
         LOG.info("Started Apache Tika server {} at {}", serverDetails.serverId, serverDetails.url);
     }
 
+    /**
+     * @return the port the server listens on, which the OS picks if the
+     * server was asked for port 0, or -1 if it can't be determined
+     */
+    static int getLocalPort(Server server) {
+        Destination destination = server.getDestination();
+        if (destination instanceof JettyHTTPDestination) {
+            ServerEngine engine = ((JettyHTTPDestination) destination).getEngine();
+            if (engine instanceof JettyHTTPServerEngine && ((JettyHTTPServerEngine) engine).getConnector() instanceof NetworkConnector) {
+                return ((NetworkConnector) ((JettyHTTPServerEngine) engine).getConnector()).getLocalPort();
+            }
+        }
+        return -1;
+    }
+
     //This returns the server, configured and ready to be started.
     private static ServerDetails initServer(TikaServerConfig tikaServerConfig) throws Exception {
         String host = tikaServerConfig.getHost();
@@ -223,8 +249,15 @@ public class TikaServerProcess {
             serverStatus = new ServerStatus(serverId, 0, true);
         } else {
             serverStatus = new ServerStatus(serverId, tikaServerConfig.getNumRestarts(), false);
+            serverStatus
+                    .getMetrics()
+                    .addPreviousFailures(tikaServerConfig.getNumTimeouts(), tikaServerConfig.getNumOOMs());
             System.setOut(System.err);
         }
+        if (tikaServerConfig.getMaxConcurrentParses() > 0) {
+            serverStatus.setParseQueue(new ParseQueue(tikaServerConfig.getMaxConcurrentParses(), tikaServerConfig.getMaxQueuedParses(),
+                    tikaServerConfig.getMaxQueueWaitMillis(), tikaServerConfig.getRetryAfterSeconds()));
+        }
         TikaResource.init(tika, tikaServerConfig, digester, inputStreamFactory, serverStatus);
         JAXRSServerFactoryBean sf = new JAXRSServerFactoryBean();
 
@@ -373,7 +406,8 @@ public class TikaServerProcess {
                     addAsyncResource = true;
                     addPipesResource = true;
                 }
-                resourceProviders.add(new SingletonResourceProvider(new TikaServerStatus(serverStatus)));
+                resourceProviders.add(new SingletonResourceProvider(new TikaServerStatus(serverStatus, tikaServerConfig.getWorkersStatusFile())));
+                resourceProviders.add(new SingletonResourceProvider(new TikaServerMetrics(serverStatus)));
             }
         } else {
             for (String endPoint : tikaServerConfig.getEndpoints()) {
@@ -404,7 +438,9 @@ public class TikaServerProcess {
                 } else if ("async".equals(endPoint)) {
                     addAsyncResource = true;
                 } else if ("status".equals(endPoint)) {
-                    resourceProviders.add(new SingletonResourceProvider(new TikaServerStatus(serverStatus)));
+                    resourceProviders.add(new SingletonResourceProvider(new TikaServerStatus(serverStatus, tikaServerConfig.getWorkersStatusFile())));
+                } else if ("metrics".equals(endPoint)) {
+                    resourceProviders.add(new SingletonResourceProvider(new TikaServerMetrics(serverStatus)));
                 }
             }
         }
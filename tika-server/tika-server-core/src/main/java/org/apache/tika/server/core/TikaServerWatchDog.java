@@ -76,20 +76,39 @@ public class TikaServerWatchDog implements Callable<WatchDogResult> {
                 .addShutdownHook(shutdownHook);
     }
 
+    private final String host;
     private final int port;
+    //the port the forked process actually listens on, see getPort()
+    private volatile int boundPort = -1;
     private final String id;
     private final TikaServerConfig tikaServerConfig;
+    private final Path workersStatusFile;
     private final Object[] forkedStatusLock = new Object[0];
     private volatile FORKED_STATUS forkedStatus = FORKED_STATUS.INITIALIZING;
     private volatile Instant lastPing = null;
-    private ForkedProcess forkedProcess = null;
-    private int restarts = 0;
+    private volatile ForkedProcess forkedProcess = null;
+    private volatile int restarts = 0;
+    //handed to each new forked process so that its metrics cover earlier ones
+    private volatile long timeouts = 0;
+    private volatile long ooms = 0;
+    private volatile int numActiveTasks = 0;
     private volatile boolean shutDown = false;
 
     TikaServerWatchDog(int port, String id, TikaServerConfig tikaServerConfig) {
+        this(tikaServerConfig.getHost(), port, id, tikaServerConfig, null);
+    }
+
+    /**
+     * @param host              host the forked process listens on
+     * @param workersStatusFile handed to the forked process if it is one of
+     *                          several workers behind a {@link WorkerBalancer}
+     */
+    TikaServerWatchDog(String host, int port, String id, TikaServerConfig tikaServerConfig, Path workersStatusFile) {
+        this.host = host;
         this.port = port;
         this.id = id;
         this.tikaServerConfig = tikaServerConfig;
+        this.workersStatusFile = workersStatusFile;
     }
 
     private static void redirectIO(final InputStream src, final PrintStream targ) {
@@ -145,6 +164,8 @@ public class TikaServerWatchDog implements Callable<WatchDogResult> {
 
                 try {
                     if (mustRestart) {
+                        setForkedStatus(FORKED_STATUS.INITIALIZING);
+                        numActiveTasks = 0;
                         forkedProcess = startForkedProcess(restarts++);
                         if (forkedProcess == null) {
                             if (!shutDown) {
@@ -153,16 +174,26 @@ public class TikaServerWatchDog implements Callable<WatchDogResult> {
                                 return new WatchDogResult(port, id, restarts);
                             }
                         }
+                        int reported = forkedProcess.readStatus().port;
+                        boundPort = reported > 0 ? reported : port;
                         setForkedStatus(FORKED_STATUS.RUNNING);
                         mustRestart = false;
                     }
                     boolean exited = forkedProcess.process.waitFor(tikaServerConfig.getTaskPulseMillis(), TimeUnit.MILLISECONDS);
                     if (exited) {
-                        LOG.info("forked process exited with exit value {}", forkedProcess.process.exitValue());
+                        int exitValue = forkedProcess.process.exitValue();
+                        LOG.info("forked process exited with exit value {}", exitValue);
+                        if (exitValue == ServerStatus.STATUS.TIMEOUT.getShutdownCode()) {
+                            timeouts++;
+                        } else if (exitValue == ServerStatus.STATUS.ERROR.getShutdownCode()) {
+                            //the forked process only sets ERROR on OOM
+                            ooms++;
+                        }
                         closeForkedProcess(forkedProcess);
                         mustRestart = true;
                     } else {
                         ForkedStatus status = forkedProcess.readStatus();
+                        numActiveTasks = Math.max(status.numTasks, 0);
                         if (status.status == FORKED_STATUS.FAILED_COMMUNICATION.ordinal()) {
                             LOG.info("failed to read from status file. Restarting now.");
                             closeForkedProcess(forkedProcess);
@@ -178,6 +209,7 @@ public class TikaServerWatchDog implements Callable<WatchDogResult> {
                                     .toMillis();
                             if (elapsed > tikaServerConfig.getTaskTimeoutMillis()) {
                                 LOG.info("{} ms have elapsed since forked process " + "last updated status. " + "Shutting down and restarting.", elapsed);
+                                timeouts++;
                                 closeForkedProcess(forkedProcess);
                                 mustRestart = true;
                             }
@@ -235,6 +267,54 @@ public class TikaServerWatchDog implements Callable<WatchDogResult> {
         shutDown = true;
     }
 
+    /**
+     * @return the port the forked process listens on; if it was started on
+     * port 0, this is the one the OS picked, as reported by the process
+     */
+    int getPort() {
+        int p = boundPort;
+        return p > 0 ? p : port;
+    }
+
+    String getId() {
+        return id;
+    }
+
+    /**
+     * @return <code>true</code> if the forked process has started and
+     * hasn't been found dead yet
+     */
+    boolean isRunning() {
+        ForkedProcess p = forkedProcess;
+        return forkedStatus == FORKED_STATUS.RUNNING && p != null && p.process.isAlive();
+    }
+
+    String getForkedStatus() {
+        return forkedStatus.name();
+    }
+
+    /**
+     * @return number of tasks the forked process reported at the last pulse
+     */
+    int getNumActiveTasks() {
+        return numActiveTasks;
+    }
+
+    /**
+     * @return number of times the forked process has been (re)started
+     */
+    int getRestarts() {
+        return restarts;
+    }
+
+    long getTimeouts() {
+        return timeouts;
+    }
+
+    long getOOMs() {
+        return ooms;
+    }
+
     private void setForkedStatus(FORKED_STATUS status) {
         synchronized (forkedStatusLock) {
             forkedStatus = status;
@@ -249,16 +329,18 @@ public class TikaServerWatchDog implements Callable<WatchDogResult> {
         private final long timestamp;
         private final int status;
         private final int numTasks;
+        private final int port;
 
-        public ForkedStatus(long timestamp, int status, int numTasks) {
+        public ForkedStatus(long timestamp, int status, int numTasks, int port) {
             this.timestamp = timestamp;
             this.status = status;
             this.numTasks = numTasks;
+            this.port = port;
         }
 
         @Override
         public String toString() {
-            return "ForkedStatus{" + "timestamp=" + timestamp + ", status=" + status + ", numTasks=" + numTasks + '}';
+            return "ForkedStatus{" + "timestamp=" + timestamp + ", status=" + status + ", numTasks=" + numTasks + ", port=" + port + '}';
         }
     }
 
@@ -277,7 +359,7 @@ public class TikaServerWatchDog implements Callable<WatchDogResult> {
         private final Process process;
         //        private final DataOutputStream toForked;
         private final Path forkedStatusFile;
-        private final ByteBuffer statusBuffer = ByteBuffer.allocate(16);
+        private final ByteBuffer statusBuffer = ByteBuffer.allocate(ServerStatusWatcher.STATUS_LENGTH);
 
         private ForkedProcess(int numRestarts) throws Exception {
             String prefix = tikaServerConfig.getTempFilePrefix();
@@ -291,7 +373,7 @@ public class TikaServerWatchDog implements Callable<WatchDogResult> {
                     .between(start, Instant.now())
                     .toMillis();
             try {
-                while (process.isAlive() && Files.size(forkedStatusFile) < 12 && elapsed < tikaServerConfig.getMaxForkedStartupMillis()) {
+                while (process.isAlive() && Files.size(forkedStatusFile) < ServerStatusWatcher.STATUS_LENGTH && elapsed < tikaServerConfig.getMaxForkedStartupMillis()) {
                     Thread.sleep(50);
                     elapsed = Duration
                             .between(start, Instant.now())
@@ -331,14 +413,15 @@ public class TikaServerWatchDog implements Callable<WatchDogResult> {
             try (FileChannel fc = FileChannel.open(forkedStatusFile, READ, WRITE)) {
 
                 while (elapsed < tikaServerConfig.getTaskTimeoutMillis()) {
-                    try (FileLock lock = fc.tryLock(0, 16, true)) {
+                    try (FileLock lock = fc.tryLock(0, ServerStatusWatcher.STATUS_LENGTH, true)) {
                         if (lock != null) {
                             ((Buffer) statusBuffer).position(0);
                             fc.read(statusBuffer);
                             long timestamp = statusBuffer.getLong(0);
                             int status = statusBuffer.getInt(8);
                             int numTasks = statusBuffer.getInt(12);
-                            return new ForkedStatus(timestamp, status, numTasks);
+                            int port = statusBuffer.getInt(16);
+                            return new ForkedStatus(timestamp, status, numTasks, port);
                         }
                     } catch (OverlappingFileLockException e) {
                         //swallow
@@ -349,7 +432,7 @@ public class TikaServerWatchDog implements Callable<WatchDogResult> {
                             .toMillis();
                 }
             }
-            return new ForkedStatus(-1, FORKED_STATUS.FAILED_COMMUNICATION.ordinal(), -1);
+            return new ForkedStatus(-1, FORKED_STATUS.FAILED_COMMUNICATION.ordinal(), -1, -1);
         }
 
         private void close() throws DoNotRestartException, InterruptedException {
@@ -387,11 +470,17 @@ public class TikaServerWatchDog implements Callable<WatchDogResult> {
             List<String> argList = new ArrayList<>();
             String javaPath = tikaServerConfig.getJavaPath();
             List<String> jvmArgs = tikaServerConfig.getForkedJvmArgs();
-            List<String> forkedArgs = tikaServerConfig.getForkedProcessArgs(port, id);
+            List<String> forkedArgs = tikaServerConfig.getForkedProcessArgs(host, port, id);
             forkedArgs.add("-forkedStatusFile");
             forkedArgs.add(ProcessUtils.escapeCommandLine(forkedStatusFile
                     .toAbsolutePath()
                     .toString()));
+            if (workersStatusFile != null) {
+                forkedArgs.add("-workersStatusFile");
+                forkedArgs.add(ProcessUtils.escapeCommandLine(workersStatusFile
+                        .toAbsolutePath()
+                        .toString()));
+            }
 
             argList.add(javaPath);
             if (!jvmArgs.contains("-cp") && !jvmArgs.contains("--classpath")) {
@@ -409,6 +498,10 @@ public class TikaServerWatchDog implements Callable<WatchDogResult> {
 
             argList.add("-numRestarts");
             argList.add(Integer.toString(numRestarts));
+            argList.add("-numTimeouts");
+            argList.add(Long.toString(timeouts));
+            argList.add("-numOOMs");
+            argList.add(Long.toString(ooms));
             LOG.debug("forked process commandline: " + argList.toString());
             builder.command(argList);
             //now overwrite with the specific server id
@@ -0,0 +1,305 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.tika.server.core;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Listens on the public port for several forked workers and hands each
+ * incoming connection to the running worker with the fewest open
+ * connections.
+ * <p>
+ * Balancing happens per connection at the TCP level, so TLS, chunked
+ * uploads and streaming responses pass through untouched; a client that
+ * keeps its connection alive stays with its worker.  If a worker dies,
+ * only the connections to that worker are dropped while its watchdog
+ * restarts it; new connections go to the others in the meantime.
+ * <p>
+ * The status of all workers is published to a file every
+ * {@link #STATUS_INTERVAL_MILLIS} so that their <code>/status</code>
+ * endpoints can report it, see {@link WorkersStatusFile}.
+ */
+class WorkerBalancer implements Runnable, Closeable {
+
+    static final long STATUS_INTERVAL_MILLIS = 1000;
+
+    private static final Logger LOG = LoggerFactory.getLogger(WorkerBalancer.class);
+
+    private static final int CONNECT_TIMEOUT_MILLIS = 5000;
+
+    private static final byte[] UNAVAILABLE = ("HTTP/1.1 503 Service Unavailable\r\n" + "Retry-After: 1\r\n" + "Content-Length: 0\r\n" + "Connection: close\r\n\r\n").getBytes(
+            StandardCharsets.US_ASCII);
+
+    private final String host;
+    private final int port;
+    private final List<Worker> workers = new ArrayList<>();
+    private final Path workersStatusFile;
+    private final ExecutorService handlers = Executors.newCachedThreadPool(r -> {
+        Thread t = new Thread(r, "tika-worker-balancer-handler");
+        t.setDaemon(true);
+        return t;
+    });
+    private final AtomicInteger next = new AtomicInteger();
+    private volatile ServerSocket serverSocket;
+    private volatile boolean closed = false;
+
+    WorkerBalancer(String host, int port, List<TikaServerWatchDog> watchDogs, Path workersStatusFile) {
+        this.host = host;
+        this.port = port;
+        for (TikaServerWatchDog watchDog : watchDogs) {
+            workers.add(new Worker(watchDog));
+        }
+        this.workersStatusFile = workersStatusFile;
+    }
+
+    /**
+     * Binds the public port; call before {@link #run()} so that a bind
+     * failure surfaces at startup.
+     */
+    void bind() throws IOException {
+        ServerSocket s = new ServerSocket();
+        s.setReuseAddress(true);
+        s.bind(new InetSocketAddress(host, port));
+        serverSocket = s;
+        LOG.info("balancing {} workers behind {}:{}", workers.size(), host, s.getLocalPort());
+    }
+
+    /**
+     * @return the public port, after {@link #bind()}
+     */
+    int getLocalPort() {
+        return serverSocket.getLocalPort();
+    }
+
+    @Override
+    public void run() {
+        Thread statusThread = new Thread(this::publishStatus, "tika-worker-balancer-status");
+        statusThread.setDaemon(true);
+        statusThread.start();
+        try {
+            while (!closed) {
+                Socket client = serverSocket.accept();
+                //connecting to a worker can take a while, so don't hold up the next accept
+                try {
+                    handlers.execute(() -> handle(client));
+                } catch (RejectedExecutionException e) {
+                    closeQuietly(client);
+                }
+            }
+        } catch (IOException e) {
+            if (!closed) {
+                LOG.error("balancer stopped accepting connections", e);
+            }
+        } finally {
+            statusThread.interrupt();
+        }
+    }
+
+    private void handle(Socket client) {
+        try {
+            dispatch(client);
+        } catch (IOException | RuntimeException e) {
+            LOG.warn("couldn't dispatch connection", e);
+            closeQuietly(client);
+        }
+    }
+
+    /**
+     * Connects the client to a worker and pumps the client's side of the
+     * connection on the calling thread.
+     */
+    private void dispatch(Socket client) throws IOException {
+        client.setTcpNoDelay(true);
+        //try the least loaded worker first, fall back to the others if it can't be reached
+        List<Worker> candidates = candidates();
+        for (Worker worker : candidates) {
+            Socket upstream = new Socket();
+            try {
+                upstream.setTcpNoDelay(true);
+                upstream.connect(new InetSocketAddress(InetAddress.getLoopbackAddress(), worker.watchDog.getPort()), CONNECT_TIMEOUT_MILLIS);
+            } catch (IOException e) {
+                LOG.debug("couldn't connect to worker {}", worker.watchDog.getId(), e);
+                closeQuietly(upstream);
+                continue;
+            }
+            worker.open.incrementAndGet();
+            worker.total.incrementAndGet();
+            Connection connection = new Connection(worker, client, upstream);
+            try {
+                handlers.execute(() -> connection.pump(upstream, client));
+            } catch (RejectedExecutionException e) {
+                //the balancer is closing
+                closeQuietly(upstream);
+                closeQuietly(client);
+                worker.open.decrementAndGet();
+                return;
+            }
+            connection.pump(client, upstream);
+            return;
+        }
+        LOG.warn("no worker available for connection from {}", client.getRemoteSocketAddress());
+        try (OutputStream os = client.getOutputStream()) {
+            os.write(UNAVAILABLE);
+        } finally {
+            closeQuietly(client);
+        }
+    }
+
+    /**
+     * @return the running workers, least open connections first; ties are
+     * broken round-robin
+     */
+    List<Worker> candidates() {
+        int size = workers.size();
+        int start = Math.floorMod(next.getAndIncrement(), size);
+        List<Worker> candidates = new ArrayList<>(size);
+        for (int i = 0; i < size; i++) {
+            Worker w = workers.get((start + i) % size);
+            if (w.watchDog.isRunning()) {
+                candidates.add(w);
+            }
+        }
+        //stable sort keeps the round-robin order among equals
+        candidates.sort((a, b) -> Integer.compare(a.open.get(), b.open.get()));
+        return candidates;
+    }
+
+    private void publishStatus() {
+        while (!closed) {
+            try {
+                WorkersStatusFile.write(workersStatusFile, getStatus());
+            } catch (IOException e) {
+                LOG.warn("couldn't write workers status file", e);
+            }
+            try {
+                Thread.sleep(STATUS_INTERVAL_MILLIS);
+            } catch (InterruptedException e) {
+                return;
+            }
+        }
+    }
+
+    List<Map<String, Object>> getStatus() {
+        List<Map<String, Object>> status = new ArrayList<>();
+        for (Worker w : workers) {
+            Map<String, Object> m = new LinkedHashMap<>();
+            m.put("id", w.watchDog.getId());
+            m.put("port", w.watchDog.getPort());
+            m.put("status", w.watchDog.getForkedStatus());
+            m.put("active_tasks", w.watchDog.getNumActiveTasks());
+            m.put("open_connections", w.open.get());
+            m.put("connections", w.total.get());
+            m.put("num_restarts", Math.max(w.watchDog.getRestarts() - 1, 0));
+            m.put("timeouts", w.watchDog.getTimeouts());
+            m.put("ooms", w.watchDog.getOOMs());
+            status.add(m);
+        }
+        return status;
+    }
+
+    @Override
+    public void close() throws IOException {
+        closed = true;
+        handlers.shutdownNow();
+        ServerSocket s = serverSocket;
+        if (s != null) {
+            s.close();
+        }
+        Files.deleteIfExists(workersStatusFile);
+    }
+
+    private static void closeQuietly(Socket socket) {
+        try {
+            socket.close();
+        } catch (IOException e) {
+            //swallow
+        }
+    }
+
+    static class Worker {
+        private final TikaServerWatchDog watchDog;
+        private final AtomicInteger open = new AtomicInteger();
+        private final AtomicLong total = new AtomicLong();
+
+        Worker(TikaServerWatchDog watchDog) {
+            this.watchDog = watchDog;
+        }
+    }
+
+    /**
+     * A proxied connection; it is released once both directions are done.
+     */
+    private static class Connection {
+        private final Worker worker;
+        private final Socket client;
+        private final Socket upstream;
+        private final AtomicInteger remaining = new AtomicInteger(2);
+
+        Connection(Worker worker, Socket client, Socket upstream) {
+            this.worker = worker;
+            this.client = client;
+            this.upstream = upstream;
+        }
+
+        void pump(Socket from, Socket to) {
+            byte[] buffer = new byte[16384];
+            try {
+                InputStream is = from.getInputStream();
+                OutputStream os = to.getOutputStream();
+                int n;
+                while ((n = is.read(buffer)) != -1) {
+                    os.write(buffer, 0, n);
+                }
+                //pass the half close on, e.g. a client that is done sending
+                to.shutdownOutput();
+            } catch (IOException e) {
+                //one side went away; tear down both directions
+                LOG.debug("proxied connection closed", e);
+                closeQuietly(client);
+                closeQuietly(upstream);
+            } finally {
+                if (remaining.decrementAndGet() == 0) {
+                    closeQuietly(client);
+                    closeQuietly(upstream);
+                    worker.open.decrementAndGet();
+                }
+            }
+        }
+    }
+}
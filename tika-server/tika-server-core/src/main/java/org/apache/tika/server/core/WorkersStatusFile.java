@@ -0,0 +1,111 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.tika.server.core;
+
+import static java.nio.charset.StandardCharsets.UTF_8;
+
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * The status of the workers behind a {@link WorkerBalancer}, written by the
+ * forking process and read by the workers' <code>/status</code> endpoint.
+ * <p>
+ * The format is a header line with the field names followed by one line
+ * per worker, tab separated.  The file is replaced atomically so that
+ * readers never see a partial write.
+ */
+public class WorkersStatusFile {
+
+    private WorkersStatusFile() {
+    }
+
+    static void write(Path path, List<Map<String, Object>> workers) throws IOException {
+        Path tmp = path.resolveSibling(path.getFileName() + ".tmp");
+        try (BufferedWriter writer = Files.newBufferedWriter(tmp, UTF_8)) {
+            if (!workers.isEmpty()) {
+                writer.write(String.join("\t", workers
+                        .get(0)
+                        .keySet()));
+                writer.write('\n');
+            }
+            for (Map<String, Object> worker : workers) {
+                List<String> values = new ArrayList<>();
+                for (Object v : worker.values()) {
+                    values.add(String
+                            .valueOf(v)
+                            .replace('\t', ' ')
+                            .replace('\n', ' '));
+                }
+                writer.write(String.join("\t", values));
+                writer.write('\n');
+            }
+        }
+        try {
+            Files.move(tmp, path, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } catch (AtomicMoveNotSupportedException e) {
+            Files.move(tmp, path, StandardCopyOption.REPLACE_EXISTING);
+        }
+    }
+
+    /**
+     * @return one map per worker, numbers as <code>Long</code>s; empty if
+     * the file doesn't exist yet
+     */
+    public static List<Map<String, Object>> read(Path path) throws IOException {
+        if (!Files.isRegularFile(path)) {
+            return Collections.emptyList();
+        }
+        List<Map<String, Object>> workers = new ArrayList<>();
+        try (BufferedReader reader = Files.newBufferedReader(path, UTF_8)) {
+            String header = reader.readLine();
+            if (header == null) {
+                return workers;
+            }
+            List<String> names = Arrays.asList(header.split("\t", -1));
+            String line;
+            while ((line = reader.readLine()) != null) {
+                String[] values = line.split("\t", -1);
+                Map<String, Object> worker = new LinkedHashMap<>();
+                for (int i = 0; i < names.size() && i < values.length; i++) {
+                    worker.put(names.get(i), toValue(values[i]));
+                }
+                workers.add(worker);
+            }
+        }
+        return workers;
+    }
+
+    private static Object toValue(String s) {
+        try {
+            return Long.parseLong(s);
+        } catch (NumberFormatException e) {
+            return s;
+        }
+    }
+}
@@ -0,0 +1,45 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.tika.server.core.config;
+
+import jakarta.ws.rs.WebApplicationException;
+import jakarta.ws.rs.core.MultivaluedMap;
+import jakarta.ws.rs.core.Response;
+
+import org.apache.tika.metadata.Metadata;
+import org.apache.tika.parser.ParseContext;
+import org.apache.tika.server.core.ParseContextConfig;
+import org.apache.tika.server.core.ParseQueue;
+
+/**
+ * Reads the {@link ParseQueue#X_TIKA_PRIORITY} header; it only has an effect
+ * if the server limits the number of concurrent parses.
+ */
+public class PriorityConfig implements ParseContextConfig {
+
+    @Override
+    public void configure(MultivaluedMap<String, String> httpHeaders, Metadata metadata, ParseContext context) {
+        if (httpHeaders.containsKey(ParseQueue.X_TIKA_PRIORITY)) {
+            String value = httpHeaders.getFirst(ParseQueue.X_TIKA_PRIORITY);
+            try {
+                context.set(ParseQueue.Priority.class, new ParseQueue.Priority(Integer.parseInt(value.trim())));
+            } catch (NumberFormatException e) {
+                throw new WebApplicationException(ParseQueue.X_TIKA_PRIORITY + " must be an integer: " + value, Response.Status.BAD_REQUEST);
+            }
+        }
+    }
+}
@@ -0,0 +1,78 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.tika.server.core.metrics;
+
+import java.util.Arrays;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Latency histogram with fixed, logarithmically spaced buckets
+ * (1-2.5-5 per decade from 100&micro;s to 10 minutes).
+ * <p>
+ * Recording is lock-free: each bucket and the sum are {@link LongAdder}s,
+ * so concurrent requests don't contend on a shared counter.  The bucket
+ * bounds are fixed so that they can be exported as a Prometheus
+ * histogram, from which quantiles are computed on the server side.
+ */
+public class LatencyHistogram {
+
+    /**
+     * Inclusive upper bounds of the buckets in microseconds; the last,
+     * implicit bucket is +Inf.
+     */
+    static final long[] BOUNDS_MICROS = {100, 250, 500, 1_000, 2_500, 5_000, 10_000, 25_000, 50_000, 100_000, 250_000, 500_000, 1_000_000, 2_500_000,
+            5_000_000, 10_000_000, 25_000_000, 50_000_000, 100_000_000, 250_000_000, 600_000_000};
+
+    private final LongAdder[] buckets = new LongAdder[BOUNDS_MICROS.length + 1];
+
+    private final LongAdder sumMicros = new LongAdder();
+
+    public LatencyHistogram() {
+        for (int i = 0; i < buckets.length; i++) {
+            buckets[i] = new LongAdder();
+        }
+    }
+
+    public void record(long elapsedNanos) {
+        long micros = TimeUnit.NANOSECONDS.toMicros(Math.max(elapsedNanos, 0));
+        buckets[bucket(micros)].increment();
+        sumMicros.add(micros);
+    }
+
+    static int bucket(long micros) {
+        int i = Arrays.binarySearch(BOUNDS_MICROS, micros);
+        return i >= 0 ? i : -i - 1;
+    }
+
+    /**
+     * @return the number of values per bucket, the last one being +Inf.
+     * The buckets are read one by one, so values recorded concurrently may
+     * or may not be included.
+     */
+    public long[] getCounts() {
+        long[] counts = new long[buckets.length];
+        for (int i = 0; i < buckets.length; i++) {
+            counts[i] = buckets[i].sum();
+        }
+        return counts;
+    }
+
+    public long getSumMicros() {
+        return sumMicros.sum();
+    }
+}
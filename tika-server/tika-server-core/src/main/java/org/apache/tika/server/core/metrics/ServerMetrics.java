@@ -0,0 +1,260 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.tika.server.core.metrics;
+
+import java.io.IOException;
+import java.io.Writer;
+import java.util.EnumMap;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+
+import org.apache.tika.metadata.Metadata;
+import org.apache.tika.metadata.TikaCoreProperties;
+import org.apache.tika.mime.MediaType;
+
+/**
+ * Telemetry of a tika-server process: latency histograms per phase, keyed
+ * by MIME type and parser (or detector), and counters for bytes in,
+ * characters out, timeouts and OOMs.
+ * <p>
+ * Everything that is called on the request path is lock-free.  Timeouts
+ * and OOMs end the forked process, so the counts of earlier forked
+ * processes are handed over by the watchdog and added in with
+ * {@link #addPreviousFailures(long, long)}.
+ */
+public class ServerMetrics {
+
+    public static final String UNKNOWN = "unknown";
+
+    public enum PHASE {
+        DETECT("detect", "detector", "Time spent detecting the media type"),
+        PARSE("parse", "parser", "Time spent parsing, including streaming the output for streaming endpoints"),
+        WRITE("write", "parser", "Time spent serializing the response after the parse");
+
+        private final String name;
+        private final String componentLabel;
+        private final String help;
+
+        PHASE(String name, String componentLabel, String help) {
+            this.name = name;
+            this.componentLabel = componentLabel;
+            this.help = help;
+        }
+    }
+
+    private final Map<PHASE, ConcurrentHashMap<SeriesKey, LatencyHistogram>> histograms = new EnumMap<>(PHASE.class);
+
+    private final LongAdder bytesIn = new LongAdder();
+
+    private final LongAdder charsOut = new LongAdder();
+
+    private final LongAdder timeouts = new LongAdder();
+
+    private final LongAdder ooms = new LongAdder();
+
+    public ServerMetrics() {
+        for (PHASE phase : PHASE.values()) {
+            histograms.put(phase, new ConcurrentHashMap<>());
+        }
+    }
+
+    /**
+     * @param phase       the phase
+     * @param mimeType    detected media type, parameters are dropped
+     * @param component   class name of the parser or detector
+     * @param elapsedNanos time the phase took
+     */
+    public void record(PHASE phase, String mimeType, String component, long elapsedNanos) {
+        histograms
+                .get(phase)
+                .computeIfAbsent(new SeriesKey(baseType(mimeType), component == null ? UNKNOWN : component), k -> new LatencyHistogram())
+                .record(elapsedNanos);
+    }
+
+    /**
+     * Records a phase with the media type and the innermost parser from
+     * the metadata of a parsed document.
+     */
+    public void record(PHASE phase, Metadata metadata, long elapsedNanos) {
+        record(phase, metadata.get(Metadata.CONTENT_TYPE), getParser(metadata), elapsedNanos);
+    }
+
+    public void addBytesIn(long bytes) {
+        bytesIn.add(bytes);
+    }
+
+    public void addCharsOut(long chars) {
+        charsOut.add(chars);
+    }
+
+    public void timeout() {
+        timeouts.increment();
+    }
+
+    public void oom() {
+        ooms.increment();
+    }
+
+    /**
+     * Adds the timeouts and OOMs of the forked processes that ran before
+     * this one.
+     */
+    public void addPreviousFailures(long numTimeouts, long numOOMs) {
+        timeouts.add(numTimeouts);
+        ooms.add(numOOMs);
+    }
+
+    public long getBytesIn() {
+        return bytesIn.sum();
+    }
+
+    public long getCharsOut() {
+        return charsOut.sum();
+    }
+
+    public long getTimeouts() {
+        return timeouts.sum();
+    }
+
+    public long getOOMs() {
+        return ooms.sum();
+    }
+
+    /**
+     * @return the histogram for the series or <code>null</code> if nothing
+     * has been recorded for it
+     */
+    public LatencyHistogram getHistogram(PHASE phase, String mimeType, String component) {
+        return histograms
+                .get(phase)
+                .get(new SeriesKey(baseType(mimeType), component == null ? UNKNOWN : component));
+    }
+
+    /**
+     * Writes the histograms and counters in the Prometheus text
+     * exposition format, version 0.0.4.
+     */
+    public void writePrometheus(Writer writer) throws IOException {
+        for (PHASE phase : PHASE.values()) {
+            String name = "tika_" + phase.name + "_seconds";
+            writeHeader(writer, name, phase.help, "histogram");
+            for (Map.Entry<SeriesKey, LatencyHistogram> e : histograms
+                    .get(phase)
+                    .entrySet()) {
+                String labels = "mime_type=\"" + escape(e.getKey().mimeType) + "\"," + phase.componentLabel + "=\"" + escape(e.getKey().component) + "\"";
+                writeHistogramSeries(writer, name, labels, e.getValue());
+            }
+        }
+        writeCounter(writer, "tika_bytes_in_total", "Bytes of input read by the parsers", getBytesIn());
+        writeCounter(writer, "tika_characters_out_total", "Characters of text written by the parsers", getCharsOut());
+        writeCounter(writer, "tika_timeouts_total", "Tasks that timed out, including those of earlier forked processes", getTimeouts());
+        writeCounter(writer, "tika_ooms_total", "Out of memory errors, including those of earlier forked processes", getOOMs());
+    }
+
+    public static void writeCounter(Writer writer, String name, String help, long value) throws IOException {
+        writeHeader(writer, name, help, "counter");
+        writer.write(name + " " + value + "\n");
+    }
+
+    public static void writeGauge(Writer writer, String name, String help, long value) throws IOException {
+        writeHeader(writer, name, help, "gauge");
+        writer.write(name + " " + value + "\n");
+    }
+
+    public static void writeHistogram(Writer writer, String name, String help, LatencyHistogram histogram) throws IOException {
+        writeHeader(writer, name, help, "histogram");
+        writeHistogramSeries(writer, name, null, histogram);
+    }
+
+    private static void writeHistogramSeries(Writer writer, String name, String labels, LatencyHistogram histogram) throws IOException {
+        String prefix = labels == null ? "" : labels + ",";
+        String suffix = labels == null ? "" : "{" + labels + "}";
+        long[] counts = histogram.getCounts();
+        long cumulative = 0;
+        for (int i = 0; i < counts.length; i++) {
+            cumulative += counts[i];
+            String le = i < LatencyHistogram.BOUNDS_MICROS.length ? seconds(LatencyHistogram.BOUNDS_MICROS[i]) : "+Inf";
+            writer.write(name + "_bucket{" + prefix + "le=\"" + le + "\"} " + cumulative + "\n");
+        }
+        writer.write(name + "_sum" + suffix + " " + seconds(histogram.getSumMicros()) + "\n");
+        writer.write(name + "_count" + suffix + " " + cumulative + "\n");
+    }
+
+    private static void writeHeader(Writer writer, String name, String help, String type) throws IOException {
+        writer.write("# HELP " + name + " " + help + "\n");
+        writer.write("# TYPE " + name + " " + type + "\n");
+    }
+
+    private static String seconds(long micros) {
+        return String.format(Locale.ROOT, "%.6f", micros / 1_000_000.0);
+    }
+
+    static String escape(String labelValue) {
+        return labelValue
+                .replace("\\", "\\\\")
+                .replace("\"", "\\\"")
+                .replace("\n", "\\n");
+    }
+
+    static String baseType(String mimeType) {
+        if (mimeType == null) {
+            return UNKNOWN;
+        }
+        MediaType mediaType = MediaType.parse(mimeType);
+        return mediaType == null ? UNKNOWN : mediaType
+                .getBaseType()
+                .toString();
+    }
+
+    /**
+     * @return the innermost parser in {@link TikaCoreProperties#TIKA_PARSED_BY}
+     */
+    static String getParser(Metadata metadata) {
+        String[] parsedBy = metadata.getValues(TikaCoreProperties.TIKA_PARSED_BY);
+        return parsedBy.length == 0 ? UNKNOWN : parsedBy[parsedBy.length - 1];
+    }
+
+    private static class SeriesKey {
+        private final String mimeType;
+        private final String component;
+
+        SeriesKey(String mimeType, String component) {
+            this.mimeType = mimeType;
+            this.component = component;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) {
+                return true;
+            }
+            if (!(o instanceof SeriesKey)) {
+                return false;
+            }
+            SeriesKey that = (SeriesKey) o;
+            return mimeType.equals(that.mimeType) && component.equals(that.component);
+        }
+
+        @Override
+        public int hashCode() {
+            return Objects.hash(mimeType, component);
+        }
+    }
+}
@@ -30,12 +30,14 @@ import jakarta.ws.rs.core.UriInfo;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import org.apache.tika.detect.Detector;
 import org.apache.tika.io.TikaInputStream;
 import org.apache.tika.metadata.Metadata;
 import org.apache.tika.metadata.TikaCoreProperties;
 import org.apache.tika.mime.MediaType;
 import org.apache.tika.parser.ParseContext;
 import org.apache.tika.server.core.ServerStatus;
+import org.apache.tika.server.core.metrics.ServerMetrics;
 
 @Path("/detect")
 public class DetectorResource {
@@ -61,17 +63,28 @@ public class DetectorResource {
         long timeoutMillis = TikaResource.getTaskTimeout(parseContext);
         long taskId = serverStatus.start(ServerStatus.TASK.DETECT, filename, timeoutMillis);
 
+        long started = System.nanoTime();
         try (TikaInputStream tis = TikaInputStream.get(TikaResource.getInputStream(is, met, httpHeaders, info))) {
-            return TikaResource
+            Detector detector = TikaResource
                     .getConfig()
-                    .getDetector()
+                    .getDetector();
+            String type = detector
                     .detect(tis, met)
                     .toString();
+            ServerMetrics metrics = serverStatus.getMetrics();
+            metrics.record(ServerMetrics.PHASE.DETECT, type, detector
+                    .getClass()
+                    .getName(), System.nanoTime() - started);
+            metrics.addBytesIn(tis.getPosition());
+            return type;
         } catch (IOException e) {
             LOG.warn("Unable to detect MIME type for file. Reason: {} ({})", e.getMessage(), filename, e);
             return MediaType.OCTET_STREAM.toString();
         } catch (OutOfMemoryError e) {
             LOG.error("OOM while detecting: ({})", filename, e);
+            serverStatus
+                    .getMetrics()
+                    .oom();
             serverStatus.setStatus(ServerStatus.STATUS.ERROR);
             throw e;
         } catch (Throwable e) {
@@ -67,6 +67,7 @@ import org.apache.tika.config.TikaTaskTimeout;
 import org.apache.tika.exception.EncryptedDocumentException;
 import org.apache.tika.exception.TikaException;
 import org.apache.tika.exception.WriteLimitReachedException;
+import org.apache.tika.io.TikaInputStream;
 import org.apache.tika.metadata.Metadata;
 import org.apache.tika.metadata.TikaCoreProperties;
 import org.apache.tika.parser.AutoDetectParser;
@@ -74,17 +75,22 @@ import org.apache.tika.parser.DigestingParser;
 import org.apache.tika.parser.ParseContext;
 import org.apache.tika.parser.Parser;
 import org.apache.tika.pipes.HandlerConfig;
+import org.apache.tika.sax.AbstractRecursiveParserWrapperHandler;
 import org.apache.tika.sax.BasicContentHandlerFactory;
 import org.apache.tika.sax.BodyContentHandler;
+import org.apache.tika.sax.CharacterCountingContentHandler;
 import org.apache.tika.sax.ExpandedTitleContentHandler;
 import org.apache.tika.sax.RichTextContentHandler;
 import org.apache.tika.sax.boilerpipe.BoilerpipeContentHandler;
 import org.apache.tika.server.core.CompositeParseContextConfig;
 import org.apache.tika.server.core.InputStreamFactory;
 import org.apache.tika.server.core.ParseContextConfig;
+import org.apache.tika.server.core.ParseQueue;
 import org.apache.tika.server.core.ServerStatus;
 import org.apache.tika.server.core.TikaServerConfig;
 import org.apache.tika.server.core.TikaServerParseException;
+import org.apache.tika.server.core.metrics.CountingInputStream;
+import org.apache.tika.server.core.metrics.ServerMetrics;
 import org.apache.tika.utils.ExceptionUtils;
 
 @Path("/tika")
@@ -112,6 +118,13 @@ public class TikaResource {
         SERVER_STATUS = serverStatus;
     }
 
+    /**
+     * @return the metrics of this server, or <code>null</code> if it hasn't been initialized
+     */
+    public static ServerMetrics getServerMetrics() {
+        return SERVER_STATUS == null ? null : SERVER_STATUS.getMetrics();
+    }
+
 
     @SuppressWarnings("serial")
     public static Parser createParser() {
@@ -355,12 +368,56 @@ public class TikaResource {
             throws IOException {
 
         checkIsOperating();
+        //wait for a slot before the task starts so that queueing doesn't count against the timeout
+        acquireParseSlot(inputStream, parseContext);
+        parseWithSlot(parser, logger, path, inputStream, handler, metadata, parseContext);
+    }
+
+    /**
+     * Waits for a slot in the {@link ParseQueue}, if there is one.  A
+     * successful call must be followed by {@link #parseWithSlot} or by
+     * {@link #releaseParseSlot()}.
+     *
+     * @throws WebApplicationException if the request is rejected, after the
+     *                                 input stream has been closed
+     */
+    static void acquireParseSlot(InputStream inputStream, ParseContext parseContext) throws IOException {
+        ParseQueue parseQueue = SERVER_STATUS.getParseQueue();
+        if (parseQueue != null) {
+            ParseQueue.Priority priority = parseContext.get(ParseQueue.Priority.class);
+            try {
+                parseQueue.acquire(priority != null ? priority.getValue() : ParseQueue.DEFAULT_PRIORITY);
+            } catch (WebApplicationException e) {
+                inputStream.close();
+                throw e;
+            }
+        }
+    }
+
+    static void releaseParseSlot() {
+        ParseQueue parseQueue = SERVER_STATUS.getParseQueue();
+        if (parseQueue != null) {
+            parseQueue.release();
+        }
+    }
+
+    /**
+     * Same as {@link #parse}, for a caller that already holds a slot from
+     * {@link #acquireParseSlot}.  The slot is released when the parse ends.
+     */
+    static void parseWithSlot(Parser parser, Logger logger, String path, InputStream inputStream, ContentHandler handler, Metadata metadata,
+                              ParseContext parseContext) throws IOException {
         String fileName = metadata.get(TikaCoreProperties.RESOURCE_NAME_KEY);
         long timeoutMillis = getTaskTimeout(parseContext);
-
         long taskId = SERVER_STATUS.start(ServerStatus.TASK.PARSE, fileName, timeoutMillis);
+        ServerMetrics metrics = SERVER_STATUS.getMetrics();
+        //don't hide a TikaInputStream (and its file) from the parser
+        CountingInputStream countingStream = inputStream instanceof TikaInputStream ? null : new CountingInputStream(inputStream);
+        //RecursiveParserWrapper needs to see its own handler
+        CharacterCountingContentHandler countingHandler = handler instanceof AbstractRecursiveParserWrapperHandler ? null : new CharacterCountingContentHandler(handler);
+        long started = System.nanoTime();
         try {
-            parser.parse(inputStream, handler, metadata, parseContext);
+            parser.parse(countingStream != null ? countingStream : inputStream, countingHandler != null ? countingHandler : handler, metadata, parseContext);
         } catch (SAXException e) {
             throw new TikaServerParseException(e);
         } catch (EncryptedDocumentException e) {
@@ -373,10 +430,17 @@ public class TikaResource {
             throw new TikaServerParseException(e);
         } catch (OutOfMemoryError e) {
             logger.warn("{}: OOM ({})", path, fileName, e);
+            metrics.oom();
             SERVER_STATUS.setStatus(ServerStatus.STATUS.ERROR);
             throw e;
         } finally {
+            metrics.record(ServerMetrics.PHASE.PARSE, metadata, System.nanoTime() - started);
+            metrics.addBytesIn(countingStream != null ? countingStream.getCount() : ((TikaInputStream) inputStream).getPosition());
+            if (countingHandler != null) {
+                metrics.addCharsOut(countingHandler.getCount());
+            }
             SERVER_STATUS.complete(taskId);
+            releaseParseSlot();
             inputStream.close();
         }
     }
@@ -418,6 +482,10 @@ public class TikaResource {
         }
     }
 
+    static int getRetryAfterSeconds() {
+        return TIKA_SERVER_CONFIG.getRetryAfterSeconds();
+    }
+
     public static boolean getThrowOnWriteLimitReached(MultivaluedMap<String, String> httpHeaders) {
         if (httpHeaders.containsKey("throwOnWriteLimitReached")) {
             String val = httpHeaders.getFirst("throwOnWriteLimitReached");
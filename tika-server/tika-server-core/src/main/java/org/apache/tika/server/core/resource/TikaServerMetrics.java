@@ -0,0 +1,68 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.tika.server.core.resource;
+
+import static java.nio.charset.StandardCharsets.UTF_8;
+
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+
+import jakarta.ws.rs.GET;
+import jakarta.ws.rs.Path;
+import jakarta.ws.rs.Produces;
+import jakarta.ws.rs.core.StreamingOutput;
+
+import org.apache.tika.server.core.ParseQueue;
+import org.apache.tika.server.core.ServerStatus;
+import org.apache.tika.server.core.metrics.ServerMetrics;
+
+/**
+ * Exports the {@link ServerMetrics} and the main figures of the
+ * {@link ServerStatus} in the Prometheus/OpenMetrics text format.
+ */
+@Path("/metrics")
+public class TikaServerMetrics {
+    private final ServerStatus serverStatus;
+
+    public TikaServerMetrics(ServerStatus serverStatus) {
+        this.serverStatus = serverStatus;
+    }
+
+    @GET
+    @Produces("text/plain; version=0.0.4; charset=utf-8")
+    public StreamingOutput getMetrics() {
+        return outputStream -> {
+            Writer writer = new OutputStreamWriter(outputStream, UTF_8);
+            serverStatus
+                    .getMetrics()
+                    .writePrometheus(writer);
+            ServerMetrics.writeCounter(writer, "tika_files_processed_total", "Tasks started by this forked process", serverStatus.getFilesProcessed());
+            ServerMetrics.writeCounter(writer, "tika_restarts_total", "Times the forked process has been restarted", serverStatus.getNumRestarts());
+            ServerMetrics.writeGauge(writer, "tika_active_tasks", "Tasks currently running", serverStatus.getNumActiveTasks());
+            ServerMetrics.writeGauge(writer, "tika_millis_since_last_parse_started", "Milliseconds since the last task started",
+                    serverStatus.getMillisSinceLastParseStarted());
+            ParseQueue parseQueue = serverStatus.getParseQueue();
+            if (parseQueue != null) {
+                ServerMetrics.writeGauge(writer, "tika_parse_queue_depth", "Parses waiting for a slot", parseQueue.getNumQueued());
+                ServerMetrics.writeGauge(writer, "tika_parse_queue_running", "Parses holding a slot", parseQueue.getNumRunning());
+                ServerMetrics.writeCounter(writer, "tika_parse_queue_rejected_total", "Parse requests rejected with a 503", parseQueue.getNumRejected());
+                ServerMetrics.writeHistogram(writer, "tika_parse_queue_wait_seconds", "Time admitted parses waited for a slot", parseQueue.getWaitTimes());
+            }
+            writer.flush();
+        };
+    }
+}
@@ -16,21 +16,38 @@
  */
 package org.apache.tika.server.core.resource;
 
+import java.io.IOException;
+import java.nio.file.Paths;
 import java.util.LinkedHashMap;
 import java.util.Map;
 
 import jakarta.ws.rs.GET;
 import jakarta.ws.rs.Path;
 import jakarta.ws.rs.Produces;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 
 import org.apache.tika.server.core.ServerStatus;
+import org.apache.tika.server.core.WorkersStatusFile;
 
 @Path("/status")
 public class TikaServerStatus {
+    private static final Logger LOG = LoggerFactory.getLogger(TikaServerStatus.class);
+
     private final ServerStatus serverStatus;
+    private final java.nio.file.Path workersStatusFile;
 
     public TikaServerStatus(ServerStatus serverStatus) {
+        this(serverStatus, null);
+    }
+
+    /**
+     * @param workersStatusFile status of all workers behind the port, or
+     *                          <code>null</code> if this is the only one
+     */
+    public TikaServerStatus(ServerStatus serverStatus, String workersStatusFile) {
         this.serverStatus = serverStatus;
+        this.workersStatusFile = workersStatusFile == null ? null : Paths.get(workersStatusFile);
     }
 
     @GET
@@ -42,6 +59,13 @@ public class TikaServerStatus {
         map.put("millis_since_last_parse_started", serverStatus.getMillisSinceLastParseStarted());
         map.put("files_processed", serverStatus.getFilesProcessed());
         map.put("num_restarts", serverStatus.getNumRestarts());
+        if (workersStatusFile != null) {
+            try {
+                map.put("workers", WorkersStatusFile.read(workersStatusFile));
+            } catch (IOException e) {
+                LOG.warn("couldn't read workers status file", e);
+            }
+        }
         return map;
     }
 }
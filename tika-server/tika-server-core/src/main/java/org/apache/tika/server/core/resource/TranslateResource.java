@@ -101,6 +101,9 @@ public class TranslateResource {
         try {
             return translate.translate(content, sLang, dLang);
         } catch (OutOfMemoryError e) {
+            serverStatus
+                    .getMetrics()
+                    .oom();
             serverStatus.setStatus(ServerStatus.STATUS.ERROR);
             throw e;
         } finally {
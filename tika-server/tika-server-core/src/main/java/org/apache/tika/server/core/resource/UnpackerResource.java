@@ -21,15 +21,25 @@ import static java.nio.charset.StandardCharsets.UTF_8;
 import static org.apache.tika.server.core.resource.TikaResource.fillMetadata;
 import static org.apache.tika.server.core.resource.TikaResource.fillParseContext;
 
+import java.io.Closeable;
 import java.io.IOException;
 import java.io.InputStream;
+import java.io.InterruptedIOException;
 import java.io.OutputStream;
 import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.file.Files;
 import java.util.ArrayList;
 import java.util.Arrays;
-import java.util.HashMap;
-import java.util.Map;
+import java.util.HashSet;
+import java.util.Set;
 import java.util.UUID;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.zip.CRC32;
+import java.util.zip.CheckedOutputStream;
 
 import jakarta.ws.rs.PUT;
 import jakarta.ws.rs.Path;
@@ -37,14 +47,14 @@ import jakarta.ws.rs.Produces;
 import jakarta.ws.rs.WebApplicationException;
 import jakarta.ws.rs.core.Context;
 import jakarta.ws.rs.core.HttpHeaders;
+import jakarta.ws.rs.core.MediaType;
 import jakarta.ws.rs.core.Response;
 import jakarta.ws.rs.core.UriInfo;
 import org.apache.commons.csv.CSVFormat;
 import org.apache.commons.csv.CSVPrinter;
 import org.apache.commons.io.FilenameUtils;
 import org.apache.commons.io.IOUtils;
-import org.apache.commons.io.input.UnsynchronizedByteArrayInputStream;
-import org.apache.commons.io.output.UnsynchronizedByteArrayOutputStream;
+import org.apache.commons.io.output.DeferredFileOutputStream;
 import org.apache.commons.lang3.StringUtils;
 import org.apache.commons.lang3.mutable.MutableInt;
 import org.slf4j.Logger;
@@ -66,7 +76,30 @@ import org.apache.tika.parser.ParseContext;
 import org.apache.tika.parser.Parser;
 import org.apache.tika.sax.BodyContentHandler;
 import org.apache.tika.sax.RichTextContentHandler;
-
+import org.apache.tika.server.core.writer.ArchiveEntryWriter;
+import org.apache.tika.server.core.writer.StreamingArchive;
+
+/**
+ * Extracts the embedded documents of a document into a zip or tar archive.
+ * <p>
+ * The archive is streamed: every embedded document is written to the
+ * response as soon as it has been extracted.  To get its size and CRC
+ * for the entry header, each one is spooled first, in memory up to
+ * {@link #SPOOL_THRESHOLD} bytes and in a temporary file beyond that.
+ * <p>
+ * Embedded documents are limited to {@link #DEFAULT_MAX_ATTACHMENT_BYTES};
+ * the client can change that with the {@link #UNPACK_MAX_BYTES_KEY} header,
+ * where -1 turns the limit off.  The parse runs on its own thread and the
+ * response isn't started before the first entry is ready, so a failed parse
+ * or a document without attachments still gets its status.  If the parse
+ * fails after that, the client gets a truncated archive.
+ * <p>
+ * The request waits for its slot in the
+ * {@link org.apache.tika.server.core.ParseQueue} before its parse is
+ * started, like on the other endpoints.  At most
+ * {@link #MAX_CONCURRENT_UNPACKS} parses run at a time, further requests
+ * are rejected with a <code>503</code>.
+ */
 @Path("/unpack")
 public class UnpackerResource {
     public static final String TEXT_FILENAME = "__TEXT__";
@@ -74,10 +107,39 @@ public class UnpackerResource {
 
     public static final String UNPACK_MAX_BYTES_KEY = "unpackMaxBytes";
 
-    private static final long DEFAULT_MAX_ATTACHMENT_BYTES = 100 * 1024 * 1024;
+    /**
+     * Embedded documents up to this size are spooled in memory
+     */
+    static final int SPOOL_THRESHOLD = 1024 * 1024;
+
+    /**
+     * Default limit on the size of an embedded document
+     */
+    static final long DEFAULT_MAX_ATTACHMENT_BYTES = 100 * 1024 * 1024;
 
     private static final Logger LOG = LoggerFactory.getLogger(UnpackerResource.class);
 
+    /**
+     * Maximum number of parses for unpack requests at a time, the default
+     * maximum number of request threads of the http server
+     */
+    static final int MAX_CONCURRENT_UNPACKS = 200;
+
+    private static final Semaphore PERMITS = new Semaphore(MAX_CONCURRENT_UNPACKS);
+
+    //as many threads as there are permits; a task may queue for a moment
+    //while the thread of the parse that released its permit winds down
+    private static final ThreadPoolExecutor EXECUTOR = new ThreadPoolExecutor(MAX_CONCURRENT_UNPACKS, MAX_CONCURRENT_UNPACKS, 60, TimeUnit.SECONDS,
+            new LinkedBlockingQueue<>(), r -> {
+        Thread t = new Thread(r, "tika-unpack");
+        t.setDaemon(true);
+        return t;
+    });
+
+    static {
+        EXECUTOR.allowCoreThreadTimeOut(true);
+    }
+
     public static void metadataToCsv(Metadata metadata, OutputStream outputStream) throws IOException {
         CSVPrinter writer = new CSVPrinter(new OutputStreamWriter(outputStream, UTF_8), CSVFormat.EXCEL);
 
@@ -95,18 +157,18 @@ public class UnpackerResource {
     @Path("/{id:(/.*)?}")
     @PUT
     @Produces({"application/zip", "application/x-tar"})
-    public Map<String, byte[]> unpack(InputStream is, @Context HttpHeaders httpHeaders, @Context UriInfo info) throws Exception {
+    public StreamingArchive unpack(InputStream is, @Context HttpHeaders httpHeaders, @Context UriInfo info) throws Exception {
         return process(TikaResource.getInputStream(is, new Metadata(), httpHeaders, info), httpHeaders, info, false);
     }
 
     @Path("/all{id:(/.*)?}")
     @PUT
     @Produces({"application/zip", "application/x-tar"})
-    public Map<String, byte[]> unpackAll(InputStream is, @Context HttpHeaders httpHeaders, @Context UriInfo info) throws Exception {
+    public StreamingArchive unpackAll(InputStream is, @Context HttpHeaders httpHeaders, @Context UriInfo info) throws Exception {
         return process(TikaResource.getInputStream(is, new Metadata(), httpHeaders, info), httpHeaders, info, true);
     }
 
-    private Map<String, byte[]> process(InputStream is, @Context HttpHeaders httpHeaders, @Context UriInfo info, boolean saveAll) throws Exception {
+    private StreamingArchive process(InputStream is, @Context HttpHeaders httpHeaders, @Context UriInfo info, boolean saveAll) throws Exception {
         Metadata metadata = new Metadata();
         ParseContext pc = new ParseContext();
         long unpackMaxBytes = DEFAULT_MAX_ATTACHMENT_BYTES;
@@ -115,10 +177,8 @@ public class UnpackerResource {
                 .getFirst(UNPACK_MAX_BYTES_KEY);
         if (!StringUtils.isBlank(unpackMaxBytesString)) {
             unpackMaxBytes = Long.parseLong(unpackMaxBytesString);
-            if (unpackMaxBytes > Integer.MAX_VALUE) {
-                throw new IllegalArgumentException("Can't request value > than Integer" + ".MAX_VALUE : " + unpackMaxBytes);
-            } else if (unpackMaxBytes < 0) {
-                throw new IllegalArgumentException("Can't request value < 0: " + unpackMaxBytes);
+            if (unpackMaxBytes < -1) {
+                throw new IllegalArgumentException("Can't request value < -1: " + unpackMaxBytes);
             }
         }
         Parser parser = TikaResource.createParser();
@@ -133,52 +193,273 @@ public class UnpackerResource {
         //even though we aren't currently parsing embedded documents,
         //we need to add this to allow for "inline" use of other parsers.
         pc.set(Parser.class, parser);
-        ContentHandler ch;
-        UnsynchronizedByteArrayOutputStream text = UnsynchronizedByteArrayOutputStream
-                .builder()
-                .get();
+        final Parser finalParser = parser;
+        final long maxBytes = unpackMaxBytes;
+        final EntryHandoff handoff = new EntryHandoff(TikaResource.getTaskTimeout(pc));
+
+        if (!PERMITS.tryAcquire()) {
+            is.close();
+            throw new WebApplicationException(Response
+                    .status(Response.Status.SERVICE_UNAVAILABLE)
+                    .header(HttpHeaders.RETRY_AFTER, TikaResource.getRetryAfterSeconds())
+                    .type(MediaType.TEXT_PLAIN_TYPE)
+                    .entity("Too many unpack requests")
+                    .build());
+        }
+        try {
+            TikaResource.checkIsOperating();
+            TikaResource.acquireParseSlot(is, pc);
+        } catch (Throwable t) {
+            PERMITS.release();
+            throw t;
+        }
+        //parse on another thread so that failures and empty results can still
+        //be reported with their status as long as no entry has been sent
+        EXECUTOR.execute(() -> {
+            Throwable failure = null;
+            boolean holdsSlot = true;
+            try (Spool text = new Spool()) {
+                ContentHandler ch;
+                Writer textWriter = null;
+                if (saveAll) {
+                    textWriter = new OutputStreamWriter(text.getOutputStream(), UTF_8);
+                    ch = new BodyContentHandler(new RichTextContentHandler(textWriter));
+                } else {
+                    ch = new DefaultHandler();
+                }
+
+                MutableInt count = new MutableInt();
+
+                pc.set(EmbeddedDocumentExtractor.class, new MyEmbeddedDocumentExtractor(count, handoff, maxBytes));
+
+                holdsSlot = false;
+                TikaResource.parseWithSlot(finalParser, LOG, info.getPath(), is, ch, metadata, pc);
+
+                if (count.intValue() == 0 && !saveAll) {
+                    throw new WebApplicationException(Response.Status.NO_CONTENT);
+                }
+
+                if (saveAll) {
+                    textWriter.close();
+                    text.putEntry(handoff, TEXT_FILENAME);
+
+                    try (Spool metaSpool = new Spool()) {
+                        metadataToCsv(metadata, metaSpool.getOutputStream());
+                        metaSpool.putEntry(handoff, META_FILENAME);
+                    }
+                }
+            } catch (Throwable t) {
+                failure = t;
+            } finally {
+                if (holdsSlot) {
+                    TikaResource.releaseParseSlot();
+                    IOUtils.closeQuietly(is);
+                }
+                PERMITS.release();
+                handoff.finish(failure);
+            }
+        });
+        handoff.awaitFirstEntry();
+        return handoff;
+    }
 
-        if (saveAll) {
-            ch = new BodyContentHandler(new RichTextContentHandler(new OutputStreamWriter(text, UTF_8)));
-        } else {
-            ch = new DefaultHandler();
+    /**
+     * Passes the entries from the parse thread to the thread writing the
+     * response, one at a time.  The parse waits in {@link #putEntry} until
+     * the entry has been written, so its spool can be closed right after.
+     * If the archive isn't being written any more, the parse fails.
+     */
+    private static class EntryHandoff implements ArchiveEntryWriter, StreamingArchive {
+
+        private final long timeoutMillis;
+
+        private String name;
+        private long size;
+        private long crc;
+        private InputStream data;
+
+        private boolean pending = false;
+        private boolean taken = false;
+        private boolean done = false;
+        private boolean cancelled = false;
+        private Throwable failure;
+
+        EntryHandoff(long timeoutMillis) {
+            this.timeoutMillis = timeoutMillis;
         }
 
-        Map<String, byte[]> files = new HashMap<>();
-        MutableInt count = new MutableInt();
+        @Override
+        public synchronized void putEntry(String name, long size, long crc, InputStream data) throws IOException {
+            if (cancelled) {
+                throw new IOException("The archive is no longer being written");
+            }
+            this.name = name;
+            this.size = size;
+            this.crc = crc;
+            this.data = data;
+            pending = true;
+            notifyAll();
+            long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(timeoutMillis);
+            try {
+                //once the writer has taken the entry, it is reading our data
+                while (pending && (taken || !cancelled)) {
+                    long remaining = deadline - System.nanoTime();
+                    if (taken) {
+                        wait();
+                    } else if (remaining > 0) {
+                        TimeUnit.NANOSECONDS.timedWait(this, remaining);
+                    } else {
+                        cancelled = true;
+                    }
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                cancelled = true;
+                throw new InterruptedIOException("Interrupted while waiting for the archive writer");
+            } finally {
+                if (pending && !taken) {
+                    pending = false;
+                    this.data = null;
+                }
+            }
+            if (cancelled) {
+                throw new IOException("The archive is no longer being written");
+            }
+        }
 
-        pc.set(EmbeddedDocumentExtractor.class, new MyEmbeddedDocumentExtractor(count, files, unpackMaxBytes));
+        @Override
+        public void write(ArchiveEntryWriter writer) throws IOException {
+            try {
+                while (true) {
+                    String entryName;
+                    long entrySize;
+                    long entryCrc;
+                    InputStream entryData;
+                    synchronized (this) {
+                        while (!pending && !done) {
+                            wait();
+                        }
+                        if (!pending) {
+                            if (failure != null) {
+                                throw new IOException("Unpacking failed after the archive was started", failure);
+                            }
+                            return;
+                        }
+                        taken = true;
+                        entryName = name;
+                        entrySize = size;
+                        entryCrc = crc;
+                        entryData = data;
+                    }
+                    try {
+                        writer.putEntry(entryName, entrySize, entryCrc, entryData);
+                    } finally {
+                        synchronized (this) {
+                            pending = false;
+                            taken = false;
+                            data = null;
+                            notifyAll();
+                        }
+                    }
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new InterruptedIOException("Interrupted while waiting for the next entry");
+            } finally {
+                cancel();
+            }
+        }
 
-        TikaResource.parse(parser, LOG, info.getPath(), is, ch, metadata, pc);
+        /**
+         * Waits until the first entry is ready or the parse has ended, and
+         * rethrows the failure of a parse that ended without any entry.
+         */
+        synchronized void awaitFirstEntry() throws Exception {
+            try {
+                while (!pending && !done) {
+                    wait();
+                }
+            } catch (InterruptedException e) {
+                cancelled = true;
+                notifyAll();
+                throw e;
+            }
+            if (!pending && failure != null) {
+                if (failure instanceof Error) {
+                    throw (Error) failure;
+                }
+                throw (Exception) failure;
+            }
+        }
+
+        synchronized void finish(Throwable failure) {
+            this.failure = failure;
+            done = true;
+            notifyAll();
+        }
+
+        private synchronized void cancel() {
+            cancelled = true;
+            notifyAll();
+        }
+    }
 
-        if (count.intValue() == 0 && !saveAll) {
-            throw new WebApplicationException(Response.Status.NO_CONTENT);
+    /**
+     * Collects the bytes of one entry together with their CRC-32, in memory
+     * up to {@link #SPOOL_THRESHOLD} bytes and in a temporary file beyond that.
+     */
+    private static class Spool implements Closeable {
+
+        private final DeferredFileOutputStream out = DeferredFileOutputStream
+                .builder()
+                .setThreshold(SPOOL_THRESHOLD)
+                .setPrefix("tika-unpack-")
+                .setSuffix(".tmp")
+                .get();
+
+        private final CRC32 crc = new CRC32();
+
+        private final CheckedOutputStream checked = new CheckedOutputStream(out, crc);
+
+        OutputStream getOutputStream() {
+            return checked;
         }
 
-        if (saveAll) {
-            files.put(TEXT_FILENAME, text.toByteArray());
+        long size() {
+            return out.getByteCount();
+        }
 
-            UnsynchronizedByteArrayOutputStream metaStream = UnsynchronizedByteArrayOutputStream
-                    .builder()
-                    .get();
-            metadataToCsv(metadata, metaStream);
+        InputStream getInputStream() throws IOException {
+            checked.close();
+            return out.toInputStream();
+        }
 
-            files.put(META_FILENAME, metaStream.toByteArray());
+        void putEntry(ArchiveEntryWriter archive, String name) throws IOException {
+            try (InputStream data = getInputStream()) {
+                archive.putEntry(name, size(), crc.getValue(), data);
+            }
         }
 
-        return files;
+        @Override
+        public void close() throws IOException {
+            checked.close();
+            if (!out.isInMemory()) {
+                Files.deleteIfExists(out.getPath());
+            }
+        }
     }
 
     private static class MyEmbeddedDocumentExtractor implements EmbeddedDocumentExtractor {
         private final MutableInt count;
-        private final Map<String, byte[]> zout;
+        private final ArchiveEntryWriter archive;
+        private final Set<String> names = new HashSet<>();
 
         private final long unpackMaxBytes;
         private final EmbeddedStreamTranslator embeddedStreamTranslator = new DefaultEmbeddedStreamTranslator();
 
-        MyEmbeddedDocumentExtractor(MutableInt count, Map<String, byte[]> zout, long unpackMaxBytes) {
+        MyEmbeddedDocumentExtractor(MutableInt count, ArchiveEntryWriter archive, long unpackMaxBytes) {
             this.count = count;
-            this.zout = zout;
+            this.archive = archive;
             this.unpackMaxBytes = unpackMaxBytes;
         }
 
@@ -187,61 +468,70 @@ public class UnpackerResource {
         }
 
         public void parseEmbedded(InputStream inputStream, ContentHandler contentHandler, Metadata metadata, boolean b) throws SAXException, IOException {
-            UnsynchronizedByteArrayOutputStream bos = UnsynchronizedByteArrayOutputStream
-                    .builder()
-                    .get();
-
-            BoundedInputStream bis = new BoundedInputStream(unpackMaxBytes, inputStream);
-            IOUtils.copy(bis, bos);
-            if (bis.hasHitBound()) {
-                throw new IOException(new TikaMemoryLimitException(
-                        "An attachment is longer than " + "'unpackMaxBytes' (default=100MB, actual=" + unpackMaxBytes + "). " + "If you need to increase this " +
-                                "limit, add a header to your request, such as: unpackMaxBytes: " + "1073741824.  There is a hard limit of 2GB."));
-            }
-            byte[] data = bos.toByteArray();
-
-            String name = metadata.get(TikaCoreProperties.RESOURCE_NAME_KEY);
-            String contentType = metadata.get(org.apache.tika.metadata.HttpHeaders.CONTENT_TYPE);
+            try (Spool spool = new Spool()) {
+                if (unpackMaxBytes > -1) {
+                    BoundedInputStream bis = new BoundedInputStream(unpackMaxBytes, inputStream);
+                    IOUtils.copy(bis, spool.getOutputStream());
+                    if (bis.hasHitBound()) {
+                        throw new IOException(new TikaMemoryLimitException(
+                                "An attachment is longer than " + "'unpackMaxBytes' (" + unpackMaxBytes + "). " + "If you need to increase this " +
+                                        "limit, change the header in your request, e.g. unpackMaxBytes: " + "1073741824, or set it to -1 to turn it off."));
+                    }
+                } else {
+                    IOUtils.copy(inputStream, spool.getOutputStream());
+                }
 
-            if (name == null) {
-                name = Integer.toString(count.intValue());
-            }
+                String name = metadata.get(TikaCoreProperties.RESOURCE_NAME_KEY);
+                String contentType = metadata.get(org.apache.tika.metadata.HttpHeaders.CONTENT_TYPE);
 
-            if (!name.contains(".") && contentType != null) {
-                try {
-                    String ext = TikaResource
-                            .getConfig()
-                            .getMimeRepository()
-                            .forName(contentType)
-                            .getExtension();
+                if (name == null) {
+                    name = Integer.toString(count.intValue());
+                }
 
-                    if (ext != null) {
-                        name += ext;
+                if (!name.contains(".") && contentType != null) {
+                    try {
+                        String ext = TikaResource
+                                .getConfig()
+                                .getMimeRepository()
+                                .forName(contentType)
+                                .getExtension();
+
+                        if (ext != null) {
+                            name += ext;
+                        }
+                    } catch (MimeTypeException e) {
+                        LOG.warn("Unexpected MimeTypeException", e);
                     }
-                } catch (MimeTypeException e) {
-                    LOG.warn("Unexpected MimeTypeException", e);
                 }
-            }
-            try (InputStream is = UnsynchronizedByteArrayInputStream.builder().setByteArray(data).get()) {
-                if (embeddedStreamTranslator.shouldTranslate(is, metadata)) {
-                    InputStream translated = embeddedStreamTranslator.translate(UnsynchronizedByteArrayInputStream.builder().setByteArray(data).get(), metadata);
-                    UnsynchronizedByteArrayOutputStream bos2 = UnsynchronizedByteArrayOutputStream
-                            .builder()
-                            .get();
-                    IOUtils.copy(translated, bos2);
-                    data = bos2.toByteArray();
+
+                final String finalName = getFinalName(name);
+
+                boolean translate;
+                try (InputStream is = spool.getInputStream()) {
+                    translate = embeddedStreamTranslator.shouldTranslate(is, metadata);
+                }
+                if (translate) {
+                    try (InputStream is = spool.getInputStream();
+                            InputStream translatedStream = embeddedStreamTranslator.translate(is, metadata);
+                            Spool translated = new Spool()) {
+                        IOUtils.copy(translatedStream, translated.getOutputStream());
+                        putEntry(translated, finalName);
+                    }
+                } else {
+                    putEntry(spool, finalName);
                 }
             }
+        }
 
-            final String finalName = getFinalName(name, zout);
-
-            if (data.length > 0) {
-                zout.put(finalName, data);
+        private void putEntry(Spool spool, String name) throws IOException {
+            if (spool.size() > 0) {
+                spool.putEntry(archive, name);
+                names.add(name);
                 count.increment();
             }
         }
 
-        private String getFinalName(String name, Map<String, byte[]> zout) {
+        private String getFinalName(String name) {
             name = name.replaceAll("\u0000", " ");
             String normalizedName = FilenameUtils.normalize(name);
 
@@ -257,7 +547,7 @@ public class UnpackerResource {
             if (prefixLength > -1) {
                 normalizedName = normalizedName.substring(prefixLength);
             }
-            if (zout.containsKey(normalizedName)) {
+            if (names.contains(normalizedName)) {
                 return UUID
                         .randomUUID()
                         .toString() + "-" + normalizedName;
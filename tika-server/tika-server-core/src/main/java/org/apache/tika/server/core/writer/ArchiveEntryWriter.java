@@ -0,0 +1,38 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.tika.server.core.writer;
+
+import java.io.IOException;
+import java.io.InputStream;
+
+/**
+ * Receives the entries of a {@link StreamingArchive} one at a time and
+ * writes them to the archive in the response.
+ */
+public interface ArchiveEntryWriter {
+
+    /**
+     * Writes one entry; <code>data</code> is read to the end but not closed.
+     *
+     * @param name name of the entry
+     * @param size number of bytes in <code>data</code>
+     * @param crc  CRC-32 of <code>data</code>
+     * @param data content of the entry
+     * @throws IOException if the entry can't be written
+     */
+    void putEntry(String name, long size, long crc, InputStream data) throws IOException;
+}
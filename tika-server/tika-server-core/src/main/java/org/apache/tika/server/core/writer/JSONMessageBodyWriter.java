@@ -17,12 +17,8 @@
 
 package org.apache.tika.server.core.writer;
 
-import static java.nio.charset.StandardCharsets.UTF_8;
-
 import java.io.IOException;
 import java.io.OutputStream;
-import java.io.OutputStreamWriter;
-import java.io.Writer;
 import java.lang.annotation.Annotation;
 import java.lang.reflect.Type;
 
@@ -35,6 +31,8 @@ import jakarta.ws.rs.ext.Provider;
 
 import org.apache.tika.metadata.Metadata;
 import org.apache.tika.serialization.JsonMetadata;
+import org.apache.tika.server.core.metrics.ServerMetrics;
+import org.apache.tika.server.core.resource.TikaResource;
 
 @Provider
 @Produces(MediaType.APPLICATION_JSON)
@@ -51,8 +49,12 @@ public class JSONMessageBodyWriter implements MessageBodyWriter<Metadata> {
     @Override
     public void writeTo(Metadata metadata, Class<?> type, Type genericType, Annotation[] annotations, MediaType mediaType, MultivaluedMap<String, Object> httpHeaders,
                         OutputStream entityStream) throws IOException, WebApplicationException {
-        try (Writer writer = new OutputStreamWriter(entityStream, UTF_8)) {
-            JsonMetadata.toJson(metadata, writer);
+        long started = System.nanoTime();
+        //straight to the entity stream, no Writer or String in between
+        JsonMetadata.toJson(metadata, entityStream);
+        ServerMetrics metrics = TikaResource.getServerMetrics();
+        if (metrics != null) {
+            metrics.record(ServerMetrics.PHASE.WRITE, metadata, System.nanoTime() - started);
         }
     }
 }
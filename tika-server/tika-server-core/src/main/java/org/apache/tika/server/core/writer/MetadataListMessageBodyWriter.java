@@ -17,12 +17,8 @@
 
 package org.apache.tika.server.core.writer;
 
-import static java.nio.charset.StandardCharsets.UTF_8;
-
 import java.io.IOException;
 import java.io.OutputStream;
-import java.io.OutputStreamWriter;
-import java.io.Writer;
 import java.lang.annotation.Annotation;
 import java.lang.reflect.Type;
 
@@ -35,6 +31,8 @@ import jakarta.ws.rs.ext.Provider;
 
 import org.apache.tika.serialization.JsonMetadataList;
 import org.apache.tika.server.core.MetadataList;
+import org.apache.tika.server.core.metrics.ServerMetrics;
+import org.apache.tika.server.core.resource.TikaResource;
 
 @Provider
 @Produces(MediaType.APPLICATION_JSON)
@@ -54,8 +52,16 @@ public class MetadataListMessageBodyWriter implements MessageBodyWriter<Metadata
     @Override
     public void writeTo(MetadataList list, Class<?> type, Type genericType, Annotation[] annotations, MediaType mediaType, MultivaluedMap<String, Object> httpHeaders,
                         OutputStream entityStream) throws IOException, WebApplicationException {
-        try (Writer writer = new OutputStreamWriter(entityStream, UTF_8)) {
-            JsonMetadataList.toJson(list.getMetadata(), writer);
+        long started = System.nanoTime();
+        //each metadata object goes out as it is serialized, no Writer or String in between
+        JsonMetadataList.toJson(list.getMetadata(), entityStream);
+        ServerMetrics metrics = TikaResource.getServerMetrics();
+        if (metrics != null && !list
+                .getMetadata()
+                .isEmpty()) {
+            metrics.record(ServerMetrics.PHASE.WRITE, list
+                    .getMetadata()
+                    .get(0), System.nanoTime() - started);
         }
     }
 }
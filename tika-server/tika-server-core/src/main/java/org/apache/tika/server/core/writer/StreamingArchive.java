@@ -0,0 +1,35 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.tika.server.core.writer;
+
+import java.io.IOException;
+
+import jakarta.ws.rs.WebApplicationException;
+
+/**
+ * Archive whose entries are produced while the response is being written,
+ * so that they don't all have to be held in memory first.
+ * <p>
+ * The archive in the response is only started when the first entry is
+ * written.  Until then, an exception thrown from {@link #write(ArchiveEntryWriter)}
+ * (e.g. a {@link WebApplicationException} with status 204) still turns into
+ * a regular error response.
+ */
+public interface StreamingArchive {
+
+    void write(ArchiveEntryWriter writer) throws IOException, WebApplicationException;
+}
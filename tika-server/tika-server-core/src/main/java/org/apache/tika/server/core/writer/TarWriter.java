@@ -18,10 +18,10 @@
 package org.apache.tika.server.core.writer;
 
 import java.io.IOException;
+import java.io.InputStream;
 import java.io.OutputStream;
 import java.lang.annotation.Annotation;
 import java.lang.reflect.Type;
-import java.util.Map;
 
 import jakarta.ws.rs.Produces;
 import jakarta.ws.rs.WebApplicationException;
@@ -31,38 +31,47 @@ import jakarta.ws.rs.ext.MessageBodyWriter;
 import jakarta.ws.rs.ext.Provider;
 import org.apache.commons.compress.archivers.tar.TarArchiveEntry;
 import org.apache.commons.compress.archivers.tar.TarArchiveOutputStream;
+import org.apache.commons.io.IOUtils;
 
 @Provider
 @Produces("application/x-tar")
-public class TarWriter implements MessageBodyWriter<Map<String, byte[]>> {
-    private static void tarStoreBuffer(TarArchiveOutputStream zip, String name, byte[] dataBuffer) throws IOException {
+public class TarWriter implements MessageBodyWriter<StreamingArchive> {
+    private static void tarStoreStream(TarArchiveOutputStream zip, String name, long size, InputStream data) throws IOException {
         TarArchiveEntry entry = new TarArchiveEntry(name);
 
-        entry.setSize(dataBuffer.length);
+        entry.setSize(size);
 
         zip.putArchiveEntry(entry);
 
-        zip.write(dataBuffer);
+        IOUtils.copy(data, zip);
 
         zip.closeArchiveEntry();
     }
 
     public boolean isWriteable(Class<?> type, Type genericType, Annotation[] annotations, MediaType mediaType) {
-        return Map.class.isAssignableFrom(type);
+        return StreamingArchive.class.isAssignableFrom(type);
     }
 
-    public long getSize(Map<String, byte[]> stringMap, Class<?> type, Type genericType, Annotation[] annotations, MediaType mediaType) {
+    public long getSize(StreamingArchive archive, Class<?> type, Type genericType, Annotation[] annotations, MediaType mediaType) {
         return -1;
     }
 
-    public void writeTo(Map<String, byte[]> parts, Class<?> type, Type genericType, Annotation[] annotations, MediaType mediaType, MultivaluedMap<String, Object> httpHeaders,
+    public void writeTo(StreamingArchive archive, Class<?> type, Type genericType, Annotation[] annotations, MediaType mediaType, MultivaluedMap<String, Object> httpHeaders,
                         OutputStream entityStream) throws IOException, WebApplicationException {
-        TarArchiveOutputStream zip = new TarArchiveOutputStream(entityStream);
+        TarArchiveOutputStream[] zip = new TarArchiveOutputStream[1];
 
-        for (Map.Entry<String, byte[]> entry : parts.entrySet()) {
-            tarStoreBuffer(zip, entry.getKey(), entry.getValue());
-        }
+        archive.write((name, size, crc, data) -> {
+            if (zip[0] == null) {
+                zip[0] = new TarArchiveOutputStream(entityStream);
+                //entries are no longer capped in size, allow more than 8GB
+                zip[0].setBigNumberMode(TarArchiveOutputStream.BIGNUMBER_POSIX);
+            }
+            tarStoreStream(zip[0], name, size, data);
+        });
 
-        zip.close();
+        if (zip[0] == null) {
+            zip[0] = new TarArchiveOutputStream(entityStream);
+        }
+        zip[0].close();
     }
 }
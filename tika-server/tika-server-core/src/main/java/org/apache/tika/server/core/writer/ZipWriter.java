@@ -18,12 +18,11 @@
 package org.apache.tika.server.core.writer;
 
 import java.io.IOException;
+import java.io.InputStream;
 import java.io.OutputStream;
 import java.lang.annotation.Annotation;
 import java.lang.reflect.Type;
-import java.util.Map;
 import java.util.UUID;
-import java.util.zip.CRC32;
 import java.util.zip.ZipEntry;
 import java.util.zip.ZipException;
 import java.util.zip.ZipOutputStream;
@@ -36,53 +35,57 @@ import jakarta.ws.rs.ext.MessageBodyWriter;
 import jakarta.ws.rs.ext.Provider;
 import org.apache.commons.compress.archivers.zip.ZipArchiveEntry;
 import org.apache.commons.compress.archivers.zip.ZipArchiveOutputStream;
+import org.apache.commons.io.IOUtils;
 
 @Provider
 @Produces("application/zip")
-public class ZipWriter implements MessageBodyWriter<Map<String, byte[]>> {
-    private static void zipStoreBuffer(ZipArchiveOutputStream zip, String name, byte[] dataBuffer) throws IOException {
+public class ZipWriter implements MessageBodyWriter<StreamingArchive> {
+    private static void zipStoreStream(ZipArchiveOutputStream zip, String name, long size, long crc, InputStream data) throws IOException {
         ZipEntry zipEntry = new ZipEntry(name != null ? name : UUID
                 .randomUUID()
                 .toString());
         zipEntry.setMethod(ZipOutputStream.STORED);
 
-        zipEntry.setSize(dataBuffer.length);
-        CRC32 crc32 = new CRC32();
-        crc32.update(dataBuffer);
-        zipEntry.setCrc(crc32.getValue());
+        zipEntry.setSize(size);
+        zipEntry.setCrc(crc);
 
         try {
             zip.putArchiveEntry(new ZipArchiveEntry(zipEntry));
         } catch (ZipException ex) {
             if (name != null) {
-                zipStoreBuffer(zip, "x-" + name, dataBuffer);
+                zipStoreStream(zip, "x-" + name, size, crc, data);
                 return;
             }
         }
 
-        zip.write(dataBuffer);
+        IOUtils.copy(data, zip);
 
         zip.closeArchiveEntry();
     }
 
     public boolean isWriteable(Class<?> type, Type genericType, Annotation[] annotations, MediaType mediaType) {
-        return Map.class.isAssignableFrom(type);
+        return StreamingArchive.class.isAssignableFrom(type);
     }
 
-    public long getSize(Map<String, byte[]> stringMap, Class<?> type, Type genericType, Annotation[] annotations, MediaType mediaType) {
+    public long getSize(StreamingArchive archive, Class<?> type, Type genericType, Annotation[] annotations, MediaType mediaType) {
         return -1;
     }
 
-    public void writeTo(Map<String, byte[]> parts, Class<?> type, Type genericType, Annotation[] annotations, MediaType mediaType, MultivaluedMap<String, Object> httpHeaders,
+    public void writeTo(StreamingArchive archive, Class<?> type, Type genericType, Annotation[] annotations, MediaType mediaType, MultivaluedMap<String, Object> httpHeaders,
                         OutputStream entityStream) throws IOException, WebApplicationException {
-        ZipArchiveOutputStream zip = new ZipArchiveOutputStream(entityStream);
+        ZipArchiveOutputStream[] zip = new ZipArchiveOutputStream[1];
 
-        zip.setMethod(ZipArchiveOutputStream.STORED);
+        archive.write((name, size, crc, data) -> {
+            if (zip[0] == null) {
+                zip[0] = new ZipArchiveOutputStream(entityStream);
+                zip[0].setMethod(ZipArchiveOutputStream.STORED);
+            }
+            zipStoreStream(zip[0], name, size, crc, data);
+        });
 
-        for (Map.Entry<String, byte[]> entry : parts.entrySet()) {
-            zipStoreBuffer(zip, entry.getKey(), entry.getValue());
+        if (zip[0] == null) {
+            zip[0] = new ZipArchiveOutputStream(entityStream);
         }
-
-        zip.close();
+        zip[0].close();
     }
 }
@@ -0,0 +1,105 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.tika.server.core;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import jakarta.ws.rs.WebApplicationException;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.Timeout;
+
+public class ParseQueueTest {
+
+    @Test
+    public void testRejectWhenFull() throws Exception {
+        ParseQueue queue = new ParseQueue(1, 0, 1000, 7);
+        queue.acquire(ParseQueue.DEFAULT_PRIORITY);
+        WebApplicationException e = assertThrows(WebApplicationException.class, () -> queue.acquire(ParseQueue.DEFAULT_PRIORITY));
+        assertEquals(503, e
+                .getResponse()
+                .getStatus());
+        assertEquals("7", e
+                .getResponse()
+                .getHeaderString("Retry-After"));
+        assertEquals(1, queue.getNumRejected());
+        queue.release();
+        queue.acquire(ParseQueue.DEFAULT_PRIORITY);
+        assertEquals(1, queue.getNumRunning());
+    }
+
+    @Test
+    @Timeout(60000)
+    public void testQueueWaitTimeout() throws Exception {
+        ParseQueue queue = new ParseQueue(1, 5, 50, 1);
+        queue.acquire(ParseQueue.DEFAULT_PRIORITY);
+        assertThrows(WebApplicationException.class, () -> queue.acquire(ParseQueue.DEFAULT_PRIORITY));
+        assertEquals(0, queue.getNumQueued());
+        assertEquals(1, queue.getNumRejected());
+    }
+
+    @Test
+    @Timeout(60000)
+    public void testPriority() throws Exception {
+        ParseQueue queue = new ParseQueue(1, 10, 60000, 1);
+        queue.acquire(ParseQueue.DEFAULT_PRIORITY);
+        List<Integer> admitted = new CopyOnWriteArrayList<>();
+        ExecutorService executor = Executors.newFixedThreadPool(5);
+        try {
+            int[] priorities = {0, 5, Integer.MIN_VALUE, -5, Integer.MAX_VALUE};
+            Future<?>[] futures = new Future[priorities.length];
+            for (int i = 0; i < priorities.length; i++) {
+                int priority = priorities[i];
+                futures[i] = executor.submit(() -> {
+                    queue.acquire(priority);
+                    admitted.add(priority);
+                    queue.release();
+                });
+                //wait for it to be queued so that arrival order is fixed
+                while (queue.getNumQueued() < i + 1) {
+                    Thread.sleep(5);
+                }
+            }
+            queue.release();
+            for (Future<?> future : futures) {
+                future.get(30, TimeUnit.SECONDS);
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+        assertEquals(List.of(Integer.MAX_VALUE, 5, 0, -5, Integer.MIN_VALUE), admitted);
+        assertEquals(0, queue.getNumRunning());
+        assertEquals(6L, sum(queue
+                .getWaitTimes()
+                .getCounts()));
+    }
+
+    private static long sum(long[] counts) {
+        long sum = 0;
+        for (long c : counts) {
+            sum += c;
+        }
+        return sum;
+    }
+}
@@ -20,6 +20,7 @@ import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.junit.jupiter.api.Assertions.assertNotNull;
 import static org.junit.jupiter.api.Assertions.assertThrows;
 
+import java.util.List;
 import java.util.Map;
 import java.util.Random;
 import java.util.concurrent.Callable;
@@ -71,6 +72,33 @@ public class ServerStatusTest {
 
     }
 
+    @Test
+    public void testTimedOutTasks() throws Exception {
+        ServerStatus status = new ServerStatus("", 0);
+        long longTask = status.start(ServerStatus.TASK.PARSE, "long", 60000);
+        long shortTask = status.start(ServerStatus.TASK.PARSE, "short", 10);
+        long noTimeout = status.start(ServerStatus.TASK.DETECT, null, Long.MAX_VALUE);
+        long now = System.currentTimeMillis();
+        assertEquals(0, status.getTimedOutTasks(now - 1000).size());
+
+        List<TaskStatus> timedOut = status.getTimedOutTasks(now + 1000);
+        assertEquals(1, timedOut.size());
+        assertEquals(shortTask, timedOut.get(0).taskId);
+
+        timedOut = status.getTimedOutTasks(now + 120000);
+        assertEquals(2, timedOut.size());
+        assertEquals(shortTask, timedOut.get(0).taskId);
+        assertEquals(longTask, timedOut.get(1).taskId);
+
+        status.complete(shortTask);
+        assertEquals(1, status.getTimedOutTasks(now + 120000).size());
+        assertEquals(2, status.getNumActiveTasks());
+        status.complete(longTask);
+        status.complete(noTimeout);
+        assertEquals(0, status.getTimedOutTasks(Long.MAX_VALUE).size());
+        assertEquals(0, status.getTasks().size());
+    }
+
     private static class MockTask implements Callable<Integer> {
         private final ServerStatus serverStatus;
         private final int filesToProcess;
@@ -0,0 +1,67 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.tika.server.core;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.InputStream;
+import java.util.concurrent.TimeUnit;
+
+import jakarta.ws.rs.core.Response;
+import org.apache.cxf.jaxrs.JAXRSServerFactoryBean;
+import org.apache.cxf.jaxrs.client.WebClient;
+import org.apache.cxf.jaxrs.lifecycle.SingletonResourceProvider;
+import org.junit.jupiter.api.Test;
+
+import org.apache.tika.server.core.metrics.ServerMetrics;
+import org.apache.tika.server.core.resource.TikaServerMetrics;
+
+public class TikaServerMetricsTest extends CXFTestBase {
+
+    private final static String METRICS_PATH = "/metrics";
+
+    private final ServerStatus serverStatus = new ServerStatus("", 2);
+
+    @Override
+    protected void setUpResources(JAXRSServerFactoryBean sf) {
+        sf.setResourceClasses(TikaServerMetrics.class);
+        sf.setResourceProvider(TikaServerMetrics.class, new SingletonResourceProvider(new TikaServerMetrics(serverStatus)));
+    }
+
+    @Override
+    protected void setUpProviders(JAXRSServerFactoryBean sf) {
+    }
+
+    @Test
+    public void testBasic() throws Exception {
+        serverStatus
+                .getMetrics()
+                .record(ServerMetrics.PHASE.PARSE, "application/pdf", "org.apache.tika.parser.pdf.PDFParser", TimeUnit.MILLISECONDS.toNanos(20));
+        long taskId = serverStatus.start(ServerStatus.TASK.PARSE, null, 60000);
+
+        Response response = WebClient
+                .create(endPoint + METRICS_PATH)
+                .get();
+        assertEquals(200, response.getStatus());
+        String text = getStringFromInputStream((InputStream) response.getEntity());
+        assertTrue(text.contains("tika_parse_seconds_count{mime_type=\"application/pdf\",parser=\"org.apache.tika.parser.pdf.PDFParser\"} 1\n"), text);
+        assertTrue(text.contains("tika_active_tasks 1\n"), text);
+        assertTrue(text.contains("tika_restarts_total 2\n"), text);
+        serverStatus.complete(taskId);
+    }
+}
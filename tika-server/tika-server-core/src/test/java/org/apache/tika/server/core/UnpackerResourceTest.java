@@ -0,0 +1,183 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.tika.server.core;
+
+import static java.nio.charset.StandardCharsets.UTF_8;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import java.io.InputStream;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+import jakarta.ws.rs.core.HttpHeaders;
+import jakarta.ws.rs.core.Response;
+import org.apache.commons.codec.digest.DigestUtils;
+import org.apache.commons.compress.archivers.tar.TarArchiveInputStream;
+import org.apache.cxf.jaxrs.JAXRSServerFactoryBean;
+import org.apache.cxf.jaxrs.client.WebClient;
+import org.apache.cxf.jaxrs.lifecycle.SingletonResourceProvider;
+import org.junit.jupiter.api.Test;
+
+import org.apache.tika.parser.digestutils.CommonsDigester;
+import org.apache.tika.server.core.resource.TikaResource;
+import org.apache.tika.server.core.resource.UnpackerResource;
+import org.apache.tika.server.core.writer.TarWriter;
+import org.apache.tika.server.core.writer.ZipWriter;
+
+public class UnpackerResourceTest extends CXFTestBase {
+
+    private static final String UNPACKER_PATH = "/unpack";
+    private static final String TEST_EMBEDDED = "test-documents/mock/embedded_files.xml";
+    private static final String TEST_HELLO_WORLD = "test-documents/mock/hello_world.xml";
+    private static final String TEST_PASSWORD_PROTECTED = "test-documents/mock/encrypted_document_exception.xml";
+
+    @Override
+    protected void setUpResources(JAXRSServerFactoryBean sf) {
+        sf.setResourceClasses(UnpackerResource.class);
+        sf.setResourceProvider(UnpackerResource.class, new SingletonResourceProvider(new UnpackerResource()));
+    }
+
+    @Override
+    protected void setUpProviders(JAXRSServerFactoryBean sf) {
+        List<Object> providers = new ArrayList<>();
+        providers.add(new TarWriter());
+        providers.add(new ZipWriter());
+        providers.add(new TikaServerParseExceptionMapper(false));
+        sf.setProviders(providers);
+    }
+
+    @Test
+    public void testZip() throws Exception {
+        Response response = WebClient
+                .create(endPoint + UNPACKER_PATH)
+                .accept("application/zip")
+                .put(ClassLoader.getSystemResourceAsStream(TEST_EMBEDDED));
+
+        assertEquals(200, response.getStatus());
+        Map<String, String> data = readZipArchive((InputStream) response.getEntity());
+        assertEquals(2, data.size());
+        assertEquals(md5("first embedded document"), data.get("first.txt"));
+        assertEquals(md5("second embedded document"), data.get("second.txt"));
+    }
+
+    @Test
+    public void testTar() throws Exception {
+        Response response = WebClient
+                .create(endPoint + UNPACKER_PATH)
+                .accept("application/x-tar")
+                .put(ClassLoader.getSystemResourceAsStream(TEST_EMBEDDED));
+
+        assertEquals(200, response.getStatus());
+        Map<String, String> data = readArchiveFromStream(new TarArchiveInputStream((InputStream) response.getEntity()));
+        assertEquals(2, data.size());
+        assertEquals(md5("first embedded document"), data.get("first.txt"));
+        assertEquals(md5("second embedded document"), data.get("second.txt"));
+    }
+
+    @Test
+    public void testAllZip() throws Exception {
+        Response response = WebClient
+                .create(endPoint + UNPACKER_PATH + "/all")
+                .accept("application/zip")
+                .put(ClassLoader.getSystemResourceAsStream(TEST_EMBEDDED));
+
+        assertEquals(200, response.getStatus());
+        Map<String, String> data = readZipArchive((InputStream) response.getEntity());
+        assertEquals(4, data.size());
+        assertEquals(md5("first embedded document"), data.get("first.txt"));
+        assertEquals(md5("second embedded document"), data.get("second.txt"));
+    }
+
+    @Test
+    public void test204() throws Exception {
+        Response response = WebClient
+                .create(endPoint + UNPACKER_PATH)
+                .accept("application/zip")
+                .put(ClassLoader.getSystemResourceAsStream(TEST_HELLO_WORLD));
+
+        assertEquals(204, response.getStatus());
+    }
+
+    @Test
+    public void testEncrypted() throws Exception {
+        Response response = WebClient
+                .create(endPoint + UNPACKER_PATH)
+                .accept("application/zip")
+                .put(ClassLoader.getSystemResourceAsStream(TEST_PASSWORD_PROTECTED));
+
+        assertEquals(422, response.getStatus());
+    }
+
+    @Test
+    public void testMaxBytes() throws Exception {
+        Response response = WebClient
+                .create(endPoint + UNPACKER_PATH)
+                .header(UnpackerResource.UNPACK_MAX_BYTES_KEY, 10)
+                .accept("application/zip")
+                .put(ClassLoader.getSystemResourceAsStream(TEST_EMBEDDED));
+        assertEquals(422, response.getStatus());
+
+        response = WebClient
+                .create(endPoint + UNPACKER_PATH)
+                .header(UnpackerResource.UNPACK_MAX_BYTES_KEY, -1)
+                .accept("application/zip")
+                .put(ClassLoader.getSystemResourceAsStream(TEST_EMBEDDED));
+        assertEquals(200, response.getStatus());
+        assertEquals(2, readZipArchive((InputStream) response.getEntity()).size());
+    }
+
+    @Test
+    public void testParseQueue() throws Exception {
+        ParseQueue parseQueue = new ParseQueue(1, 0, 1000, 7);
+        ServerStatus serverStatus = new ServerStatus("", 0, true);
+        serverStatus.setParseQueue(parseQueue);
+        TikaResource.init(tika, getTikaServerConfig(), new CommonsDigester(DIGESTER_READ_LIMIT, "md5"),
+                getInputStreamFactory(getTikaConfigInputStream()), serverStatus);
+
+        //unpack requests are admitted like any other parse
+        parseQueue.acquire(ParseQueue.DEFAULT_PRIORITY);
+        try {
+            Response response = WebClient
+                    .create(endPoint + UNPACKER_PATH)
+                    .accept("application/zip")
+                    .put(ClassLoader.getSystemResourceAsStream(TEST_EMBEDDED));
+            assertEquals(503, response.getStatus());
+            assertEquals("7", response.getHeaderString(HttpHeaders.RETRY_AFTER));
+        } finally {
+            parseQueue.release();
+        }
+
+        Response response = WebClient
+                .create(endPoint + UNPACKER_PATH)
+                .accept("application/zip")
+                .put(ClassLoader.getSystemResourceAsStream(TEST_EMBEDDED));
+        assertEquals(200, response.getStatus());
+        assertEquals(2, readZipArchive((InputStream) response.getEntity()).size());
+        //the slot is given back once the parse is done, which may be just
+        //after the client has read the last entry
+        long deadline = System.currentTimeMillis() + 10000;
+        while (parseQueue.getNumRunning() > 0 && System.currentTimeMillis() < deadline) {
+            Thread.sleep(10);
+        }
+        assertEquals(0, parseQueue.getNumRunning());
+    }
+
+    private static String md5(String s) {
+        return DigestUtils.md5Hex(s.getBytes(UTF_8));
+    }
+}
@@ -0,0 +1,227 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.tika.server.core;
+
+import static java.nio.charset.StandardCharsets.UTF_8;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStream;
+import java.net.InetAddress;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.Timeout;
+import org.junit.jupiter.api.io.TempDir;
+
+public class WorkerBalancerTest {
+
+    @TempDir
+    Path tempDir;
+
+    private final List<Backend> backends = new ArrayList<>();
+    private final List<MockWatchDog> watchDogs = new ArrayList<>();
+    private final List<Socket> clients = new ArrayList<>();
+    private WorkerBalancer balancer;
+    private int port;
+
+    @BeforeEach
+    public void setUp() throws Exception {
+        for (int i = 0; i < 2; i++) {
+            Backend backend = new Backend("worker" + i);
+            backends.add(backend);
+            watchDogs.add(new MockWatchDog(backend.serverSocket.getLocalPort(), "worker" + i));
+        }
+        balancer = new WorkerBalancer(InetAddress.getLoopbackAddress().getHostAddress(), 0, new ArrayList<>(watchDogs), tempDir.resolve("workers"));
+        balancer.bind();
+        port = balancer.getLocalPort();
+        Thread t = new Thread(balancer);
+        t.setDaemon(true);
+        t.start();
+    }
+
+    @AfterEach
+    public void tearDown() throws Exception {
+        for (Socket client : clients) {
+            client.close();
+        }
+        balancer.close();
+        for (Backend backend : backends) {
+            backend.serverSocket.close();
+        }
+    }
+
+    @Test
+    @Timeout(60000)
+    public void testLeastConnections() throws Exception {
+        BufferedReader first = connect();
+        BufferedReader second = connect();
+        //the first connection is still open, so the second goes elsewhere
+        assertNotEquals(first.readLine(), second.readLine());
+        Map<String, Object> status = balancer
+                .getStatus()
+                .get(0);
+        assertEquals(1, status.get("open_connections"));
+        assertEquals(1L, status.get("connections"));
+    }
+
+    @Test
+    @Timeout(60000)
+    public void testSkipsWorkerThatIsDown() throws Exception {
+        watchDogs
+                .get(0)
+                .running = false;
+        for (int i = 0; i < 3; i++) {
+            assertEquals("worker1", connect().readLine());
+        }
+        //a worker that doesn't accept connections is skipped too
+        watchDogs
+                .get(0)
+                .running = true;
+        backends
+                .get(1)
+                .serverSocket
+                .close();
+        assertEquals("worker0", connect().readLine());
+    }
+
+    @Test
+    @Timeout(60000)
+    public void testNoWorkers() throws Exception {
+        for (MockWatchDog watchDog : watchDogs) {
+            watchDog.running = false;
+        }
+        BufferedReader reader = connect();
+        assertTrue(reader
+                .readLine()
+                .startsWith("HTTP/1.1 503"));
+    }
+
+    @Test
+    @Timeout(60000)
+    public void testProxiesBothWays() throws Exception {
+        Socket socket = new Socket(InetAddress.getLoopbackAddress(), port);
+        clients.add(socket);
+        BufferedReader reader = new BufferedReader(new InputStreamReader(socket.getInputStream(), UTF_8));
+        reader.readLine();
+        OutputStream os = socket.getOutputStream();
+        os.write("hello\n".getBytes(UTF_8));
+        os.flush();
+        assertEquals("hello", reader.readLine());
+        socket.shutdownOutput();
+        //the backend sees the half close and closes its end
+        assertEquals(null, reader.readLine());
+    }
+
+    @Test
+    public void testStatusFile() throws Exception {
+        Path p = tempDir.resolve("status");
+        WorkersStatusFile.write(p, balancer.getStatus());
+        List<Map<String, Object>> status = WorkersStatusFile.read(p);
+        assertEquals(2, status.size());
+        assertEquals("worker1", status
+                .get(1)
+                .get("id"));
+        assertEquals((long) backends
+                .get(1)
+                .serverSocket
+                .getLocalPort(), status
+                .get(1)
+                .get("port"));
+        assertEquals(0, WorkersStatusFile
+                .read(tempDir.resolve("missing"))
+                .size());
+        assertTrue(Files.exists(p));
+    }
+
+    private BufferedReader connect() throws IOException {
+        Socket socket = new Socket(InetAddress.getLoopbackAddress(), port);
+        clients.add(socket);
+        return new BufferedReader(new InputStreamReader(socket.getInputStream(), UTF_8));
+    }
+
+    private static class MockWatchDog extends TikaServerWatchDog {
+        private volatile boolean running = true;
+
+        MockWatchDog(int port, String id) {
+            super(port, id, TikaServerConfig.load());
+        }
+
+        @Override
+        boolean isRunning() {
+            return running;
+        }
+    }
+
+    /**
+     * Greets each connection with its name, then echoes lines.
+     */
+    private static class Backend implements Runnable {
+        private final String name;
+        private final ServerSocket serverSocket;
+
+        Backend(String name) throws IOException {
+            this.name = name;
+            this.serverSocket = new ServerSocket(0, 50, InetAddress.getLoopbackAddress());
+            Thread t = new Thread(this);
+            t.setDaemon(true);
+            t.start();
+        }
+
+        @Override
+        public void run() {
+            try {
+                while (true) {
+                    Socket s = serverSocket.accept();
+                    Thread t = new Thread(() -> serve(s));
+                    t.setDaemon(true);
+                    t.start();
+                }
+            } catch (IOException e) {
+                //closed
+            }
+        }
+
+        private void serve(Socket s) {
+            try (Socket socket = s) {
+                OutputStream os = socket.getOutputStream();
+                os.write((name + "\n").getBytes(UTF_8));
+                os.flush();
+                BufferedReader reader = new BufferedReader(new InputStreamReader(socket.getInputStream(), UTF_8));
+                String line;
+                while ((line = reader.readLine()) != null) {
+                    os.write((line + "\n").getBytes(UTF_8));
+                    os.flush();
+                }
+            } catch (IOException e) {
+                //closed
+            }
+        }
+    }
+}
@@ -0,0 +1,122 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.tika.server.core.metrics;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.StringWriter;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.jupiter.api.Test;
+
+import org.apache.tika.metadata.Metadata;
+import org.apache.tika.metadata.TikaCoreProperties;
+
+public class ServerMetricsTest {
+
+    @Test
+    public void testBuckets() throws Exception {
+        assertEquals(0, LatencyHistogram.bucket(0));
+        assertEquals(0, LatencyHistogram.bucket(100));
+        assertEquals(1, LatencyHistogram.bucket(101));
+        assertEquals(3, LatencyHistogram.bucket(1000));
+        assertEquals(LatencyHistogram.BOUNDS_MICROS.length, LatencyHistogram.bucket(Long.MAX_VALUE));
+
+        LatencyHistogram histogram = new LatencyHistogram();
+        histogram.record(TimeUnit.MILLISECONDS.toNanos(2));
+        histogram.record(TimeUnit.MILLISECONDS.toNanos(2));
+        histogram.record(TimeUnit.HOURS.toNanos(1));
+        long[] counts = histogram.getCounts();
+        assertEquals(2, counts[LatencyHistogram.bucket(2000)]);
+        assertEquals(1, counts[counts.length - 1]);
+        assertEquals(4000 + 3_600_000_000L, histogram.getSumMicros());
+    }
+
+    @Test
+    public void testSeries() throws Exception {
+        ServerMetrics metrics = new ServerMetrics();
+        Metadata metadata = new Metadata();
+        metadata.set(Metadata.CONTENT_TYPE, "text/plain; charset=UTF-8");
+        metadata.add(TikaCoreProperties.TIKA_PARSED_BY, "org.apache.tika.parser.DefaultParser");
+        metadata.add(TikaCoreProperties.TIKA_PARSED_BY, "org.apache.tika.parser.csv.TextAndCSVParser");
+        metrics.record(ServerMetrics.PHASE.PARSE, metadata, 1_000_000);
+        metrics.record(ServerMetrics.PHASE.PARSE, new Metadata(), 1_000_000);
+
+        assertEquals(1, metrics
+                .getHistogram(ServerMetrics.PHASE.PARSE, "text/plain", "org.apache.tika.parser.csv.TextAndCSVParser")
+                .getCounts()[LatencyHistogram.bucket(1000)]);
+        assertEquals(1, metrics
+                .getHistogram(ServerMetrics.PHASE.PARSE, null, null)
+                .getCounts()[LatencyHistogram.bucket(1000)]);
+        assertNull(metrics.getHistogram(ServerMetrics.PHASE.WRITE, "text/plain", "org.apache.tika.parser.csv.TextAndCSVParser"));
+    }
+
+    @Test
+    public void testConcurrentRecording() throws Exception {
+        ServerMetrics metrics = new ServerMetrics();
+        int numThreads = 8;
+        int perThread = 10000;
+        ExecutorService executor = Executors.newFixedThreadPool(numThreads);
+        for (int i = 0; i < numThreads; i++) {
+            executor.execute(() -> {
+                for (int j = 0; j < perThread; j++) {
+                    metrics.record(ServerMetrics.PHASE.DETECT, "application/pdf", "detector", j * 1000L);
+                    metrics.addBytesIn(2);
+                }
+            });
+        }
+        executor.shutdown();
+        assertTrue(executor.awaitTermination(1, TimeUnit.MINUTES));
+        long total = 0;
+        for (long c : metrics
+                .getHistogram(ServerMetrics.PHASE.DETECT, "application/pdf", "detector")
+                .getCounts()) {
+            total += c;
+        }
+        assertEquals(numThreads * perThread, total);
+        assertEquals(2L * numThreads * perThread, metrics.getBytesIn());
+    }
+
+    @Test
+    public void testPrometheusFormat() throws Exception {
+        ServerMetrics metrics = new ServerMetrics();
+        metrics.record(ServerMetrics.PHASE.PARSE, "application/pdf", "org.apache.tika.parser.pdf.PDFParser", TimeUnit.MILLISECONDS.toNanos(3));
+        metrics.record(ServerMetrics.PHASE.DETECT, "not a media type", "my\"detector", 0);
+        metrics.addPreviousFailures(2, 1);
+        metrics.timeout();
+        metrics.addCharsOut(42);
+
+        StringWriter writer = new StringWriter();
+        metrics.writePrometheus(writer);
+        String text = writer.toString();
+        String labels = "mime_type=\"application/pdf\",parser=\"org.apache.tika.parser.pdf.PDFParser\"";
+        assertTrue(text.contains("# TYPE tika_parse_seconds histogram\n"), text);
+        assertTrue(text.contains("tika_parse_seconds_bucket{" + labels + ",le=\"0.002500\"} 0\n"), text);
+        assertTrue(text.contains("tika_parse_seconds_bucket{" + labels + ",le=\"0.005000\"} 1\n"), text);
+        assertTrue(text.contains("tika_parse_seconds_bucket{" + labels + ",le=\"+Inf\"} 1\n"), text);
+        assertTrue(text.contains("tika_parse_seconds_sum{" + labels + "} 0.003000\n"), text);
+        assertTrue(text.contains("tika_parse_seconds_count{" + labels + "} 1\n"), text);
+        assertTrue(text.contains("tika_detect_seconds_count{mime_type=\"unknown\",detector=\"my\\\"detector\"} 1\n"), text);
+        assertTrue(text.contains("tika_timeouts_total 3\n"), text);
+        assertTrue(text.contains("tika_ooms_total 1\n"), text);
+        assertTrue(text.contains("tika_characters_out_total 42\n"), text);
+    }
+}